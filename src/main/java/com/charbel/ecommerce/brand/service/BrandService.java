@@ -6,6 +6,9 @@ import com.charbel.ecommerce.brand.dto.UpdateBrandRequest;
 import com.charbel.ecommerce.brand.entity.Brand;
 import com.charbel.ecommerce.brand.repository.BrandRepository;
 import com.charbel.ecommerce.cdn.service.CdnService;
+import com.charbel.ecommerce.product.service.CatalogCache;
+import com.charbel.ecommerce.product.service.ProductFacetIndex;
+import com.charbel.ecommerce.product.service.ProductSearchIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -24,6 +27,9 @@ public class BrandService {
 
 	private final BrandRepository brandRepository;
 	private final CdnService cdnService;
+	private final ProductFacetIndex productFacetIndex;
+	private final ProductSearchIndex productSearchIndex;
+	private final CatalogCache catalogCache;
 
 	public List<BrandResponse> getAllBrands() {
 		return brandRepository.findAllAndNotDeleted().stream().map(BrandResponse::fromEntity).collect(Collectors.toList());
@@ -72,6 +78,7 @@ public class BrandService {
 				.build();
 
 		brand = brandRepository.save(brand);
+		catalogCache.invalidateBrandAfterCommit(brand.getId(), List.of(brand.getSlug()));
 		log.info("Brand created successfully with id: {}", brand.getId());
 
 		return BrandResponse.fromEntity(brand);
@@ -92,6 +99,7 @@ public class BrandService {
 			throw new RuntimeException("Brand already exists with slug: " + request.getSlug());
 		}
 
+		String oldSlug = brand.getSlug();
 		String oldLogoUrl = brand.getLogoUrl();
 		String newLogoUrl = oldLogoUrl;
 
@@ -119,6 +127,9 @@ public class BrandService {
 		brand.setWebsiteUrl(request.getWebsiteUrl());
 
 		brand = brandRepository.save(brand);
+		productFacetIndex.refreshAllAfterCommit();
+		productSearchIndex.rebuildAfterCommit();
+		catalogCache.invalidateBrandAfterCommit(id, List.of(oldSlug, brand.getSlug()));
 		log.info("Brand updated successfully");
 
 		return BrandResponse.fromEntity(brand);
@@ -133,6 +144,9 @@ public class BrandService {
 
 		brand.softDelete();
 		brandRepository.save(brand);
+		productFacetIndex.refreshAllAfterCommit();
+		productSearchIndex.rebuildAfterCommit();
+		catalogCache.invalidateBrandAfterCommit(id, List.of(brand.getSlug()));
 		log.info("Brand soft deleted successfully");
 	}
 }
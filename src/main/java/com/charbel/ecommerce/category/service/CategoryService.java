@@ -1,13 +1,19 @@
 package com.charbel.ecommerce.category.service;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -223,9 +229,40 @@ public class CategoryService {
 		Pageable pageable = PageRequest.of(page, size);
 		Page<Category> categoriesPage = categoryRepository.findLeafCategoriesPageable(pageable);
 
-		List<CategoryWithProductsResponse> categoriesWithProducts = categoriesPage.getContent().stream()
-				.map(this::mapToCategoryWithProducts)
-				.filter(categoryResponse -> !categoryResponse.getProducts().isEmpty()).collect(Collectors.toList());
+		// Get up to 10 product ids per category, then load and map all of them in one batch
+		Pageable productPageable = PageRequest.of(0, 10, Sort.by("id"));
+		Map<UUID, List<UUID>> productIdsByCategoryId = new LinkedHashMap<>();
+		List<UUID> allProductIds = new ArrayList<>();
+		for (Category category : categoriesPage.getContent()) {
+			List<UUID> productIds = productRepository.findProductIdsByCategoryId(category.getId(), productPageable)
+					.getContent();
+			productIdsByCategoryId.put(category.getId(), productIds);
+			allProductIds.addAll(productIds);
+		}
+		Map<UUID, Product> productsById = allProductIds.isEmpty() ? Map.of()
+				: productRepository.findAllWithDetailsByIdIn(allProductIds).stream()
+						.collect(Collectors.toMap(Product::getId, Function.identity()));
+
+		Map<UUID, List<Product>> productsByCategoryId = new LinkedHashMap<>();
+		List<Product> allProducts = new ArrayList<>();
+		productIdsByCategoryId.forEach((categoryId, productIds) -> {
+			List<Product> products = productIds.stream().map(productsById::get).filter(Objects::nonNull)
+					.collect(Collectors.toList());
+			productsByCategoryId.put(categoryId, products);
+			allProducts.addAll(products);
+		});
+
+		List<ProductResponse> allResponses = productResponseMapper.mapAll(allProducts);
+		List<CategoryWithProductsResponse> categoriesWithProducts = new ArrayList<>();
+		int offset = 0;
+		for (Category category : categoriesPage.getContent()) {
+			int count = productsByCategoryId.get(category.getId()).size();
+			if (count > 0) {
+				categoriesWithProducts.add(mapToCategoryWithProducts(category,
+						allResponses.subList(offset, offset + count)));
+			}
+			offset += count;
+		}
 
 		return PaginatedCategoriesResponse.builder().categories(categoriesWithProducts)
 				.currentPage(categoriesPage.getNumber()).totalPages(categoriesPage.getTotalPages())
@@ -276,15 +313,7 @@ public class CategoryService {
 		return response;
 	}
 
-	private CategoryWithProductsResponse mapToCategoryWithProducts(Category category) {
-		// Get up to 10 products for this category
-		Pageable productPageable = PageRequest.of(0, 10);
-		Page<Product> productsPage = productRepository.findProductsByCategoryId(category.getId(), productPageable);
-
-		List<ProductResponse> products = productsPage.getContent().stream()
-				.map(productResponseMapper::mapToProductResponse)
-				.collect(Collectors.toList());
-
+	private CategoryWithProductsResponse mapToCategoryWithProducts(Category category, List<ProductResponse> products) {
 		return CategoryWithProductsResponse.builder().id(category.getId()).name(category.getName())
 				.slug(category.getSlug()).description(category.getDescription()).imageUrl(category.getImageUrl())
 				.parentId(category.getParentId()).level(category.getLevel()).sortOrder(category.getSortOrder())
@@ -0,0 +1,7 @@
+package com.charbel.ecommerce.common.enums;
+
+public enum SuggestionType {
+    PRODUCT,
+    BRAND,
+    CATEGORY
+}
@@ -0,0 +1,97 @@
+package com.charbel.ecommerce.common.money;
+
+import java.math.BigDecimal;
+
+/**
+ * Monetary amount held as a {@code long} count of minor units (cents).
+ *
+ * Used for order and bill arithmetic instead of chains of {@link BigDecimal}
+ * temporaries. Every operation that can produce a fraction of a cent rounds
+ * HALF_UP, exactly like {@code BigDecimal.divide(divisor, 2, RoundingMode.HALF_UP)},
+ * and overflow throws {@link ArithmeticException}. Convert with {@link #of} and
+ * {@link #toBigDecimal()} only at the persistence and DTO boundary.
+ */
+public record Money(long minorUnits) implements Comparable<Money> {
+
+	public static final Money ZERO = new Money(0);
+
+	private static final int SCALE = 2;
+	private static final long PERCENT_DIVISOR = 100L * 100L;
+
+	public static Money ofMinor(long minorUnits) {
+		return new Money(minorUnits);
+	}
+
+	/**
+	 * Converts an amount with at most two decimal places. Amounts with sub-cent
+	 * digits are rejected rather than silently rounded.
+	 */
+	public static Money of(BigDecimal amount) {
+		return new Money(toMinorUnits(amount));
+	}
+
+	/**
+	 * Returns the value scaled by 100 as an exact {@code long}, e.g. 12.34 becomes
+	 * 1234. Also used to express percentages in hundredths of a percent.
+	 */
+	public static long toMinorUnits(BigDecimal value) {
+		return value.movePointRight(SCALE).longValueExact();
+	}
+
+	public Money plus(Money other) {
+		return new Money(Math.addExact(minorUnits, other.minorUnits));
+	}
+
+	public Money minus(Money other) {
+		return new Money(Math.subtractExact(minorUnits, other.minorUnits));
+	}
+
+	public Money times(long quantity) {
+		return new Money(Math.multiplyExact(minorUnits, quantity));
+	}
+
+	/** Divides by a whole number, rounding HALF_UP to the cent. */
+	public Money dividedBy(long divisor) {
+		return new Money(divideHalfUp(minorUnits, divisor));
+	}
+
+	/**
+	 * Applies a percentage given in hundredths of a percent (2500 for 25.00%),
+	 * rounding HALF_UP to the cent.
+	 */
+	public Money percentage(long hundredthsOfPercent) {
+		return new Money(divideHalfUp(Math.multiplyExact(minorUnits, hundredthsOfPercent), PERCENT_DIVISOR));
+	}
+
+	public Money min(Money other) {
+		return compareTo(other) <= 0 ? this : other;
+	}
+
+	public boolean isLessThan(Money other) {
+		return minorUnits < other.minorUnits;
+	}
+
+	public BigDecimal toBigDecimal() {
+		return BigDecimal.valueOf(minorUnits, SCALE);
+	}
+
+	@Override
+	public int compareTo(Money other) {
+		return Long.compare(minorUnits, other.minorUnits);
+	}
+
+	@Override
+	public String toString() {
+		return toBigDecimal().toPlainString();
+	}
+
+	// HALF_UP: ties round away from zero, matching RoundingMode.HALF_UP
+	private static long divideHalfUp(long dividend, long divisor) {
+		long quotient = dividend / divisor;
+		long remainder = dividend % divisor;
+		if (Math.abs(remainder) >= Math.abs(divisor) - Math.abs(remainder)) {
+			quotient += Long.signum(dividend) * Long.signum(divisor);
+		}
+		return quotient;
+	}
+}
@@ -17,6 +17,7 @@ import com.charbel.ecommerce.product.repository.ProductRepository;
 import com.charbel.ecommerce.product.repository.ProductVariantRepository;
 import com.charbel.ecommerce.review.entity.Review;
 import com.charbel.ecommerce.review.entity.ReviewImage;
+import com.charbel.ecommerce.review.repository.ProductRatingStatsRepository;
 import com.charbel.ecommerce.review.repository.ReviewImageRepository;
 import com.charbel.ecommerce.review.repository.ReviewRepository;
 import com.charbel.ecommerce.review.repository.ReviewHelpfulVoteRepository;
@@ -58,6 +59,7 @@ public class DataSeeder implements CommandLineRunner {
     private final ReviewRepository reviewRepository;
     private final ReviewImageRepository reviewImageRepository;
     private final ReviewHelpfulVoteRepository reviewHelpfulVoteRepository;
+    private final ProductRatingStatsRepository productRatingStatsRepository;
     private final AddressRepository addressRepository;
     private final OrderRepository orderRepository;
     private final RefreshTokenRepository refreshTokenRepository;
@@ -118,6 +120,7 @@ public class DataSeeder implements CommandLineRunner {
         reviewHelpfulVoteRepository.deleteAll();
         reviewImageRepository.deleteAll();
         reviewRepository.deleteAll();
+        productRatingStatsRepository.deleteAll();
         
         // Clear order related data
         orderRepository.findAllOrdersWithDetails().forEach(order -> {
@@ -1388,6 +1391,7 @@ public class DataSeeder implements CommandLineRunner {
             
             product.setReviewCount(reviewCount);
             product.setAverageRating(averageRating);
+            productRatingStatsRepository.createIfAbsent(product.getId());
         }
         
         productRepository.saveAll(products);
@@ -135,7 +135,7 @@ public class EventController {
 			
 			// Map products using the centralized mapper for complete data
 			List<ProductResponse> products = event.getProducts() != null
-				? event.getProducts().stream().map(productResponseMapper::mapToProductResponse).collect(Collectors.toList())
+				? productResponseMapper.mapAll(List.copyOf(event.getProducts()))
 				: List.of();
 			
 			// Map single discount
@@ -168,7 +168,7 @@ public class EventController {
 			List<AdminEventResponse> eventResponses = events.getContent().stream().map(event -> {
 				// Map products using the centralized mapper for complete data
 				List<ProductResponse> products = event.getProducts() != null
-					? event.getProducts().stream().map(productResponseMapper::mapToProductResponse).collect(Collectors.toList())
+					? productResponseMapper.mapAll(List.copyOf(event.getProducts()))
 					: List.of();
 				
 				// Map single discount
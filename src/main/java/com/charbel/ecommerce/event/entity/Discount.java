@@ -1,6 +1,7 @@
 package com.charbel.ecommerce.event.entity;
 
 import com.charbel.ecommerce.common.entity.BaseEntity;
+import com.charbel.ecommerce.common.money.Money;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -9,7 +10,6 @@ import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.UUID;
 
 @Entity
@@ -50,20 +50,24 @@ public class Discount extends BaseEntity {
 	}
 
 	public BigDecimal calculateDiscountAmount(BigDecimal totalAmount) {
-		if (minPurchaseAmount != null && totalAmount.compareTo(minPurchaseAmount) < 0) {
-			return BigDecimal.ZERO;
+		return calculateDiscountAmount(Money.of(totalAmount)).toBigDecimal();
+	}
+
+	public Money calculateDiscountAmount(Money totalAmount) {
+		if (minPurchaseAmount != null && totalAmount.isLessThan(Money.of(minPurchaseAmount))) {
+			return Money.ZERO;
 		}
 
-		BigDecimal discountAmount;
+		Money discountAmount;
 		if (type == DiscountType.PERCENTAGE) {
 			// For percentage, value represents the percentage (e.g., 25.00 for 25%)
-			discountAmount = totalAmount.multiply(value).divide(new BigDecimal("100"), 2, RoundingMode.HALF_UP);
-			if (maxDiscountAmount != null && discountAmount.compareTo(maxDiscountAmount) > 0) {
-				discountAmount = maxDiscountAmount;
+			discountAmount = totalAmount.percentage(Money.toMinorUnits(value));
+			if (maxDiscountAmount != null) {
+				discountAmount = discountAmount.min(Money.of(maxDiscountAmount));
 			}
 		} else {
 			// For fixed amount, value is the discount amount in dollars
-			discountAmount = value;
+			discountAmount = Money.of(value);
 		}
 
 		return discountAmount.min(totalAmount);
@@ -59,13 +59,11 @@ public interface EventRepository extends JpaRepository<Event, UUID> {
 
 	@Query("SELECT DISTINCT e FROM Event e " +
 		   "JOIN FETCH e.discounts d " +
-		   "JOIN e.products p " +
+		   "JOIN FETCH e.products p " +
 		   "WHERE e.isDeleted = false " +
-		   "AND p.id IN :productIds " +
 		   "AND e.status = 'ACTIVE' " +
-		   "AND :now BETWEEN e.startDate AND e.endDate")
-	List<Event> findActiveEventsWithDiscountsForProducts(@Param("productIds") List<UUID> productIds, 
-														  @Param("now") LocalDateTime now);
+		   "AND e.endDate >= :now")
+	List<Event> findCurrentAndUpcomingEventsWithDiscountsAndProducts(@Param("now") LocalDateTime now);
 
 	@Query("SELECT e FROM Event e WHERE e.isDeleted = false AND e.id = :id")
 	Optional<Event> findByIdAndNotDeleted(@Param("id") UUID id);
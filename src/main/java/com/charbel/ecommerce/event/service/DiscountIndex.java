@@ -0,0 +1,180 @@
+package com.charbel.ecommerce.event.service;
+
+import com.charbel.ecommerce.event.entity.Discount;
+import com.charbel.ecommerce.event.entity.Event;
+import com.charbel.ecommerce.event.repository.EventRepository;
+import com.charbel.ecommerce.product.entity.Product;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * In-memory productId to active discount index used when pricing bills, orders
+ * and product responses.
+ *
+ * The index is an immutable snapshot swapped atomically on rebuild. It is rebuilt
+ * after every event or discount change made through {@link EventService}, whenever
+ * an event starts or ends, and periodically to pick up changes made by other
+ * instances. A lookup that lands past the next start/end boundary rebuilds
+ * synchronously, so discounts switch on and off exactly on time.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DiscountIndex {
+
+	private static final Comparator<ActiveDiscount> PRECEDENCE = Comparator
+			.comparing(ActiveDiscount::eventStartDate)
+			.thenComparing(ActiveDiscount::eventId);
+
+	private final EventRepository eventRepository;
+	private final PlatformTransactionManager transactionManager;
+
+	private volatile Snapshot snapshot;
+
+	/** Active discount for each of the given products that has one. */
+	public Map<UUID, Discount> findDiscounts(Collection<UUID> productIds) {
+		Snapshot current = currentSnapshot();
+		Map<UUID, Discount> discounts = new HashMap<>();
+		for (UUID productId : productIds) {
+			ActiveDiscount activeDiscount = current.discountsByProductId().get(productId);
+			if (activeDiscount != null) {
+				discounts.put(productId, activeDiscount.discount());
+			}
+		}
+		return discounts;
+	}
+
+	public Optional<ActiveDiscount> findActiveDiscount(UUID productId) {
+		return Optional.ofNullable(currentSnapshot().discountsByProductId().get(productId));
+	}
+
+	/**
+	 * Rebuilds the index once the current transaction commits, or immediately when
+	 * called outside a transaction.
+	 *
+	 * After commit the committed transaction's persistence context is still bound,
+	 * and re-reading through it would return the stale managed events and discounts
+	 * (bulk JPQL updates such as soft-deleting discounts bypass it). The rebuild
+	 * therefore runs in a new read-only transaction with its own persistence context.
+	 */
+	public void rebuildAfterCommit() {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			rebuild();
+			return;
+		}
+
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				TransactionTemplate freshContext = new TransactionTemplate(transactionManager);
+				freshContext.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+				freshContext.setReadOnly(true);
+				freshContext.executeWithoutResult(status -> rebuild());
+			}
+		});
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	@Scheduled(fixedDelayString = "${discounts.index.refresh-interval:300000}",
+			initialDelayString = "${discounts.index.refresh-interval:300000}")
+	public synchronized void rebuild() {
+		LocalDateTime now = LocalDateTime.now();
+		List<Event> events = eventRepository.findCurrentAndUpcomingEventsWithDiscountsAndProducts(now);
+
+		Map<UUID, ActiveDiscount> discountsByProductId = new HashMap<>();
+		LocalDateTime nextBoundary = LocalDateTime.MAX;
+
+		for (Event event : events) {
+			if (event.getStartDate().isAfter(now)) {
+				nextBoundary = min(nextBoundary, event.getStartDate());
+				continue;
+			}
+			nextBoundary = min(nextBoundary, event.getEndDate().plusNanos(1));
+
+			Optional<Discount> discount = event.getDiscounts().stream()
+					.filter(candidate -> !candidate.isDeleted())
+					.min(Comparator.comparing(Discount::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder()))
+							.thenComparing(Discount::getId));
+			if (discount.isEmpty()) {
+				continue;
+			}
+
+			ActiveDiscount activeDiscount = new ActiveDiscount(event.getId(), event.getName(), event.getStartDate(),
+					event.getEndDate(), copyOf(discount.get()));
+			for (Product product : event.getProducts()) {
+				if (!product.isDeleted()) {
+					// Should events ever overlap, the most recently started one wins
+					discountsByProductId.merge(product.getId(), activeDiscount,
+							(existing, candidate) -> PRECEDENCE.compare(candidate, existing) > 0 ? candidate : existing);
+				}
+			}
+		}
+
+		snapshot = new Snapshot(Map.copyOf(discountsByProductId), nextBoundary);
+		log.debug("Rebuilt discount index with {} discounted products, next boundary at {}",
+				discountsByProductId.size(), nextBoundary);
+	}
+
+	@Scheduled(fixedDelayString = "${discounts.index.boundary-check-interval:1000}")
+	public void rebuildAtBoundary() {
+		Snapshot current = snapshot;
+		if (current != null && !LocalDateTime.now().isBefore(current.nextBoundary())) {
+			rebuild();
+		}
+	}
+
+	private Snapshot currentSnapshot() {
+		Snapshot current = snapshot;
+		if (current == null || !LocalDateTime.now().isBefore(current.nextBoundary())) {
+			synchronized (this) {
+				current = snapshot;
+				if (current == null || !LocalDateTime.now().isBefore(current.nextBoundary())) {
+					rebuild();
+					current = snapshot;
+				}
+			}
+		}
+		return current;
+	}
+
+	// Detached copy so the shared snapshot never holds a managed entity or lazy proxy
+	private static Discount copyOf(Discount discount) {
+		return Discount.builder()
+				.id(discount.getId())
+				.eventId(discount.getEventId())
+				.type(discount.getType())
+				.value(discount.getValue())
+				.minPurchaseAmount(discount.getMinPurchaseAmount())
+				.maxDiscountAmount(discount.getMaxDiscountAmount())
+				.build();
+	}
+
+	private static LocalDateTime min(LocalDateTime first, LocalDateTime second) {
+		return first.isBefore(second) ? first : second;
+	}
+
+	public record ActiveDiscount(UUID eventId, String eventName, LocalDateTime eventStartDate,
+			LocalDateTime eventEndDate, Discount discount) {
+	}
+
+	private record Snapshot(Map<UUID, ActiveDiscount> discountsByProductId, LocalDateTime nextBoundary) {
+	}
+}
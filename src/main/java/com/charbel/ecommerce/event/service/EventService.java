@@ -5,6 +5,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -19,6 +20,7 @@ import com.charbel.ecommerce.event.repository.DiscountRepository;
 import com.charbel.ecommerce.event.repository.EventRepository;
 import com.charbel.ecommerce.product.entity.Product;
 import com.charbel.ecommerce.product.repository.ProductRepository;
+import com.charbel.ecommerce.product.service.CatalogCache;
 
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
@@ -33,6 +35,8 @@ public class EventService {
 	private final DiscountRepository discountRepository;
 	private final ProductRepository productRepository;
 	private final CdnService cdnService;
+	private final DiscountIndex discountIndex;
+	private final CatalogCache catalogCache;
 
 	@Transactional
 	public Event createEvent(Event event, List<Discount> discounts, MultipartFile imageFile) throws IOException {
@@ -63,6 +67,8 @@ public class EventService {
 			savedEvent.setDiscounts(discounts);
 		}
 
+		discountIndex.rebuildAfterCommit();
+		invalidateCatalogPages(savedEvent);
 		log.info("Created event: {} with ID: {}", savedEvent.getName(), savedEvent.getId());
 		return savedEvent;
 	}
@@ -129,6 +135,8 @@ public class EventService {
 		}
 
 		Event savedEvent = eventRepository.save(existingEvent);
+		discountIndex.rebuildAfterCommit();
+		invalidateCatalogPages(savedEvent);
 		log.info("Updated event: {} with ID: {}", savedEvent.getName(), savedEvent.getId());
 		return savedEvent;
 	}
@@ -144,6 +152,8 @@ public class EventService {
 		// Soft delete event
 		event.softDelete();
 		eventRepository.save(event);
+		discountIndex.rebuildAfterCommit();
+		invalidateCatalogPages(event);
 		log.info("Soft deleted event: {} with ID: {}", event.getName(), eventId);
 	}
 
@@ -186,6 +196,8 @@ public class EventService {
 
 		event.getProducts().addAll(products);
 		Event savedEvent = eventRepository.save(event);
+		discountIndex.rebuildAfterCommit();
+		catalogCache.invalidateProductsAfterCommit(productIds);
 		log.info("Added {} products to event: {}", products.size(), event.getName());
 		return savedEvent;
 	}
@@ -198,6 +210,8 @@ public class EventService {
 		List<Product> products = productRepository.findAllById(productIds);
 		event.getProducts().removeAll(products);
 		Event savedEvent = eventRepository.save(event);
+		discountIndex.rebuildAfterCommit();
+		catalogCache.invalidateProductsAfterCommit(productIds);
 		log.info("Removed {} products from event: {}", products.size(), event.getName());
 		return savedEvent;
 	}
@@ -209,6 +223,14 @@ public class EventService {
 		return discountRepository.findByEventId(eventId);
 	}
 
+	// Listing pages show each product's event name, dates and discount
+	private void invalidateCatalogPages(Event event) {
+		if (event.getProducts() != null && !event.getProducts().isEmpty()) {
+			catalogCache.invalidateProductsAfterCommit(
+					event.getProducts().stream().map(Product::getId).collect(Collectors.toSet()));
+		}
+	}
+
 	private void validateDiscountConflict(LocalDateTime startDate, LocalDateTime endDate) {
 		if (eventRepository.existsActiveEventWithDiscountInDateRange(startDate, endDate)) {
 			throw new IllegalArgumentException("Cannot create event with discount. Another active event with discount already exists in the specified time period");
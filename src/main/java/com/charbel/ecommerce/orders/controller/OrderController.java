@@ -1,5 +1,10 @@
 package com.charbel.ecommerce.orders.controller;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -8,6 +13,7 @@ import java.util.UUID;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -28,11 +34,13 @@ import com.charbel.ecommerce.orders.dto.PaginatedAdminOrdersResponse;
 import com.charbel.ecommerce.orders.dto.PaginatedOrdersResponse;
 import com.charbel.ecommerce.orders.dto.UpdateOrderStatusRequest;
 import com.charbel.ecommerce.orders.entity.Order.OrderStatus;
+import com.charbel.ecommerce.orders.service.OrderExportService;
 import com.charbel.ecommerce.orders.service.OrderService;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -45,10 +53,11 @@ import lombok.extern.slf4j.Slf4j;
 public class OrderController {
 
 	private final OrderService orderService;
+	private final OrderExportService orderExportService;
 
 	@PostMapping("/orders")
 	@PreAuthorize("hasRole('CUSTOMER') or hasRole('ADMIN')")
-	@Operation(summary = "Create a new order", description = "Creates a new order for the authenticated customer", security = @SecurityRequirement(name = "bearerAuth"))
+	@Operation(summary = "Create a new order", description = "Creates a new order for the authenticated customer. Send a unique Idempotency-Key header to make retries safe: a repeated request with the same key replays the original response instead of placing another order. Item images are not included in this response; fetch the order to get them.", security = @SecurityRequirement(name = "bearerAuth"))
 	public ResponseEntity<CreateOrderResponse> createOrder(@Valid @RequestBody CreateOrderRequest request) {
 		log.info("Creating new order with {} items", request.getItems().size());
 		CreateOrderResponse response = orderService.createOrder(request);
@@ -57,45 +66,31 @@ public class OrderController {
 
 	@GetMapping("/orders/me")
 	@PreAuthorize("hasRole('CUSTOMER') or hasRole('ADMIN')")
-	@Operation(summary = "Get current user's orders", description = "Returns paginated orders for the authenticated customer, optionally filtered by status(es). Multiple statuses can be provided: ?status=PENDING,SHIPPED or ?status=PENDING&status=SHIPPED", security = @SecurityRequirement(name = "bearerAuth"))
+	@Operation(summary = "Get current user's orders", description = "Returns paginated orders for the authenticated customer, optionally filtered by status(es). Multiple statuses can be provided: ?status=PENDING,SHIPPED or ?status=PENDING&status=SHIPPED. Pass the nextCursor from a previous response as ?cursor= to page newest-first without offsets.", security = @SecurityRequirement(name = "bearerAuth"))
 	public ResponseEntity<PaginatedOrdersResponse> getUserOrders(
 			@RequestParam(required = false, name = "status") String[] statusArray,
 			@RequestParam(defaultValue = "0") int page,
 			@RequestParam(defaultValue = "10") int size,
 			@RequestParam(defaultValue = "createdAt") String sort,
-			@RequestParam(defaultValue = "desc") String direction) {
+			@RequestParam(defaultValue = "desc") String direction,
+			@RequestParam(required = false) String cursor) {
 		log.info("Received status parameters: {}", statusArray != null ? Arrays.toString(statusArray) : "null");
 
 		// Create pagination object
 		Sort.Direction sortDirection = "desc".equalsIgnoreCase(direction) ? Sort.Direction.DESC : Sort.Direction.ASC;
 		Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sort));
 
-		if (statusArray != null && statusArray.length > 0) {
-			List<OrderStatus> statuses = new ArrayList<>();
-			for (String statusStr : statusArray) {
-				// Handle comma-separated values in a single parameter
-				if (statusStr.contains(",")) {
-					for (String individualStatus : statusStr.split(",")) {
-						try {
-							statuses.add(OrderStatus.valueOf(individualStatus.trim()));
-						} catch (IllegalArgumentException e) {
-							log.warn("Invalid order status: {}", individualStatus.trim());
-						}
-					}
-				} else {
-					try {
-						statuses.add(OrderStatus.valueOf(statusStr.trim()));
-					} catch (IllegalArgumentException e) {
-						log.warn("Invalid order status: {}", statusStr.trim());
-					}
-				}
-			}
+		List<OrderStatus> statuses = parseStatuses(statusArray);
 
-			if (!statuses.isEmpty()) {
-				log.info("Fetching orders for current user with statuses: {}", statuses);
-				PaginatedOrdersResponse response = orderService.getUserOrdersByStatusesPaginated(statuses, pageable);
-				return ResponseEntity.ok(response);
-			}
+		if (cursor != null && !cursor.isBlank()) {
+			log.info("Fetching orders for current user after cursor");
+			return ResponseEntity.ok(orderService.getUserOrdersAfterCursor(statuses, cursor, size));
+		}
+
+		if (!statuses.isEmpty()) {
+			log.info("Fetching orders for current user with statuses: {}", statuses);
+			PaginatedOrdersResponse response = orderService.getUserOrdersByStatusesPaginated(statuses, pageable);
+			return ResponseEntity.ok(response);
 		}
 
 		log.info("Fetching all orders for current user");
@@ -114,45 +109,31 @@ public class OrderController {
 
 	@GetMapping("/admin/orders")
 	@PreAuthorize("hasRole('ADMIN')")
-	@Operation(summary = "Get all orders", description = "Returns paginated orders with full user and address details, optionally filtered by status(es). Multiple statuses can be provided: ?status=PENDING,SHIPPED or ?status=PENDING&status=SHIPPED. Admin only.", security = @SecurityRequirement(name = "bearerAuth"))
+	@Operation(summary = "Get all orders", description = "Returns paginated orders with full user and address details, optionally filtered by status(es). Multiple statuses can be provided: ?status=PENDING,SHIPPED or ?status=PENDING&status=SHIPPED. Pass the nextCursor from a previous response as ?cursor= to page newest-first without offsets. Admin only.", security = @SecurityRequirement(name = "bearerAuth"))
 	public ResponseEntity<PaginatedAdminOrdersResponse> getAllOrders(
 			@RequestParam(required = false, name = "status") String[] statusArray,
 			@RequestParam(defaultValue = "0") int page,
 			@RequestParam(defaultValue = "10") int size,
 			@RequestParam(defaultValue = "createdAt") String sort,
-			@RequestParam(defaultValue = "desc") String direction) {
+			@RequestParam(defaultValue = "desc") String direction,
+			@RequestParam(required = false) String cursor) {
 		log.info("Admin received status parameters: {}", statusArray != null ? Arrays.toString(statusArray) : "null");
 
 		// Create pagination object
 		Sort.Direction sortDirection = "desc".equalsIgnoreCase(direction) ? Sort.Direction.DESC : Sort.Direction.ASC;
 		Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sort));
 
-		if (statusArray != null && statusArray.length > 0) {
-			List<OrderStatus> statuses = new ArrayList<>();
-			for (String statusStr : statusArray) {
-				// Handle comma-separated values in a single parameter
-				if (statusStr.contains(",")) {
-					for (String individualStatus : statusStr.split(",")) {
-						try {
-							statuses.add(OrderStatus.valueOf(individualStatus.trim()));
-						} catch (IllegalArgumentException e) {
-							log.warn("Invalid order status: {}", individualStatus.trim());
-						}
-					}
-				} else {
-					try {
-						statuses.add(OrderStatus.valueOf(statusStr.trim()));
-					} catch (IllegalArgumentException e) {
-						log.warn("Invalid order status: {}", statusStr.trim());
-					}
-				}
-			}
+		List<OrderStatus> statuses = parseStatuses(statusArray);
 
-			if (!statuses.isEmpty()) {
-				log.info("Admin fetching orders with statuses: {}", statuses);
-				PaginatedAdminOrdersResponse response = orderService.getAllOrdersForAdminByStatusesPaginated(statuses, pageable);
-				return ResponseEntity.ok(response);
-			}
+		if (cursor != null && !cursor.isBlank()) {
+			log.info("Admin fetching orders after cursor");
+			return ResponseEntity.ok(orderService.getAllOrdersForAdminAfterCursor(statuses, cursor, size));
+		}
+
+		if (!statuses.isEmpty()) {
+			log.info("Admin fetching orders with statuses: {}", statuses);
+			PaginatedAdminOrdersResponse response = orderService.getAllOrdersForAdminByStatusesPaginated(statuses, pageable);
+			return ResponseEntity.ok(response);
 		}
 
 		log.info("Admin requesting all orders with full details and pagination");
@@ -160,6 +141,31 @@ public class OrderController {
 		return ResponseEntity.ok(response);
 	}
 
+	@GetMapping("/admin/orders/export")
+	@PreAuthorize("hasRole('ADMIN')")
+	@Operation(summary = "Export all orders", description = "Streams every order as CSV (one line per order item) or NDJSON (one order per line). Use ?format=csv or ?format=ndjson. Admin only.", security = @SecurityRequirement(name = "bearerAuth"))
+	public void exportOrders(@RequestParam(defaultValue = "csv") String format, HttpServletResponse response)
+			throws IOException {
+		boolean ndjson = "ndjson".equalsIgnoreCase(format);
+		if (!ndjson && !"csv".equalsIgnoreCase(format)) {
+			throw new IllegalArgumentException("Unsupported export format: " + format);
+		}
+
+		log.info("Admin exporting all orders as {}", format);
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		response.setContentType(ndjson ? "application/x-ndjson" : "text/csv");
+		response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+				"attachment; filename=\"orders." + (ndjson ? "ndjson" : "csv") + "\"");
+
+		Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+		if (ndjson) {
+			orderExportService.exportNdjson(writer);
+		} else {
+			orderExportService.exportCsv(writer);
+		}
+		writer.flush();
+	}
+
 	@PutMapping("/admin/orders/{orderId}/status")
 	@PreAuthorize("hasRole('ADMIN')")
 	@Operation(summary = "Update order status", description = "Updates the status of an order and returns full order details with user and address info. Admin only.", security = @SecurityRequirement(name = "bearerAuth"))
@@ -175,4 +181,23 @@ public class OrderController {
 		AdminOrderResponseDTO response = orderService.updateOrderStatusForAdmin(orderId, request);
 		return ResponseEntity.ok(response);
 	}
+
+	private List<OrderStatus> parseStatuses(String[] statusArray) {
+		List<OrderStatus> statuses = new ArrayList<>();
+		if (statusArray == null) {
+			return statuses;
+		}
+
+		for (String statusStr : statusArray) {
+			// Handle comma-separated values in a single parameter
+			for (String individualStatus : statusStr.split(",")) {
+				try {
+					statuses.add(OrderStatus.valueOf(individualStatus.trim()));
+				} catch (IllegalArgumentException e) {
+					log.warn("Invalid order status: {}", individualStatus.trim());
+				}
+			}
+		}
+		return statuses;
+	}
 }
@@ -0,0 +1,35 @@
+package com.charbel.ecommerce.orders.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One order line as read by the export cursor. Order columns repeat on every line
+ * of the same order; item columns are null for orders without items.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderExportRow {
+
+    private UUID orderId;
+    private String orderNumber;
+    private LocalDateTime createdAt;
+    private String status;
+    private String userEmail;
+    private BigDecimal originalAmount;
+    private BigDecimal discountAmount;
+    private BigDecimal deliveryFee;
+    private BigDecimal totalAmount;
+    private String sku;
+    private String productName;
+    private Integer quantity;
+    private BigDecimal unitPrice;
+}
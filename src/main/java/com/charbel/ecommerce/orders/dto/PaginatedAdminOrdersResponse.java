@@ -14,10 +14,12 @@ import java.util.List;
 public class PaginatedAdminOrdersResponse {
 
     private List<AdminOrderResponseDTO> orders;
-    private long totalElements;
-    private int totalPages;
-    private int currentPage;
+    // Page counts are not computed for cursor requests and are null there
+    private Long totalElements;
+    private Integer totalPages;
+    private Integer currentPage;
     private int pageSize;
     private boolean hasNext;
     private boolean hasPrevious;
+    private String nextCursor;
 }
\ No newline at end of file
@@ -14,9 +14,11 @@ import java.util.List;
 public class PaginatedOrdersResponse {
 
     private List<OrderResponse> orders;
-    private int currentPage;
-    private int totalPages;
-    private long totalElements;
+    // Page counts are not computed for cursor requests and are null there
+    private Integer currentPage;
+    private Integer totalPages;
+    private Long totalElements;
     private boolean hasNext;
     private boolean hasPrevious;
+    private String nextCursor;
 }
\ No newline at end of file
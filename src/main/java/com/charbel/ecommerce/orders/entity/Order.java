@@ -17,6 +17,7 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
@@ -28,7 +29,10 @@ import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+	@Index(name = "idx_orders_created_at_id", columnList = "created_at DESC, id DESC"),
+	@Index(name = "idx_orders_user_created_at_id", columnList = "user_id, created_at DESC, id DESC")
+})
 @Data
 @EqualsAndHashCode(callSuper = false)
 @NoArgsConstructor
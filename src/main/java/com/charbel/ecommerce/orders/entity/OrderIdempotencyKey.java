@@ -0,0 +1,59 @@
+package com.charbel.ecommerce.orders.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Durable record of an {@code Idempotency-Key} sent with {@code POST /api/orders}.
+ * The key is scoped to the authenticated user. While the first request runs the
+ * row is {@code IN_PROGRESS}; once it succeeds the response is stored so retries
+ * can be replayed after a restart or on another instance.
+ */
+@Entity
+@Table(name = "order_idempotency_keys", indexes = {
+	@Index(name = "idx_order_idempotency_keys_expires_at", columnList = "expires_at")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderIdempotencyKey {
+
+	@Id
+	@Column(name = "idempotency_key", length = 512)
+	private String key;
+
+	@Column(name = "request_hash", nullable = false, length = 64)
+	private String requestHash;
+
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false, length = 20)
+	private Status status;
+
+	@Column(name = "response_status")
+	private Integer responseStatus;
+
+	@Column(name = "response_content_type")
+	private String responseContentType;
+
+	@Column(name = "response_body", columnDefinition = "TEXT")
+	private String responseBody;
+
+	@Column(name = "created_at", nullable = false)
+	private LocalDateTime createdAt;
+
+	@Column(name = "updated_at", nullable = false)
+	private LocalDateTime updatedAt;
+
+	@Column(name = "expires_at", nullable = false)
+	private LocalDateTime expiresAt;
+
+	public enum Status {
+		IN_PROGRESS, COMPLETED
+	}
+}
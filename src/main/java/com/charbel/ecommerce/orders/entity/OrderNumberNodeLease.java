@@ -0,0 +1,33 @@
+package com.charbel.ecommerce.orders.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lease on one of the order number node ids (0-1023). Each running instance holds
+ * one row, renews it while alive and lets it expire when it stops, so replicas
+ * never encode order numbers with the same node id.
+ */
+@Entity
+@Table(name = "order_number_node_leases")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderNumberNodeLease {
+
+	@Id
+	@Column(name = "node_id")
+	private Integer nodeId;
+
+	@Column(nullable = false)
+	private String holder;
+
+	@Column(name = "expires_at", nullable = false)
+	private LocalDateTime expiresAt;
+}
@@ -0,0 +1,212 @@
+package com.charbel.ecommerce.orders.filter;
+
+import com.charbel.ecommerce.exception.ErrorResponse;
+import com.charbel.ecommerce.orders.service.OrderIdempotencyService;
+import com.charbel.ecommerce.orders.service.OrderIdempotencyService.Claim;
+import com.charbel.ecommerce.orders.service.OrderIdempotencyService.StoredResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Makes {@code POST /api/orders} idempotent for clients that send an
+ * {@code Idempotency-Key} header. The first request with a key runs normally; a
+ * retry with the same key and body gets the original response replayed, and a
+ * retry that arrives while the original is still running waits for it.
+ *
+ * Registered as a plain servlet filter, so it runs after the Spring Security chain
+ * and keys are scoped to the authenticated user. Requests without the header are
+ * not affected.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderIdempotencyFilter extends OncePerRequestFilter {
+
+	public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+	public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+	private static final String ORDERS_PATH = "/api/orders";
+	private static final int MAX_KEY_LENGTH = 255;
+
+	private final OrderIdempotencyService orderIdempotencyService;
+	private final ObjectMapper objectMapper;
+
+	@Override
+	protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+		String path = request.getRequestURI().substring(request.getContextPath().length());
+		return !"POST".equals(request.getMethod()) || !ORDERS_PATH.equals(path)
+				|| request.getHeader(IDEMPOTENCY_KEY_HEADER) == null;
+	}
+
+	@Override
+	protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+			@NonNull FilterChain filterChain) throws ServletException, IOException {
+		String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER).trim();
+		if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+			writeError(request, response, HttpStatus.BAD_REQUEST,
+					IDEMPOTENCY_KEY_HEADER + " must be between 1 and " + MAX_KEY_LENGTH + " characters");
+			return;
+		}
+
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		if (authentication == null || !authentication.isAuthenticated()
+				|| authentication instanceof AnonymousAuthenticationToken) {
+			// Let the controller's security checks reject the request as usual
+			filterChain.doFilter(request, response);
+			return;
+		}
+
+		byte[] body = StreamUtils.copyToByteArray(request.getInputStream());
+		String key = authentication.getName() + ":" + idempotencyKey;
+		Claim claim = orderIdempotencyService.claim(key, sha256(body));
+
+		switch (claim.type()) {
+			case ACQUIRED -> execute(key, new CachedBodyRequest(request, body), response, filterChain);
+			case DUPLICATE -> {
+				Optional<StoredResponse> original = orderIdempotencyService.await(claim.response());
+				if (original.isPresent()) {
+					log.info("Replaying response for idempotency key {}", idempotencyKey);
+					replay(original.get(), response);
+				} else {
+					writeError(request, response, HttpStatus.CONFLICT,
+							"The original request with this " + IDEMPOTENCY_KEY_HEADER + " did not complete, retry later");
+				}
+			}
+			case MISMATCH -> writeError(request, response, HttpStatus.UNPROCESSABLE_ENTITY,
+					IDEMPOTENCY_KEY_HEADER + " was already used with a different request body");
+			case IN_PROGRESS -> writeError(request, response, HttpStatus.CONFLICT,
+					"A request with this " + IDEMPOTENCY_KEY_HEADER + " is still being processed, retry later");
+		}
+	}
+
+	private void execute(String key, HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+		boolean completed = false;
+		try {
+			filterChain.doFilter(request, responseWrapper);
+			orderIdempotencyService.complete(key, new StoredResponse(responseWrapper.getStatus(),
+					responseWrapper.getContentType(),
+					new String(responseWrapper.getContentAsByteArray(), StandardCharsets.UTF_8)));
+			completed = true;
+		} finally {
+			if (!completed) {
+				orderIdempotencyService.release(key);
+			}
+			responseWrapper.copyBodyToResponse();
+		}
+	}
+
+	private void replay(StoredResponse original, HttpServletResponse response) throws IOException {
+		response.setStatus(original.status());
+		if (original.contentType() != null) {
+			response.setContentType(original.contentType());
+		}
+		response.setHeader(REPLAYED_HEADER, "true");
+		if (original.body() != null) {
+			response.getOutputStream().write(original.body().getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	private void writeError(HttpServletRequest request, HttpServletResponse response, HttpStatus status,
+			String message) throws IOException {
+		ErrorResponse errorResponse = ErrorResponse.builder().status(status.value()).error(status.getReasonPhrase())
+				.message(message).path(request.getRequestURI()).timestamp(LocalDateTime.now()).build();
+
+		response.setStatus(status.value());
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		objectMapper.writeValue(response.getOutputStream(), errorResponse);
+	}
+
+	private static String sha256(byte[] body) {
+		try {
+			return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 not available", e);
+		}
+	}
+
+	/** Replays a body that has already been read, so it can be hashed before the controller sees it. */
+	private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+		private final byte[] body;
+
+		private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+			super(request);
+			this.body = body;
+		}
+
+		@Override
+		public ServletInputStream getInputStream() {
+			ByteArrayInputStream input = new ByteArrayInputStream(body);
+			return new ServletInputStream() {
+				@Override
+				public boolean isFinished() {
+					return input.available() == 0;
+				}
+
+				@Override
+				public boolean isReady() {
+					return true;
+				}
+
+				@Override
+				public void setReadListener(ReadListener readListener) {
+					// The whole body is already in memory, so it is all readable right away
+					try {
+						if (!isFinished()) {
+							readListener.onDataAvailable();
+						}
+						readListener.onAllDataRead();
+					} catch (IOException e) {
+						readListener.onError(e);
+					}
+				}
+
+				@Override
+				public int read() {
+					return input.read();
+				}
+
+				@Override
+				public int read(byte[] buffer, int offset, int length) {
+					return input.read(buffer, offset, length);
+				}
+			};
+		}
+
+		@Override
+		public BufferedReader getReader() {
+			return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+		}
+	}
+}
@@ -0,0 +1,14 @@
+package com.charbel.ecommerce.orders.pipeline;
+
+import com.charbel.ecommerce.orders.dto.OrderResponse;
+
+/**
+ * Receives every newly created order once its transaction has committed, e.g. to
+ * send notifications or record analytics. Implementations are picked up as beans
+ * and called from the pipeline's publish stage, never on the request thread, so
+ * they may block but should not assume ordering across orders.
+ */
+public interface OrderCreatedListener {
+
+	void onOrderCreated(OrderResponse order);
+}
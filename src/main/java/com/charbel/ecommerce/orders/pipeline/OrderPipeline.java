@@ -0,0 +1,81 @@
+package com.charbel.ecommerce.orders.pipeline;
+
+import com.charbel.ecommerce.orders.dto.OrderResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.Supplier;
+
+/**
+ * Runs the work that follows order creation off the request thread, after the
+ * order has committed.
+ *
+ * The {@code publish} stage loads the order as an {@link OrderResponse} and hands
+ * it to every {@link OrderCreatedListener}. While no listener is registered
+ * nothing is queued and the order is never re-read. The stage is a bounded
+ * {@link PipelineStage}, so a backlog slows producers down rather than piling up
+ * in memory.
+ */
+@Component
+@Slf4j
+public class OrderPipeline {
+
+	private final ObjectProvider<OrderCreatedListener> listeners;
+	private final long shutdownTimeoutMillis;
+	private final PipelineStage<Supplier<OrderResponse>> publishStage;
+
+	public OrderPipeline(ObjectProvider<OrderCreatedListener> listeners, MeterRegistry meterRegistry,
+			@Value("${orders.pipeline.threads:2}") int threads,
+			@Value("${orders.pipeline.queue-capacity:1000}") int queueCapacity,
+			@Value("${orders.pipeline.shutdown-timeout:10000}") long shutdownTimeoutMillis) {
+		this.listeners = listeners;
+		this.shutdownTimeoutMillis = shutdownTimeoutMillis;
+		this.publishStage = new PipelineStage<>("publish", threads, queueCapacity, this::publish, meterRegistry);
+	}
+
+	/**
+	 * Queues a created order once the current transaction commits, or immediately
+	 * when called outside a transaction. Nothing is queued if the transaction rolls
+	 * back, or when no {@link OrderCreatedListener} is registered. {@code load} runs
+	 * on a pipeline thread and must load everything it needs itself.
+	 */
+	public void submitAfterCommit(Supplier<OrderResponse> load) {
+		if (listeners.orderedStream().findAny().isEmpty()) {
+			return;
+		}
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			publishStage.submit(load);
+			return;
+		}
+
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				publishStage.submit(load);
+			}
+		});
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		publishStage.shutdown(shutdownTimeoutMillis);
+	}
+
+	private void publish(Supplier<OrderResponse> load) {
+		OrderResponse order = load.get();
+		listeners.orderedStream().forEach(listener -> {
+			try {
+				listener.onOrderCreated(order);
+			} catch (RuntimeException e) {
+				log.error("Order created listener {} failed for order {}", listener.getClass().getSimpleName(),
+						order.getId(), e);
+			}
+		});
+	}
+}
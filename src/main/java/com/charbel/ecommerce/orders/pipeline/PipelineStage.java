@@ -0,0 +1,97 @@
+package com.charbel.ecommerce.orders.pipeline;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * One stage of the post-commit order pipeline: a fixed pool of workers behind a
+ * bounded queue. When the queue is full the submitting thread runs the task
+ * itself, so a slow stage pushes back on the stage (or request) feeding it instead
+ * of dropping work or growing without bound.
+ *
+ * Publishes {@code orders.pipeline.queue.depth}, {@code orders.pipeline.stage.wait}
+ * (time spent queued), {@code orders.pipeline.stage.latency} (time spent running)
+ * and {@code orders.pipeline.stage.failures}, all tagged with the stage name.
+ */
+@Slf4j
+public class PipelineStage<T> {
+
+	private final String name;
+	private final Consumer<T> handler;
+	private final ThreadPoolExecutor executor;
+	private final Timer waitTimer;
+	private final Timer latencyTimer;
+	private final Counter failures;
+
+	public PipelineStage(String name, int threads, int queueCapacity, Consumer<T> handler,
+			MeterRegistry meterRegistry) {
+		this.name = name;
+		this.handler = handler;
+		this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueCapacity), threadFactory(name), new ThreadPoolExecutor.CallerRunsPolicy());
+
+		Gauge.builder("orders.pipeline.queue.depth", executor, pool -> pool.getQueue().size())
+				.tag("stage", name).description("Tasks waiting in the stage queue").register(meterRegistry);
+		this.waitTimer = Timer.builder("orders.pipeline.stage.wait").tag("stage", name)
+				.description("Time a task spent queued before running").register(meterRegistry);
+		this.latencyTimer = Timer.builder("orders.pipeline.stage.latency").tag("stage", name)
+				.description("Time a task spent running").register(meterRegistry);
+		this.failures = Counter.builder("orders.pipeline.stage.failures").tag("stage", name)
+				.description("Tasks that threw").register(meterRegistry);
+	}
+
+	public void submit(T item) {
+		long enqueuedAt = System.nanoTime();
+		executor.execute(() -> run(item, enqueuedAt));
+	}
+
+	public int getQueueDepth() {
+		return executor.getQueue().size();
+	}
+
+	/** Stops accepting work and waits for queued tasks to finish. */
+	public void shutdown(long timeoutMillis) {
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+				log.warn("Order pipeline stage {} did not drain within {} ms, {} tasks dropped", name, timeoutMillis,
+						executor.shutdownNow().size());
+			}
+		} catch (InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void run(T item, long enqueuedAt) {
+		long startedAt = System.nanoTime();
+		waitTimer.record(startedAt - enqueuedAt, TimeUnit.NANOSECONDS);
+		try {
+			handler.accept(item);
+		} catch (RuntimeException e) {
+			failures.increment();
+			log.error("Order pipeline stage {} failed", name, e);
+		} finally {
+			latencyTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private static ThreadFactory threadFactory(String name) {
+		AtomicInteger counter = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, "order-pipeline-" + name + "-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+}
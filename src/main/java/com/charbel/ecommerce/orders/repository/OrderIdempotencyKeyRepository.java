@@ -0,0 +1,53 @@
+package com.charbel.ecommerce.orders.repository;
+
+import com.charbel.ecommerce.orders.entity.OrderIdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface OrderIdempotencyKeyRepository extends JpaRepository<OrderIdempotencyKey, String> {
+
+	/**
+	 * Claims a key by inserting an {@code IN_PROGRESS} row. An existing row is only
+	 * taken over when it has expired, or when it is still in progress but was last
+	 * touched before {@code staleBefore} (its owner died mid-request). Returns 1 when
+	 * the caller now owns the key.
+	 */
+	@Transactional
+	@Modifying
+	@Query(value = "INSERT INTO order_idempotency_keys (idempotency_key, request_hash, status, created_at, updated_at, expires_at) "
+			+ "VALUES (:key, :requestHash, 'IN_PROGRESS', :now, :now, :expiresAt) "
+			+ "ON CONFLICT (idempotency_key) DO UPDATE SET request_hash = EXCLUDED.request_hash, status = 'IN_PROGRESS', "
+			+ "response_status = NULL, response_content_type = NULL, response_body = NULL, "
+			+ "created_at = :now, updated_at = :now, expires_at = EXCLUDED.expires_at "
+			+ "WHERE order_idempotency_keys.expires_at < :now "
+			+ "OR (order_idempotency_keys.status = 'IN_PROGRESS' AND order_idempotency_keys.updated_at < :staleBefore)", nativeQuery = true)
+	int tryClaim(@Param("key") String key, @Param("requestHash") String requestHash,
+			@Param("now") LocalDateTime now, @Param("expiresAt") LocalDateTime expiresAt,
+			@Param("staleBefore") LocalDateTime staleBefore);
+
+	@Transactional
+	@Modifying
+	@Query("UPDATE OrderIdempotencyKey k SET k.status = com.charbel.ecommerce.orders.entity.OrderIdempotencyKey.Status.COMPLETED, "
+			+ "k.responseStatus = :responseStatus, k.responseContentType = :contentType, k.responseBody = :body, "
+			+ "k.updatedAt = :now WHERE k.key = :key")
+	int complete(@Param("key") String key, @Param("responseStatus") int responseStatus,
+			@Param("contentType") String contentType, @Param("body") String body, @Param("now") LocalDateTime now);
+
+	@Transactional
+	@Modifying
+	@Query("DELETE FROM OrderIdempotencyKey k WHERE k.key = :key "
+			+ "AND k.status = com.charbel.ecommerce.orders.entity.OrderIdempotencyKey.Status.IN_PROGRESS")
+	int release(@Param("key") String key);
+
+	@Transactional
+	@Modifying
+	@Query("DELETE FROM OrderIdempotencyKey k WHERE k.expiresAt < :now")
+	int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,42 @@
+package com.charbel.ecommerce.orders.repository;
+
+import com.charbel.ecommerce.orders.entity.OrderNumberNodeLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface OrderNumberNodeLeaseRepository extends JpaRepository<OrderNumberNodeLease, Integer> {
+
+	@Query("SELECT l.nodeId FROM OrderNumberNodeLease l WHERE l.expiresAt >= :now")
+	List<Integer> findLiveNodeIds(@Param("now") LocalDateTime now);
+
+	/**
+	 * Claims a node id by inserting its lease row. An existing row is only taken over
+	 * once it has expired. Returns 1 when the caller now holds the node id.
+	 */
+	@Transactional
+	@Modifying
+	@Query(value = "INSERT INTO order_number_node_leases (node_id, holder, expires_at) "
+			+ "VALUES (:nodeId, :holder, :expiresAt) "
+			+ "ON CONFLICT (node_id) DO UPDATE SET holder = EXCLUDED.holder, expires_at = EXCLUDED.expires_at "
+			+ "WHERE order_number_node_leases.expires_at < :now", nativeQuery = true)
+	int tryClaim(@Param("nodeId") int nodeId, @Param("holder") String holder, @Param("now") LocalDateTime now,
+			@Param("expiresAt") LocalDateTime expiresAt);
+
+	/**
+	 * Moves the expiry of a lease the caller still holds. Returns 0 when the lease
+	 * expired and was claimed by another instance.
+	 */
+	@Transactional
+	@Modifying
+	@Query("UPDATE OrderNumberNodeLease l SET l.expiresAt = :expiresAt WHERE l.nodeId = :nodeId AND l.holder = :holder")
+	int renew(@Param("nodeId") int nodeId, @Param("holder") String holder,
+			@Param("expiresAt") LocalDateTime expiresAt);
+}
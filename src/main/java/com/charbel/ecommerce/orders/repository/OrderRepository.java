@@ -9,12 +9,14 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, UUID> {
+public interface OrderRepository extends JpaRepository<Order, UUID>, OrderRepositoryCustom {
 
 	@Query("SELECT DISTINCT o FROM Order o " +
 		   "JOIN FETCH o.user " +
@@ -55,9 +57,6 @@ public interface OrderRepository extends JpaRepository<Order, UUID> {
 		   "WHERE o.isDeleted = false AND o.user.id = :userId AND o.status IN :statuses ORDER BY o.createdAt DESC")
 	List<Order> findByUserIdAndStatusInWithDetails(@Param("userId") UUID userId, @Param("statuses") List<OrderStatus> statuses);
 
-	@Query("SELECT CASE WHEN COUNT(o) > 0 THEN true ELSE false END FROM Order o WHERE o.isDeleted = false AND o.orderNumber = :orderNumber")
-	boolean existsByOrderNumber(@Param("orderNumber") String orderNumber);
-
 	@Query("SELECT o FROM Order o WHERE o.isDeleted = false AND o.id = :id")
 	Optional<Order> findByIdAndNotDeleted(@Param("id") UUID id);
 
@@ -70,42 +69,47 @@ public interface OrderRepository extends JpaRepository<Order, UUID> {
 		   "WHERE o.isDeleted = false AND o.id = :id")
 	Optional<Order> findByIdWithDetails(@Param("id") UUID id);
 
-	// Paginated queries
-	@Query("SELECT DISTINCT o FROM Order o " +
-		   "JOIN FETCH o.user " +
-		   "JOIN FETCH o.address " +
-		   "JOIN FETCH o.orderItems oi " +
-		   "JOIN FETCH oi.variant v " +
-		   "JOIN FETCH v.product p " +
-		   "WHERE o.isDeleted = false ORDER BY o.createdAt DESC")
-	Page<Order> findAllOrdersWithDetailsPaginated(Pageable pageable);
-
-	@Query("SELECT DISTINCT o FROM Order o " +
-		   "JOIN FETCH o.user " +
-		   "JOIN FETCH o.address " +
-		   "JOIN FETCH o.orderItems oi " +
-		   "JOIN FETCH oi.variant v " +
-		   "JOIN FETCH v.product p " +
-		   "WHERE o.isDeleted = false AND o.user.id = :userId ORDER BY o.createdAt DESC")
-	Page<Order> findByUserIdWithDetailsPaginated(@Param("userId") UUID userId, Pageable pageable);
-
-	@Query("SELECT DISTINCT o FROM Order o " +
-		   "JOIN FETCH o.user " +
-		   "JOIN FETCH o.address " +
-		   "JOIN FETCH o.orderItems oi " +
-		   "JOIN FETCH oi.variant v " +
-		   "JOIN FETCH v.product p " +
-		   "WHERE o.isDeleted = false AND o.user.id = :userId AND o.status = :status ORDER BY o.createdAt DESC")
-	Page<Order> findByUserIdAndStatusWithDetailsPaginated(@Param("userId") UUID userId, @Param("status") OrderStatus status, Pageable pageable);
-
-	@Query("SELECT DISTINCT o FROM Order o " +
-		   "JOIN FETCH o.user " +
-		   "JOIN FETCH o.address " +
-		   "JOIN FETCH o.orderItems oi " +
-		   "JOIN FETCH oi.variant v " +
-		   "JOIN FETCH v.product p " +
-		   "WHERE o.isDeleted = false AND o.user.id = :userId AND o.status IN :statuses ORDER BY o.createdAt DESC")
-	Page<Order> findByUserIdAndStatusInWithDetailsPaginated(@Param("userId") UUID userId, @Param("statuses") List<OrderStatus> statuses, Pageable pageable);
+	// Two-phase pagination: page over order ids first, then hydrate only those ids.
+	// Fetch-joining a collection under a Pageable would paginate in memory instead.
+	@Query(value = "SELECT o.id FROM Order o WHERE o.isDeleted = false",
+		   countQuery = "SELECT COUNT(o) FROM Order o WHERE o.isDeleted = false")
+	Page<UUID> findOrderIds(Pageable pageable);
+
+	@Query(value = "SELECT o.id FROM Order o WHERE o.isDeleted = false AND o.status IN :statuses",
+		   countQuery = "SELECT COUNT(o) FROM Order o WHERE o.isDeleted = false AND o.status IN :statuses")
+	Page<UUID> findOrderIdsByStatuses(@Param("statuses") List<OrderStatus> statuses, Pageable pageable);
+
+	@Query(value = "SELECT o.id FROM Order o WHERE o.isDeleted = false AND o.user.id = :userId",
+		   countQuery = "SELECT COUNT(o) FROM Order o WHERE o.isDeleted = false AND o.user.id = :userId")
+	Page<UUID> findOrderIdsByUserId(@Param("userId") UUID userId, Pageable pageable);
+
+	@Query(value = "SELECT o.id FROM Order o WHERE o.isDeleted = false AND o.user.id = :userId AND o.status IN :statuses",
+		   countQuery = "SELECT COUNT(o) FROM Order o WHERE o.isDeleted = false AND o.user.id = :userId AND o.status IN :statuses")
+	Page<UUID> findOrderIdsByUserIdAndStatuses(@Param("userId") UUID userId, @Param("statuses") List<OrderStatus> statuses, Pageable pageable);
+
+	// Keyset queries: ids strictly after the (createdAt, id) cursor, newest first
+	@Query("SELECT o.id FROM Order o WHERE o.isDeleted = false " +
+		   "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+		   "ORDER BY o.createdAt DESC, o.id DESC")
+	List<UUID> findOrderIdsAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") UUID id, Pageable pageable);
+
+	@Query("SELECT o.id FROM Order o WHERE o.isDeleted = false AND o.status IN :statuses " +
+		   "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+		   "ORDER BY o.createdAt DESC, o.id DESC")
+	List<UUID> findOrderIdsByStatusesAfter(@Param("statuses") List<OrderStatus> statuses,
+			@Param("createdAt") LocalDateTime createdAt, @Param("id") UUID id, Pageable pageable);
+
+	@Query("SELECT o.id FROM Order o WHERE o.isDeleted = false AND o.user.id = :userId " +
+		   "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+		   "ORDER BY o.createdAt DESC, o.id DESC")
+	List<UUID> findOrderIdsByUserIdAfter(@Param("userId") UUID userId,
+			@Param("createdAt") LocalDateTime createdAt, @Param("id") UUID id, Pageable pageable);
+
+	@Query("SELECT o.id FROM Order o WHERE o.isDeleted = false AND o.user.id = :userId AND o.status IN :statuses " +
+		   "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+		   "ORDER BY o.createdAt DESC, o.id DESC")
+	List<UUID> findOrderIdsByUserIdAndStatusesAfter(@Param("userId") UUID userId, @Param("statuses") List<OrderStatus> statuses,
+			@Param("createdAt") LocalDateTime createdAt, @Param("id") UUID id, Pageable pageable);
 
 	@Query("SELECT DISTINCT o FROM Order o " +
 		   "JOIN FETCH o.user " +
@@ -113,6 +117,6 @@ public interface OrderRepository extends JpaRepository<Order, UUID> {
 		   "JOIN FETCH o.orderItems oi " +
 		   "JOIN FETCH oi.variant v " +
 		   "JOIN FETCH v.product p " +
-		   "WHERE o.isDeleted = false AND o.status IN :statuses ORDER BY o.createdAt DESC")
-	Page<Order> findAllOrdersWithDetailsByStatusesPaginated(@Param("statuses") List<OrderStatus> statuses, Pageable pageable);
-}
\ No newline at end of file
+		   "WHERE o.id IN :ids")
+	List<Order> findAllWithDetailsByIdIn(@Param("ids") Collection<UUID> ids);
+}
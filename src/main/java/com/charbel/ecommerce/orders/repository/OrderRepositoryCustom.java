@@ -0,0 +1,16 @@
+package com.charbel.ecommerce.orders.repository;
+
+import java.util.function.Consumer;
+
+import com.charbel.ecommerce.orders.dto.OrderExportRow;
+
+public interface OrderRepositoryCustom {
+
+	/**
+	 * Streams every non-deleted order line, grouped by order in (createdAt, id) order,
+	 * through a forward-only cursor. Rows are handed to the consumer as they are read
+	 * and never collected, so memory use does not grow with the table. Must be called
+	 * inside a transaction for the driver to honour the fetch size.
+	 */
+	void streamExportRows(Consumer<OrderExportRow> consumer);
+}
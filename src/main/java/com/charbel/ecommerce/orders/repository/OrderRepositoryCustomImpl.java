@@ -0,0 +1,70 @@
+package com.charbel.ecommerce.orders.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import com.charbel.ecommerce.orders.dto.OrderExportRow;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+
+	private static final String EXPORT_SQL = "SELECT o.id, o.order_number, o.created_at, o.status, u.email, "
+			+ "o.original_amount, o.discount_amount, o.delivery_fee, o.total_amount, "
+			+ "v.sku, p.name, oi.quantity, oi.unit_price "
+			+ "FROM orders o "
+			+ "JOIN users u ON u.id = o.user_id "
+			+ "LEFT JOIN order_items oi ON oi.order_id = o.id AND oi.is_deleted = false "
+			+ "LEFT JOIN product_variants v ON v.id = oi.variant_id "
+			+ "LEFT JOIN products p ON p.id = v.product_id "
+			+ "WHERE o.is_deleted = false "
+			+ "ORDER BY o.created_at, o.id";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	@Value("${orders.export.fetch-size:1000}")
+	private int fetchSize;
+
+	@Override
+	public void streamExportRows(Consumer<OrderExportRow> consumer) {
+		// Typed, so the call resolves to the row-by-row overload rather than ResultSetExtractor
+		RowCallbackHandler handler = resultSet -> consumer.accept(mapRow(resultSet));
+		jdbcTemplate.query(connection -> {
+			PreparedStatement statement = connection.prepareStatement(EXPORT_SQL, ResultSet.TYPE_FORWARD_ONLY,
+					ResultSet.CONCUR_READ_ONLY);
+			statement.setFetchSize(fetchSize);
+			return statement;
+		}, handler);
+	}
+
+	private OrderExportRow mapRow(ResultSet resultSet) throws SQLException {
+		Timestamp createdAt = resultSet.getTimestamp("created_at");
+		int quantity = resultSet.getInt("quantity");
+		boolean hasItem = !resultSet.wasNull();
+
+		return OrderExportRow.builder()
+				.orderId(resultSet.getObject("id", UUID.class))
+				.orderNumber(resultSet.getString("order_number"))
+				.createdAt(createdAt != null ? createdAt.toLocalDateTime() : null)
+				.status(resultSet.getString("status"))
+				.userEmail(resultSet.getString("email"))
+				.originalAmount(resultSet.getBigDecimal("original_amount"))
+				.discountAmount(resultSet.getBigDecimal("discount_amount"))
+				.deliveryFee(resultSet.getBigDecimal("delivery_fee"))
+				.totalAmount(resultSet.getBigDecimal("total_amount"))
+				.sku(resultSet.getString("sku"))
+				.productName(resultSet.getString("name"))
+				.quantity(hasItem ? quantity : null)
+				.unitPrice(resultSet.getBigDecimal("unit_price"))
+				.build();
+	}
+}
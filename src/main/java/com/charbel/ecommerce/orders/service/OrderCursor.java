@@ -0,0 +1,41 @@
+package com.charbel.ecommerce.orders.service;
+
+import com.charbel.ecommerce.orders.entity.Order;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Opaque keyset position in the newest-first order listing: the (createdAt, id)
+ * of the last order on the previous page, encoded as URL-safe Base64.
+ */
+record OrderCursor(LocalDateTime createdAt, UUID id) {
+
+	private static final String SEPARATOR = "|";
+
+	static OrderCursor of(Order order) {
+		return new OrderCursor(order.getCreatedAt(), order.getId());
+	}
+
+	String encode() {
+		String raw = createdAt + SEPARATOR + id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	static OrderCursor decode(String token) {
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			int separator = raw.indexOf(SEPARATOR);
+			if (separator < 0) {
+				throw new IllegalArgumentException("Invalid cursor");
+			}
+			return new OrderCursor(LocalDateTime.parse(raw.substring(0, separator)),
+					UUID.fromString(raw.substring(separator + 1)));
+		} catch (DateTimeParseException e) {
+			throw new IllegalArgumentException("Invalid cursor", e);
+		}
+	}
+}
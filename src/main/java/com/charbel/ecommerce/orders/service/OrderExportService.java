@@ -0,0 +1,186 @@
+package com.charbel.ecommerce.orders.service;
+
+import com.charbel.ecommerce.orders.dto.OrderExportRow;
+import com.charbel.ecommerce.orders.repository.OrderRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Writes the full order history straight from a database cursor to the response.
+ * Nothing is collected in memory: CSV emits one line per order item, NDJSON one
+ * object per order, built from consecutive cursor rows of the same order.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderExportService {
+
+	private static final String CSV_HEADER = "order_number,order_id,created_at,status,user_email,original_amount,"
+			+ "discount_amount,delivery_fee,total_amount,sku,product_name,quantity,unit_price";
+
+	private final OrderRepository orderRepository;
+	private final ObjectMapper objectMapper;
+
+	@Transactional(readOnly = true)
+	public long exportCsv(Writer writer) throws IOException {
+		writer.write(CSV_HEADER);
+		writer.write('\n');
+
+		long[] lines = {0};
+		try {
+			orderRepository.streamExportRows(row -> {
+				writeCsvLine(writer, row);
+				lines[0]++;
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		writer.flush();
+
+		log.info("Exported {} order lines as CSV", lines[0]);
+		return lines[0];
+	}
+
+	@Transactional(readOnly = true)
+	public long exportNdjson(Writer writer) throws IOException {
+		JsonGenerator generator = objectMapper.getFactory().createGenerator(writer);
+		generator.setRootValueSeparator(null);
+
+		NdjsonOrderWriter orderWriter = new NdjsonOrderWriter(generator);
+		try {
+			orderRepository.streamExportRows(orderWriter::accept);
+			orderWriter.finish();
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		generator.flush();
+
+		log.info("Exported {} orders as NDJSON", orderWriter.orders);
+		return orderWriter.orders;
+	}
+
+	private static void writeCsvLine(Writer writer, OrderExportRow row) {
+		try {
+			writer.write(csv(row.getOrderNumber()));
+			writer.write(',');
+			writer.write(csv(row.getOrderId()));
+			writer.write(',');
+			writer.write(csv(row.getCreatedAt()));
+			writer.write(',');
+			writer.write(csv(row.getStatus()));
+			writer.write(',');
+			writer.write(csv(row.getUserEmail()));
+			writer.write(',');
+			writer.write(csv(row.getOriginalAmount()));
+			writer.write(',');
+			writer.write(csv(row.getDiscountAmount()));
+			writer.write(',');
+			writer.write(csv(row.getDeliveryFee()));
+			writer.write(',');
+			writer.write(csv(row.getTotalAmount()));
+			writer.write(',');
+			writer.write(csv(row.getSku()));
+			writer.write(',');
+			writer.write(csv(row.getProductName()));
+			writer.write(',');
+			writer.write(csv(row.getQuantity()));
+			writer.write(',');
+			writer.write(csv(row.getUnitPrice()));
+			writer.write('\n');
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static String csv(Object value) {
+		if (value == null) {
+			return "";
+		}
+
+		String text = value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+		if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+			return text;
+		}
+		return '"' + text.replace("\"", "\"\"") + '"';
+	}
+
+	/** Folds consecutive rows of one order into a single JSON line. */
+	private static final class NdjsonOrderWriter {
+
+		private final JsonGenerator generator;
+		private UUID currentOrderId;
+		private long orders;
+
+		private NdjsonOrderWriter(JsonGenerator generator) {
+			this.generator = generator;
+		}
+
+		private void accept(OrderExportRow row) {
+			try {
+				if (!Objects.equals(row.getOrderId(), currentOrderId)) {
+					finish();
+					startOrder(row);
+				}
+				if (row.getSku() != null) {
+					generator.writeStartObject();
+					generator.writeStringField("sku", row.getSku());
+					generator.writeStringField("productName", row.getProductName());
+					generator.writeNumberField("quantity", row.getQuantity());
+					writeDecimal("unitPrice", row.getUnitPrice());
+					generator.writeEndObject();
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		private void startOrder(OrderExportRow row) throws IOException {
+			currentOrderId = row.getOrderId();
+			generator.writeStartObject();
+			generator.writeStringField("orderNumber", row.getOrderNumber());
+			generator.writeStringField("orderId", row.getOrderId().toString());
+			generator.writeStringField("createdAt", row.getCreatedAt() != null ? row.getCreatedAt().toString() : null);
+			generator.writeStringField("status", row.getStatus());
+			generator.writeStringField("userEmail", row.getUserEmail());
+			writeDecimal("originalAmount", row.getOriginalAmount());
+			writeDecimal("discountAmount", row.getDiscountAmount());
+			writeDecimal("deliveryFee", row.getDeliveryFee());
+			writeDecimal("totalAmount", row.getTotalAmount());
+			generator.writeArrayFieldStart("items");
+		}
+
+		private void finish() {
+			if (currentOrderId == null) {
+				return;
+			}
+			try {
+				generator.writeEndArray();
+				generator.writeEndObject();
+				generator.writeRaw('\n');
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			currentOrderId = null;
+			orders++;
+		}
+
+		private void writeDecimal(String field, BigDecimal value) throws IOException {
+			if (value == null) {
+				generator.writeNullField(field);
+			} else {
+				generator.writeNumberField(field, value);
+			}
+		}
+	}
+}
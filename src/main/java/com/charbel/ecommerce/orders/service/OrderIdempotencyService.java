@@ -0,0 +1,235 @@
+package com.charbel.ecommerce.orders.service;
+
+import com.charbel.ecommerce.orders.entity.OrderIdempotencyKey;
+import com.charbel.ecommerce.orders.repository.OrderIdempotencyKeyRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Deduplicates order creation requests that carry the same idempotency key.
+ *
+ * Keys being processed or recently completed on this instance are held in a
+ * bounded in-memory map, so a concurrent duplicate waits on the first request's
+ * future instead of running {@code createOrder} again. Every key is also claimed in
+ * {@code order_idempotency_keys}, which lets completed responses be replayed after
+ * a restart or from another instance. Only successful responses are kept; a failed
+ * attempt releases its key so the client can retry it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderIdempotencyService {
+
+	private final OrderIdempotencyKeyRepository orderIdempotencyKeyRepository;
+
+	@Value("${orders.idempotency.ttl:86400000}")
+	private long ttlMillis;
+
+	@Value("${orders.idempotency.cache-ttl:600000}")
+	private long cacheTtlMillis;
+
+	@Value("${orders.idempotency.cache-size:10000}")
+	private int cacheSize;
+
+	@Value("${orders.idempotency.wait-timeout:30000}")
+	private long waitTimeoutMillis;
+
+	@Value("${orders.idempotency.stale-after:120000}")
+	private long staleAfterMillis;
+
+	private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * Claims {@code key} for a request whose body hashes to {@code requestHash}. The
+	 * caller must follow an {@link ClaimType#ACQUIRED} claim with {@link #complete}
+	 * or {@link #release}.
+	 */
+	public Claim claim(String key, String requestHash) {
+		while (true) {
+			Entry entry = new Entry(requestHash);
+			Entry existing = entries.putIfAbsent(key, entry);
+			if (existing == null) {
+				Claim claim = claimFromStore(key, entry);
+				if (claim != null) {
+					return claim;
+				}
+				continue;
+			}
+			if (existing.isExpired(System.currentTimeMillis())) {
+				entries.remove(key, existing);
+				continue;
+			}
+			if (!existing.requestHash.equals(requestHash)) {
+				return new Claim(ClaimType.MISMATCH, null);
+			}
+			return new Claim(ClaimType.DUPLICATE, existing.response);
+		}
+	}
+
+	/**
+	 * Waits for the original request to finish. Empty when it failed or did not
+	 * finish within the configured wait timeout.
+	 */
+	public Optional<StoredResponse> await(CompletableFuture<StoredResponse> response) {
+		try {
+			return Optional.ofNullable(response.get(waitTimeoutMillis, TimeUnit.MILLISECONDS));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return Optional.empty();
+		} catch (ExecutionException | TimeoutException e) {
+			return Optional.empty();
+		}
+	}
+
+	/** Records the outcome of an acquired key and hands it to any waiting duplicates. */
+	public void complete(String key, StoredResponse response) {
+		Entry entry = entries.get(key);
+		if (response.isSuccessful()) {
+			try {
+				orderIdempotencyKeyRepository.complete(key, response.status(), response.contentType(), response.body(),
+						LocalDateTime.now());
+			} catch (RuntimeException e) {
+				log.error("Failed to persist idempotent response for key {}", key, e);
+			}
+			if (entry != null) {
+				entry.expiresAt = System.currentTimeMillis() + cacheTtlMillis;
+				if (entries.size() > cacheSize) {
+					entries.remove(key, entry);
+				}
+			}
+		} else {
+			releaseStored(key);
+			if (entry != null) {
+				entries.remove(key, entry);
+			}
+		}
+
+		if (entry != null) {
+			entry.response.complete(response);
+		}
+	}
+
+	/** Gives up an acquired key without a response, e.g. when the request threw. */
+	public void release(String key) {
+		releaseStored(key);
+		Entry entry = entries.remove(key);
+		if (entry != null) {
+			entry.response.complete(null);
+		}
+	}
+
+	@Scheduled(fixedDelayString = "${orders.idempotency.cleanup-interval:60000}")
+	public void evictExpired() {
+		long now = System.currentTimeMillis();
+		entries.entrySet().removeIf(entry -> entry.getValue().isExpired(now));
+
+		int deleted = orderIdempotencyKeyRepository.deleteExpired(LocalDateTime.now());
+		if (deleted > 0) {
+			log.debug("Deleted {} expired order idempotency keys", deleted);
+		}
+	}
+
+	// Returns null when the stored row vanished between the claim and the read, so the caller retries
+	private Claim claimFromStore(String key, Entry entry) {
+		Optional<OrderIdempotencyKey> stored;
+		try {
+			LocalDateTime now = LocalDateTime.now();
+			int claimed = orderIdempotencyKeyRepository.tryClaim(key, entry.requestHash, now,
+					now.plusNanos(TimeUnit.MILLISECONDS.toNanos(ttlMillis)),
+					now.minusNanos(TimeUnit.MILLISECONDS.toNanos(staleAfterMillis)));
+			if (claimed == 1) {
+				return new Claim(ClaimType.ACQUIRED, entry.response);
+			}
+			stored = orderIdempotencyKeyRepository.findById(key);
+		} catch (RuntimeException e) {
+			abandon(key, entry);
+			throw e;
+		}
+
+		if (stored.isEmpty()) {
+			abandon(key, entry);
+			return null;
+		}
+
+		OrderIdempotencyKey record = stored.get();
+		if (!record.getRequestHash().equals(entry.requestHash)) {
+			abandon(key, entry);
+			return new Claim(ClaimType.MISMATCH, null);
+		}
+		if (record.getStatus() != OrderIdempotencyKey.Status.COMPLETED) {
+			// Still running on another instance, which this one cannot wait on
+			abandon(key, entry);
+			return new Claim(ClaimType.IN_PROGRESS, null);
+		}
+
+		entry.expiresAt = System.currentTimeMillis() + cacheTtlMillis;
+		entry.response.complete(new StoredResponse(record.getResponseStatus(), record.getResponseContentType(),
+				record.getResponseBody()));
+		if (entries.size() > cacheSize) {
+			entries.remove(key, entry);
+		}
+		return new Claim(ClaimType.DUPLICATE, entry.response);
+	}
+
+	private void abandon(String key, Entry entry) {
+		entries.remove(key, entry);
+		entry.response.complete(null);
+	}
+
+	private void releaseStored(String key) {
+		try {
+			orderIdempotencyKeyRepository.release(key);
+		} catch (RuntimeException e) {
+			log.error("Failed to release order idempotency key {}", key, e);
+		}
+	}
+
+	public enum ClaimType {
+		/** The caller owns the key and must run the request. */
+		ACQUIRED,
+		/** The same request was already made; its response is or will be available. */
+		DUPLICATE,
+		/** The key was already used with a different request body. */
+		MISMATCH,
+		/** The key is being processed on another instance. */
+		IN_PROGRESS
+	}
+
+	public record Claim(ClaimType type, CompletableFuture<StoredResponse> response) {
+	}
+
+	public record StoredResponse(int status, String contentType, String body) {
+
+		public boolean isSuccessful() {
+			return status >= 200 && status < 300;
+		}
+	}
+
+	private static final class Entry {
+
+		private final String requestHash;
+		private final CompletableFuture<StoredResponse> response = new CompletableFuture<>();
+		// In-flight entries never expire; completed ones are kept for the cache TTL
+		private volatile long expiresAt = Long.MAX_VALUE;
+
+		private Entry(String requestHash) {
+			this.requestHash = requestHash;
+		}
+
+		private boolean isExpired(long now) {
+			return now >= expiresAt;
+		}
+	}
+}
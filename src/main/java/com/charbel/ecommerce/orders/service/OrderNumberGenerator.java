@@ -0,0 +1,197 @@
+package com.charbel.ecommerce.orders.service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.charbel.ecommerce.orders.repository.OrderNumberNodeLeaseRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Allocates order numbers without a database round trip per order.
+ *
+ * Numbers look like {@code ORD20250115} followed by nine base-36 characters that
+ * encode a Snowflake-style triple: UTC second of the day (17 bits), node id (10
+ * bits) and a per-second counter (19 bits, ~524k numbers per second per node).
+ * Two instances only collide if they share a node id.
+ *
+ * When {@code orders.number.node-id} is set, that value is used as is and must be
+ * distinct per instance. Otherwise the generator leases a free node id from
+ * {@code order_number_node_leases} at startup and renews it on a schedule. Numbers
+ * are only issued while the lease is comfortably inside its TTL (half of it, to
+ * tolerate clock skew between instances); if a renewal finds the lease taken over,
+ * a new node id is claimed before the next number is issued.
+ */
+@Component
+@Slf4j
+public class OrderNumberGenerator {
+
+	private static final String PREFIX = "ORD";
+	private static final int NODE_BITS = 10;
+	private static final int SEQUENCE_BITS = 19;
+	private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+	private static final long MAX_SEQUENCE = (1L << SEQUENCE_BITS) - 1;
+	private static final long SECONDS_PER_DAY = 86_400L;
+	private static final int SUFFIX_LENGTH = 9;
+	private static final char[] DIGITS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZ".toCharArray();
+	private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+	// Keeps a released node id out of reach for a while, so a replacement instance
+	// with a slightly late clock cannot re-issue the numbers of the last few seconds
+	private static final Duration RELEASE_GRACE = Duration.ofMinutes(1);
+
+	private final OrderNumberNodeLeaseRepository leaseRepository;
+	private final Duration leaseTtl;
+	private final String holder;
+	private final Clock clock;
+
+	private long nodeId;
+	private long leaseValidUntil;
+
+	private long lastSecond = -1;
+	private long sequence;
+	private long cachedEpochDay = -1;
+	private String cachedDatePrefix;
+
+	@Autowired
+	public OrderNumberGenerator(@Value("${orders.number.node-id:-1}") long configuredNodeId,
+			OrderNumberNodeLeaseRepository leaseRepository,
+			@Value("${orders.number.node-lease.ttl:600000}") long leaseTtlMillis) {
+		this(configuredNodeId, leaseRepository, Duration.ofMillis(leaseTtlMillis), Clock.systemUTC());
+	}
+
+	OrderNumberGenerator(long configuredNodeId, Clock clock) {
+		this(configuredNodeId, null, Duration.ZERO, clock);
+	}
+
+	OrderNumberGenerator(long configuredNodeId, OrderNumberNodeLeaseRepository leaseRepository, Duration leaseTtl,
+			Clock clock) {
+		this.clock = clock;
+		this.leaseTtl = leaseTtl;
+		this.holder = describeHost() + "/" + UUID.randomUUID();
+
+		if (configuredNodeId >= 0) {
+			if (configuredNodeId > MAX_NODE_ID) {
+				throw new IllegalArgumentException("Order number node id must be between 0 and " + MAX_NODE_ID);
+			}
+			this.leaseRepository = null;
+			this.nodeId = configuredNodeId;
+			log.info("Order number generator using configured node id {}", nodeId);
+		} else {
+			this.leaseRepository = leaseRepository;
+			this.nodeId = claimNodeId();
+			log.info("Order number generator leased node id {} as {}", nodeId, holder);
+		}
+	}
+
+	public synchronized String next() {
+		if (leaseRepository != null && clock.millis() >= leaseValidUntil) {
+			// The scheduled renewal fell behind: renew (or re-claim) before issuing
+			renewLease();
+		}
+
+		// Never move backwards, even if the wall clock does
+		long second = Math.max(clock.instant().getEpochSecond(), lastSecond);
+
+		if (second == lastSecond) {
+			sequence++;
+			if (sequence > MAX_SEQUENCE) {
+				// Counter exhausted for this second: borrow the next one instead of blocking
+				second++;
+				sequence = 0;
+			}
+		} else {
+			sequence = 0;
+		}
+		lastSecond = second;
+
+		long epochDay = Math.floorDiv(second, SECONDS_PER_DAY);
+		if (epochDay != cachedEpochDay) {
+			cachedEpochDay = epochDay;
+			cachedDatePrefix = PREFIX + LocalDate.ofEpochDay(epochDay).format(DATE_FORMAT);
+		}
+
+		long secondOfDay = Math.floorMod(second, SECONDS_PER_DAY);
+		long value = (secondOfDay << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+
+		return cachedDatePrefix + encode(value);
+	}
+
+	private static String encode(long value) {
+		char[] chars = new char[SUFFIX_LENGTH];
+		for (int i = SUFFIX_LENGTH - 1; i >= 0; i--) {
+			chars[i] = DIGITS[(int) (value % 36)];
+			value /= 36;
+		}
+		return new String(chars);
+	}
+
+	synchronized long nodeId() {
+		return nodeId;
+	}
+
+	@Scheduled(fixedDelayString = "${orders.number.node-lease.renew-interval:60000}")
+	public synchronized void renewLease() {
+		if (leaseRepository == null) {
+			return;
+		}
+
+		long renewedAt = clock.millis();
+		if (leaseRepository.renew((int) nodeId, holder, LocalDateTime.now(clock).plus(leaseTtl)) == 1) {
+			leaseValidUntil = renewedAt + leaseTtl.toMillis() / 2;
+			return;
+		}
+
+		long lostNodeId = nodeId;
+		nodeId = claimNodeId();
+		log.warn("Order number node id {} lease was taken over, switched to node id {}", lostNodeId, nodeId);
+	}
+
+	@PreDestroy
+	public synchronized void releaseLease() {
+		if (leaseRepository == null) {
+			return;
+		}
+
+		leaseValidUntil = 0;
+		leaseRepository.renew((int) nodeId, holder, LocalDateTime.now(clock).plus(RELEASE_GRACE));
+	}
+
+	private long claimNodeId() {
+		long claimedAt = clock.millis();
+		LocalDateTime now = LocalDateTime.now(clock);
+		LocalDateTime expiresAt = now.plus(leaseTtl);
+		Set<Integer> liveNodeIds = new HashSet<>(leaseRepository.findLiveNodeIds(now));
+
+		for (int candidate = 0; candidate <= MAX_NODE_ID; candidate++) {
+			// Another instance may claim the same free id first; tryClaim then returns 0
+			if (!liveNodeIds.contains(candidate) && leaseRepository.tryClaim(candidate, holder, now, expiresAt) == 1) {
+				leaseValidUntil = claimedAt + leaseTtl.toMillis() / 2;
+				return candidate;
+			}
+		}
+		throw new IllegalStateException("All " + (MAX_NODE_ID + 1) + " order number node ids are leased");
+	}
+
+	private static String describeHost() {
+		try {
+			return InetAddress.getLocalHost().getHostName();
+		} catch (UnknownHostException e) {
+			return "unknown-host";
+		}
+	}
+}
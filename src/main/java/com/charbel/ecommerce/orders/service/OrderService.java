@@ -2,9 +2,9 @@ package com.charbel.ecommerce.orders.service;
 
 import com.charbel.ecommerce.address.entity.Address;
 import com.charbel.ecommerce.address.repository.AddressRepository;
+import com.charbel.ecommerce.common.money.Money;
 import com.charbel.ecommerce.event.entity.Discount;
-import com.charbel.ecommerce.event.entity.Event;
-import com.charbel.ecommerce.event.repository.EventRepository;
+import com.charbel.ecommerce.event.service.DiscountIndex;
 import com.charbel.ecommerce.orders.dto.AdminOrderResponseDTO;
 import com.charbel.ecommerce.orders.dto.BillResponse;
 import com.charbel.ecommerce.orders.dto.CreateOrderRequest;
@@ -15,28 +15,27 @@ import com.charbel.ecommerce.orders.dto.PaginatedAdminOrdersResponse;
 import com.charbel.ecommerce.orders.dto.PaginatedOrdersResponse;
 import com.charbel.ecommerce.orders.dto.UpdateOrderStatusRequest;
 import com.charbel.ecommerce.product.dto.ProductImageResponse;
-import com.charbel.ecommerce.product.entity.ProductImage;
 import com.charbel.ecommerce.orders.entity.Order;
 import com.charbel.ecommerce.orders.entity.OrderItem;
+import com.charbel.ecommerce.orders.pipeline.OrderPipeline;
 import com.charbel.ecommerce.orders.repository.OrderRepository;
-import com.charbel.ecommerce.product.entity.Product;
 import com.charbel.ecommerce.product.entity.ProductVariant;
-import com.charbel.ecommerce.product.repository.ProductImageRepository;
 import com.charbel.ecommerce.product.repository.ProductVariantRepository;
+import com.charbel.ecommerce.product.service.VariantImageResolver;
 import com.charbel.ecommerce.user.entity.User;
 import com.charbel.ecommerce.service.SecurityService;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -45,18 +44,25 @@ import java.util.stream.Collectors;
 @Slf4j
 public class OrderService {
 
+	// Fixed delivery fee of $5.00
+	private static final Money DELIVERY_FEE = Money.ofMinor(500);
+
+	private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
 	private final OrderRepository orderRepository;
 	private final ProductVariantRepository productVariantRepository;
-	private final ProductImageRepository productImageRepository;
+	private final VariantImageResolver variantImageResolver;
 	private final AddressRepository addressRepository;
-	private final EventRepository eventRepository;
+	private final DiscountIndex discountIndex;
 	private final SecurityService securityService;
+	private final OrderNumberGenerator orderNumberGenerator;
+	private final OrderPipeline orderPipeline;
 
 	public List<OrderResponse> getAllOrders() {
 		log.info("Fetching all orders for admin");
 		List<Order> orders = orderRepository.findAllOrdersWithDetails();
 
-		return orders.stream().map(this::mapToOrderResponse).collect(Collectors.toList());
+		return mapToOrderResponses(orders);
 	}
 
 	@Transactional
@@ -85,147 +91,221 @@ public class OrderService {
 				CreateOrderRequest.OrderItemRequest::getQuantity
 			));
 		
-		// Calculate original total
-		BigDecimal originalTotal = BigDecimal.ZERO;
-		for (ProductVariant variant : variants) {
-			Integer requestedQuantity = variantQuantityMap.get(variant.getId());
-			
-			if (variant.getStock() < requestedQuantity) {
-				throw new IllegalArgumentException(
-					String.format("Insufficient stock for product %s. Available: %d, Requested: %d", 
-						variant.getProduct().getName(), variant.getStock(), requestedQuantity)
-				);
-			}
-			
-			BigDecimal itemTotal = variant.getPrice().multiply(BigDecimal.valueOf(requestedQuantity));
-			originalTotal = originalTotal.add(itemTotal);
-		}
+		// Reserve stock atomically; a refused line rolls back the whole order
+		reserveStock(variants, variantQuantityMap);
 		
-		// Calculate discounts
-		Map<UUID, Discount> productDiscountMap = findApplicableDiscounts(variants);
-		BigDecimal discountAmount = calculateOrderDiscounts(variants, variantQuantityMap, productDiscountMap);
+		// Price line items and apply discounts
+		List<PricedLine> lines = priceLines(variants, variantQuantityMap, findApplicableDiscounts(variants));
+		Money originalTotal = Money.ZERO;
+		Money discountAmount = Money.ZERO;
+		for (PricedLine line : lines) {
+			originalTotal = originalTotal.plus(line.originalTotal());
+			discountAmount = discountAmount.plus(line.discountAmount());
+		}
 		
 		// Add delivery fee
-		BigDecimal deliveryFee = new BigDecimal("5.00");
-		BigDecimal finalTotal = originalTotal.subtract(discountAmount).add(deliveryFee);
+		Money finalTotal = originalTotal.minus(discountAmount).plus(DELIVERY_FEE);
 		
 		// Create order
 		Order order = Order.builder()
-			.orderNumber(generateOrderNumber())
+			.orderNumber(orderNumberGenerator.next())
 			.user(currentUser)
 			.address(address)
-			.originalAmount(originalTotal)
-			.discountAmount(discountAmount)
-			.deliveryFee(deliveryFee)
-			.totalAmount(finalTotal)
+			.originalAmount(originalTotal.toBigDecimal())
+			.discountAmount(discountAmount.toBigDecimal())
+			.deliveryFee(DELIVERY_FEE.toBigDecimal())
+			.totalAmount(finalTotal.toBigDecimal())
 			.status(Order.OrderStatus.PENDING)
 			.build();
 		
-		Order savedOrder = orderRepository.save(order);
-		
-		// Create order items and update stock
-		for (ProductVariant variant : variants) {
-			Integer requestedQuantity = variantQuantityMap.get(variant.getId());
-			BigDecimal unitPrice = variant.getPrice();
-			
-			// Apply discount to unit price if applicable
-			if (productDiscountMap.containsKey(variant.getProduct().getId())) {
-				Discount discount = productDiscountMap.get(variant.getProduct().getId());
-				BigDecimal itemTotal = unitPrice.multiply(BigDecimal.valueOf(requestedQuantity));
-				BigDecimal itemDiscountAmount = discount.calculateDiscountAmount(itemTotal);
-				BigDecimal discountedTotal = itemTotal.subtract(itemDiscountAmount);
-				unitPrice = discountedTotal.divide(BigDecimal.valueOf(requestedQuantity), 2, RoundingMode.HALF_UP);
-			}
-			
+		// Create order items; saving the order cascades to them
+		for (PricedLine line : lines) {
 			OrderItem orderItem = OrderItem.builder()
-				.order(savedOrder)
-				.variant(variant)
-				.quantity(requestedQuantity)
-				.unitPrice(unitPrice)
+				.order(order)
+				.variant(line.variant())
+				.quantity(line.quantity())
+				.unitPrice(line.unitPrice().toBigDecimal())
 				.build();
 			
 			orderItems.add(orderItem);
-			
-			// Update stock
-			variant.setStock(variant.getStock() - requestedQuantity);
-			productVariantRepository.save(variant);
 		}
 		
-		savedOrder.setOrderItems(orderItems);
+		order.setOrderItems(orderItems);
+		Order savedOrder = orderRepository.save(order);
 		
 		log.info("Created order {} for user {} with total amount {}", 
-			savedOrder.getId(), currentUser.getId(), finalTotal);
+			savedOrder.getId(), currentUser.getId(), savedOrder.getTotalAmount());
+		
+		// Order created listeners run on the order pipeline once this transaction commits
+		UUID orderId = savedOrder.getId();
+		orderPipeline.submitAfterCommit(() -> loadOrderResponse(orderId));
 		
 		return mapToCreateOrderResponse(savedOrder);
 	}
 
-	private String generateOrderNumber() {
-		String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-		String orderNumber;
-		int attempts = 0;
-		int maxAttempts = 10;
-		
-		do {
-			String randomSuffix = String.format("%06d", (int) (Math.random() * 1000000));
-			orderNumber = "ORD" + timestamp + randomSuffix;
-			attempts++;
-		} while (orderRepository.existsByOrderNumber(orderNumber) && attempts < maxAttempts);
+	// Runs on an order pipeline thread, outside the creating transaction
+	private OrderResponse loadOrderResponse(UUID orderId) {
+		Order order = orderRepository.findByIdWithDetails(orderId)
+			.orElseThrow(() -> new EntityNotFoundException("Order not found: " + orderId));
+		return mapToOrderResponse(order);
+	}
+
+	private void reserveStock(List<ProductVariant> variants, Map<UUID, Integer> variantQuantityMap) {
+		Map<UUID, Boolean> reserved = productVariantRepository.decrementStockIfAvailable(variantQuantityMap);
 		
-		if (attempts >= maxAttempts) {
-			// Fallback to timestamp + UUID suffix if we can't find a unique number
-			orderNumber = "ORD" + timestamp + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+		for (ProductVariant variant : variants) {
+			if (!Boolean.TRUE.equals(reserved.get(variant.getId()))) {
+				throw new IllegalArgumentException(
+					String.format("Insufficient stock for product %s. Requested: %d", 
+						variant.getProduct().getName(), variantQuantityMap.get(variant.getId()))
+				);
+			}
 		}
-		
-		return orderNumber;
 	}
 
 	public List<OrderResponse> getUserOrders() {
 		User currentUser = securityService.getCurrentUser();
 		List<Order> orders = orderRepository.findByUserIdWithDetails(currentUser.getId());
-		return orders.stream().map(this::mapToOrderResponse).collect(Collectors.toList());
+		return mapToOrderResponses(orders);
 	}
 
 	public List<OrderResponse> getUserOrdersByStatus(Order.OrderStatus status) {
 		User currentUser = securityService.getCurrentUser();
 		List<Order> orders = orderRepository.findByUserIdAndStatusWithDetails(currentUser.getId(), status);
-		return orders.stream().map(this::mapToOrderResponse).collect(Collectors.toList());
+		return mapToOrderResponses(orders);
 	}
 
 	public List<OrderResponse> getUserOrdersByStatuses(List<Order.OrderStatus> statuses) {
 		User currentUser = securityService.getCurrentUser();
 		List<Order> orders = orderRepository.findByUserIdAndStatusInWithDetails(currentUser.getId(), statuses);
-		return orders.stream().map(this::mapToOrderResponse).collect(Collectors.toList());
+		return mapToOrderResponses(orders);
 	}
 
 	// Paginated methods
 	public PaginatedOrdersResponse getAllOrdersPaginated(Pageable pageable) {
 		log.info("Fetching all orders for admin with pagination");
-		Page<Order> orderPage = orderRepository.findAllOrdersWithDetailsPaginated(pageable);
-		return mapToPaginatedOrdersResponse(orderPage);
+		Page<UUID> idPage = orderRepository.findOrderIds(withIdTiebreaker(pageable));
+		return mapToPaginatedOrdersResponse(hydrate(idPage));
 	}
 
 	public PaginatedAdminOrdersResponse getAllOrdersForAdminPaginated(Pageable pageable) {
 		log.info("Fetching all orders for admin with full details and pagination");
-		Page<Order> orderPage = orderRepository.findAllOrdersWithDetailsPaginated(pageable);
-		return mapToPaginatedAdminOrdersResponse(orderPage);
+		Page<UUID> idPage = orderRepository.findOrderIds(withIdTiebreaker(pageable));
+		return mapToPaginatedAdminOrdersResponse(hydrate(idPage));
 	}
 
 	public PaginatedAdminOrdersResponse getAllOrdersForAdminByStatusesPaginated(List<Order.OrderStatus> statuses, Pageable pageable) {
 		log.info("Fetching all orders for admin with full details, filtered by statuses: {} and pagination", statuses);
-		Page<Order> orderPage = orderRepository.findAllOrdersWithDetailsByStatusesPaginated(statuses, pageable);
-		return mapToPaginatedAdminOrdersResponse(orderPage);
+		Page<UUID> idPage = orderRepository.findOrderIdsByStatuses(statuses, withIdTiebreaker(pageable));
+		return mapToPaginatedAdminOrdersResponse(hydrate(idPage));
 	}
 
 	public PaginatedOrdersResponse getUserOrdersPaginated(Pageable pageable) {
 		User currentUser = securityService.getCurrentUser();
-		Page<Order> orderPage = orderRepository.findByUserIdWithDetailsPaginated(currentUser.getId(), pageable);
-		return mapToPaginatedOrdersResponse(orderPage);
+		Page<UUID> idPage = orderRepository.findOrderIdsByUserId(currentUser.getId(), withIdTiebreaker(pageable));
+		return mapToPaginatedOrdersResponse(hydrate(idPage));
 	}
 
 	public PaginatedOrdersResponse getUserOrdersByStatusesPaginated(List<Order.OrderStatus> statuses, Pageable pageable) {
 		User currentUser = securityService.getCurrentUser();
-		Page<Order> orderPage = orderRepository.findByUserIdAndStatusInWithDetailsPaginated(currentUser.getId(), statuses, pageable);
-		return mapToPaginatedOrdersResponse(orderPage);
+		Page<UUID> idPage = orderRepository.findOrderIdsByUserIdAndStatuses(currentUser.getId(), statuses,
+				withIdTiebreaker(pageable));
+		return mapToPaginatedOrdersResponse(hydrate(idPage));
+	}
+
+	// Cursor (keyset) methods: newest first, no COUNT query
+	public PaginatedAdminOrdersResponse getAllOrdersForAdminAfterCursor(List<Order.OrderStatus> statuses, String cursor, int size) {
+		log.info("Fetching orders for admin after cursor, statuses: {}", statuses);
+		size = cursorPageSize(size);
+		OrderCursor position = OrderCursor.decode(cursor);
+		Pageable limit = PageRequest.of(0, size + 1);
+		List<UUID> ids = statuses.isEmpty()
+				? orderRepository.findOrderIdsAfter(position.createdAt(), position.id(), limit)
+				: orderRepository.findOrderIdsByStatusesAfter(statuses, position.createdAt(), position.id(), limit);
+
+		boolean hasNext = ids.size() > size;
+		List<Order> orders = hydrate(hasNext ? ids.subList(0, size) : ids);
+		Map<UUID, List<ProductImageResponse>> imagesByVariantId = resolveImages(orders);
+
+		return PaginatedAdminOrdersResponse.builder()
+				.orders(orders.stream().map(order -> mapToAdminOrderResponse(order, imagesByVariantId))
+						.collect(Collectors.toList()))
+				.pageSize(size)
+				.hasNext(hasNext)
+				.hasPrevious(hasPrevious(cursor))
+				.nextCursor(nextCursor(orders, hasNext))
+				.build();
+	}
+
+	public PaginatedOrdersResponse getUserOrdersAfterCursor(List<Order.OrderStatus> statuses, String cursor, int size) {
+		User currentUser = securityService.getCurrentUser();
+		size = cursorPageSize(size);
+		OrderCursor position = OrderCursor.decode(cursor);
+		Pageable limit = PageRequest.of(0, size + 1);
+		List<UUID> ids = statuses.isEmpty()
+				? orderRepository.findOrderIdsByUserIdAfter(currentUser.getId(), position.createdAt(), position.id(), limit)
+				: orderRepository.findOrderIdsByUserIdAndStatusesAfter(currentUser.getId(), statuses,
+						position.createdAt(), position.id(), limit);
+
+		boolean hasNext = ids.size() > size;
+		List<Order> orders = hydrate(hasNext ? ids.subList(0, size) : ids);
+
+		return PaginatedOrdersResponse.builder()
+				.orders(mapToOrderResponses(orders))
+				.hasNext(hasNext)
+				.hasPrevious(hasPrevious(cursor))
+				.nextCursor(nextCursor(orders, hasNext))
+				.build();
+	}
+
+	private static int cursorPageSize(int size) {
+		return Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+	}
+
+	// Anything before the supplied cursor is a previous page
+	private static boolean hasPrevious(String cursor) {
+		return cursor != null && !cursor.isBlank();
+	}
+
+	// A unique tiebreaker keeps id pages stable when many orders share a timestamp
+	private Pageable withIdTiebreaker(Pageable pageable) {
+		if (pageable.getSort().getOrderFor("id") != null) {
+			return pageable;
+		}
+		Sort.Direction direction = pageable.getSort().stream().findFirst()
+				.map(Sort.Order::getDirection)
+				.orElse(Sort.Direction.DESC);
+		Sort sort = pageable.getSort().isSorted()
+				? pageable.getSort().and(Sort.by(direction, "id"))
+				: Sort.by(Sort.Direction.DESC, "createdAt", "id");
+		return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort);
+	}
+
+	private Page<Order> hydrate(Page<UUID> idPage) {
+		return new PageImpl<>(hydrate(idPage.getContent()), idPage.getPageable(), idPage.getTotalElements());
+	}
+
+	// Loads full order graphs for the given ids, preserving the order of the id list
+	private List<Order> hydrate(List<UUID> ids) {
+		if (ids.isEmpty()) {
+			return List.of();
+		}
+
+		Map<UUID, Order> ordersById = orderRepository.findAllWithDetailsByIdIn(ids).stream()
+				.collect(Collectors.toMap(Order::getId, order -> order, (first, second) -> first));
+		return ids.stream().map(ordersById::get).filter(Objects::nonNull).collect(Collectors.toList());
+	}
+
+	private String nextCursor(List<Order> orders, boolean hasNext) {
+		return hasNext && !orders.isEmpty() ? OrderCursor.of(orders.get(orders.size() - 1)).encode() : null;
+	}
+
+	// Offset pages sorted newest first also hand out a cursor so clients can switch to keyset paging
+	private String nextCursor(Page<Order> orderPage) {
+		Sort.Order createdAt = orderPage.getSort().getOrderFor("createdAt");
+		boolean newestFirst = createdAt != null && createdAt.isDescending()
+				&& orderPage.getSort().iterator().next().getProperty().equals("createdAt");
+		return newestFirst ? nextCursor(orderPage.getContent(), orderPage.hasNext()) : null;
 	}
 
 	public BillResponse calculateBill(CreateOrderRequest request) {
@@ -257,68 +337,37 @@ public class OrderService {
 			}
 		}
 		
-		// Calculate subtotal
-		BigDecimal subtotal = BigDecimal.ZERO;
+		// Price line items and apply discounts
+		List<PricedLine> lines = priceLines(variants, variantQuantityMap, findApplicableDiscounts(variants));
+		Money subtotal = Money.ZERO;
+		Money totalDiscountAmount = Money.ZERO;
 		List<BillResponse.BillItemResponse> billItems = new ArrayList<>();
 		
-		for (ProductVariant variant : variants) {
-			Integer requestedQuantity = variantQuantityMap.get(variant.getId());
-			BigDecimal unitPrice = variant.getPrice();
-			BigDecimal totalItemPrice = unitPrice.multiply(BigDecimal.valueOf(requestedQuantity));
-			
-			subtotal = subtotal.add(totalItemPrice);
+		for (PricedLine line : lines) {
+			subtotal = subtotal.plus(line.originalTotal());
+			totalDiscountAmount = totalDiscountAmount.plus(line.discountAmount());
 			
 			BillResponse.BillItemResponse billItem = BillResponse.BillItemResponse.builder()
-				.productName(variant.getProduct().getName())
-				.sku(variant.getSku())
-				.quantity(requestedQuantity)
-				.unitPrice(unitPrice)
-				.originalUnitPrice(unitPrice)
-				.totalPrice(totalItemPrice)
-				.discountAmount(BigDecimal.ZERO)
+				.productName(line.variant().getProduct().getName())
+				.sku(line.variant().getSku())
+				.quantity(line.quantity())
+				.unitPrice(line.unitPrice().toBigDecimal())
+				.originalUnitPrice(line.originalUnitPrice().toBigDecimal())
+				.totalPrice(line.originalTotal().minus(line.discountAmount()).toBigDecimal())
+				.discountAmount(line.discountAmount().toBigDecimal())
 				.build();
 			
 			billItems.add(billItem);
 		}
 		
-		// Calculate discounts
-		Map<UUID, Discount> productDiscountMap = findApplicableDiscounts(variants);
-		BigDecimal totalDiscountAmount = calculateBillDiscounts(variants, variantQuantityMap, productDiscountMap);
-		
-		// Apply discounts to bill items
-		for (BillResponse.BillItemResponse billItem : billItems) {
-			ProductVariant variant = variants.stream()
-				.filter(v -> v.getSku().equals(billItem.getSku()))
-				.findFirst()
-				.orElse(null);
-			
-			if (variant != null && productDiscountMap.containsKey(variant.getProduct().getId())) {
-				Integer requestedQuantity = variantQuantityMap.get(variant.getId());
-				BigDecimal originalTotal = billItem.getOriginalUnitPrice().multiply(BigDecimal.valueOf(requestedQuantity));
-				
-				Discount discount = productDiscountMap.get(variant.getProduct().getId());
-				BigDecimal itemDiscountAmount = discount.calculateDiscountAmount(originalTotal);
-				
-				BigDecimal discountedTotal = originalTotal.subtract(itemDiscountAmount);
-				BigDecimal discountedUnitPrice = discountedTotal.divide(BigDecimal.valueOf(requestedQuantity), 2, RoundingMode.HALF_UP);
-				
-				billItem.setUnitPrice(discountedUnitPrice);
-				billItem.setTotalPrice(discountedTotal);
-				billItem.setDiscountAmount(itemDiscountAmount);
-			}
-		}
-		
-		// Fixed delivery fee of $5.00
-		BigDecimal deliveryFee = new BigDecimal("5.00");
-		
 		// Calculate final total
-		BigDecimal finalTotal = subtotal.subtract(totalDiscountAmount).add(deliveryFee);
+		Money finalTotal = subtotal.minus(totalDiscountAmount).plus(DELIVERY_FEE);
 		
 		return BillResponse.builder()
-			.subtotal(subtotal)
-			.discountAmount(totalDiscountAmount)
-			.deliveryFee(deliveryFee)
-			.totalAmount(finalTotal)
+			.subtotal(subtotal.toBigDecimal())
+			.discountAmount(totalDiscountAmount.toBigDecimal())
+			.deliveryFee(DELIVERY_FEE.toBigDecimal())
+			.totalAmount(finalTotal.toBigDecimal())
 			.items(billItems)
 			.build();
 	}
@@ -355,25 +404,6 @@ public class OrderService {
 		return mapToAdminOrderResponse(savedOrder);
 	}
 
-	private BigDecimal calculateBillDiscounts(List<ProductVariant> variants, 
-											  Map<UUID, Integer> variantQuantityMap,
-											  Map<UUID, Discount> productDiscountMap) {
-		BigDecimal totalDiscountAmount = BigDecimal.ZERO;
-		
-		for (ProductVariant variant : variants) {
-			if (productDiscountMap.containsKey(variant.getProduct().getId())) {
-				Integer requestedQuantity = variantQuantityMap.get(variant.getId());
-				BigDecimal itemTotal = variant.getPrice().multiply(BigDecimal.valueOf(requestedQuantity));
-				
-				Discount discount = productDiscountMap.get(variant.getProduct().getId());
-				BigDecimal itemDiscountAmount = discount.calculateDiscountAmount(itemTotal);
-				totalDiscountAmount = totalDiscountAmount.add(itemDiscountAmount);
-			}
-		}
-		
-		return totalDiscountAmount;
-	}
-
 	private Address validateAddressOwnership(UUID addressId, UUID userId) {
 		Address address = addressRepository.findByIdAndNotDeleted(addressId)
 			.orElseThrow(() -> new EntityNotFoundException("Address not found"));
@@ -386,62 +416,50 @@ public class OrderService {
 	}
 
 	private Map<UUID, Discount> findApplicableDiscounts(List<ProductVariant> variants) {
-		List<UUID> productIds = variants.stream()
+		Set<UUID> productIds = variants.stream()
 			.map(variant -> variant.getProduct().getId())
-			.collect(Collectors.toList());
-		
-		List<Event> activeEventsWithDiscounts = eventRepository
-			.findActiveEventsWithDiscountsForProducts(productIds, LocalDateTime.now());
+			.collect(Collectors.toSet());
 		
-		Map<UUID, Discount> productDiscountMap = new HashMap<>();
-		
-		for (Event event : activeEventsWithDiscounts) {
-			for (Product product : event.getProducts()) {
-				if (productIds.contains(product.getId()) && !event.getDiscounts().isEmpty()) {
-					// Use the first discount from the event (assuming one discount per event)
-					productDiscountMap.put(product.getId(), event.getDiscounts().get(0));
-				}
-			}
-		}
-		
-		return productDiscountMap;
+		return discountIndex.findDiscounts(productIds);
 	}
 
-	private BigDecimal calculateOrderDiscounts(List<ProductVariant> variants, 
-											   Map<UUID, Integer> variantQuantityMap,
-											   Map<UUID, Discount> productDiscountMap) {
-		BigDecimal totalDiscountAmount = BigDecimal.ZERO;
+	// Prices each line in minor units; a discounted line's unit price is its discounted total spread over the quantity
+	private List<PricedLine> priceLines(List<ProductVariant> variants, Map<UUID, Integer> variantQuantityMap,
+										Map<UUID, Discount> productDiscountMap) {
+		List<PricedLine> lines = new ArrayList<>(variants.size());
 		
 		for (ProductVariant variant : variants) {
-			if (productDiscountMap.containsKey(variant.getProduct().getId())) {
-				Integer requestedQuantity = variantQuantityMap.get(variant.getId());
-				BigDecimal itemTotal = variant.getPrice().multiply(BigDecimal.valueOf(requestedQuantity));
-				
-				Discount discount = productDiscountMap.get(variant.getProduct().getId());
-				BigDecimal itemDiscountAmount = discount.calculateDiscountAmount(itemTotal);
-				totalDiscountAmount = totalDiscountAmount.add(itemDiscountAmount);
+			int quantity = variantQuantityMap.get(variant.getId());
+			Money originalUnitPrice = Money.of(variant.getPrice());
+			Money originalTotal = originalUnitPrice.times(quantity);
+			Money discountAmount = Money.ZERO;
+			Money unitPrice = originalUnitPrice;
+			
+			Discount discount = productDiscountMap.get(variant.getProduct().getId());
+			if (discount != null) {
+				discountAmount = discount.calculateDiscountAmount(originalTotal);
+				unitPrice = originalTotal.minus(discountAmount).dividedBy(quantity);
 			}
+			
+			lines.add(new PricedLine(variant, quantity, originalUnitPrice, unitPrice, originalTotal, discountAmount));
 		}
 		
-		return totalDiscountAmount;
+		return lines;
+	}
+
+	private record PricedLine(ProductVariant variant, int quantity, Money originalUnitPrice, Money unitPrice,
+							  Money originalTotal, Money discountAmount) {
 	}
 
 	private CreateOrderResponse mapToCreateOrderResponse(Order order) {
+		Map<UUID, List<ProductImageResponse>> imagesByVariantId = resolveImages(List.of(order));
 		List<OrderItemResponse> orderItemResponses = order.getOrderItems().stream()
-			.map(this::mapToOrderItemResponse)
+			.map(item -> mapToOrderItemResponse(item, imagesByVariantId))
 			.collect(Collectors.toList());
 
-		// Order number should already be set for new orders
-		String orderNumber = order.getOrderNumber();
-		if (orderNumber == null) {
-			orderNumber = generateOrderNumber();
-			order.setOrderNumber(orderNumber);
-			orderRepository.save(order);
-		}
-
 		return CreateOrderResponse.builder()
 			.orderId(order.getId())
-			.orderNumber(orderNumber)
+			.orderNumber(order.getOrderNumber())
 			.addressId(order.getAddress().getId())
 			.originalAmount(order.getOriginalAmount())
 			.discountAmount(order.getDiscountAmount())
@@ -453,19 +471,21 @@ public class OrderService {
 			.build();
 	}
 
+	private List<OrderResponse> mapToOrderResponses(List<Order> orders) {
+		Map<UUID, List<ProductImageResponse>> imagesByVariantId = resolveImages(orders);
+		return orders.stream().map(order -> mapToOrderResponse(order, imagesByVariantId)).collect(Collectors.toList());
+	}
+
 	private OrderResponse mapToOrderResponse(Order order) {
-		List<OrderItemResponse> orderItemResponses = order.getOrderItems().stream().map(this::mapToOrderItemResponse)
-				.collect(Collectors.toList());
+		return mapToOrderResponse(order, resolveImages(List.of(order)));
+	}
 
-		// Generate order number if it doesn't exist (for existing orders)
-		String orderNumber = order.getOrderNumber();
-		if (orderNumber == null) {
-			orderNumber = generateOrderNumber();
-			order.setOrderNumber(orderNumber);
-			orderRepository.save(order);
-		}
+	private OrderResponse mapToOrderResponse(Order order, Map<UUID, List<ProductImageResponse>> imagesByVariantId) {
+		List<OrderItemResponse> orderItemResponses = order.getOrderItems().stream()
+				.map(item -> mapToOrderItemResponse(item, imagesByVariantId))
+				.collect(Collectors.toList());
 
-		return OrderResponse.builder().id(order.getId()).orderNumber(orderNumber)
+		return OrderResponse.builder().id(order.getId()).orderNumber(order.getOrderNumber())
 				.addressId(order.getAddress().getId()).userId(order.getUser().getId())
 				.userEmail(order.getUser().getEmail()).userFirstName(order.getUser().getFirstName())
 				.userLastName(order.getUser().getLastName()).originalAmount(order.getOriginalAmount())
@@ -476,9 +496,7 @@ public class OrderService {
 	}
 
 	private PaginatedOrdersResponse mapToPaginatedOrdersResponse(Page<Order> orderPage) {
-		List<OrderResponse> orderResponses = orderPage.getContent().stream()
-				.map(this::mapToOrderResponse)
-				.collect(Collectors.toList());
+		List<OrderResponse> orderResponses = mapToOrderResponses(orderPage.getContent());
 
 		return PaginatedOrdersResponse.builder()
 				.orders(orderResponses)
@@ -487,14 +505,16 @@ public class OrderService {
 				.totalElements(orderPage.getTotalElements())
 				.hasNext(orderPage.hasNext())
 				.hasPrevious(orderPage.hasPrevious())
+				.nextCursor(nextCursor(orderPage))
 				.build();
 	}
 
-	private OrderItemResponse mapToOrderItemResponse(OrderItem orderItem) {
+	private OrderItemResponse mapToOrderItemResponse(OrderItem orderItem,
+			Map<UUID, List<ProductImageResponse>> imagesByVariantId) {
 		BigDecimal totalPrice = orderItem.getUnitPrice().multiply(BigDecimal.valueOf(orderItem.getQuantity()));
 		
-		// Get variant-specific images first, fallback to product images
-		List<ProductImageResponse> images = getVariantImages(orderItem.getVariant());
+		// Variant-specific images first, falling back to product images
+		List<ProductImageResponse> images = imagesByVariantId.getOrDefault(orderItem.getVariant().getId(), List.of());
 		
 		return OrderItemResponse.builder().id(orderItem.getId()).variantId(orderItem.getVariant().getId())
 				.sku(orderItem.getVariant().getSku()).attributes(orderItem.getVariant().getAttributes())
@@ -504,50 +524,25 @@ public class OrderService {
 				.build();
 	}
 
-	private List<ProductImageResponse> getVariantImages(com.charbel.ecommerce.product.entity.ProductVariant variant) {
-		// First try to get variant-specific images
-		List<ProductImage> variantImages = productImageRepository.findByVariantId(variant.getId());
-		
-		// If no variant-specific images, get product images (where variantId is null)
-		if (variantImages.isEmpty()) {
-			variantImages = productImageRepository.findByProductIdAndVariantIdIsNull(variant.getProduct().getId());
-		}
-		
-		// Sort images: primary first, then by sort order
-		return variantImages.stream()
-				.sorted((a, b) -> {
-					// Primary images first, then by sort order
-					if (a.getIsPrimary() && !b.getIsPrimary()) return -1;
-					if (!a.getIsPrimary() && b.getIsPrimary()) return 1;
-					return a.getSortOrder().compareTo(b.getSortOrder());
-				})
-				.map(this::mapToProductImageResponse)
+	// Resolves images for every item on the given orders in at most two queries
+	private Map<UUID, List<ProductImageResponse>> resolveImages(List<Order> orders) {
+		List<ProductVariant> variants = orders.stream()
+				.flatMap(order -> order.getOrderItems().stream())
+				.map(OrderItem::getVariant)
 				.collect(Collectors.toList());
+		return variantImageResolver.resolve(variants);
 	}
 
-	private ProductImageResponse mapToProductImageResponse(ProductImage image) {
-		return ProductImageResponse.builder()
-				.id(image.getId())
-				.imageUrl(image.getImageUrl())
-				.altText(image.getAltText())
-				.isPrimary(image.getIsPrimary())
-				.sortOrder(image.getSortOrder())
-				.build();
+	private AdminOrderResponseDTO mapToAdminOrderResponse(Order order) {
+		return mapToAdminOrderResponse(order, resolveImages(List.of(order)));
 	}
 
-	private AdminOrderResponseDTO mapToAdminOrderResponse(Order order) {
+	private AdminOrderResponseDTO mapToAdminOrderResponse(Order order,
+			Map<UUID, List<ProductImageResponse>> imagesByVariantId) {
 		List<OrderItemResponse> orderItemResponses = order.getOrderItems().stream()
-				.map(this::mapToOrderItemResponse)
+				.map(item -> mapToOrderItemResponse(item, imagesByVariantId))
 				.collect(Collectors.toList());
 
-		// Generate order number if it doesn't exist
-		String orderNumber = order.getOrderNumber();
-		if (orderNumber == null) {
-			orderNumber = generateOrderNumber();
-			order.setOrderNumber(orderNumber);
-			orderRepository.save(order);
-		}
-
 		// Map user information
 		AdminOrderResponseDTO.UserInfo userInfo = AdminOrderResponseDTO.UserInfo.builder()
 				.id(order.getUser().getId())
@@ -574,7 +569,7 @@ public class OrderService {
 
 		return AdminOrderResponseDTO.builder()
 				.id(order.getId())
-				.orderNumber(orderNumber)
+				.orderNumber(order.getOrderNumber())
 				.originalAmount(order.getOriginalAmount())
 				.discountAmount(order.getDiscountAmount())
 				.deliveryFee(order.getDeliveryFee())
@@ -589,8 +584,9 @@ public class OrderService {
 	}
 
 	private PaginatedAdminOrdersResponse mapToPaginatedAdminOrdersResponse(Page<Order> orderPage) {
+		Map<UUID, List<ProductImageResponse>> imagesByVariantId = resolveImages(orderPage.getContent());
 		List<AdminOrderResponseDTO> adminOrderResponses = orderPage.getContent().stream()
-				.map(this::mapToAdminOrderResponse)
+				.map(order -> mapToAdminOrderResponse(order, imagesByVariantId))
 				.collect(Collectors.toList());
 
 		return PaginatedAdminOrdersResponse.builder()
@@ -601,6 +597,7 @@ public class OrderService {
 				.pageSize(orderPage.getSize())
 				.hasNext(orderPage.hasNext())
 				.hasPrevious(orderPage.hasPrevious())
+				.nextCursor(nextCursor(orderPage))
 				.build();
 	}
 }
@@ -24,9 +24,12 @@ import org.springframework.web.multipart.MultipartFile;
 import com.charbel.ecommerce.common.enums.ProductSortType;
 import com.charbel.ecommerce.product.dto.AddStockRequest;
 import com.charbel.ecommerce.product.dto.AddStockResponse;
+import com.charbel.ecommerce.product.dto.CategoryFacetsResponse;
 import com.charbel.ecommerce.product.dto.LowStockResponse;
+import com.charbel.ecommerce.product.dto.ProductCursorPageResponse;
 import com.charbel.ecommerce.product.dto.ProductFilterRequest;
 import com.charbel.ecommerce.product.dto.ProductResponse;
+import com.charbel.ecommerce.product.dto.ProductSuggestionResponse;
 import com.charbel.ecommerce.product.dto.SimilarProductResponse;
 import com.charbel.ecommerce.product.service.ProductService;
 import com.charbel.ecommerce.product.service.ProductSimilarityService;
@@ -118,6 +121,36 @@ public class ProductController {
 		return ResponseEntity.ok(response);
 	}
 
+	@GetMapping("/products/cursor")
+	@Operation(summary = "Get products by cursor", description = "Returns one keyset page of products in the given sort order. Omit cursor for the first page, then pass the nextCursor of the previous response; every page costs the same as the first. Size is clamped to 1-100.")
+	public ResponseEntity<ProductCursorPageResponse> getProductsAfterCursor(
+			@RequestParam(required = false, defaultValue = "DEFAULT") ProductSortType sortType,
+			@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = "20") int size) {
+		log.info("Fetching products after cursor with sortType: {}, size: {}", sortType, size);
+		ProductCursorPageResponse response = productService.getProductsAfterCursor(sortType, cursor, size);
+		return ResponseEntity.ok(response);
+	}
+
+	@GetMapping("/products/search")
+	@Operation(summary = "Search products", description = "Returns a paginated list of products matching every term of the query in their name, description, brand, category or attributes, best match first. The last characters typed may be the start of a word.")
+	public ResponseEntity<Page<ProductResponse>> searchProducts(@RequestParam("q") String query,
+			@PageableDefault(size = 20) Pageable pageable) {
+		log.info("Searching products for '{}' with pagination: page={}, size={}", query, pageable.getPageNumber(),
+				pageable.getPageSize());
+		Page<ProductResponse> response = productService.searchProducts(query, pageable);
+		return ResponseEntity.ok(response);
+	}
+
+	@GetMapping("/products/suggestions")
+	@Operation(summary = "Suggest as the customer types", description = "Returns the most popular product, brand and category names with a word starting with the last word of the query, preceded by its other words. At most 20 suggestions are returned.")
+	public ResponseEntity<List<ProductSuggestionResponse>> suggestProducts(@RequestParam("q") String prefix,
+			@RequestParam(defaultValue = "10") int limit) {
+		// Called on every keystroke, so not logged at info
+		log.debug("Suggesting products for '{}' with limit: {}", prefix, limit);
+		return ResponseEntity.ok(productService.suggestProducts(prefix, limit));
+	}
+
 	@GetMapping("/events/{eventId}/products")
 	@Operation(summary = "Get products by event", description = "Returns a paginated list of products associated with a specific event")
 	public ResponseEntity<Page<ProductResponse>> getProductsByEvent(@PathVariable UUID eventId,
@@ -164,6 +197,55 @@ public class ProductController {
 		return ResponseEntity.ok(response);
 	}
 
+	@GetMapping("/products/category/{categoryId}/cursor")
+	@Operation(summary = "Get products by category by cursor", description = "Returns one keyset page of a category listing with the same sorting and filtering as the paginated endpoint. Omit cursor for the first page, then pass the nextCursor of the previous response. Size is clamped to 1-100.")
+	public ResponseEntity<ProductCursorPageResponse> getProductsByCategoryAfterCursor(@PathVariable UUID categoryId,
+			@RequestParam(required = false, defaultValue = "DEFAULT") ProductSortType sortType,
+			@RequestParam(required = false) BigDecimal minPrice,
+			@RequestParam(required = false) BigDecimal maxPrice,
+			@RequestParam(required = false) List<String> colors,
+			@RequestParam(required = false) List<String> sizes,
+			@RequestParam(required = false) List<String> brandSlugs,
+			@RequestParam(required = false) String cursor,
+			@RequestParam(defaultValue = "20") int size) {
+		log.info("Fetching products for category ID: {} after cursor with sortType: {}, size: {}", categoryId,
+				sortType, size);
+
+		ProductFilterRequest filterRequest = ProductFilterRequest.builder()
+				.minPrice(minPrice)
+				.maxPrice(maxPrice)
+				.colors(colors)
+				.sizes(sizes)
+				.brandSlugs(brandSlugs)
+				.build();
+
+		ProductCursorPageResponse response = productService.getFilteredProductsByCategoryIdAfterCursor(categoryId,
+				sortType, filterRequest, cursor, size);
+		return ResponseEntity.ok(response);
+	}
+
+	@GetMapping("/products/category/{categoryId}/facets")
+	@Operation(summary = "Get facet counts for a category", description = "Returns, for every color, size and brand in a category, how many products match with that value selected under the other filters")
+	public ResponseEntity<CategoryFacetsResponse> getCategoryFacets(@PathVariable UUID categoryId,
+			@RequestParam(required = false) BigDecimal minPrice,
+			@RequestParam(required = false) BigDecimal maxPrice,
+			@RequestParam(required = false) List<String> colors,
+			@RequestParam(required = false) List<String> sizes,
+			@RequestParam(required = false) List<String> brandSlugs) {
+		log.info("Fetching facet counts for category ID: {}", categoryId);
+
+		ProductFilterRequest filterRequest = ProductFilterRequest.builder()
+				.minPrice(minPrice)
+				.maxPrice(maxPrice)
+				.colors(colors)
+				.sizes(sizes)
+				.brandSlugs(brandSlugs)
+				.build();
+
+		CategoryFacetsResponse response = productService.getCategoryFacets(categoryId, filterRequest);
+		return ResponseEntity.ok(response);
+	}
+
 	@GetMapping("/products/{productId}/similar")
 	@Operation(summary = "Get similar products", description = "Returns a list of products similar to the specified product based on metadata and attributes")
 	public ResponseEntity<List<SimilarProductResponse>> getSimilarProducts(
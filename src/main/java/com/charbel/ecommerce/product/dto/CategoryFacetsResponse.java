@@ -0,0 +1,25 @@
+package com.charbel.ecommerce.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Facet counts for a category listing. Each color, size and brand slug maps to
+ * the number of products that match with that value selected, under the other
+ * filters of the request.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CategoryFacetsResponse {
+
+	private long totalProducts;
+	private Map<String, Long> colors;
+	private Map<String, Long> sizes;
+	private Map<String, Long> brands;
+}
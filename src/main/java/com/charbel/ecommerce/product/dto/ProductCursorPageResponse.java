@@ -0,0 +1,24 @@
+package com.charbel.ecommerce.product.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One keyset page of a product listing. Pass {@code nextCursor} back as
+ * {@code cursor} for the following page; it is null on the last page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductCursorPageResponse {
+
+	private List<ProductResponse> products;
+	private int pageSize;
+	private boolean hasNext;
+	private String nextCursor;
+}
@@ -0,0 +1,25 @@
+package com.charbel.ecommerce.product.dto;
+
+import com.charbel.ecommerce.common.enums.SuggestionType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * A typeahead suggestion. {@code id} is the product, brand or category id,
+ * and {@code slug} is set for brands and categories.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductSuggestionResponse {
+
+	private SuggestionType type;
+	private UUID id;
+	private String slug;
+	private String text;
+}
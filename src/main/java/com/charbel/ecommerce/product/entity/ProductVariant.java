@@ -7,6 +7,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Formula;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
@@ -44,4 +45,11 @@ public class ProductVariant extends BaseEntity {
 	@Column(nullable = false)
 	@Builder.Default
 	private Integer stock = 0;
+
+	// Upper-cased for case-insensitive filtering; indexed by V005, keep the expressions identical
+	@Formula("UPPER(attributes ->> 'color')")
+	private String normalizedColor;
+
+	@Formula("UPPER(attributes ->> 'size')")
+	private String normalizedSize;
 }
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -19,6 +20,12 @@ public interface ProductImageRepository extends JpaRepository<ProductImage, UUID
 	@Query("SELECT pi FROM ProductImage pi WHERE pi.isDeleted = false AND pi.variantId = :variantId")
 	List<ProductImage> findByVariantId(@Param("variantId") UUID variantId);
 
+	@Query("SELECT pi FROM ProductImage pi WHERE pi.isDeleted = false AND pi.variantId IN :variantIds")
+	List<ProductImage> findByVariantIdIn(@Param("variantIds") Collection<UUID> variantIds);
+
+	@Query("SELECT pi FROM ProductImage pi WHERE pi.isDeleted = false AND pi.productId IN :productIds AND pi.variantId IS NULL")
+	List<ProductImage> findByProductIdInAndVariantIdIsNull(@Param("productIds") Collection<UUID> productIds);
+
 	@Query("SELECT pi FROM ProductImage pi WHERE pi.isDeleted = false AND pi.id = :id")
 	Optional<ProductImage> findByIdAndNotDeleted(@Param("id") UUID id);
 }
\ No newline at end of file
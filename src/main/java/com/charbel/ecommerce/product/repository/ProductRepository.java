@@ -1,6 +1,5 @@
 package com.charbel.ecommerce.product.repository;
 
-import com.charbel.ecommerce.event.entity.Event;
 import com.charbel.ecommerce.product.entity.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -11,6 +10,7 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -18,73 +18,14 @@ import java.util.UUID;
 @Repository
 public interface ProductRepository extends JpaRepository<Product, UUID> {
 
-	@Query("SELECT p FROM Product p LEFT JOIN FETCH p.variants LEFT JOIN FETCH p.brand LEFT JOIN FETCH p.category WHERE p.isDeleted = false")
-	Page<Product> findAllProductsWithVariants(Pageable pageable);
-
-	@Query("SELECT p FROM Product p LEFT JOIN FETCH p.variants LEFT JOIN FETCH p.brand LEFT JOIN FETCH p.category "
-			+ "JOIN p.events e WHERE p.isDeleted = false AND e.id = :eventId")
-	Page<Product> findProductsByEventId(@Param("eventId") UUID eventId, Pageable pageable);
-
-	@Query("SELECT p FROM Product p LEFT JOIN FETCH p.variants LEFT JOIN FETCH p.brand LEFT JOIN FETCH p.category "
-			+ "WHERE p.isDeleted = false AND p.categoryId = :categoryId AND p.status = 'ACTIVE'")
-	Page<Product> findProductsByCategoryId(@Param("categoryId") UUID categoryId, Pageable pageable);
-
-	@Query("SELECT p FROM Product p LEFT JOIN FETCH p.variants LEFT JOIN FETCH p.brand LEFT JOIN FETCH p.category "
-			+ "WHERE p.isDeleted = false AND p.categoryId = :categoryId AND p.status = 'ACTIVE' "
-			+ "ORDER BY "
-			+ "CASE WHEN :sortType = 'PRICE_HIGH_TO_LOW' THEN p.basePrice END DESC, "
-			+ "CASE WHEN :sortType = 'PRICE_LOW_TO_HIGH' THEN p.basePrice END ASC, "
-			+ "CASE WHEN :sortType = 'REVIEWS' THEN p.averageRating END DESC, "
-			+ "CASE WHEN :sortType = 'REVIEWS' THEN p.reviewCount END DESC, "
-			+ "CASE WHEN :sortType = 'NEWEST' THEN p.createdAt END DESC, "
-			+ "p.id ASC")
-	Page<Product> findProductsByCategoryIdWithSort(@Param("categoryId") UUID categoryId, 
-												   @Param("sortType") String sortType, 
-												   Pageable pageable);
-
-	@Query("SELECT p FROM Product p LEFT JOIN FETCH p.variants LEFT JOIN FETCH p.brand b LEFT JOIN FETCH p.category "
-			+ "WHERE p.isDeleted = false AND b.slug = :brandSlug AND p.status = 'ACTIVE' AND b.status = 'ACTIVE'")
-	Page<Product> findProductsByBrandSlug(@Param("brandSlug") String brandSlug, Pageable pageable);
-
-	@Query("SELECT DISTINCT e FROM Event e " +
-		   "JOIN e.products p " +
-		   "JOIN e.discounts d " +
-		   "WHERE p.isDeleted = false AND p.id = :productId " +
-		   "AND e.status = 'ACTIVE' " +
-		   "AND :currentTime BETWEEN e.startDate AND e.endDate")
-	List<Event> findActiveEventsWithDiscountsForProduct(@Param("productId") UUID productId, 
-														@Param("currentTime") LocalDateTime currentTime);
-
-	@Query("SELECT DISTINCT p FROM Product p " +
-		   "LEFT JOIN FETCH p.variants v " +
-		   "LEFT JOIN FETCH p.brand b " +
-		   "LEFT JOIN FETCH p.category " +
-		   "WHERE p.isDeleted = false AND p.categoryId = :categoryId " +
-		   "AND p.status = 'ACTIVE' " +
-		   "AND b.status = 'ACTIVE' " +
-		   "AND (:#{#brandSlugs == null} = true OR b.slug IN :brandSlugs) " +
-		   "AND EXISTS (" +
-		   "  SELECT 1 FROM ProductVariant pv " +
-		   "  WHERE pv.product.id = p.id " +
-		   "  AND (:minPrice IS NULL OR pv.price >= :minPrice) " +
-		   "  AND (:maxPrice IS NULL OR pv.price <= :maxPrice) " +
-		   "  AND (:#{#colors == null} = true OR " +
-		   "       UPPER(FUNCTION('jsonb_extract_path_text', pv.attributes, 'color')) IN :colors) " +
-		   "  AND (:#{#sizes == null} = true OR " +
-		   "       UPPER(FUNCTION('jsonb_extract_path_text', pv.attributes, 'size')) IN :sizes)" +
-		   ")")
-	Page<Product> findFilteredProductsByCategoryId(@Param("categoryId") UUID categoryId,
-												   @Param("minPrice") BigDecimal minPrice,
-												   @Param("maxPrice") BigDecimal maxPrice,
-												   @Param("colors") List<String> colors,
-												   @Param("sizes") List<String> sizes,
-												   @Param("brandSlugs") List<String> brandSlugs,
-												   Pageable pageable);
-
-	@Query("SELECT DISTINCT p FROM Product p " +
-		   "LEFT JOIN FETCH p.variants v " +
-		   "LEFT JOIN FETCH p.brand b " +
-		   "LEFT JOIN FETCH p.category " +
+	// Two-phase pagination: page over product ids first, then hydrate only those ids
+	// with findAllWithDetailsByIdIn. Fetch-joining p.variants under a Pageable would
+	// load every matching row and paginate in memory instead.
+
+	String ACTIVE_IN_CATEGORY = "FROM Product p WHERE p.isDeleted = false AND p.categoryId = :categoryId "
+			+ "AND p.status = 'ACTIVE'";
+
+	String FILTERED_IN_CATEGORY = "FROM Product p JOIN p.brand b " +
 		   "WHERE p.isDeleted = false AND p.categoryId = :categoryId " +
 		   "AND p.status = 'ACTIVE' " +
 		   "AND b.status = 'ACTIVE' " +
@@ -94,30 +35,150 @@ public interface ProductRepository extends JpaRepository<Product, UUID> {
 		   "  WHERE pv.product.id = p.id " +
 		   "  AND (:minPrice IS NULL OR pv.price >= :minPrice) " +
 		   "  AND (:maxPrice IS NULL OR pv.price <= :maxPrice) " +
-		   "  AND (:#{#colors == null} = true OR " +
-		   "       UPPER(FUNCTION('jsonb_extract_path_text', pv.attributes, 'color')) IN :colors) " +
-		   "  AND (:#{#sizes == null} = true OR " +
-		   "       UPPER(FUNCTION('jsonb_extract_path_text', pv.attributes, 'size')) IN :sizes)" +
-		   ") " +
-		   "ORDER BY " +
+		   "  AND (:#{#colors == null} = true OR pv.normalizedColor IN :colors) " +
+		   "  AND (:#{#sizes == null} = true OR pv.normalizedSize IN :sizes)" +
+		   ") ";
+
+	String LISTING_ORDER = "ORDER BY " +
 		   "CASE WHEN :sortType = 'PRICE_HIGH_TO_LOW' THEN p.basePrice END DESC, " +
 		   "CASE WHEN :sortType = 'PRICE_LOW_TO_HIGH' THEN p.basePrice END ASC, " +
 		   "CASE WHEN :sortType = 'REVIEWS' THEN p.averageRating END DESC, " +
 		   "CASE WHEN :sortType = 'REVIEWS' THEN p.reviewCount END DESC, " +
 		   "CASE WHEN :sortType = 'NEWEST' THEN p.createdAt END DESC, " +
-		   "p.id ASC")
-	Page<Product> findFilteredProductsByCategoryIdWithSort(@Param("categoryId") UUID categoryId,
-														   @Param("minPrice") BigDecimal minPrice,
-														   @Param("maxPrice") BigDecimal maxPrice,
-														   @Param("colors") List<String> colors,
-														   @Param("sizes") List<String> sizes,
-														   @Param("brandSlugs") List<String> brandSlugs,
-														   @Param("sortType") String sortType,
-														   Pageable pageable);
-
-	@Query("SELECT p FROM Product p LEFT JOIN FETCH p.variants LEFT JOIN FETCH p.brand LEFT JOIN FETCH p.category " +
-		   "WHERE p.isDeleted = false AND p.status = :status AND p.id != :excludeId")
-	List<Product> findByStatusAndIdNot(@Param("status") Product.ProductStatus status, @Param("excludeId") UUID excludeId);
+		   "p.id ASC";
+
+	@Query(value = "SELECT p.id FROM Product p WHERE p.isDeleted = false",
+		   countQuery = "SELECT COUNT(p) FROM Product p WHERE p.isDeleted = false")
+	Page<UUID> findProductIds(Pageable pageable);
+
+	// Keyset pages of findProductIds in each ProductSortType order, after the (sort key, id)
+	// of the previous page's last product; no COUNT query. Each predicate bounds the sort key
+	// alone first, so Postgres can seek the V006 indexes instead of scanning to the position.
+	// Unrated products sort as rating 10, above any real one, as DESC puts nulls first.
+
+	@Query("SELECT p.id FROM Product p WHERE p.isDeleted = false AND p.id > :id ORDER BY p.id ASC")
+	List<UUID> findProductIdsAfter(@Param("id") UUID id, Pageable limit);
+
+	@Query("SELECT p.id FROM Product p WHERE p.isDeleted = false "
+			+ "AND p.basePrice <= :basePrice AND (p.basePrice < :basePrice OR p.id > :id) "
+			+ "ORDER BY p.basePrice DESC, p.id ASC")
+	List<UUID> findProductIdsByPriceDescendingAfter(@Param("basePrice") BigDecimal basePrice, @Param("id") UUID id,
+			Pageable limit);
+
+	@Query("SELECT p.id FROM Product p WHERE p.isDeleted = false "
+			+ "AND p.basePrice >= :basePrice AND (p.basePrice > :basePrice OR p.id > :id) "
+			+ "ORDER BY p.basePrice ASC, p.id ASC")
+	List<UUID> findProductIdsByPriceAscendingAfter(@Param("basePrice") BigDecimal basePrice, @Param("id") UUID id,
+			Pageable limit);
+
+	@Query("SELECT p.id FROM Product p WHERE p.isDeleted = false "
+			+ "AND COALESCE(p.averageRating, 10) <= :rating AND (COALESCE(p.averageRating, 10) < :rating "
+			+ "OR p.reviewCount < :reviewCount OR (p.reviewCount = :reviewCount AND p.id > :id)) "
+			+ "ORDER BY COALESCE(p.averageRating, 10) DESC, p.reviewCount DESC, p.id ASC")
+	List<UUID> findProductIdsByReviewsAfter(@Param("rating") BigDecimal rating,
+			@Param("reviewCount") long reviewCount, @Param("id") UUID id, Pageable limit);
+
+	@Query("SELECT p.id FROM Product p WHERE p.isDeleted = false "
+			+ "AND p.createdAt <= :createdAt AND (p.createdAt < :createdAt OR p.id > :id) "
+			+ "ORDER BY p.createdAt DESC, p.id ASC")
+	List<UUID> findProductIdsByNewestAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") UUID id,
+			Pageable limit);
+
+	@Query(value = "SELECT p.id FROM Product p JOIN p.events e WHERE p.isDeleted = false AND e.id = :eventId",
+		   countQuery = "SELECT COUNT(p) FROM Product p JOIN p.events e WHERE p.isDeleted = false AND e.id = :eventId")
+	Page<UUID> findProductIdsByEventId(@Param("eventId") UUID eventId, Pageable pageable);
+
+	@Query(value = "SELECT p.id " + ACTIVE_IN_CATEGORY, countQuery = "SELECT COUNT(p) " + ACTIVE_IN_CATEGORY)
+	Page<UUID> findProductIdsByCategoryId(@Param("categoryId") UUID categoryId, Pageable pageable);
+
+	@Query(value = "SELECT p.id " + ACTIVE_IN_CATEGORY + " " + LISTING_ORDER,
+		   countQuery = "SELECT COUNT(p) " + ACTIVE_IN_CATEGORY)
+	Page<UUID> findProductIdsByCategoryIdWithSort(@Param("categoryId") UUID categoryId,
+												  @Param("sortType") String sortType,
+												  Pageable pageable);
+
+	@Query(value = "SELECT p.id FROM Product p JOIN p.brand b "
+			+ "WHERE p.isDeleted = false AND b.slug = :brandSlug AND p.status = 'ACTIVE' AND b.status = 'ACTIVE'",
+		   countQuery = "SELECT COUNT(p) FROM Product p JOIN p.brand b "
+			+ "WHERE p.isDeleted = false AND b.slug = :brandSlug AND p.status = 'ACTIVE' AND b.status = 'ACTIVE'")
+	Page<UUID> findProductIdsByBrandSlug(@Param("brandSlug") String brandSlug, Pageable pageable);
+
+	@Query(value = "SELECT p.id " + FILTERED_IN_CATEGORY, countQuery = "SELECT COUNT(p) " + FILTERED_IN_CATEGORY)
+	Page<UUID> findFilteredProductIdsByCategoryId(@Param("categoryId") UUID categoryId,
+												  @Param("minPrice") BigDecimal minPrice,
+												  @Param("maxPrice") BigDecimal maxPrice,
+												  @Param("colors") List<String> colors,
+												  @Param("sizes") List<String> sizes,
+												  @Param("brandSlugs") List<String> brandSlugs,
+												  Pageable pageable);
+
+	@Query(value = "SELECT p.id " + FILTERED_IN_CATEGORY + LISTING_ORDER,
+		   countQuery = "SELECT COUNT(p) " + FILTERED_IN_CATEGORY)
+	Page<UUID> findFilteredProductIdsByCategoryIdWithSort(@Param("categoryId") UUID categoryId,
+														  @Param("minPrice") BigDecimal minPrice,
+														  @Param("maxPrice") BigDecimal maxPrice,
+														  @Param("colors") List<String> colors,
+														  @Param("sizes") List<String> sizes,
+														  @Param("brandSlugs") List<String> brandSlugs,
+														  @Param("sortType") String sortType,
+														  Pageable pageable);
+
+	@Query("SELECT DISTINCT p FROM Product p LEFT JOIN FETCH p.variants LEFT JOIN FETCH p.brand LEFT JOIN FETCH p.category " +
+		   "WHERE p.isDeleted = false AND p.id IN :ids")
+	List<Product> findAllWithDetailsByIdIn(@Param("ids") Collection<UUID> ids);
+
+	/**
+	 * Returns {@code [id, gender, categoryId, parentCategoryId, brandId, metadata]}
+	 * for every active product, the inputs of similarity scoring.
+	 */
+	@Query("SELECT p.id, p.gender, p.categoryId, c.parentId, p.brandId, p.metadata FROM Product p LEFT JOIN p.category c " +
+		   "WHERE p.isDeleted = false AND p.status = 'ACTIVE'")
+	List<Object[]> findSimilarityProfiles();
+
+	@Query("SELECT p.id, p.gender, p.categoryId, c.parentId, p.brandId, p.metadata FROM Product p LEFT JOIN p.category c " +
+		   "WHERE p.isDeleted = false AND p.status = 'ACTIVE' AND p.id IN :ids")
+	List<Object[]> findSimilarityProfilesByIdIn(@Param("ids") Collection<UUID> ids);
+
+	/**
+	 * Returns {@code [id, name, description, brandName, categoryName, metadata]} for every
+	 * searchable product, the inputs of the search index.
+	 */
+	@Query("SELECT p.id, p.name, p.description, b.name, c.name, p.metadata FROM Product p JOIN p.brand b " +
+		   "LEFT JOIN p.category c WHERE p.isDeleted = false AND p.status = 'ACTIVE' AND b.status = 'ACTIVE'")
+	List<Object[]> findSearchDocuments();
+
+	@Query("SELECT p.id, p.name, p.description, b.name, c.name, p.metadata FROM Product p JOIN p.brand b " +
+		   "LEFT JOIN p.category c WHERE p.isDeleted = false AND p.status = 'ACTIVE' AND b.status = 'ACTIVE' " +
+		   "AND p.id IN :ids")
+	List<Object[]> findSearchDocumentsByIdIn(@Param("ids") Collection<UUID> ids);
+
+	/**
+	 * Returns {@code [id, name, reviewCount, brandId, brandSlug, brandName, categoryId,
+	 * categorySlug, categoryName]} for every searchable product, the inputs of typeahead
+	 * suggestions. The category columns are null when the category is hidden.
+	 */
+	@Query("SELECT p.id, p.name, p.reviewCount, b.id, b.slug, b.name, c.id, c.slug, c.name FROM Product p " +
+		   "JOIN p.brand b LEFT JOIN p.category c ON c.isDeleted = false AND c.isActive = true " +
+		   "WHERE p.isDeleted = false AND p.status = 'ACTIVE' AND b.status = 'ACTIVE'")
+	List<Object[]> findSuggestionRows();
+
+	/** Returns {@code [productId, quantity]}: the units of each product ordered, cancelled orders aside. */
+	@Query("SELECT v.product.id, SUM(oi.quantity) FROM OrderItem oi JOIN oi.variant v JOIN oi.order o " +
+		   "WHERE oi.isDeleted = false AND o.isDeleted = false AND o.status <> 'CANCELLED' GROUP BY v.product.id")
+	List<Object[]> findOrderedQuantities();
+
+	/**
+	 * Returns {@code [productId, brandSlug, basePrice, averageRating, reviewCount, createdAt,
+	 * variantPrice, variantColor, variantSize]} for every variant of the category's listable
+	 * products, the inputs of the facet index. Colors and sizes are normalized as in
+	 * {@link #findFilteredProductIdsByCategoryId}.
+	 */
+	@Query("SELECT p.id, b.slug, p.basePrice, p.averageRating, p.reviewCount, p.createdAt, v.price, " +
+		   "v.normalizedColor, v.normalizedSize " +
+		   "FROM Product p JOIN p.variants v JOIN p.brand b " +
+		   "WHERE p.isDeleted = false AND p.categoryId = :categoryId " +
+		   "AND p.status = 'ACTIVE' AND b.status = 'ACTIVE'")
+	List<Object[]> findFacetRowsByCategoryId(@Param("categoryId") UUID categoryId);
 
 	@Query("SELECT p FROM Product p WHERE p.isDeleted = false AND p.id = :id")
 	Optional<Product> findByIdAndNotDeleted(@Param("id") UUID id);
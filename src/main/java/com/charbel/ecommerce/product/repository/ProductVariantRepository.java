@@ -6,13 +6,14 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 
 @Repository
-public interface ProductVariantRepository extends JpaRepository<ProductVariant, UUID> {
+public interface ProductVariantRepository extends JpaRepository<ProductVariant, UUID>, ProductVariantRepositoryCustom {
 
 	@Query("SELECT pv FROM ProductVariant pv JOIN FETCH pv.product WHERE pv.isDeleted = false AND pv.stock < :threshold")
 	List<ProductVariant> findLowStockVariants(@Param("threshold") int threshold);
@@ -26,6 +27,10 @@ public interface ProductVariantRepository extends JpaRepository<ProductVariant,
 	@Query("SELECT pv FROM ProductVariant pv JOIN FETCH pv.product WHERE pv.isDeleted = false AND pv.id IN :variantIds")
 	List<ProductVariant> findByIdInWithProduct(@Param("variantIds") List<UUID> variantIds);
 
+	/** Returns {@code [variantId, stock]} pairs for the variants that exist. */
+	@Query("SELECT pv.id, pv.stock FROM ProductVariant pv WHERE pv.isDeleted = false AND pv.id IN :variantIds")
+	List<Object[]> findStockByIds(@Param("variantIds") Collection<UUID> variantIds);
+
 	@Query("SELECT pv FROM ProductVariant pv WHERE pv.isDeleted = false AND pv.id = :id")
 	Optional<ProductVariant> findByIdAndNotDeleted(@Param("id") UUID id);
 
@@ -0,0 +1,21 @@
+package com.charbel.ecommerce.product.repository;
+
+import java.util.Map;
+import java.util.UUID;
+
+public interface ProductVariantRepositoryCustom {
+
+	/**
+	 * Atomically decrements stock for every variant in a single JDBC batch of
+	 * conditional updates ({@code stock >= quantity}). Returns, per variant, whether
+	 * its decrement was applied. Callers are expected to roll back the surrounding
+	 * transaction when any entry is {@code false}.
+	 */
+	Map<UUID, Boolean> decrementStockIfAvailable(Map<UUID, Integer> quantitiesByVariantId);
+
+	/**
+	 * Adds stock to every variant in a single JDBC batch of updates, locking rows in
+	 * the same order as {@link #decrementStockIfAvailable}.
+	 */
+	void incrementStock(Map<UUID, Integer> quantitiesByVariantId);
+}
@@ -0,0 +1,65 @@
+package com.charbel.ecommerce.product.repository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class ProductVariantRepositoryCustomImpl implements ProductVariantRepositoryCustom {
+
+	private static final String DECREMENT_STOCK_SQL = "UPDATE product_variants SET stock = stock - ?, updated_at = now() "
+			+ "WHERE id = ? AND is_deleted = false AND stock >= ?";
+	private static final String INCREMENT_STOCK_SQL = "UPDATE product_variants SET stock = stock + ?, updated_at = now() "
+			+ "WHERE id = ? AND is_deleted = false";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	@Override
+	public Map<UUID, Boolean> decrementStockIfAvailable(Map<UUID, Integer> quantitiesByVariantId) {
+		if (quantitiesByVariantId.isEmpty()) {
+			return Map.of();
+		}
+
+		List<UUID> variantIds = lockOrder(quantitiesByVariantId);
+
+		List<Object[]> batchArgs = new ArrayList<>(variantIds.size());
+		for (UUID variantId : variantIds) {
+			Integer quantity = quantitiesByVariantId.get(variantId);
+			batchArgs.add(new Object[]{quantity, variantId, quantity});
+		}
+
+		int[] updateCounts = jdbcTemplate.batchUpdate(DECREMENT_STOCK_SQL, batchArgs);
+
+		Map<UUID, Boolean> results = new LinkedHashMap<>();
+		for (int i = 0; i < variantIds.size(); i++) {
+			results.put(variantIds.get(i), updateCounts[i] > 0);
+		}
+		return results;
+	}
+
+	@Override
+	public void incrementStock(Map<UUID, Integer> quantitiesByVariantId) {
+		if (quantitiesByVariantId.isEmpty()) {
+			return;
+		}
+
+		List<Object[]> batchArgs = new ArrayList<>(quantitiesByVariantId.size());
+		for (UUID variantId : lockOrder(quantitiesByVariantId)) {
+			batchArgs.add(new Object[]{quantitiesByVariantId.get(variantId), variantId});
+		}
+		jdbcTemplate.batchUpdate(INCREMENT_STOCK_SQL, batchArgs);
+	}
+
+	// Always lock rows in the same order so concurrent multi-item writes cannot deadlock
+	private static List<UUID> lockOrder(Map<UUID, Integer> quantitiesByVariantId) {
+		List<UUID> variantIds = new ArrayList<>(quantitiesByVariantId.keySet());
+		variantIds.sort(null);
+		return variantIds;
+	}
+}
@@ -0,0 +1,267 @@
+package com.charbel.ecommerce.product.service;
+
+import com.charbel.ecommerce.common.enums.ProductSortType;
+import com.charbel.ecommerce.event.service.DiscountIndex;
+import com.charbel.ecommerce.event.service.DiscountIndex.ActiveDiscount;
+import com.charbel.ecommerce.product.dto.ProductFilterRequest;
+import com.charbel.ecommerce.product.dto.ProductResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Read-through cache of category and brand listing pages.
+ *
+ * Pages are keyed by scope (category or brand slug), filters, sort and page, and
+ * evicted least-recently-used past {@code products.catalog-cache.max-entries} or
+ * once older than {@code products.catalog-cache.ttl}. Writes that change what a
+ * listing shows invalidate the affected entries once their transaction commits.
+ * Discounts are checked against the {@link DiscountIndex} on every hit, so a page
+ * is reloaded as soon as an event starts or ends. Stock levels on cached pages
+ * may lag by up to the TTL.
+ *
+ * Publishes {@code catalog.cache.requests} (tagged {@code result=hit|miss}),
+ * {@code catalog.cache.evictions} (tagged {@code cause=size|expired|invalidated})
+ * and {@code catalog.cache.size}.
+ */
+@Service
+@Slf4j
+public class CatalogCache {
+
+	private final DiscountIndex discountIndex;
+	private final long ttlMillis;
+	private final int maxEntries;
+
+	// Access-ordered, so the eldest entry is the least recently used; guarded by this
+	private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	// Bumped by every invalidation, so a load that raced one is not cached
+	private final AtomicLong generation = new AtomicLong();
+
+	private final Counter hits;
+	private final Counter misses;
+	private final Counter sizeEvictions;
+	private final Counter expiredEvictions;
+	private final Counter invalidatedEvictions;
+
+	public CatalogCache(DiscountIndex discountIndex, MeterRegistry meterRegistry,
+			@Value("${products.catalog-cache.ttl:60000}") long ttlMillis,
+			@Value("${products.catalog-cache.max-entries:5000}") int maxEntries) {
+		this.discountIndex = discountIndex;
+		this.ttlMillis = ttlMillis;
+		this.maxEntries = maxEntries;
+
+		this.hits = requests("hit", meterRegistry);
+		this.misses = requests("miss", meterRegistry);
+		this.sizeEvictions = evictions("size", meterRegistry);
+		this.expiredEvictions = evictions("expired", meterRegistry);
+		this.invalidatedEvictions = evictions("invalidated", meterRegistry);
+		Gauge.builder("catalog.cache.size", this, CatalogCache::size)
+				.description("Listing pages currently cached").register(meterRegistry);
+	}
+
+	/** Returns the cached page for {@code key}, loading and caching it on a miss. */
+	public Page<ProductResponse> get(Key key, Supplier<Page<ProductResponse>> loader) {
+		Entry cached;
+		synchronized (this) {
+			cached = entries.get(key);
+			if (cached != null && cached.isExpired(System.currentTimeMillis())) {
+				entries.remove(key);
+				expiredEvictions.increment();
+				cached = null;
+			}
+		}
+		if (cached != null && hasCurrentDiscounts(cached)) {
+			hits.increment();
+			return cached.page;
+		}
+
+		misses.increment();
+		long observedGeneration = generation.get();
+		Page<ProductResponse> page = loader.get();
+		Entry loaded = new Entry(key, page, discountIds(page), System.currentTimeMillis() + ttlMillis);
+		synchronized (this) {
+			if (generation.get() == observedGeneration) {
+				entries.put(key, loaded);
+				evictOverflow();
+			}
+		}
+		return page;
+	}
+
+	/**
+	 * Drops listings a product change can affect: its category and brand listings,
+	 * empty brand listings it may now appear in, and any page that shows it.
+	 */
+	public void invalidateProductAfterCommit(UUID productId, UUID categoryId, UUID brandId) {
+		afterCommit(() -> invalidate(entry -> entry.containsProduct(productId)
+				|| (categoryId != null && categoryId.equals(entry.key.categoryId))
+				|| (entry.key.brandSlug != null && (entry.brandIds.contains(brandId) || entry.productIds.isEmpty()))));
+	}
+
+	/** Drops every page that shows one of {@code productIds}. */
+	public void invalidateProductsAfterCommit(Collection<UUID> productIds) {
+		Set<UUID> ids = Set.copyOf(productIds);
+		afterCommit(() -> invalidate(entry -> entry.productIds.stream().anyMatch(ids::contains)));
+	}
+
+	/**
+	 * Drops every page a brand change can affect: pages showing its products and
+	 * listings for, or filtered by, any of its old or new slugs.
+	 */
+	public void invalidateBrandAfterCommit(UUID brandId, Collection<String> slugs) {
+		Set<String> brandSlugs = Set.copyOf(slugs);
+		afterCommit(() -> invalidate(entry -> (brandId != null && entry.brandIds.contains(brandId))
+				|| (entry.key.brandSlug != null && brandSlugs.contains(entry.key.brandSlug))
+				|| (entry.key.filters != null && entry.key.filters.brandSlugs() != null
+						&& entry.key.filters.brandSlugs().stream().anyMatch(brandSlugs::contains))));
+	}
+
+	@Scheduled(fixedDelayString = "${products.catalog-cache.cleanup-interval:60000}")
+	public synchronized void evictExpired() {
+		long now = System.currentTimeMillis();
+		for (Iterator<Entry> iterator = entries.values().iterator(); iterator.hasNext();) {
+			if (iterator.next().isExpired(now)) {
+				iterator.remove();
+				expiredEvictions.increment();
+			}
+		}
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	private synchronized void invalidate(Predicate<Entry> affected) {
+		generation.incrementAndGet();
+		int removed = 0;
+		for (Iterator<Entry> iterator = entries.values().iterator(); iterator.hasNext();) {
+			if (affected.test(iterator.next())) {
+				iterator.remove();
+				removed++;
+			}
+		}
+		invalidatedEvictions.increment(removed);
+		log.debug("Invalidated {} catalog cache entries", removed);
+	}
+
+	private void evictOverflow() {
+		for (Iterator<Entry> iterator = entries.values().iterator(); entries.size() > maxEntries && iterator.hasNext();) {
+			iterator.next();
+			iterator.remove();
+			sizeEvictions.increment();
+		}
+	}
+
+	// A page is stale once any of its products gained, lost or switched discount
+	private boolean hasCurrentDiscounts(Entry entry) {
+		for (UUID productId : entry.productIds) {
+			UUID current = discountIndex.findActiveDiscount(productId).map(CatalogCache::discountId).orElse(null);
+			if (!Objects.equals(current, entry.discountIds.get(productId))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static Map<UUID, UUID> discountIds(Page<ProductResponse> page) {
+		Map<UUID, UUID> discountIds = new HashMap<>();
+		for (ProductResponse product : page.getContent()) {
+			if (product.getDiscount() != null) {
+				discountIds.put(product.getId(), product.getDiscount().getDiscountId());
+			}
+		}
+		return discountIds;
+	}
+
+	private static UUID discountId(ActiveDiscount activeDiscount) {
+		return activeDiscount.discount().getId();
+	}
+
+	private static void afterCommit(Runnable invalidation) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			invalidation.run();
+			return;
+		}
+
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				invalidation.run();
+			}
+		});
+	}
+
+	private static Counter requests(String result, MeterRegistry meterRegistry) {
+		return Counter.builder("catalog.cache.requests").tag("result", result)
+				.description("Catalog cache lookups").register(meterRegistry);
+	}
+
+	private static Counter evictions(String cause, MeterRegistry meterRegistry) {
+		return Counter.builder("catalog.cache.evictions").tag("cause", cause)
+				.description("Catalog cache entries removed").register(meterRegistry);
+	}
+
+	/** Identifies one listing page. Build with {@link #category} or {@link #brand}. */
+	public record Key(UUID categoryId, String brandSlug, ProductSortType sortType, ListingFilters filters,
+			Pageable pageable) {
+
+		public static Key category(UUID categoryId, ProductSortType sortType, ProductFilterRequest filterRequest,
+				Pageable pageable) {
+			return new Key(categoryId, null, sortType == null ? ProductSortType.DEFAULT : sortType,
+					ListingFilters.of(filterRequest), pageable);
+		}
+
+		public static Key brand(String brandSlug, Pageable pageable) {
+			return new Key(null, brandSlug, null, null, pageable);
+		}
+	}
+
+	private static final class Entry {
+
+		private final Key key;
+		private final Page<ProductResponse> page;
+		private final Set<UUID> productIds;
+		private final Set<UUID> brandIds;
+		private final Map<UUID, UUID> discountIds;
+		private final long expiresAt;
+
+		private Entry(Key key, Page<ProductResponse> page, Map<UUID, UUID> discountIds, long expiresAt) {
+			this.key = key;
+			this.page = page;
+			this.productIds = page.getContent().stream().map(ProductResponse::getId).collect(Collectors.toSet());
+			this.brandIds = page.getContent().stream().map(ProductResponse::getBrandId)
+					.filter(Objects::nonNull).collect(Collectors.toSet());
+			this.discountIds = discountIds;
+			this.expiresAt = expiresAt;
+		}
+
+		private boolean containsProduct(UUID productId) {
+			return productIds.contains(productId);
+		}
+
+		private boolean isExpired(long now) {
+			return now >= expiresAt;
+		}
+	}
+}
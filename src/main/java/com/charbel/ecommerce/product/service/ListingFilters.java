@@ -0,0 +1,39 @@
+package com.charbel.ecommerce.product.service;
+
+import com.charbel.ecommerce.product.dto.ProductFilterRequest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Category listing filters normalized so equivalent requests compare equal. Colors
+ * and sizes match case-insensitively and an empty list means no filter, as in
+ * {@code ProductRepository.findFilteredProductIdsByCategoryId}; an empty brand list
+ * matches nothing.
+ */
+public record ListingFilters(BigDecimal minPrice, BigDecimal maxPrice, List<String> colors, List<String> sizes,
+		List<String> brandSlugs) {
+
+	public static ListingFilters of(ProductFilterRequest request) {
+		if (request == null) {
+			return null;
+		}
+		return new ListingFilters(normalize(request.getMinPrice()), normalize(request.getMaxPrice()),
+				normalizeUpper(request.getColors()), normalizeUpper(request.getSizes()),
+				request.getBrandSlugs() != null
+						? request.getBrandSlugs().stream().distinct().sorted().collect(Collectors.toList())
+						: null);
+	}
+
+	private static BigDecimal normalize(BigDecimal value) {
+		return value != null ? value.stripTrailingZeros() : null;
+	}
+
+	private static List<String> normalizeUpper(List<String> values) {
+		if (values == null || values.isEmpty()) {
+			return null;
+		}
+		return values.stream().map(String::toUpperCase).distinct().sorted().collect(Collectors.toList());
+	}
+}
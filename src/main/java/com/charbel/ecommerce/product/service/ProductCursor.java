@@ -0,0 +1,101 @@
+package com.charbel.ecommerce.product.service;
+
+import com.charbel.ecommerce.common.enums.ProductSortType;
+import com.charbel.ecommerce.product.entity.Product;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * Opaque keyset position in a product listing: the sort key and id of the last
+ * product on the previous page under one {@link ProductSortType}, encoded as
+ * URL-safe Base64.
+ *
+ * Positions compare in listing order, ids breaking ties. Missing keys are
+ * replaced by values above any real one, which puts them where Postgres puts
+ * nulls: first when descending, last when ascending.
+ */
+record ProductCursor(ProductSortType sortType, BigDecimal basePrice, BigDecimal rating, long reviewCount,
+		LocalDateTime createdAt, UUID id) implements Comparable<ProductCursor> {
+
+	// Postgres compares uuids as unsigned bytes, unlike UUID.compareTo
+	static final Comparator<UUID> ID_ORDER = (first, second) -> {
+		int result = Long.compareUnsigned(first.getMostSignificantBits(), second.getMostSignificantBits());
+		return result != 0 ? result
+				: Long.compareUnsigned(first.getLeastSignificantBits(), second.getLeastSignificantBits());
+	};
+
+	// Stand-ins for missing keys: above base_price numeric(10,2) and average_rating numeric(2,1)
+	static final BigDecimal NO_PRICE = new BigDecimal("1E10");
+	static final BigDecimal NO_RATING = BigDecimal.TEN;
+	static final LocalDateTime NO_DATE = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+	private static final UUID MIN_ID = new UUID(0, 0);
+	private static final String SEPARATOR = "|";
+
+	ProductCursor {
+		sortType = sortType != null ? sortType : ProductSortType.DEFAULT;
+		basePrice = basePrice != null ? basePrice : NO_PRICE;
+		rating = rating != null ? rating : NO_RATING;
+		createdAt = createdAt != null ? createdAt : NO_DATE;
+	}
+
+	static ProductCursor of(ProductSortType sortType, Product product) {
+		return new ProductCursor(sortType, product.getBasePrice(), product.getAverageRating(),
+				product.getReviewCount() != null ? product.getReviewCount() : 0L, product.getCreatedAt(),
+				product.getId());
+	}
+
+	/** The position before the first product of the listing. */
+	static ProductCursor start(ProductSortType sortType) {
+		BigDecimal basePrice = sortType == ProductSortType.PRICE_LOW_TO_HIGH ? NO_PRICE.negate() : NO_PRICE;
+		return new ProductCursor(sortType, basePrice, NO_RATING, Long.MAX_VALUE, NO_DATE, MIN_ID);
+	}
+
+	@Override
+	public int compareTo(ProductCursor other) {
+		int result = switch (sortType) {
+			case PRICE_HIGH_TO_LOW -> other.basePrice.compareTo(basePrice);
+			case PRICE_LOW_TO_HIGH -> basePrice.compareTo(other.basePrice);
+			case REVIEWS -> {
+				int byRating = other.rating.compareTo(rating);
+				yield byRating != 0 ? byRating : Long.compare(other.reviewCount, reviewCount);
+			}
+			case NEWEST -> other.createdAt.compareTo(createdAt);
+			case DEFAULT -> 0;
+		};
+		return result != 0 ? result : ID_ORDER.compare(id, other.id);
+	}
+
+	String encode() {
+		String raw = String.join(SEPARATOR, sortType.name(), basePrice.toPlainString(), rating.toPlainString(),
+				Long.toString(reviewCount), createdAt.toString(), id.toString());
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/** Decodes a token handed out for {@code sortType}; a token of another listing order is rejected. */
+	static ProductCursor decode(String token, ProductSortType sortType) {
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			String[] parts = raw.split(Pattern.quote(SEPARATOR), -1);
+			if (parts.length != 6) {
+				throw new IllegalArgumentException("Invalid cursor");
+			}
+			ProductCursor cursor = new ProductCursor(ProductSortType.valueOf(parts[0]), new BigDecimal(parts[1]),
+					new BigDecimal(parts[2]), Long.parseLong(parts[3]), LocalDateTime.parse(parts[4]),
+					UUID.fromString(parts[5]));
+			if (cursor.sortType() != (sortType != null ? sortType : ProductSortType.DEFAULT)) {
+				throw new IllegalArgumentException("Cursor does not match sort type " + sortType);
+			}
+			return cursor;
+		} catch (DateTimeParseException e) {
+			throw new IllegalArgumentException("Invalid cursor", e);
+		}
+	}
+}
@@ -0,0 +1,507 @@
+package com.charbel.ecommerce.product.service;
+
+import com.charbel.ecommerce.common.enums.ProductSortType;
+import com.charbel.ecommerce.product.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-memory facet index over the listable products of each category, answering
+ * filtered category listings and facet counts without querying the database.
+ *
+ * Per category, products and their variants are numbered, and every brand, color
+ * and size maps to a {@link BitSet} of the products or variants carrying it.
+ * Variants are also kept sorted by price, so a price range is a contiguous slice.
+ * A filter is then a handful of bitset unions and intersections: color, size and
+ * price are intersected per variant, since the query requires one variant to
+ * match all three, then projected onto products and intersected with the brands.
+ * Listing order is precomputed per {@link ProductSortType}, so a keyset page
+ * starts with a binary search for its {@link ProductCursor}.
+ *
+ * Categories are loaded on first use and reloaded after a commit that changes
+ * them. Changes made by other instances are picked up by a periodic reload
+ * every {@code products.facets.refresh-interval}. Categories without listable
+ * products (including ids that match no category) are not kept, categories not
+ * listed for {@code products.facets.idle-timeout} are dropped instead of
+ * reloaded, and past {@code products.facets.max-categories} the least recently
+ * listed category is dropped.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductFacetIndex {
+
+	private static final ListingFilters NO_FILTERS = new ListingFilters(null, null, null, null, null);
+
+	private final ProductRepository productRepository;
+
+	@Value("${products.facets.cached-counts:500}")
+	private int cachedCounts;
+
+	@Value("${products.facets.max-categories:1000}")
+	private int maxCategories;
+
+	@Value("${products.facets.idle-timeout:3600000}")
+	private long idleTimeoutMillis;
+
+	private final ConcurrentMap<UUID, CategoryFacets> categories = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns one page of the ids of the category's products matching
+	 * {@code filters}, in the order of {@code ProductRepository.findFilteredProductIdsByCategoryIdWithSort}.
+	 * Any sort on {@code pageable} itself is ignored.
+	 */
+	public Page<UUID> findProductIds(UUID categoryId, ProductSortType sortType, ListingFilters filters,
+			Pageable pageable) {
+		CategoryFacets facets = facets(categoryId);
+		BitSet matches = facets.matchingProducts(filters);
+		int total = matches.cardinality();
+
+		int[] order = facets.orders.get(sortType != null ? sortType : ProductSortType.DEFAULT);
+		long first = pageable.isPaged() ? pageable.getOffset() : 0;
+		int size = pageable.isPaged() ? pageable.getPageSize() : total;
+		List<UUID> productIds = new ArrayList<>(Math.min(size, total));
+		long position = 0;
+		for (int i = 0; i < order.length && productIds.size() < size; i++) {
+			if (matches.get(order[i]) && position++ >= first) {
+				productIds.add(facets.productIds[order[i]]);
+			}
+		}
+		return new PageImpl<>(productIds, pageable, total);
+	}
+
+	/**
+	 * Returns up to {@code limit} ids of the category's products matching
+	 * {@code filters} that come after {@code cursor} in its listing order. The
+	 * page is found by binary search, so it costs the same at any depth.
+	 */
+	public List<UUID> findProductIdsAfter(UUID categoryId, ListingFilters filters, ProductCursor cursor,
+			int limit) {
+		CategoryFacets facets = facets(categoryId);
+		BitSet matches = facets.matchingProducts(filters);
+
+		int[] order = facets.orders.get(cursor.sortType());
+		ProductCursor[] positions = facets.positions.get(cursor.sortType());
+		int low = 0;
+		int high = order.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (positions[order[middle]].compareTo(cursor) <= 0) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+
+		List<UUID> productIds = new ArrayList<>(Math.min(limit, order.length - low));
+		for (int i = low; i < order.length && productIds.size() < limit; i++) {
+			if (matches.get(order[i])) {
+				productIds.add(facets.productIds[order[i]]);
+			}
+		}
+		return productIds;
+	}
+
+	/**
+	 * Counts, for every color, size and brand in the category, the products that
+	 * would match if that value were selected. Each facet is counted under all the
+	 * other filters but not its own selection, so the counts of the values one can
+	 * add to a selection stay meaningful. Counts are cached per filter signature
+	 * until the category is reloaded.
+	 */
+	public FacetCounts countFacets(UUID categoryId, ListingFilters filters) {
+		CategoryFacets facets = facets(categoryId);
+		ListingFilters signature = filters != null ? filters : NO_FILTERS;
+		synchronized (facets.cachedCounts) {
+			FacetCounts cached = facets.cachedCounts.get(signature);
+			if (cached != null) {
+				return cached;
+			}
+		}
+
+		FacetCounts counts = countFacets(facets, signature);
+		synchronized (facets.cachedCounts) {
+			facets.cachedCounts.put(signature, counts);
+		}
+		return counts;
+	}
+
+	private static FacetCounts countFacets(CategoryFacets facets, ListingFilters filters) {
+		BitSet matches = facets.matchingProducts(filters);
+
+		BitSet withoutColors = facets.matchingVariants(filters, Facet.COLOR);
+		BitSet withoutSizes = facets.matchingVariants(filters, Facet.SIZE);
+		BitSet brands = facets.brandFilter(filters);
+		BitSet withoutBrands = facets.toProducts(facets.matchingVariants(filters, null));
+
+		return new FacetCounts(matches.cardinality(),
+				facets.countVariantValues(facets.variantsByColor, withoutColors, brands),
+				facets.countVariantValues(facets.variantsBySize, withoutSizes, brands),
+				countValues(facets.productsByBrand, withoutBrands));
+	}
+
+	/** Reloads the category once the current transaction commits. */
+	public void refreshCategoryAfterCommit(UUID categoryId) {
+		if (categoryId != null) {
+			afterCommit(() -> reload(categoryId));
+		}
+	}
+
+	/** Reloads every loaded category once the current transaction commits. */
+	public void refreshAllAfterCommit() {
+		afterCommit(this::refreshLoadedCategories);
+	}
+
+	@Scheduled(fixedDelayString = "${products.facets.refresh-interval:60000}")
+	public void refreshLoadedCategories() {
+		long idleSince = System.currentTimeMillis() - idleTimeoutMillis;
+		for (Map.Entry<UUID, CategoryFacets> loaded : List.copyOf(categories.entrySet())) {
+			if (loaded.getValue().lastUsed < idleSince) {
+				// Not listed lately: stop paying for its reloads until it is listed again
+				categories.remove(loaded.getKey(), loaded.getValue());
+			} else {
+				reload(loaded.getKey());
+			}
+		}
+	}
+
+	private CategoryFacets facets(UUID categoryId) {
+		long now = System.currentTimeMillis();
+		CategoryFacets facets = categories.get(categoryId);
+		if (facets != null) {
+			facets.lastUsed = now;
+			return facets;
+		}
+
+		CategoryFacets loaded = load(categoryId);
+		if (loaded.isEmpty()) {
+			// Not kept, so arbitrary category ids cannot grow the index
+			return loaded;
+		}
+		loaded.lastUsed = now;
+		// Never overwrite: a refresh that got in first has the newer data
+		facets = categories.putIfAbsent(categoryId, loaded);
+		if (facets != null) {
+			facets.lastUsed = now;
+			return facets;
+		}
+		if (categories.size() > maxCategories) {
+			evictLeastRecentlyUsed();
+		}
+		return loaded;
+	}
+
+	private void evictLeastRecentlyUsed() {
+		Map.Entry<UUID, CategoryFacets> eldest = null;
+		for (Map.Entry<UUID, CategoryFacets> loaded : categories.entrySet()) {
+			if (eldest == null || loaded.getValue().lastUsed < eldest.getValue().lastUsed) {
+				eldest = loaded;
+			}
+		}
+		if (eldest != null) {
+			categories.remove(eldest.getKey(), eldest.getValue());
+		}
+	}
+
+	private void reload(UUID categoryId) {
+		try {
+			CategoryFacets loaded = load(categoryId);
+			if (loaded.isEmpty()) {
+				categories.remove(categoryId);
+				return;
+			}
+			CategoryFacets previous = categories.get(categoryId);
+			loaded.lastUsed = previous != null ? previous.lastUsed : System.currentTimeMillis();
+			categories.put(categoryId, loaded);
+			if (previous == null && categories.size() > maxCategories) {
+				evictLeastRecentlyUsed();
+			}
+		} catch (Exception e) {
+			// Keep serving the previous facets; the next refresh will try again
+			log.error("Failed to reload facets for category {}: {}", categoryId, e.getMessage(), e);
+		}
+	}
+
+	private CategoryFacets load(UUID categoryId) {
+		CategoryFacets facets = CategoryFacets.build(productRepository.findFacetRowsByCategoryId(categoryId),
+				cachedCounts);
+		log.debug("Loaded facets for category {}: {} products, {} variants", categoryId,
+				facets.productIds.length, facets.variantProduct.length);
+		return facets;
+	}
+
+	private static Map<String, Long> countValues(Map<String, BitSet> values, BitSet within) {
+		Map<String, Long> counts = new TreeMap<>();
+		values.forEach((value, bits) -> counts.put(value, (long) intersectionSize(bits, within)));
+		return Collections.unmodifiableMap(counts);
+	}
+
+	private static int intersectionSize(BitSet first, BitSet second) {
+		BitSet intersection = (BitSet) first.clone();
+		intersection.and(second);
+		return intersection.cardinality();
+	}
+
+	private static BitSet union(Map<String, BitSet> values, Collection<String> selected) {
+		BitSet union = new BitSet();
+		for (String value : selected) {
+			BitSet bits = values.get(value);
+			if (bits != null) {
+				union.or(bits);
+			}
+		}
+		return union;
+	}
+
+	private static void afterCommit(Runnable refresh) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			refresh.run();
+			return;
+		}
+
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				refresh.run();
+			}
+		});
+	}
+
+	/** Per-value match counts; values map to the products matching with that value selected. */
+	public record FacetCounts(long total, Map<String, Long> colors, Map<String, Long> sizes,
+			Map<String, Long> brands) {
+	}
+
+	private enum Facet {
+		COLOR, SIZE
+	}
+
+	private static final class CategoryFacets {
+
+		// Products are numbered in id order, so bit order is the default listing order
+		private final UUID[] productIds;
+		private final Map<String, BitSet> productsByBrand;
+		private final Map<ProductSortType, int[]> orders;
+		// Each product's position under every sort type, indexed by product
+		private final Map<ProductSortType, ProductCursor[]> positions;
+
+		private final int[] variantProduct;
+		private final Map<String, BitSet> variantsByColor;
+		private final Map<String, BitSet> variantsBySize;
+		// Variants with a price, cheapest first, and their prices in the same order
+		private final int[] variantsByPrice;
+		private final BigDecimal[] sortedPrices;
+		// Least recently used counts past the limit are dropped; guarded by itself
+		private final Map<ListingFilters, FacetCounts> cachedCounts;
+		// When the category was last listed, in epoch millis
+		private volatile long lastUsed;
+
+		private CategoryFacets(UUID[] productIds, Map<String, BitSet> productsByBrand,
+				Map<ProductSortType, int[]> orders, Map<ProductSortType, ProductCursor[]> positions,
+				int[] variantProduct, Map<String, BitSet> variantsByColor, Map<String, BitSet> variantsBySize,
+				int[] variantsByPrice, BigDecimal[] sortedPrices, int maxCachedCounts) {
+			this.productIds = productIds;
+			this.productsByBrand = productsByBrand;
+			this.orders = orders;
+			this.positions = positions;
+			this.variantProduct = variantProduct;
+			this.variantsByColor = variantsByColor;
+			this.variantsBySize = variantsBySize;
+			this.variantsByPrice = variantsByPrice;
+			this.sortedPrices = sortedPrices;
+			this.cachedCounts = new LinkedHashMap<>(16, 0.75f, true) {
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<ListingFilters, FacetCounts> eldest) {
+					return size() > maxCachedCounts;
+				}
+			};
+		}
+
+		/** Builds the facets from rows of {@code ProductRepository.findFacetRowsByCategoryId}. */
+		private static CategoryFacets build(List<Object[]> rows, int maxCachedCounts) {
+			Map<UUID, Object[]> productRows = new HashMap<>();
+			for (Object[] row : rows) {
+				productRows.putIfAbsent((UUID) row[0], row);
+			}
+			UUID[] productIds = productRows.keySet().toArray(new UUID[0]);
+			Arrays.sort(productIds, ProductCursor.ID_ORDER);
+
+			Map<UUID, Integer> productIndexes = new HashMap<>();
+			Map<String, BitSet> productsByBrand = new LinkedHashMap<>();
+			Map<ProductSortType, ProductCursor[]> positions = new EnumMap<>(ProductSortType.class);
+			for (ProductSortType sortType : ProductSortType.values()) {
+				positions.put(sortType, new ProductCursor[productIds.length]);
+			}
+			for (int i = 0; i < productIds.length; i++) {
+				Object[] row = productRows.get(productIds[i]);
+				productIndexes.put(productIds[i], i);
+				productsByBrand.computeIfAbsent((String) row[1], ignored -> new BitSet()).set(i);
+				long reviewCount = row[4] != null ? ((Number) row[4]).longValue() : 0L;
+				for (Map.Entry<ProductSortType, ProductCursor[]> sorted : positions.entrySet()) {
+					sorted.getValue()[i] = new ProductCursor(sorted.getKey(), (BigDecimal) row[2],
+							(BigDecimal) row[3], reviewCount, (LocalDateTime) row[5], productIds[i]);
+				}
+			}
+
+			int[] variantProduct = new int[rows.size()];
+			Map<String, BitSet> variantsByColor = new HashMap<>();
+			Map<String, BitSet> variantsBySize = new HashMap<>();
+			List<Integer> pricedVariants = new ArrayList<>();
+			BigDecimal[] variantPrices = new BigDecimal[rows.size()];
+			for (int v = 0; v < rows.size(); v++) {
+				Object[] row = rows.get(v);
+				variantProduct[v] = productIndexes.get((UUID) row[0]);
+				variantPrices[v] = (BigDecimal) row[6];
+				if (variantPrices[v] != null) {
+					pricedVariants.add(v);
+				}
+				if (row[7] != null) {
+					variantsByColor.computeIfAbsent((String) row[7], ignored -> new BitSet()).set(v);
+				}
+				if (row[8] != null) {
+					variantsBySize.computeIfAbsent((String) row[8], ignored -> new BitSet()).set(v);
+				}
+			}
+			pricedVariants.sort(Comparator.comparing(v -> variantPrices[v]));
+			int[] variantsByPrice = pricedVariants.stream().mapToInt(Integer::intValue).toArray();
+			BigDecimal[] sortedPrices = new BigDecimal[variantsByPrice.length];
+			for (int i = 0; i < variantsByPrice.length; i++) {
+				sortedPrices[i] = variantPrices[variantsByPrice[i]];
+			}
+
+			// Positions compare like the ORDER BY of the listing query
+			Map<ProductSortType, int[]> orders = new EnumMap<>(ProductSortType.class);
+			positions.forEach((sortType, sorted) -> orders.put(sortType,
+					order(productIds.length, Comparator.comparing(i -> sorted[i]))));
+
+			return new CategoryFacets(productIds, productsByBrand, orders, positions, variantProduct,
+					variantsByColor, variantsBySize, variantsByPrice, sortedPrices, maxCachedCounts);
+		}
+
+		private boolean isEmpty() {
+			return productIds.length == 0;
+		}
+
+		private static int[] order(int productCount, Comparator<Integer> comparator) {
+			Integer[] order = new Integer[productCount];
+			for (int i = 0; i < productCount; i++) {
+				order[i] = i;
+			}
+			Arrays.sort(order, comparator);
+			return Arrays.stream(order).mapToInt(Integer::intValue).toArray();
+		}
+
+		private BitSet matchingProducts(ListingFilters filters) {
+			BitSet products = toProducts(matchingVariants(filters, null));
+			BitSet brands = brandFilter(filters);
+			if (brands != null) {
+				products.and(brands);
+			}
+			return products;
+		}
+
+		/** Variants matching price, color and size, leaving out the {@code skipped} facet. */
+		private BitSet matchingVariants(ListingFilters filters, Facet skipped) {
+			if (filters == null) {
+				filters = NO_FILTERS;
+			}
+			BitSet variants = filters.minPrice() != null || filters.maxPrice() != null
+					? priceRange(filters.minPrice(), filters.maxPrice())
+					: allVariants();
+			if (filters.colors() != null && skipped != Facet.COLOR) {
+				variants.and(union(variantsByColor, filters.colors()));
+			}
+			if (filters.sizes() != null && skipped != Facet.SIZE) {
+				variants.and(union(variantsBySize, filters.sizes()));
+			}
+			return variants;
+		}
+
+		/** The products of the selected brands, or {@code null} when brands are not filtered. */
+		private BitSet brandFilter(ListingFilters filters) {
+			return filters != null && filters.brandSlugs() != null
+					? union(productsByBrand, filters.brandSlugs())
+					: null;
+		}
+
+		private Map<String, Long> countVariantValues(Map<String, BitSet> values, BitSet variants, BitSet brands) {
+			Map<String, Long> counts = new TreeMap<>();
+			values.forEach((value, bits) -> {
+				BitSet matching = (BitSet) bits.clone();
+				matching.and(variants);
+				BitSet products = toProducts(matching);
+				if (brands != null) {
+					products.and(brands);
+				}
+				counts.put(value, (long) products.cardinality());
+			});
+			return Collections.unmodifiableMap(counts);
+		}
+
+		private BitSet toProducts(BitSet variants) {
+			BitSet products = new BitSet(productIds.length);
+			for (int v = variants.nextSetBit(0); v >= 0; v = variants.nextSetBit(v + 1)) {
+				products.set(variantProduct[v]);
+			}
+			return products;
+		}
+
+		private BitSet allVariants() {
+			BitSet variants = new BitSet(variantProduct.length);
+			variants.set(0, variantProduct.length);
+			return variants;
+		}
+
+		private BitSet priceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+			int from = minPrice != null ? firstPriceAtLeast(minPrice, false) : 0;
+			int to = maxPrice != null ? firstPriceAtLeast(maxPrice, true) : sortedPrices.length;
+			BitSet variants = new BitSet(variantProduct.length);
+			for (int i = from; i < to; i++) {
+				variants.set(variantsByPrice[i]);
+			}
+			return variants;
+		}
+
+		// Index of the first price >= bound, or > bound when exclusive
+		private int firstPriceAtLeast(BigDecimal bound, boolean exclusive) {
+			int low = 0;
+			int high = sortedPrices.length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				int comparison = sortedPrices[middle].compareTo(bound);
+				if (comparison < 0 || (exclusive && comparison == 0)) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			return low;
+		}
+	}
+}
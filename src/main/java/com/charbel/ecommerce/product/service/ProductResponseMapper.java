@@ -1,7 +1,7 @@
 package com.charbel.ecommerce.product.service;
 
 import com.charbel.ecommerce.event.entity.Discount;
-import com.charbel.ecommerce.event.entity.Event;
+import com.charbel.ecommerce.event.service.DiscountIndex;
 import com.charbel.ecommerce.product.dto.DiscountInfo;
 import com.charbel.ecommerce.product.dto.ProductResponse;
 import com.charbel.ecommerce.product.dto.ProductVariantResponse;
@@ -9,39 +9,85 @@ import com.charbel.ecommerce.product.entity.Product;
 import com.charbel.ecommerce.product.entity.ProductImage;
 import com.charbel.ecommerce.product.entity.ProductVariant;
 import com.charbel.ecommerce.product.repository.ProductImageRepository;
-import com.charbel.ecommerce.product.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+/**
+ * Maps products to {@link ProductResponse}s with their images and active discount.
+ *
+ * Use {@link #mapAll(List)} for anything with more than one product: it loads the
+ * images of every product and variant on the page with two {@code IN} queries,
+ * and discounts come from the in-memory {@link DiscountIndex}, so the query count
+ * does not grow with the page size.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ProductResponseMapper {
 
 	private final ProductImageRepository productImageRepository;
-	private final ProductRepository productRepository;
+	private final DiscountIndex discountIndex;
 
 	public ProductResponse mapToProductResponse(Product product) {
-		// Get product images (not variant-specific)
-		List<String> productImageUrls = productImageRepository.findByProductIdAndVariantIdIsNull(product.getId())
-				.stream().map(ProductImage::getImageUrl).collect(Collectors.toList());
+		return mapAll(List.of(product)).get(0);
+	}
+
+	public Page<ProductResponse> mapAll(Page<Product> products) {
+		return new PageImpl<>(mapAll(products.getContent()), products.getPageable(), products.getTotalElements());
+	}
+
+	/** Maps the products in order, hydrating images for all of them at once. */
+	public List<ProductResponse> mapAll(List<Product> products) {
+		if (products.isEmpty()) {
+			return List.of();
+		}
+
+		Set<UUID> productIds = products.stream().map(Product::getId).collect(Collectors.toSet());
+		Set<UUID> variantIds = products.stream()
+				.filter(product -> product.getVariants() != null)
+				.flatMap(product -> product.getVariants().stream())
+				.map(ProductVariant::getId)
+				.collect(Collectors.toSet());
+
+		// Product images (not variant-specific) and variant images, one query each
+		Map<UUID, List<String>> productImageUrls = productImageRepository.findByProductIdInAndVariantIdIsNull(productIds)
+				.stream().collect(Collectors.groupingBy(ProductImage::getProductId,
+						Collectors.mapping(ProductImage::getImageUrl, Collectors.toList())));
+		Map<UUID, List<String>> variantImageUrls = variantIds.isEmpty()
+				? Map.of()
+				: productImageRepository.findByVariantIdIn(variantIds).stream()
+						.collect(Collectors.groupingBy(ProductImage::getVariantId,
+								Collectors.mapping(ProductImage::getImageUrl, Collectors.toList())));
+
+		List<ProductResponse> responses = new ArrayList<>(products.size());
+		for (Product product : products) {
+			responses.add(mapToProductResponse(product, productImageUrls, variantImageUrls));
+		}
+		return responses;
+	}
 
+	private ProductResponse mapToProductResponse(Product product, Map<UUID, List<String>> productImageUrls,
+			Map<UUID, List<String>> variantImageUrls) {
 		// Use the existing fromEntity method which handles brand and category mapping
 		ProductResponse response = ProductResponse.fromEntity(product);
 
 		// Override imageUrls with the product-specific images
-		response.setImageUrls(productImageUrls);
+		response.setImageUrls(productImageUrls.getOrDefault(product.getId(), List.of()));
 
 		// Map variants with their specific images using the custom method
 		if (product.getVariants() != null) {
 			List<ProductVariantResponse> variantResponses = product.getVariants().stream()
-					.map(this::mapToVariantResponse)
+					.map(variant -> mapToVariantResponse(variant, variantImageUrls))
 					.collect(Collectors.toList());
 			response.setVariants(variantResponses);
 		}
@@ -52,45 +98,31 @@ public class ProductResponseMapper {
 		return response;
 	}
 
-	private ProductVariantResponse mapToVariantResponse(ProductVariant variant) {
-		// Get variant-specific images
-		List<String> variantImageUrls = productImageRepository.findByVariantId(variant.getId()).stream()
-				.map(ProductImage::getImageUrl).collect(Collectors.toList());
-
+	private ProductVariantResponse mapToVariantResponse(ProductVariant variant,
+			Map<UUID, List<String>> variantImageUrls) {
 		return ProductVariantResponse.builder().id(variant.getId()).sku(variant.getSku())
 				.attributes(variant.getAttributes()).price(variant.getPrice()).stock(variant.getStock())
-				.imageUrls(variantImageUrls).createdAt(variant.getCreatedAt()).updatedAt(variant.getUpdatedAt())
+				.imageUrls(variantImageUrls.getOrDefault(variant.getId(), List.of())).createdAt(variant.getCreatedAt())
+				.updatedAt(variant.getUpdatedAt())
 				.build();
 	}
 
 	private DiscountInfo getActiveDiscountForProduct(UUID productId) {
-		LocalDateTime now = LocalDateTime.now();
-		List<Event> activeEvents = productRepository.findActiveEventsWithDiscountsForProduct(productId, now);
-
-		if (activeEvents.isEmpty()) {
-			return null;
-		}
-
-		// Return the first active event with discounts (you might want to prioritize by discount value)
-		Event event = activeEvents.get(0);
-		Discount discount = event.getDiscounts().stream()
-			.findFirst()
+		return discountIndex.findActiveDiscount(productId)
+			.map(activeDiscount -> {
+				Discount discount = activeDiscount.discount();
+				return DiscountInfo.builder()
+					.eventId(activeDiscount.eventId())
+					.eventName(activeDiscount.eventName())
+					.discountId(discount.getId())
+					.type(discount.getType())
+					.value(discount.getValue())
+					.minPurchaseAmount(discount.getMinPurchaseAmount())
+					.maxDiscountAmount(discount.getMaxDiscountAmount())
+					.eventStartDate(activeDiscount.eventStartDate())
+					.eventEndDate(activeDiscount.eventEndDate())
+					.build();
+			})
 			.orElse(null);
-
-		if (discount == null) {
-			return null;
-		}
-
-		return DiscountInfo.builder()
-			.eventId(event.getId())
-			.eventName(event.getName())
-			.discountId(discount.getId())
-			.type(discount.getType())
-			.value(discount.getValue())
-			.minPurchaseAmount(discount.getMinPurchaseAmount())
-			.maxDiscountAmount(discount.getMaxDiscountAmount())
-			.eventStartDate(event.getStartDate())
-			.eventEndDate(event.getEndDate())
-			.build();
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,646 @@
+package com.charbel.ecommerce.product.service;
+
+import com.charbel.ecommerce.product.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory full-text index over the searchable catalog, answering product
+ * search without querying the database.
+ *
+ * Name, description, brand name, category name and metadata values are split
+ * into lowercase, accent-free terms, and every term keeps a posting list of
+ * the products containing it. Fields are weighted, a name match counting
+ * most, and products are ranked by BM25. Every query term must match, either
+ * exactly or as the prefix of an indexed term, so results narrow as the
+ * customer types; prefix matches score below exact ones. A prefix expands to
+ * every indexed term it starts, so totals are exact however many there are.
+ *
+ * A full rebuild at startup and periodically loads the catalog into an
+ * immutable base segment. Products changed through {@link ProductService} are
+ * re-indexed shortly after their transaction commits into a small delta
+ * segment that shadows their base entries, and the next rebuild folds the
+ * delta back into the base once it grows past {@code products.search.max-delta}.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchIndex {
+
+	private static final Comparator<Hit> BEST_FIRST = Comparator.comparingDouble(Hit::score).reversed()
+			.thenComparing(Hit::productId);
+
+	// BM25 term frequency saturation and length normalization
+	private static final float K1 = 1.2f;
+	private static final float B = 0.75f;
+
+	private static final float NAME_WEIGHT = 3.0f;
+	private static final float BRAND_WEIGHT = 2.0f;
+	private static final float CATEGORY_WEIGHT = 2.0f;
+	private static final float DESCRIPTION_WEIGHT = 1.0f;
+	private static final float METADATA_WEIGHT = 1.0f;
+	private static final float PREFIX_WEIGHT = 0.5f;
+
+	// Shorter query terms only match exactly, so one letter does not expand to half the dictionary
+	private static final int MIN_PREFIX_LENGTH = 2;
+
+	private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+	private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+	private final ProductRepository productRepository;
+
+	@Value("${products.search.max-delta:5000}")
+	private int maxDelta;
+
+	private final Object rebuildLock = new Object();
+	private final Object updateLock = new Object();
+	private final Set<UUID> pendingRefresh = ConcurrentHashMap.newKeySet();
+
+	private volatile State state;
+	private volatile boolean rebuilding;
+	private volatile boolean rebuildRequested;
+
+	/**
+	 * Returns one page of the ids of products matching every term of
+	 * {@code query}, best match first, ties broken by product id. Any sort on
+	 * {@code pageable} is ignored, and a query without terms matches nothing.
+	 */
+	public Page<UUID> search(String query, Pageable pageable) {
+		State current = state;
+		List<String> terms = List.copyOf(new LinkedHashSet<>(tokenize(query)));
+		if (current == null || terms.isEmpty()) {
+			return Page.empty(pageable);
+		}
+
+		long wanted = pageable.isPaged() ? pageable.getOffset() + pageable.getPageSize() : Integer.MAX_VALUE;
+		TopHits top = new TopHits((int) Math.min(wanted, Integer.MAX_VALUE));
+		long total = search(current, current.base(), current.deleted(), terms, top)
+				+ search(current, current.delta(), null, terms, top);
+
+		List<UUID> ranked = top.productIds();
+		int from = (int) Math.min(pageable.isPaged() ? pageable.getOffset() : 0, ranked.size());
+		return new PageImpl<>(ranked.subList(from, ranked.size()), pageable, total);
+	}
+
+	/**
+	 * Re-indexes a product once the current transaction commits, or on the next
+	 * refresh when called outside a transaction.
+	 */
+	public void refreshAfterCommit(UUID productId) {
+		afterCommit(() -> pendingRefresh.add(productId));
+	}
+
+	/** Rebuilds the whole index on the next refresh after the current transaction commits. */
+	public void rebuildAfterCommit() {
+		afterCommit(() -> rebuildRequested = true);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	@Scheduled(fixedDelayString = "${products.search.rebuild-interval:3600000}",
+			initialDelayString = "${products.search.rebuild-interval:3600000}")
+	public void rebuild() {
+		synchronized (rebuildLock) {
+			// Refreshes wait while rebuilding and are applied to the new base afterwards
+			rebuilding = true;
+			rebuildRequested = false;
+			try {
+				long startedAt = System.currentTimeMillis();
+				List<Document> documents = productRepository.findSearchDocuments().stream()
+						.map(Document::fromRow).toList();
+				Segment base = Segment.build(documents);
+				synchronized (updateLock) {
+					state = new State(base, new BitSet(), Segment.EMPTY, Map.of());
+				}
+				log.info("Rebuilt product search index for {} products and {} terms in {} ms", base.size(),
+						base.terms.length, System.currentTimeMillis() - startedAt);
+			} finally {
+				rebuilding = false;
+			}
+		}
+	}
+
+	/**
+	 * Re-indexes products changed since the last refresh into a new delta
+	 * segment. Their base entries are masked, and products that are no longer
+	 * searchable simply stay out of the delta.
+	 */
+	@Scheduled(fixedDelayString = "${products.search.refresh-interval:1000}")
+	public void applyPendingRefreshes() {
+		if (rebuildRequested && !rebuilding) {
+			rebuild();
+			return;
+		}
+		if (pendingRefresh.isEmpty() || rebuilding) {
+			return;
+		}
+
+		synchronized (updateLock) {
+			State current = state;
+			if (current == null || rebuilding) {
+				return;
+			}
+
+			Set<UUID> changed = new LinkedHashSet<>();
+			for (Iterator<UUID> iterator = pendingRefresh.iterator(); iterator.hasNext();) {
+				changed.add(iterator.next());
+				iterator.remove();
+			}
+
+			List<Object[]> rows;
+			try {
+				rows = productRepository.findSearchDocumentsByIdIn(changed);
+			} catch (RuntimeException e) {
+				pendingRefresh.addAll(changed);
+				log.warn("Failed to load changed products for the search index, will retry", e);
+				return;
+			}
+
+			Map<UUID, Document> documents = new HashMap<>(current.changed());
+			BitSet deleted = (BitSet) current.deleted().clone();
+			for (UUID productId : changed) {
+				documents.remove(productId);
+				Integer document = current.base().documentsById.get(productId);
+				if (document != null) {
+					deleted.set(document);
+				}
+			}
+			for (Object[] row : rows) {
+				Document document = Document.fromRow(row);
+				documents.put(document.productId(), document);
+			}
+
+			state = new State(current.base(), deleted, Segment.build(documents.values()), documents);
+			if (documents.size() + deleted.cardinality() > maxDelta) {
+				rebuildRequested = true;
+			}
+			log.debug("Refreshed {} products in the search index", changed.size());
+		}
+	}
+
+	/** Lowercase, accent-free runs of letters and digits, in order of appearance. */
+	static List<String> tokenize(String text) {
+		if (text == null || text.isBlank()) {
+			return List.of();
+		}
+
+		String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+				.toLowerCase(Locale.ROOT);
+		List<String> tokens = new ArrayList<>();
+		for (String token : SEPARATORS.split(folded)) {
+			if (!token.isEmpty()) {
+				tokens.add(token);
+			}
+		}
+		return tokens;
+	}
+
+	// Offers every live document of the segment matching all terms to top, and returns how many there were
+	private static long search(State state, Segment segment, BitSet deleted, List<String> terms, TopHits top) {
+		if (segment.size() == 0) {
+			return 0;
+		}
+
+		int[][] expansions = new int[terms.size()][];
+		long[] postingCounts = new long[terms.size()];
+		for (int t = 0; t < terms.size(); t++) {
+			expansions[t] = segment.expand(terms.get(t));
+			if (expansions[t].length == 0) {
+				return 0;
+			}
+			for (int term : expansions[t]) {
+				postingCounts[t] += segment.postings[term].length;
+			}
+		}
+
+		// Start from the rarest query term, so the accumulator stays as small as possible
+		Integer[] order = new Integer[terms.size()];
+		for (int t = 0; t < order.length; t++) {
+			order[t] = t;
+		}
+		Arrays.sort(order, Comparator.comparingLong(t -> postingCounts[t]));
+
+		long documentCount = state.documentCount();
+		Accumulator accumulator = new Accumulator((int) Math.min(postingCounts[order[0]], segment.size()),
+				segment.size());
+		for (int step = 0; step < order.length; step++) {
+			String queryTerm = terms.get(order[step]);
+			for (int term : expansions[order[step]]) {
+				String indexed = segment.terms[term];
+				float weight = idf(state.documentFrequency(indexed), documentCount)
+						* (indexed.length() == queryTerm.length() ? 1.0f : PREFIX_WEIGHT);
+				int[] documents = segment.postings[term];
+				float[] termWeights = segment.termWeights[term];
+				if (step == 0) {
+					for (int i = 0; i < documents.length; i++) {
+						accumulator.match(documents[i], step, weight * termWeights[i]);
+					}
+				} else {
+					accumulator.intersect(step, documents, termWeights, weight);
+				}
+			}
+			if (accumulator.retain(step + 1) == 0) {
+				return 0;
+			}
+		}
+
+		return accumulator.collect(deleted, segment.productIds, top);
+	}
+
+	private static float idf(long documentFrequency, long documentCount) {
+		return (float) Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+	}
+
+	private static void afterCommit(Runnable refresh) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			refresh.run();
+			return;
+		}
+
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				refresh.run();
+			}
+		});
+	}
+
+	/** The base segment with the entries masked by {@code deleted}, shadowed by the changed products. */
+	private record State(Segment base, BitSet deleted, Segment delta, Map<UUID, Document> changed) {
+
+		long documentCount() {
+			return Math.max(1, base.size() - deleted.cardinality() + delta.size());
+		}
+
+		// Masked base entries still count here; the next rebuild drops them
+		long documentFrequency(String term) {
+			return base.documentFrequency(term) + delta.documentFrequency(term);
+		}
+	}
+
+	private record Hit(UUID productId, float score) {
+	}
+
+	/** A product's weighted term frequencies and length, over all its indexed fields. */
+	private record Document(UUID productId, Map<String, Float> frequencies, float length) {
+
+		/** Builds a document from a row of {@code ProductRepository.findSearchDocuments}. */
+		@SuppressWarnings("unchecked")
+		static Document fromRow(Object[] row) {
+			Map<String, Float> frequencies = new HashMap<>();
+			float length = add(frequencies, (String) row[1], NAME_WEIGHT)
+					+ add(frequencies, (String) row[2], DESCRIPTION_WEIGHT)
+					+ add(frequencies, (String) row[3], BRAND_WEIGHT)
+					+ add(frequencies, (String) row[4], CATEGORY_WEIGHT);
+			Map<String, Object> metadata = (Map<String, Object>) row[5];
+			if (metadata != null) {
+				for (Object value : metadata.values()) {
+					length += addValue(frequencies, value);
+				}
+			}
+			return new Document((UUID) row[0], frequencies, length);
+		}
+
+		// Metadata values may be nested lists or objects; only their leaf values are indexed
+		private static float addValue(Map<String, Float> frequencies, Object value) {
+			if (value instanceof Map<?, ?> map) {
+				float length = 0;
+				for (Object nested : map.values()) {
+					length += addValue(frequencies, nested);
+				}
+				return length;
+			}
+			if (value instanceof Collection<?> values) {
+				float length = 0;
+				for (Object nested : values) {
+					length += addValue(frequencies, nested);
+				}
+				return length;
+			}
+			return value != null ? add(frequencies, value.toString(), METADATA_WEIGHT) : 0;
+		}
+
+		private static float add(Map<String, Float> frequencies, String text, float weight) {
+			List<String> tokens = tokenize(text);
+			for (String token : tokens) {
+				frequencies.merge(token, weight, Float::sum);
+			}
+			return tokens.size() * weight;
+		}
+	}
+
+	/**
+	 * Immutable inverted index over a set of documents, numbered in the order
+	 * given. The BM25 term frequency part of every posting is computed up front
+	 * against the segment's average document length, so a query only scales it
+	 * by the term's idf.
+	 */
+	private static final class Segment {
+
+		private static final Segment EMPTY = build(List.of());
+
+		private final UUID[] productIds;
+		private final Map<UUID, Integer> documentsById;
+		// Sorted, so the terms sharing a prefix are contiguous
+		private final String[] terms;
+		// Per term, the documents containing it in ascending order and their weights before idf
+		private final int[][] postings;
+		private final float[][] termWeights;
+
+		private Segment(UUID[] productIds, Map<UUID, Integer> documentsById, String[] terms, int[][] postings,
+				float[][] termWeights) {
+			this.productIds = productIds;
+			this.documentsById = documentsById;
+			this.terms = terms;
+			this.postings = postings;
+			this.termWeights = termWeights;
+		}
+
+		static Segment build(Collection<Document> documents) {
+			UUID[] productIds = new UUID[documents.size()];
+			float[] lengths = new float[documents.size()];
+			Map<UUID, Integer> documentsById = new HashMap<>(documents.size() * 4 / 3 + 1);
+			Map<String, PostingsBuilder> builders = new HashMap<>();
+			double totalLength = 0;
+			int document = 0;
+			for (Document indexed : documents) {
+				productIds[document] = indexed.productId();
+				lengths[document] = indexed.length();
+				totalLength += indexed.length();
+				documentsById.put(indexed.productId(), document);
+				for (Map.Entry<String, Float> entry : indexed.frequencies().entrySet()) {
+					builders.computeIfAbsent(entry.getKey(), ignored -> new PostingsBuilder())
+							.add(document, entry.getValue());
+				}
+				document++;
+			}
+
+			float averageLength = totalLength > 0 ? (float) (totalLength / documents.size()) : 1.0f;
+
+			String[] terms = builders.keySet().toArray(new String[0]);
+			Arrays.sort(terms);
+			int[][] postings = new int[terms.length][];
+			float[][] termWeights = new float[terms.length][];
+			for (int i = 0; i < terms.length; i++) {
+				PostingsBuilder builder = builders.get(terms[i]);
+				postings[i] = Arrays.copyOf(builder.documents, builder.size);
+				termWeights[i] = new float[builder.size];
+				for (int j = 0; j < builder.size; j++) {
+					float frequency = builder.frequencies[j];
+					float norm = K1 * (1 - B + B * lengths[builder.documents[j]] / averageLength);
+					termWeights[i][j] = frequency * (K1 + 1) / (frequency + norm);
+				}
+			}
+			return new Segment(productIds, documentsById, terms, postings, termWeights);
+		}
+
+		int size() {
+			return productIds.length;
+		}
+
+		long documentFrequency(String term) {
+			int index = Arrays.binarySearch(terms, term);
+			return index >= 0 ? postings[index].length : 0;
+		}
+
+		/** Indexes of the terms a query term matches: itself, and all the terms it prefixes when long enough. */
+		int[] expand(String term) {
+			int index = Arrays.binarySearch(terms, term);
+			if (term.length() < MIN_PREFIX_LENGTH) {
+				return index >= 0 ? new int[]{index} : new int[0];
+			}
+
+			int from = index >= 0 ? index : -index - 1;
+			// Terms sharing the prefix end before the first term sorting after every one of them
+			int to = Arrays.binarySearch(terms, from, terms.length, term + Character.MAX_VALUE);
+			to = to >= 0 ? to : -to - 1;
+			int[] expansions = new int[to - from];
+			for (int i = 0; i < expansions.length; i++) {
+				expansions[i] = from + i;
+			}
+			return expansions;
+		}
+	}
+
+	private static final class PostingsBuilder {
+
+		private int[] documents = new int[4];
+		private float[] frequencies = new float[4];
+		private int size;
+
+		void add(int document, float frequency) {
+			if (size == documents.length) {
+				documents = Arrays.copyOf(documents, size * 2);
+				frequencies = Arrays.copyOf(frequencies, size * 2);
+			}
+			documents[size] = document;
+			frequencies[size] = frequency;
+			size++;
+		}
+	}
+
+	/**
+	 * Running scores of the documents matching the query terms seen so far. A
+	 * document only advances when it matched every earlier term, and each term
+	 * counts the best of its expansions. The table is indexed by document when
+	 * the first term is common, and otherwise open-addressed and sized for the
+	 * first term's postings. The documents still in the running are also kept
+	 * in ascending order, so later terms intersect with them like sorted lists.
+	 */
+	private static final class Accumulator {
+
+		private final int[] documents;
+		private final int[] matchedTerms;
+		private final float[] scores;
+		private final float[] termScores;
+		private final int mask;
+		private final boolean direct;
+		private final int[] candidates;
+		private int candidateCount;
+
+		Accumulator(int expected, int documentCount) {
+			int capacity = 2;
+			while (capacity < expected * 2) {
+				capacity <<= 1;
+			}
+			direct = capacity >= documentCount;
+			if (direct) {
+				capacity = documentCount;
+				documents = null;
+			} else {
+				documents = new int[capacity];
+				Arrays.fill(documents, -1);
+			}
+			matchedTerms = new int[capacity];
+			scores = new float[capacity];
+			termScores = new float[capacity];
+			mask = capacity - 1;
+			candidates = new int[Math.min(capacity, Math.max(expected, 1))];
+		}
+
+		void match(int document, int term, float score) {
+			int slot = slot(document, term == 0);
+			if (slot < 0) {
+				return;
+			}
+
+			if (matchedTerms[slot] == term) {
+				if (term == 0) {
+					candidates[candidateCount++] = document;
+				}
+				matchedTerms[slot] = term + 1;
+				termScores[slot] = score;
+				scores[slot] += score;
+			} else if (matchedTerms[slot] == term + 1 && score > termScores[slot]) {
+				scores[slot] += score - termScores[slot];
+				termScores[slot] = score;
+			}
+		}
+
+		/**
+		 * Matches the candidates found in {@code postings}: by looking each posting
+		 * up when the postings are fewer, as with the many rare terms a short prefix
+		 * expands to, by binary search when the candidates are few, and otherwise by
+		 * walking both sorted lists together.
+		 */
+		void intersect(int term, int[] postings, float[] termWeights, float weight) {
+			if (postings.length < candidateCount) {
+				// match ignores documents that are not candidates
+				for (int i = 0; i < postings.length; i++) {
+					match(postings[i], term, weight * termWeights[i]);
+				}
+				return;
+			}
+
+			int searchCost = 32 - Integer.numberOfLeadingZeros(postings.length);
+			if ((long) candidateCount * searchCost < postings.length) {
+				for (int i = 0; i < candidateCount; i++) {
+					int index = Arrays.binarySearch(postings, candidates[i]);
+					if (index >= 0) {
+						match(candidates[i], term, weight * termWeights[index]);
+					}
+				}
+				return;
+			}
+
+			int i = 0;
+			int j = 0;
+			while (i < candidateCount && j < postings.length) {
+				if (candidates[i] < postings[j]) {
+					i++;
+				} else if (candidates[i] > postings[j]) {
+					j++;
+				} else {
+					match(candidates[i++], term, weight * termWeights[j++]);
+				}
+			}
+		}
+
+		/** Drops the candidates that did not match {@code termCount} terms, returning how many are left. */
+		int retain(int termCount) {
+			int kept = 0;
+			for (int i = 0; i < candidateCount; i++) {
+				if (matchedTerms[slot(candidates[i], false)] == termCount) {
+					candidates[kept++] = candidates[i];
+				}
+			}
+			candidateCount = kept;
+			// The first term's expansions each add their documents in order, but not in order of each other
+			if (termCount == 1) {
+				Arrays.sort(candidates, 0, candidateCount);
+			}
+			return kept;
+		}
+
+		long collect(BitSet deleted, UUID[] productIds, TopHits top) {
+			long matches = 0;
+			for (int i = 0; i < candidateCount; i++) {
+				int document = candidates[i];
+				if (deleted == null || !deleted.get(document)) {
+					matches++;
+					top.offer(productIds[document], scores[slot(document, false)]);
+				}
+			}
+			return matches;
+		}
+
+		// The document's slot, claiming a free one when insert is set, or -1
+		private int slot(int document, boolean insert) {
+			if (direct) {
+				return document;
+			}
+			int slot = (document * 0x9E3779B9) & mask;
+			while (documents[slot] != document) {
+				if (documents[slot] == -1) {
+					if (!insert) {
+						return -1;
+					}
+					documents[slot] = document;
+					return slot;
+				}
+				slot = (slot + 1) & mask;
+			}
+			return slot;
+		}
+	}
+
+	/** The best hits seen so far, in a min-heap holding at most {@code limit}. */
+	private static final class TopHits {
+
+		private final int limit;
+		private final PriorityQueue<Hit> heap;
+
+		TopHits(int limit) {
+			this.limit = limit;
+			this.heap = new PriorityQueue<>(Math.min(limit, 1024) + 1, BEST_FIRST.reversed());
+		}
+
+		void offer(UUID productId, float score) {
+			if (limit == 0) {
+				return;
+			}
+			if (heap.size() < limit) {
+				heap.add(new Hit(productId, score));
+				return;
+			}
+			Hit worst = heap.peek();
+			if (score > worst.score() || (score == worst.score() && productId.compareTo(worst.productId()) < 0)) {
+				heap.poll();
+				heap.add(new Hit(productId, score));
+			}
+		}
+
+		List<UUID> productIds() {
+			List<Hit> best = new ArrayList<>(heap);
+			best.sort(BEST_FIRST);
+			return best.stream().map(Hit::productId).toList();
+		}
+	}
+}
@@ -17,7 +17,10 @@ import com.charbel.ecommerce.product.repository.ProductVariantRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -25,8 +28,10 @@ import org.springframework.web.multipart.MultipartFile;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
 import java.util.function.Function;
@@ -37,6 +42,11 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ProductService {
 
+	// At most this many typeahead suggestions, whatever the client asks for
+	private static final int MAX_SUGGESTIONS = 20;
+	// Cursor page sizes are clamped to 1..this, whatever the client asks for
+	private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
 	private final ProductRepository productRepository;
 	private final ProductVariantRepository productVariantRepository;
 	private final ProductImageRepository productImageRepository;
@@ -44,6 +54,11 @@ public class ProductService {
 	private final ColorVariantImageService colorVariantImageService;
 	private final ObjectMapper objectMapper;
 	private final ProductResponseMapper productResponseMapper;
+	private final ProductSimilarityIndex productSimilarityIndex;
+	private final ProductFacetIndex productFacetIndex;
+	private final ProductSearchIndex productSearchIndex;
+	private final ProductSuggestionIndex productSuggestionIndex;
+	private final CatalogCache catalogCache;
 
 	@Transactional
 	public ProductResponse createProduct(CreateProductRequest request) {
@@ -144,6 +159,12 @@ public class ProductService {
 				.build();
 
 		Product savedProduct = productRepository.save(product);
+		productSimilarityIndex.refreshAfterCommit(savedProduct.getId());
+		productSearchIndex.refreshAfterCommit(savedProduct.getId());
+		// Registered before the cache invalidation, so pages are never reloaded from stale facets
+		productFacetIndex.refreshCategoryAfterCommit(savedProduct.getCategoryId());
+		catalogCache.invalidateProductAfterCommit(savedProduct.getId(), savedProduct.getCategoryId(),
+				savedProduct.getBrandId());
 
 		// Create variants
 		List<ProductVariant> variants = request.getVariants().stream()
@@ -258,24 +279,33 @@ public class ProductService {
 				.collect(Collectors.toList());
 
 		Map<UUID, ProductVariant> variantMap = productVariantRepository.findAllById(variantIds).stream()
+				.filter(variant -> !variant.isDeleted())
 				.collect(Collectors.toMap(ProductVariant::getId, Function.identity()));
 
-		List<VariantStockUpdateResult> results = request.getStockUpdates().stream().map(update -> {
-			ProductVariant variant = variantMap.get(update.getVariantId());
-			if (variant == null) {
+		Map<UUID, Integer> stockToAdd = new LinkedHashMap<>();
+		for (VariantStockUpdate update : request.getStockUpdates()) {
+			if (!variantMap.containsKey(update.getVariantId())) {
 				throw new EntityNotFoundException("Variant not found with ID: " + update.getVariantId());
 			}
+			stockToAdd.merge(update.getVariantId(), update.getStockToAdd(), Integer::sum);
+		}
+
+		// Atomic increments, so restocks never overwrite stock sold meanwhile
+		productVariantRepository.incrementStock(stockToAdd);
+		Map<UUID, Integer> newStockByVariant = productVariantRepository.findStockByIds(stockToAdd.keySet()).stream()
+				.collect(Collectors.toMap(row -> (UUID) row[0], row -> (Integer) row[1]));
+		catalogCache.invalidateProductsAfterCommit(variantMap.values().stream()
+				.map(variant -> variant.getProduct().getId()).collect(Collectors.toSet()));
 
-			Integer previousStock = variant.getStock();
-			Integer newStock = previousStock + update.getStockToAdd();
-			variant.setStock(newStock);
+		List<VariantStockUpdateResult> results = stockToAdd.entrySet().stream().map(entry -> {
+			ProductVariant variant = variantMap.get(entry.getKey());
+			Integer newStock = newStockByVariant.get(entry.getKey());
 
 			return VariantStockUpdateResult.builder().variantId(variant.getId()).sku(variant.getSku())
-					.previousStock(previousStock).newStock(newStock).stockAdded(update.getStockToAdd()).build();
+					.previousStock(newStock - entry.getValue()).newStock(newStock).stockAdded(entry.getValue())
+					.build();
 		}).collect(Collectors.toList());
 
-		productVariantRepository.saveAll(variantMap.values());
-
 		log.info("Successfully updated stock for {} variants", results.size());
 		return AddStockResponse.builder().updatedVariantsCount(results.size()).results(results).build();
 	}
@@ -290,14 +320,14 @@ public class ProductService {
 
 	public Page<ProductResponse> getProducts(Pageable pageable) {
 		log.info("Fetching paginated products");
-		Page<Product> products = productRepository.findAllProductsWithVariants(pageable);
-		return products.map(productResponseMapper::mapToProductResponse);
+		Page<UUID> productIds = productRepository.findProductIds(withIdOrder(pageable));
+		return productResponseMapper.mapAll(hydrate(productIds));
 	}
 
 	public Page<ProductResponse> getProductsByEventId(UUID eventId, Pageable pageable) {
 		log.info("Fetching products for event ID: {}", eventId);
-		Page<Product> products = productRepository.findProductsByEventId(eventId, pageable);
-		return products.map(productResponseMapper::mapToProductResponse);
+		Page<UUID> productIds = productRepository.findProductIdsByEventId(eventId, withIdOrder(pageable));
+		return productResponseMapper.mapAll(hydrate(productIds));
 	}
 
 	@Transactional
@@ -309,18 +339,24 @@ public class ProductService {
 
 		product.setStatus(Product.ProductStatus.INACTIVE);
 		Product savedProduct = productRepository.save(product);
+		productSimilarityIndex.refreshAfterCommit(productId);
+		productSearchIndex.refreshAfterCommit(productId);
+		productFacetIndex.refreshCategoryAfterCommit(savedProduct.getCategoryId());
+		catalogCache.invalidateProductAfterCommit(productId, savedProduct.getCategoryId(), savedProduct.getBrandId());
 
 		log.info("Product disabled successfully with ID: {}", productId);
 		return productResponseMapper.mapToProductResponse(savedProduct);
 	}
 
-	@Transactional(readOnly = true)
+	// Not transactional, so a cache hit does not take a connection
 	public Page<ProductResponse> getProductsByBrandSlug(String brandSlug, Pageable pageable) {
 		log.info("Fetching products by brand slug: {} with page: {}, size: {}", brandSlug, pageable.getPageNumber(),
 				pageable.getPageSize());
 
-		Page<Product> products = productRepository.findProductsByBrandSlug(brandSlug, pageable);
-		return products.map(productResponseMapper::mapToProductResponse);
+		return catalogCache.get(CatalogCache.Key.brand(brandSlug, pageable), () -> {
+			Page<UUID> productIds = productRepository.findProductIdsByBrandSlug(brandSlug, withIdOrder(pageable));
+			return productResponseMapper.mapAll(hydrate(productIds));
+		});
 	}
 
 	@Transactional(readOnly = true)
@@ -328,8 +364,8 @@ public class ProductService {
 		log.info("Fetching products by category ID: {} with page: {}, size: {}", categoryId, pageable.getPageNumber(),
 				pageable.getPageSize());
 
-		Page<Product> products = productRepository.findProductsByCategoryId(categoryId, pageable);
-		return products.map(productResponseMapper::mapToProductResponse);
+		Page<UUID> productIds = productRepository.findProductIdsByCategoryId(categoryId, withIdOrder(pageable));
+		return productResponseMapper.mapAll(hydrate(productIds));
 	}
 
 	@Transactional(readOnly = true)
@@ -337,16 +373,16 @@ public class ProductService {
 		log.info("Fetching products by category ID: {} with sortType: {} with page: {}, size: {}", 
 				categoryId, sortType, pageable.getPageNumber(), pageable.getPageSize());
 
-		Page<Product> products;
+		Page<UUID> productIds;
 		if (sortType == null || sortType == ProductSortType.DEFAULT) {
-			products = productRepository.findProductsByCategoryId(categoryId, pageable);
+			productIds = productRepository.findProductIdsByCategoryId(categoryId, withIdOrder(pageable));
 		} else {
-			products = productRepository.findProductsByCategoryIdWithSort(categoryId, sortType.name(), pageable);
+			productIds = productRepository.findProductIdsByCategoryIdWithSort(categoryId, sortType.name(), pageable);
 		}
-		return products.map(productResponseMapper::mapToProductResponse);
+		return productResponseMapper.mapAll(hydrate(productIds));
 	}
 
-	@Transactional(readOnly = true)
+	// Not transactional, so a cache hit does not take a connection
 	public Page<ProductResponse> getFilteredProductsByCategoryId(UUID categoryId, ProductSortType sortType, 
 																ProductFilterRequest filterRequest, Pageable pageable) {
 		log.info("Fetching filtered products by category ID: {} with sortType: {}, filters: {}, page: {}, size: {}", 
@@ -363,15 +399,133 @@ public class ProductService {
 			filterRequest.getSizes().stream().map(String::toUpperCase).collect(Collectors.toList()) : null;
 		List<String> brandSlugs = filterRequest.getBrandSlugs();
 
-		Page<Product> products;
-		if (sortType == null || sortType == ProductSortType.DEFAULT) {
-			products = productRepository.findFilteredProductsByCategoryId(
-				categoryId, minPrice, maxPrice, upperColors, upperSizes, brandSlugs, pageable);
-		} else {
-			products = productRepository.findFilteredProductsByCategoryIdWithSort(
-				categoryId, minPrice, maxPrice, upperColors, upperSizes, brandSlugs, sortType.name(), pageable);
+		return catalogCache.get(CatalogCache.Key.category(categoryId, sortType, filterRequest, pageable), () -> {
+			// The facet index only knows the listing orders of ProductSortType
+			if (pageable.getSort().isUnsorted()) {
+				return productResponseMapper.mapAll(hydrate(productFacetIndex.findProductIds(categoryId, sortType,
+						ListingFilters.of(filterRequest), pageable)));
+			}
+
+			Page<UUID> productIds;
+			if (sortType == null || sortType == ProductSortType.DEFAULT) {
+				productIds = productRepository.findFilteredProductIdsByCategoryId(
+					categoryId, minPrice, maxPrice, upperColors, upperSizes, brandSlugs, withIdOrder(pageable));
+			} else {
+				productIds = productRepository.findFilteredProductIdsByCategoryIdWithSort(
+					categoryId, minPrice, maxPrice, upperColors, upperSizes, brandSlugs, sortType.name(), pageable);
+			}
+			return productResponseMapper.mapAll(hydrate(productIds));
+		});
+	}
+
+	// Cursor (keyset) methods: a page seeks past the previous one, no offset and no COUNT query
+	@Transactional(readOnly = true)
+	public ProductCursorPageResponse getProductsAfterCursor(ProductSortType sortType, String cursor, int size) {
+		log.info("Fetching products after cursor with sortType: {}, size: {}", sortType, size);
+
+		size = cursorPageSize(size);
+		ProductCursor position = position(sortType, cursor);
+		Pageable limit = PageRequest.of(0, size + 1);
+		List<UUID> productIds = switch (position.sortType()) {
+			case PRICE_HIGH_TO_LOW -> productRepository.findProductIdsByPriceDescendingAfter(position.basePrice(),
+					position.id(), limit);
+			case PRICE_LOW_TO_HIGH -> productRepository.findProductIdsByPriceAscendingAfter(position.basePrice(),
+					position.id(), limit);
+			case REVIEWS -> productRepository.findProductIdsByReviewsAfter(position.rating(), position.reviewCount(),
+					position.id(), limit);
+			case NEWEST -> productRepository.findProductIdsByNewestAfter(position.createdAt(), position.id(), limit);
+			case DEFAULT -> productRepository.findProductIdsAfter(position.id(), limit);
+		};
+		return toCursorPage(position.sortType(), productIds, size);
+	}
+
+	// Served by the facet index, which holds the listing orders in memory
+	public ProductCursorPageResponse getFilteredProductsByCategoryIdAfterCursor(UUID categoryId,
+			ProductSortType sortType, ProductFilterRequest filterRequest, String cursor, int size) {
+		log.info("Fetching filtered products by category ID: {} after cursor with sortType: {}, filters: {}, size: {}",
+				categoryId, sortType, filterRequest, size);
+
+		size = cursorPageSize(size);
+		ProductCursor position = position(sortType, cursor);
+		List<UUID> productIds = productFacetIndex.findProductIdsAfter(categoryId, ListingFilters.of(filterRequest),
+				position, size + 1);
+		return toCursorPage(position.sortType(), productIds, size);
+	}
+
+	private static int cursorPageSize(int size) {
+		return Math.max(1, Math.min(size, MAX_CURSOR_PAGE_SIZE));
+	}
+
+	// No cursor means the first page
+	private static ProductCursor position(ProductSortType sortType, String cursor) {
+		return cursor != null && !cursor.isBlank()
+				? ProductCursor.decode(cursor, sortType)
+				: ProductCursor.start(sortType);
+	}
+
+	// productIds holds one more id than the page when there is a next page
+	private ProductCursorPageResponse toCursorPage(ProductSortType sortType, List<UUID> productIds, int size) {
+		boolean hasNext = productIds.size() > size;
+		List<Product> products = hydrate(hasNext ? productIds.subList(0, size) : productIds);
+		String nextCursor = hasNext && !products.isEmpty()
+				? ProductCursor.of(sortType, products.get(products.size() - 1)).encode()
+				: null;
+
+		return ProductCursorPageResponse.builder()
+				.products(productResponseMapper.mapAll(products))
+				.pageSize(size)
+				.hasNext(hasNext)
+				.nextCursor(nextCursor)
+				.build();
+	}
+
+	// Not transactional: the index answers the query, only hydrating the page reads the database
+	public Page<ProductResponse> searchProducts(String query, Pageable pageable) {
+		log.info("Searching products for '{}' with page: {}, size: {}", query, pageable.getPageNumber(),
+				pageable.getPageSize());
+
+		Page<UUID> productIds = productSearchIndex.search(query, pageable);
+		return productResponseMapper.mapAll(hydrate(productIds));
+	}
+
+	public List<ProductSuggestionResponse> suggestProducts(String prefix, int limit) {
+		return productSuggestionIndex.suggest(prefix, Math.min(limit, MAX_SUGGESTIONS)).stream()
+				.map(suggestion -> ProductSuggestionResponse.builder().type(suggestion.type()).id(suggestion.id())
+						.slug(suggestion.slug()).text(suggestion.text()).build())
+				.collect(Collectors.toList());
+	}
+
+	public CategoryFacetsResponse getCategoryFacets(UUID categoryId, ProductFilterRequest filterRequest) {
+		log.info("Fetching facet counts for category ID: {} with filters: {}", categoryId, filterRequest);
+
+		ProductFacetIndex.FacetCounts counts = productFacetIndex.countFacets(categoryId,
+				ListingFilters.of(filterRequest));
+		return CategoryFacetsResponse.builder().totalProducts(counts.total()).colors(counts.colors())
+				.sizes(counts.sizes()).brands(counts.brands()).build();
+	}
+
+	// A unique tiebreaker keeps id pages stable; the id order is also the facet index's default
+	private Pageable withIdOrder(Pageable pageable) {
+		if (pageable.isUnpaged() || pageable.getSort().getOrderFor("id") != null) {
+			return pageable;
+		}
+		return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), pageable.getSort().and(Sort.by("id")));
+	}
+
+	private Page<Product> hydrate(Page<UUID> productIds) {
+		return new PageImpl<>(hydrate(productIds.getContent()), productIds.getPageable(),
+				productIds.getTotalElements());
+	}
+
+	// Loads full product graphs for the given ids, preserving the order of the id list
+	private List<Product> hydrate(List<UUID> productIds) {
+		if (productIds.isEmpty()) {
+			return List.of();
 		}
-		
-		return products.map(productResponseMapper::mapToProductResponse);
+
+		Map<UUID, Product> productsById = productRepository.findAllWithDetailsByIdIn(productIds).stream()
+				.collect(Collectors.toMap(Product::getId, Function.identity()));
+		// Anything removed since its id was read is skipped
+		return productIds.stream().map(productsById::get).filter(Objects::nonNull).collect(Collectors.toList());
 	}
 }
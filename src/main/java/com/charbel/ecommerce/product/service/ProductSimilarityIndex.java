@@ -0,0 +1,357 @@
+package com.charbel.ecommerce.product.service;
+
+import com.charbel.ecommerce.product.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Precomputed most-similar products for every active product.
+ *
+ * The active catalog is held in memory as feature vectors compiled by
+ * {@link ProductSimilarityScorer}, and each product keeps its best
+ * {@code products.similarity.neighbors} matches. A full
+ * rebuild scores every pair on a fork-join pool at startup and periodically.
+ * Products changed through {@link ProductService} are re-scored incrementally
+ * shortly after their transaction commits. Asking for more neighbors than are
+ * stored, or for a product whose list was invalidated, falls back to a
+ * bounded-heap scan over the in-memory profiles, so no request touches the
+ * database to score.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSimilarityIndex {
+
+	private static final Comparator<Neighbor> BEST_FIRST = Comparator.comparingDouble(Neighbor::score).reversed()
+			.thenComparing(Neighbor::productId);
+
+	private final ProductRepository productRepository;
+
+	@Value("${products.similarity.neighbors:20}")
+	private int neighborCount;
+
+	@Value("${products.similarity.parallelism:0}")
+	private int parallelism;
+
+	private final Object rebuildLock = new Object();
+	private final Object updateLock = new Object();
+	private final Set<UUID> pendingRefresh = ConcurrentHashMap.newKeySet();
+
+	private volatile State state;
+	private volatile long version;
+	private volatile boolean rebuilding;
+
+	/**
+	 * Best matches for {@code target}, highest score first, ties broken by product
+	 * id. Only products with a positive score are returned.
+	 */
+	public List<Neighbor> findSimilar(SimilarityProfile target, int limit) {
+		State current = state;
+		if (current == null || limit <= 0) {
+			return List.of();
+		}
+
+		boolean cacheable = limit <= neighborCount;
+		if (cacheable) {
+			Neighbors cached = current.neighbors().get(target.productId());
+			if (cached != null) {
+				return cached.top(limit);
+			}
+		}
+
+		long observedVersion = version;
+		Candidate encoded = current.profiles().get(target.productId());
+		if (encoded == null) {
+			encoded = new Candidate(target.productId(), current.scorer().encode(target));
+		}
+		Neighbors computed = topK(encoded, current.profiles().values(), Math.max(limit, neighborCount));
+		if (cacheable && current.profiles().containsKey(target.productId())) {
+			synchronized (updateLock) {
+				if (state == current && version == observedVersion) {
+					current.neighbors().putIfAbsent(target.productId(), computed);
+				}
+			}
+		}
+		return computed.top(limit);
+	}
+
+	/**
+	 * Re-scores a product once the current transaction commits, or on the next
+	 * refresh when called outside a transaction.
+	 */
+	public void refreshAfterCommit(UUID productId) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			pendingRefresh.add(productId);
+			return;
+		}
+
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				pendingRefresh.add(productId);
+			}
+		});
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	@Scheduled(fixedDelayString = "${products.similarity.rebuild-interval:21600000}",
+			initialDelayString = "${products.similarity.rebuild-interval:21600000}")
+	public void rebuild() {
+		synchronized (rebuildLock) {
+			// Refreshes wait while rebuilding and are applied to the new state afterwards
+			rebuilding = true;
+			try {
+				long startedAt = System.currentTimeMillis();
+				// A fresh scorer per rebuild keeps its dictionary from growing with retired values
+				ProductSimilarityScorer scorer = new ProductSimilarityScorer();
+				Map<UUID, Candidate> profiles = encode(scorer, productRepository.findSimilarityProfiles());
+				if (state == null) {
+					// Serve cold lookups while the first neighbor lists are computed
+					publish(new State(scorer, new ConcurrentHashMap<>(profiles), new ConcurrentHashMap<>()));
+				}
+
+				ConcurrentMap<UUID, Neighbors> neighbors = computeAll(profiles.values());
+				if (neighbors == null) {
+					return;
+				}
+				publish(new State(scorer, new ConcurrentHashMap<>(profiles), neighbors));
+				log.info("Rebuilt product similarity index for {} products in {} ms", profiles.size(),
+						System.currentTimeMillis() - startedAt);
+			} finally {
+				rebuilding = false;
+			}
+		}
+	}
+
+	/**
+	 * Re-scores products changed since the last refresh. A changed product gets a
+	 * fresh neighbor list and is offered to every other product's list. A full list
+	 * that loses a neighbor is dropped, since its replacement is unknown, and is
+	 * recomputed on its next lookup.
+	 */
+	@Scheduled(fixedDelayString = "${products.similarity.refresh-interval:1000}")
+	public void applyPendingRefreshes() {
+		if (pendingRefresh.isEmpty() || rebuilding) {
+			return;
+		}
+
+		synchronized (updateLock) {
+			State current = state;
+			if (current == null || rebuilding) {
+				return;
+			}
+
+			Set<UUID> changed = new HashSet<>();
+			for (Iterator<UUID> iterator = pendingRefresh.iterator(); iterator.hasNext();) {
+				changed.add(iterator.next());
+				iterator.remove();
+			}
+
+			Map<UUID, Candidate> refreshed;
+			try {
+				refreshed = encode(current.scorer(), productRepository.findSimilarityProfilesByIdIn(changed));
+			} catch (RuntimeException e) {
+				pendingRefresh.addAll(changed);
+				log.warn("Failed to load changed products for the similarity index, will retry", e);
+				return;
+			}
+
+			ConcurrentMap<UUID, Candidate> profiles = current.profiles();
+			ConcurrentMap<UUID, Neighbors> neighbors = current.neighbors();
+
+			// Products that are no longer active simply stay out of the profiles
+			for (UUID productId : changed) {
+				profiles.remove(productId);
+				neighbors.remove(productId);
+			}
+			for (Map.Entry<UUID, Neighbors> entry : neighbors.entrySet()) {
+				Neighbors list = entry.getValue();
+				if (list.containsAny(changed)) {
+					if (list.size() >= neighborCount) {
+						neighbors.remove(entry.getKey(), list);
+					} else {
+						entry.setValue(list.without(changed));
+					}
+				}
+			}
+
+			profiles.putAll(refreshed);
+			for (Candidate profile : refreshed.values()) {
+				neighbors.put(profile.productId(), topK(profile, profiles.values(), neighborCount));
+			}
+			for (Map.Entry<UUID, Neighbors> entry : neighbors.entrySet()) {
+				if (refreshed.containsKey(entry.getKey())) {
+					continue;
+				}
+				Candidate owner = profiles.get(entry.getKey());
+				if (owner == null) {
+					continue;
+				}
+				Neighbors list = entry.getValue();
+				for (Candidate profile : refreshed.values()) {
+					list = list.offer(profile.productId(),
+							ProductSimilarityScorer.score(owner.features(), profile.features()), neighborCount);
+				}
+				entry.setValue(list);
+			}
+
+			version++;
+			log.debug("Refreshed {} products in the similarity index", changed.size());
+		}
+	}
+
+	private ConcurrentMap<UUID, Neighbors> computeAll(Collection<Candidate> profiles) {
+		List<Candidate> candidates = List.copyOf(profiles);
+		ConcurrentMap<UUID, Neighbors> neighbors = new ConcurrentHashMap<>(candidates.size() * 4 / 3 + 1);
+		ForkJoinPool pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+		try {
+			pool.submit(() -> candidates.parallelStream().forEach(profile ->
+					neighbors.put(profile.productId(), topK(profile, candidates, neighborCount)))).get();
+			return neighbors;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Failed to rebuild product similarity index", e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	// Keeps the k best candidates in a min-heap, so memory stays O(k) however large the catalog
+	private static Neighbors topK(Candidate target, Collection<Candidate> candidates, int k) {
+		PriorityQueue<Neighbor> heap = new PriorityQueue<>(k + 1, BEST_FIRST.reversed());
+		int[] targetFeatures = target.features();
+		for (Candidate candidate : candidates) {
+			double score = ProductSimilarityScorer.score(targetFeatures, candidate.features());
+			if (score <= 0.0 || candidate.productId().equals(target.productId())) {
+				continue;
+			}
+			if (heap.size() < k) {
+				heap.add(new Neighbor(candidate.productId(), score));
+			} else if (isBetter(score, candidate.productId(), heap.peek())) {
+				heap.poll();
+				heap.add(new Neighbor(candidate.productId(), score));
+			}
+		}
+
+		List<Neighbor> best = new ArrayList<>(heap);
+		best.sort(BEST_FIRST);
+		return Neighbors.of(best);
+	}
+
+	private static boolean isBetter(double score, UUID productId, Neighbor other) {
+		return score > other.score() || (score == other.score() && productId.compareTo(other.productId()) < 0);
+	}
+
+	private static Map<UUID, Candidate> encode(ProductSimilarityScorer scorer, List<Object[]> rows) {
+		Map<UUID, Candidate> profiles = new ConcurrentHashMap<>(rows.size() * 4 / 3 + 1);
+		for (Object[] row : rows) {
+			SimilarityProfile profile = SimilarityProfile.fromRow(row);
+			profiles.put(profile.productId(), new Candidate(profile.productId(), scorer.encode(profile)));
+		}
+		return profiles;
+	}
+
+	private void publish(State newState) {
+		synchronized (updateLock) {
+			state = newState;
+			version++;
+		}
+	}
+
+	public record Neighbor(UUID productId, double score) {
+	}
+
+	private record State(ProductSimilarityScorer scorer, ConcurrentMap<UUID, Candidate> profiles,
+			ConcurrentMap<UUID, Neighbors> neighbors) {
+	}
+
+	/** An indexed product and its feature vector, encoded by the scorer of the state holding it. */
+	private record Candidate(UUID productId, int[] features) {
+	}
+
+	/** Immutable best-first neighbor list stored as parallel arrays to keep the index compact. */
+	private record Neighbors(UUID[] productIds, double[] scores) {
+
+		static Neighbors of(List<Neighbor> sorted) {
+			UUID[] productIds = new UUID[sorted.size()];
+			double[] scores = new double[sorted.size()];
+			for (int i = 0; i < productIds.length; i++) {
+				productIds[i] = sorted.get(i).productId();
+				scores[i] = sorted.get(i).score();
+			}
+			return new Neighbors(productIds, scores);
+		}
+
+		int size() {
+			return productIds.length;
+		}
+
+		List<Neighbor> top(int limit) {
+			int count = Math.min(limit, productIds.length);
+			List<Neighbor> top = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				top.add(new Neighbor(productIds[i], scores[i]));
+			}
+			return top;
+		}
+
+		boolean containsAny(Set<UUID> ids) {
+			for (UUID productId : productIds) {
+				if (ids.contains(productId)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		Neighbors without(Set<UUID> ids) {
+			List<Neighbor> kept = new ArrayList<>(productIds.length);
+			for (int i = 0; i < productIds.length; i++) {
+				if (!ids.contains(productIds[i])) {
+					kept.add(new Neighbor(productIds[i], scores[i]));
+				}
+			}
+			return of(kept);
+		}
+
+		// Inserts the candidate if it ranks among the k best, dropping the worst when full
+		Neighbors offer(UUID productId, double score, int k) {
+			if (score <= 0.0) {
+				return this;
+			}
+			boolean full = productIds.length >= k;
+			if (full && !isBetter(score, productId, new Neighbor(productIds[k - 1], scores[k - 1]))) {
+				return this;
+			}
+
+			List<Neighbor> merged = top(full ? k - 1 : productIds.length);
+			merged.add(new Neighbor(productId, score));
+			merged.sort(BEST_FIRST);
+			return of(merged);
+		}
+	}
+}
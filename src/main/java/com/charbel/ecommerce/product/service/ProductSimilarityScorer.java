@@ -0,0 +1,177 @@
+package com.charbel.ecommerce.product.service;
+
+import com.charbel.ecommerce.common.enums.GenderType;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Scores how similar two products are, from 0 to 1 rounded to two decimals. The
+ * score is symmetric: {@code score(a, b) == score(b, a)}.
+ *
+ * Profiles are first compiled by {@link #encode} into a small {@code int[]} with
+ * one code per attribute, so scoring a pair is a handful of int comparisons and
+ * table lookups with no allocation. Codes come from this scorer's dictionary, so
+ * only vectors encoded by the same instance can be compared. Code {@code 0} means
+ * the attribute is missing; strings are coded case-insensitively.
+ */
+final class ProductSimilarityScorer {
+
+	static final int GENDER = 0;
+	static final int CATEGORY = 1;
+	static final int PARENT_CATEGORY = 2;
+	static final int BRAND = 3;
+	static final int MATERIAL = 4;
+	static final int SEASON = 5;
+	static final int OCCASION = 6;
+	static final int FIT = 7;
+	static final int FEATURE_COUNT = 8;
+
+	private static final double GENDER_WEIGHT = 0.25;
+	private static final double CATEGORY_WEIGHT = 0.20;
+	private static final double BRAND_WEIGHT = 0.15;
+	private static final double MATERIAL_WEIGHT = 0.15;
+	private static final double SEASON_WEIGHT = 0.10;
+	private static final double OCCASION_WEIGHT = 0.10;
+	private static final double FIT_WEIGHT = 0.05;
+
+	private static final int UNISEX = GenderType.UNISEX.ordinal() + 1;
+
+	// Values with an affinity rule get fixed codes, so the tables below can be built once
+	private static final String[] KNOWN_VALUES = {"ALL_SEASON", "SPRING", "SUMMER", "FALL", "WINTER", "CASUAL", "SPORT",
+			"FORMAL", "BUSINESS", "PARTY"};
+	// Every code past the known values shares the last row and column of the tables
+	private static final int OTHER = KNOWN_VALUES.length + 1;
+
+	private static final double[][] SEASON_AFFINITY = new double[OTHER + 1][OTHER + 1];
+	private static final double[][] OCCASION_AFFINITY = new double[OTHER + 1][OTHER + 1];
+
+	static {
+		int allSeason = knownCode("ALL_SEASON");
+		for (int code = 1; code <= OTHER; code++) {
+			// ALL_SEASON is somewhat compatible with everything
+			affinity(SEASON_AFFINITY, allSeason, code, 0.3);
+		}
+		// Spring and Summer are somewhat similar (warmer weather)
+		affinity(SEASON_AFFINITY, knownCode("SPRING"), knownCode("SUMMER"), 0.4);
+		// Fall and Winter are somewhat similar (cooler weather)
+		affinity(SEASON_AFFINITY, knownCode("FALL"), knownCode("WINTER"), 0.4);
+
+		// CASUAL is somewhat compatible with SPORT
+		affinity(OCCASION_AFFINITY, knownCode("CASUAL"), knownCode("SPORT"), 0.3);
+		// FORMAL and BUSINESS are somewhat similar
+		affinity(OCCASION_AFFINITY, knownCode("FORMAL"), knownCode("BUSINESS"), 0.5);
+		// PARTY and FORMAL have some overlap
+		affinity(OCCASION_AFFINITY, knownCode("PARTY"), knownCode("FORMAL"), 0.3);
+	}
+
+	private final Map<Object, Integer> codes = new ConcurrentHashMap<>();
+	private final AtomicInteger nextCode = new AtomicInteger(KNOWN_VALUES.length);
+
+	ProductSimilarityScorer() {
+		for (String value : KNOWN_VALUES) {
+			codes.put(value, knownCode(value));
+		}
+	}
+
+	int[] encode(SimilarityProfile profile) {
+		int[] features = new int[FEATURE_COUNT];
+		features[GENDER] = profile.gender() != null ? profile.gender().ordinal() + 1 : 0;
+		features[CATEGORY] = code(profile.categoryId());
+		features[PARENT_CATEGORY] = code(profile.parentCategoryId());
+		features[BRAND] = code(profile.brandId());
+		features[MATERIAL] = code(profile.material());
+		features[SEASON] = code(profile.season());
+		features[OCCASION] = code(profile.occasion());
+		features[FIT] = code(profile.fit());
+		return features;
+	}
+
+	static double score(int[] target, int[] candidate) {
+		double totalScore = 0.0;
+
+		totalScore += genderSimilarity(target[GENDER], candidate[GENDER]) * GENDER_WEIGHT;
+		totalScore += categorySimilarity(target, candidate) * CATEGORY_WEIGHT;
+		totalScore += exactSimilarity(target[BRAND], candidate[BRAND]) * BRAND_WEIGHT;
+
+		totalScore += exactSimilarity(target[MATERIAL], candidate[MATERIAL]) * MATERIAL_WEIGHT;
+		totalScore += affinitySimilarity(SEASON_AFFINITY, target[SEASON], candidate[SEASON]) * SEASON_WEIGHT;
+		totalScore += affinitySimilarity(OCCASION_AFFINITY, target[OCCASION], candidate[OCCASION]) * OCCASION_WEIGHT;
+		totalScore += exactSimilarity(target[FIT], candidate[FIT]) * FIT_WEIGHT;
+
+		// Ensure score is between 0 and 1
+		totalScore = Math.min(1.0, Math.max(0.0, totalScore));
+
+		return Math.round(totalScore * 100.0) / 100.0;
+	}
+
+	private static double genderSimilarity(int target, int candidate) {
+		if (target == candidate) {
+			return 1.0;
+		}
+
+		// UNISEX products are somewhat similar to any gender
+		if (target == UNISEX || candidate == UNISEX) {
+			return 0.5;
+		}
+
+		return 0.0;
+	}
+
+	private static double categorySimilarity(int[] target, int[] candidate) {
+		if (target[CATEGORY] != 0 && target[CATEGORY] == candidate[CATEGORY]) {
+			return 1.0;
+		}
+
+		// Same parent category
+		if (target[PARENT_CATEGORY] != 0 && target[PARENT_CATEGORY] == candidate[PARENT_CATEGORY]) {
+			return 0.6;
+		}
+
+		// One is the parent of the other
+		if ((target[PARENT_CATEGORY] != 0 && target[PARENT_CATEGORY] == candidate[CATEGORY])
+				|| (candidate[PARENT_CATEGORY] != 0 && candidate[PARENT_CATEGORY] == target[CATEGORY])) {
+			return 0.4;
+		}
+
+		return 0.0;
+	}
+
+	private static double exactSimilarity(int target, int candidate) {
+		return target != 0 && target == candidate ? 1.0 : 0.0;
+	}
+
+	private static double affinitySimilarity(double[][] affinity, int target, int candidate) {
+		if (target == 0 || candidate == 0) {
+			return 0.0;
+		}
+		if (target == candidate) {
+			return 1.0;
+		}
+		return affinity[Math.min(target, OTHER)][Math.min(candidate, OTHER)];
+	}
+
+	private int code(Object value) {
+		if (value == null) {
+			return 0;
+		}
+		Object key = value instanceof String string ? string.toUpperCase(Locale.ROOT) : value;
+		return codes.computeIfAbsent(key, ignored -> nextCode.incrementAndGet());
+	}
+
+	private static int knownCode(String value) {
+		for (int i = 0; i < KNOWN_VALUES.length; i++) {
+			if (KNOWN_VALUES[i].equals(value)) {
+				return i + 1;
+			}
+		}
+		throw new IllegalArgumentException("Unknown value: " + value);
+	}
+
+	private static void affinity(double[][] affinity, int first, int second, double score) {
+		affinity[first][second] = score;
+		affinity[second][first] = score;
+	}
+}
@@ -0,0 +1,340 @@
+package com.charbel.ecommerce.product.service;
+
+import com.charbel.ecommerce.common.enums.SuggestionType;
+import com.charbel.ecommerce.product.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Typeahead suggestions over product, brand and category names, answered from
+ * memory on every keystroke instead of with a {@code LIKE} query.
+ *
+ * Names are folded like {@link ProductSearchIndex} folds text and filed in a
+ * path-compressed trie under each of their word starts, so "sh" suggests
+ * "Linen Shirt" as well as "Shirts". Products are as popular as their review
+ * count plus the units ordered, brands and categories as the sum of their
+ * products. Every node knows the best suggestion below it, and a lookup walks
+ * the subtree best first, stopping once it has enough.
+ *
+ * The trie is immutable and flattened into arrays. A background rebuild loads
+ * the catalog into a new one and swaps it in, so lookups never wait for it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSuggestionIndex {
+
+	// Most popular first; the position in this order is a suggestion's rank in the trie
+	private static final Comparator<Suggestion> RANK_ORDER = Comparator.comparingLong(Suggestion::popularity)
+			.reversed().thenComparing(Suggestion::text).thenComparing(Suggestion::type)
+			.thenComparing(Suggestion::id);
+
+	// Long names are only filed under their first words, and keys are cut short
+	private static final int MAX_WORD_STARTS = 8;
+	private static final int MAX_KEY_LENGTH = 64;
+
+	private final ProductRepository productRepository;
+
+	private final Object rebuildLock = new Object();
+
+	private volatile Trie trie;
+
+	/**
+	 * A suggested name. {@code id} is the product, brand or category id, and
+	 * {@code slug} is set for brands and categories.
+	 */
+	public record Suggestion(SuggestionType type, UUID id, String slug, String text, long popularity) {
+	}
+
+	/**
+	 * Returns up to {@code limit} suggestions with a word starting with the
+	 * last word of {@code prefix}, preceded by its other words, most popular
+	 * first. Same-named products are suggested once.
+	 */
+	public List<Suggestion> suggest(String prefix, int limit) {
+		Trie current = trie;
+		String key = key(ProductSearchIndex.tokenize(prefix));
+		if (current == null || key.isEmpty() || limit <= 0) {
+			return List.of();
+		}
+		return current.suggest(key, limit);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	@Scheduled(fixedDelayString = "${products.suggestions.rebuild-interval:300000}",
+			initialDelayString = "${products.suggestions.rebuild-interval:300000}")
+	public void rebuild() {
+		synchronized (rebuildLock) {
+			long startedAt = System.currentTimeMillis();
+			Map<UUID, Long> orderedUnits = new HashMap<>();
+			for (Object[] row : productRepository.findOrderedQuantities()) {
+				orderedUnits.put((UUID) row[0], ((Number) row[1]).longValue());
+			}
+
+			Map<String, Suggestion> products = new HashMap<>();
+			Map<UUID, Suggestion> brands = new HashMap<>();
+			Map<UUID, Suggestion> categories = new HashMap<>();
+			for (Object[] row : productRepository.findSuggestionRows()) {
+				UUID productId = (UUID) row[0];
+				long reviewCount = row[2] != null ? ((Number) row[2]).longValue() : 0;
+				long popularity = reviewCount + orderedUnits.getOrDefault(productId, 0L);
+
+				Suggestion product = new Suggestion(SuggestionType.PRODUCT, productId, null, (String) row[1],
+						popularity);
+				products.merge(key(ProductSearchIndex.tokenize(product.text())), product,
+						(first, second) -> RANK_ORDER.compare(first, second) <= 0 ? first : second);
+				brands.merge((UUID) row[3], new Suggestion(SuggestionType.BRAND, (UUID) row[3], (String) row[4],
+						(String) row[5], popularity), ProductSuggestionIndex::sum);
+				if (row[6] != null) {
+					categories.merge((UUID) row[6], new Suggestion(SuggestionType.CATEGORY, (UUID) row[6],
+							(String) row[7], (String) row[8], popularity), ProductSuggestionIndex::sum);
+				}
+			}
+
+			List<Suggestion> suggestions = new ArrayList<>(products.values());
+			suggestions.addAll(brands.values());
+			suggestions.addAll(categories.values());
+			Trie built = Trie.build(suggestions);
+			trie = built;
+			log.info("Rebuilt product suggestion index for {} names and {} trie nodes in {} ms", suggestions.size(),
+					built.nodeCount(), System.currentTimeMillis() - startedAt);
+		}
+	}
+
+	private static Suggestion sum(Suggestion first, Suggestion second) {
+		return new Suggestion(first.type(), first.id(), first.slug(), first.text(),
+				first.popularity() + second.popularity());
+	}
+
+	private static String key(List<String> words) {
+		String key = String.join(" ", words);
+		return key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key;
+	}
+
+	/**
+	 * A path-compressed trie in preorder arrays. Node labels point into the
+	 * concatenated keys, a node's children are linked through
+	 * {@code nextSibling} in character order, and the suggestions filed under a
+	 * node's full key are {@code entries[entriesStart[node] .. entriesStart[node + 1])},
+	 * by rank. {@code best} is the best rank in the node's subtree.
+	 */
+	private static final class Trie {
+
+		private final Suggestion[] suggestions;
+		private final char[] text;
+		private final int[] entries;
+		// Sized for the worst case while building, then trimmed to nodeCount
+		private int[] labelStart;
+		private byte[] labelLength;
+		private int[] firstChild;
+		private int[] nextSibling;
+		private int[] best;
+		private int[] entriesStart;
+
+		// Build state: the keys in order, where each starts in text, and whose they are
+		private String[] keys;
+		private int[] keyStart;
+		private int[] keyRanks;
+		private int nodeCount;
+		private int entryCount;
+
+		private Trie(Suggestion[] suggestions, String[] keys, int[] keyRanks) {
+			this.suggestions = suggestions;
+			this.keys = keys;
+			this.keyRanks = keyRanks;
+			keyStart = new int[keys.length];
+			StringBuilder joined = new StringBuilder();
+			for (int k = 0; k < keys.length; k++) {
+				keyStart[k] = joined.length();
+				joined.append(keys[k]);
+			}
+			text = joined.toString().toCharArray();
+
+			int maxNodes = keys.length * 2 + 1;
+			labelStart = new int[maxNodes];
+			labelLength = new byte[maxNodes];
+			firstChild = new int[maxNodes];
+			nextSibling = new int[maxNodes];
+			best = new int[maxNodes];
+			entriesStart = new int[maxNodes + 1];
+			entries = new int[keys.length];
+			if (keys.length > 0) {
+				build(0, keys.length, 0);
+			}
+			entriesStart[nodeCount] = entryCount;
+
+			labelStart = Arrays.copyOf(labelStart, nodeCount);
+			labelLength = Arrays.copyOf(labelLength, nodeCount);
+			firstChild = Arrays.copyOf(firstChild, nodeCount);
+			nextSibling = Arrays.copyOf(nextSibling, nodeCount);
+			best = Arrays.copyOf(best, nodeCount);
+			entriesStart = Arrays.copyOf(entriesStart, nodeCount + 1);
+			this.keys = null;
+			this.keyStart = null;
+			this.keyRanks = null;
+		}
+
+		static Trie build(List<Suggestion> unranked) {
+			Suggestion[] suggestions = unranked.toArray(new Suggestion[0]);
+			Arrays.sort(suggestions, RANK_ORDER);
+
+			List<Key> keys = new ArrayList<>();
+			for (int rank = 0; rank < suggestions.length; rank++) {
+				List<String> words = ProductSearchIndex.tokenize(suggestions[rank].text());
+				for (int w = 0; w < Math.min(words.size(), MAX_WORD_STARTS); w++) {
+					keys.add(new Key(key(words.subList(w, words.size())), rank));
+				}
+			}
+
+			// By key, then by rank, so the entries of a node come out best first
+			keys.sort(Comparator.comparing(Key::text).thenComparingInt(Key::rank));
+			String[] sortedKeys = new String[keys.size()];
+			int[] sortedRanks = new int[keys.size()];
+			for (int k = 0; k < sortedKeys.length; k++) {
+				sortedKeys[k] = keys.get(k).text();
+				sortedRanks[k] = keys.get(k).rank();
+			}
+			return new Trie(suggestions, sortedKeys, sortedRanks);
+		}
+
+		private record Key(String text, int rank) {
+		}
+
+		int nodeCount() {
+			return nodeCount;
+		}
+
+		List<Suggestion> suggest(String prefix, int limit) {
+			int node = find(prefix);
+			if (node < 0) {
+				return List.of();
+			}
+
+			// Candidates are {rank, node, entry}: a node to expand (entry -1) or one of its entries.
+			// Popping by rank yields the suggestions in order.
+			PriorityQueue<long[]> queue = new PriorityQueue<>(Comparator.comparingLong(candidate -> candidate[0]));
+			queue.add(new long[]{best[node], node, -1});
+			List<Suggestion> result = new ArrayList<>(limit);
+			// A name is filed under each of its word starts, so it can be reached more than once
+			Set<Integer> seen = new HashSet<>();
+			while (!queue.isEmpty() && result.size() < limit) {
+				long[] candidate = queue.poll();
+				int current = (int) candidate[1];
+				int entry = (int) candidate[2];
+				if (entry >= 0) {
+					if (seen.add(entries[entry])) {
+						result.add(suggestions[entries[entry]]);
+					}
+					if (entry + 1 < entriesStart[current + 1]) {
+						queue.add(new long[]{entries[entry + 1], current, entry + 1});
+					}
+					continue;
+				}
+
+				if (entriesStart[current] < entriesStart[current + 1]) {
+					queue.add(new long[]{entries[entriesStart[current]], current, entriesStart[current]});
+				}
+				for (int child = firstChild[current]; child >= 0; child = nextSibling[child]) {
+					queue.add(new long[]{best[child], child, -1});
+				}
+			}
+			return result;
+		}
+
+		// The node whose subtree holds every key starting with prefix, or -1
+		private int find(String prefix) {
+			if (nodeCount == 0) {
+				return -1;
+			}
+
+			int node = 0;
+			int matched = 0;
+			while (true) {
+				int length = Math.min(labelLength[node], prefix.length() - matched);
+				for (int i = 0; i < length; i++) {
+					if (text[labelStart[node] + i] != prefix.charAt(matched + i)) {
+						return -1;
+					}
+				}
+				matched += length;
+				if (matched == prefix.length()) {
+					return node;
+				}
+
+				char next = prefix.charAt(matched);
+				int child = firstChild[node];
+				while (child >= 0 && text[labelStart[child]] != next) {
+					child = nextSibling[child];
+				}
+				if (child < 0) {
+					return -1;
+				}
+				node = child;
+			}
+		}
+
+		// Appends the node for keys[from, to), which share their first depth characters, and its subtree
+		private int build(int from, int to, int depth) {
+			int node = nodeCount++;
+			int end = commonPrefixLength(keys[from], keys[to - 1]);
+			labelStart[node] = keyStart[from] + depth;
+			labelLength[node] = (byte) (end - depth);
+			firstChild[node] = -1;
+			nextSibling[node] = -1;
+			best[node] = Integer.MAX_VALUE;
+
+			// Keys ending here sort before the longer ones
+			entriesStart[node] = entryCount;
+			int k = from;
+			while (k < to && keys[k].length() == end) {
+				entries[entryCount++] = keyRanks[k];
+				best[node] = Math.min(best[node], keyRanks[k]);
+				k++;
+			}
+
+			int previous = -1;
+			while (k < to) {
+				char first = keys[k].charAt(end);
+				int groupEnd = k + 1;
+				while (groupEnd < to && keys[groupEnd].charAt(end) == first) {
+					groupEnd++;
+				}
+				int child = build(k, groupEnd, end);
+				if (previous < 0) {
+					firstChild[node] = child;
+				} else {
+					nextSibling[previous] = child;
+				}
+				previous = child;
+				best[node] = Math.min(best[node], best[child]);
+				k = groupEnd;
+			}
+			return node;
+		}
+
+		private static int commonPrefixLength(String first, String second) {
+			int length = Math.min(first.length(), second.length());
+			for (int i = 0; i < length; i++) {
+				if (first.charAt(i) != second.charAt(i)) {
+					return i;
+				}
+			}
+			return length;
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package com.charbel.ecommerce.product.service;
+
+import com.charbel.ecommerce.common.enums.GenderType;
+import com.charbel.ecommerce.product.entity.Product;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * The attributes of a product that similarity scoring looks at, detached from the
+ * entity so the similarity index can hold the whole active catalog in memory.
+ */
+record SimilarityProfile(UUID productId, GenderType gender, UUID categoryId, UUID parentCategoryId, UUID brandId,
+		String material, String season, String occasion, String fit) {
+
+	static SimilarityProfile of(Product product) {
+		UUID parentCategoryId = product.getCategory() != null ? product.getCategory().getParentId() : null;
+		return of(product.getId(), product.getGender(), product.getCategoryId(), parentCategoryId,
+				product.getBrandId(), product.getMetadata());
+	}
+
+	/** Maps a row of {@code ProductRepository.findSimilarityProfiles}. */
+	@SuppressWarnings("unchecked")
+	static SimilarityProfile fromRow(Object[] row) {
+		return of((UUID) row[0], (GenderType) row[1], (UUID) row[2], (UUID) row[3], (UUID) row[4],
+				(Map<String, Object>) row[5]);
+	}
+
+	private static SimilarityProfile of(UUID productId, GenderType gender, UUID categoryId, UUID parentCategoryId,
+			UUID brandId, Map<String, Object> metadata) {
+		return new SimilarityProfile(productId, gender, categoryId, parentCategoryId, brandId,
+				metadataValue(metadata, "material"), metadataValue(metadata, "season"),
+				metadataValue(metadata, "occasion"), metadataValue(metadata, "fit"));
+	}
+
+	private static String metadataValue(Map<String, Object> metadata, String field) {
+		if (metadata == null) {
+			return null;
+		}
+		Object value = metadata.get(field);
+		return value != null ? value.toString() : null;
+	}
+}
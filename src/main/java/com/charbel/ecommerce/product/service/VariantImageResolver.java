@@ -0,0 +1,83 @@
+package com.charbel.ecommerce.product.service;
+
+import com.charbel.ecommerce.product.dto.ProductImageResponse;
+import com.charbel.ecommerce.product.entity.ProductImage;
+import com.charbel.ecommerce.product.entity.ProductVariant;
+import com.charbel.ecommerce.product.repository.ProductImageRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Resolves display images for many variants at once. Variant-specific images win;
+ * variants without any fall back to their product's shared images. At most two
+ * queries are issued regardless of how many variants are passed in.
+ */
+@Service
+@RequiredArgsConstructor
+public class VariantImageResolver {
+
+	private static final Comparator<ProductImage> DISPLAY_ORDER = Comparator
+			.comparing((ProductImage image) -> !Boolean.TRUE.equals(image.getIsPrimary()))
+			.thenComparing(ProductImage::getSortOrder);
+
+	private final ProductImageRepository productImageRepository;
+
+	public Map<UUID, List<ProductImageResponse>> resolve(Collection<ProductVariant> variants) {
+		Map<UUID, ProductVariant> variantsById = new HashMap<>();
+		for (ProductVariant variant : variants) {
+			variantsById.putIfAbsent(variant.getId(), variant);
+		}
+		if (variantsById.isEmpty()) {
+			return Map.of();
+		}
+
+		Map<UUID, List<ProductImage>> imagesByVariantId = productImageRepository
+				.findByVariantIdIn(variantsById.keySet()).stream()
+				.collect(Collectors.groupingBy(ProductImage::getVariantId));
+
+		Set<UUID> fallbackProductIds = new HashSet<>();
+		for (ProductVariant variant : variantsById.values()) {
+			if (!imagesByVariantId.containsKey(variant.getId())) {
+				fallbackProductIds.add(variant.getProduct().getId());
+			}
+		}
+
+		Map<UUID, List<ProductImage>> imagesByProductId = fallbackProductIds.isEmpty()
+				? Map.of()
+				: productImageRepository.findByProductIdInAndVariantIdIsNull(fallbackProductIds).stream()
+						.collect(Collectors.groupingBy(ProductImage::getProductId));
+
+		Map<UUID, List<ProductImageResponse>> resolved = new HashMap<>();
+		for (ProductVariant variant : variantsById.values()) {
+			List<ProductImage> images = imagesByVariantId.get(variant.getId());
+			if (images == null) {
+				images = imagesByProductId.getOrDefault(variant.getProduct().getId(), List.of());
+			}
+			resolved.put(variant.getId(), images.stream()
+					.sorted(DISPLAY_ORDER)
+					.map(this::mapToProductImageResponse)
+					.collect(Collectors.toList()));
+		}
+		return resolved;
+	}
+
+	private ProductImageResponse mapToProductImageResponse(ProductImage image) {
+		return ProductImageResponse.builder()
+				.id(image.getId())
+				.imageUrl(image.getImageUrl())
+				.altText(image.getAltText())
+				.isPrimary(image.getIsPrimary())
+				.sortOrder(image.getSortOrder())
+				.build();
+	}
+}
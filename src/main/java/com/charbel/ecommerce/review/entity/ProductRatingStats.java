@@ -0,0 +1,89 @@
+package com.charbel.ecommerce.review.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * How many live reviews a product has at each star rating, kept in step with
+ * its reviews by atomic delta updates. The review count and average rating are
+ * derived from it, so review writes never aggregate over the product's reviews.
+ */
+@Entity
+@Table(name = "product_rating_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductRatingStats {
+
+    @Id
+    @Column(name = "product_id")
+    private UUID productId;
+
+    @Column(name = "one_star", nullable = false)
+    @Builder.Default
+    private Long oneStar = 0L;
+
+    @Column(name = "two_star", nullable = false)
+    @Builder.Default
+    private Long twoStar = 0L;
+
+    @Column(name = "three_star", nullable = false)
+    @Builder.Default
+    private Long threeStar = 0L;
+
+    @Column(name = "four_star", nullable = false)
+    @Builder.Default
+    private Long fourStar = 0L;
+
+    @Column(name = "five_star", nullable = false)
+    @Builder.Default
+    private Long fiveStar = 0L;
+
+    // Bumped by every rating change, so snapshots of the row can be ordered
+    @Column(nullable = false)
+    @Builder.Default
+    private Long revision = 0L;
+
+    /**
+     * Builds the histogram from {@code [rating, count]} rows, as returned by a
+     * {@code GROUP BY rating}, at a revision below any stored one.
+     */
+    public static ProductRatingStats fromDistribution(UUID productId, List<Object[]> distribution) {
+        long[] counts = new long[5];
+        for (Object[] row : distribution) {
+            counts[((Number) row[0]).intValue() - 1] = ((Number) row[1]).longValue();
+        }
+        return new ProductRatingStats(productId, counts[0], counts[1], counts[2], counts[3], counts[4], -1L);
+    }
+
+    /** The number of reviews at each rating, one star first. */
+    public long[] histogram() {
+        return new long[]{oneStar, twoStar, threeStar, fourStar, fiveStar};
+    }
+
+    public long reviewCount() {
+        return oneStar + twoStar + threeStar + fourStar + fiveStar;
+    }
+
+    /** The average rating rounded to one decimal, or null without reviews. */
+    public BigDecimal averageRating() {
+        long reviewCount = reviewCount();
+        if (reviewCount == 0) {
+            return null;
+        }
+        long ratingSum = oneStar + 2 * twoStar + 3 * threeStar + 4 * fourStar + 5 * fiveStar;
+        return BigDecimal.valueOf(ratingSum).divide(BigDecimal.valueOf(reviewCount), 1, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,71 @@
+package com.charbel.ecommerce.review.repository;
+
+import com.charbel.ecommerce.review.entity.ProductRatingStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface ProductRatingStatsRepository extends JpaRepository<ProductRatingStats, UUID> {
+
+    /**
+     * Counts the product's live reviews into a new histogram, unless it already
+     * has one; the reviews are only read when it does not. Call before changing
+     * the product's reviews in a transaction, so the change is not counted twice.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO product_rating_stats "
+            + "(product_id, one_star, two_star, three_star, four_star, five_star, revision) "
+            + "SELECT :productId, COUNT(*) FILTER (WHERE r.rating = 1), COUNT(*) FILTER (WHERE r.rating = 2), "
+            + "COUNT(*) FILTER (WHERE r.rating = 3), COUNT(*) FILTER (WHERE r.rating = 4), "
+            + "COUNT(*) FILTER (WHERE r.rating = 5), 0 "
+            + "FROM reviews r WHERE r.product_id = :productId AND r.is_deleted = false "
+            + "AND NOT EXISTS (SELECT 1 FROM product_rating_stats s WHERE s.product_id = :productId) "
+            + "ON CONFLICT (product_id) DO NOTHING", nativeQuery = true)
+    int createIfAbsent(@Param("productId") UUID productId);
+
+    /**
+     * Moves one review from the {@code removed} to the {@code added} star count
+     * with an atomic delta; 0 stands for no rating, when a review is created or
+     * deleted. The row stays locked until commit, which orders concurrent review
+     * writes on the product.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE ProductRatingStats s SET "
+            + "s.oneStar = s.oneStar + (CASE WHEN :added = 1 THEN 1 ELSE 0 END) - (CASE WHEN :removed = 1 THEN 1 ELSE 0 END), "
+            + "s.twoStar = s.twoStar + (CASE WHEN :added = 2 THEN 1 ELSE 0 END) - (CASE WHEN :removed = 2 THEN 1 ELSE 0 END), "
+            + "s.threeStar = s.threeStar + (CASE WHEN :added = 3 THEN 1 ELSE 0 END) - (CASE WHEN :removed = 3 THEN 1 ELSE 0 END), "
+            + "s.fourStar = s.fourStar + (CASE WHEN :added = 4 THEN 1 ELSE 0 END) - (CASE WHEN :removed = 4 THEN 1 ELSE 0 END), "
+            + "s.fiveStar = s.fiveStar + (CASE WHEN :added = 5 THEN 1 ELSE 0 END) - (CASE WHEN :removed = 5 THEN 1 ELSE 0 END), "
+            + "s.revision = s.revision + 1 "
+            + "WHERE s.productId = :productId")
+    int moveRating(@Param("productId") UUID productId, @Param("removed") int removed, @Param("added") int added);
+
+    /**
+     * Reads the product's histogram as currently stored, bypassing any copy the
+     * persistence context holds from before a {@link #moveRating}.
+     */
+    @Query("SELECT new com.charbel.ecommerce.review.entity.ProductRatingStats(s.productId, s.oneStar, s.twoStar, "
+            + "s.threeStar, s.fourStar, s.fiveStar, s.revision) FROM ProductRatingStats s WHERE s.productId = :productId")
+    Optional<ProductRatingStats> findCurrent(@Param("productId") UUID productId);
+
+    /**
+     * Copies the histogram's review count and average rating, rounded to one
+     * decimal, onto the product row.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE products SET review_count = s.one_star + s.two_star + s.three_star + s.four_star + s.five_star, "
+            + "average_rating = ROUND(CAST(s.one_star + 2 * s.two_star + 3 * s.three_star + 4 * s.four_star + 5 * s.five_star AS numeric) "
+            + "/ NULLIF(s.one_star + s.two_star + s.three_star + s.four_star + s.five_star, 0), 1), updated_at = now() "
+            + "FROM product_rating_stats s WHERE s.product_id = :productId AND products.id = :productId", nativeQuery = true)
+    int copyToProduct(@Param("productId") UUID productId);
+}
@@ -6,16 +6,31 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Repository
 public interface ReviewHelpfulVoteRepository extends JpaRepository<ReviewHelpfulVote, UUID> {
 
-    @Query("SELECT CASE WHEN COUNT(rv) > 0 THEN true ELSE false END FROM ReviewHelpfulVote rv WHERE rv.isDeleted = false AND rv.reviewId = :reviewId AND rv.userId = :userId")
-    boolean existsByReviewIdAndUserId(@Param("reviewId") UUID reviewId, @Param("userId") UUID userId);
-    
+    /**
+     * Records the user's vote unless the unique (review, user) index already holds
+     * one, so concurrent duplicates need no pre-check. Returns 1 if recorded, else 0.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO review_helpful_votes (id, review_id, user_id, created_at, updated_at, is_deleted) "
+            + "VALUES (gen_random_uuid(), :reviewId, :userId, now(), now(), false) "
+            + "ON CONFLICT (review_id, user_id) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("reviewId") UUID reviewId, @Param("userId") UUID userId);
+
+    /** The ones among {@code reviewIds} the user has marked helpful, in a single query. */
+    @Query("SELECT rv.reviewId FROM ReviewHelpfulVote rv WHERE rv.isDeleted = false AND rv.userId = :userId AND rv.reviewId IN :reviewIds")
+    Set<UUID> findVotedReviewIds(@Param("userId") UUID userId, @Param("reviewIds") Collection<UUID> reviewIds);
+
     @Modifying
     @Query("UPDATE ReviewHelpfulVote rv SET rv.isDeleted = true WHERE rv.reviewId = :reviewId")
     void deleteByReviewId(@Param("reviewId") UUID reviewId);
@@ -4,9 +4,11 @@ import com.charbel.ecommerce.review.entity.Review;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -55,4 +57,10 @@ public interface ReviewRepository extends JpaRepository<Review, UUID> {
 
     @Query("SELECT r FROM Review r WHERE r.isDeleted = false AND r.id = :id")
     Optional<Review> findByIdAndNotDeleted(@Param("id") UUID id);
+
+    /** Adds {@code delta} to the review's helpful count in place, so concurrent writers never lose votes. */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Review r SET r.helpfulCount = r.helpfulCount + :delta WHERE r.id = :reviewId")
+    int addHelpfulCount(@Param("reviewId") UUID reviewId, @Param("delta") int delta);
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+package com.charbel.ecommerce.review.service;
+
+import com.charbel.ecommerce.review.repository.ReviewRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Write-behind counter for {@code reviews.helpful_count}.
+ *
+ * Each committed helpful vote adds one to an in-memory delta for its review, and
+ * a scheduled flush writes every pending delta as a single atomic increment. A
+ * burst of votes on a popular review therefore costs one row update per flush
+ * interval instead of one per vote, and increments from several instances never
+ * overwrite each other. Counts on reviews may lag their votes by up to
+ * {@code reviews.helpful-count.flush-interval}; deltas not yet flushed when an
+ * instance crashes are lost from the count, though the votes themselves are kept.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReviewHelpfulCounter {
+
+    private final ReviewRepository reviewRepository;
+
+    private final ConcurrentMap<UUID, Integer> pendingDeltas = new ConcurrentHashMap<>();
+
+    /** Counts one more helpful vote for the review once the caller's transaction commits. */
+    public void incrementAfterCommit(UUID reviewId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            pendingDeltas.merge(reviewId, 1, Integer::sum);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                pendingDeltas.merge(reviewId, 1, Integer::sum);
+            }
+        });
+    }
+
+    /** The votes counted on this instance but not yet written to the review. */
+    public int pendingDelta(UUID reviewId) {
+        return pendingDeltas.getOrDefault(reviewId, 0);
+    }
+
+    @Scheduled(fixedDelayString = "${reviews.helpful-count.flush-interval:1000}")
+    public void flush() {
+        int flushedReviews = 0;
+        for (UUID reviewId : pendingDeltas.keySet()) {
+            Integer delta = pendingDeltas.remove(reviewId);
+            if (delta == null) {
+                continue;
+            }
+
+            try {
+                reviewRepository.addHelpfulCount(reviewId, delta);
+            } catch (RuntimeException e) {
+                // Put the delta back for the next flush, together with any votes counted meanwhile,
+                // and carry on so one failing review does not hold back the others
+                pendingDeltas.merge(reviewId, delta, Integer::sum);
+                log.warn("Failed to flush {} helpful votes for review {}, retrying next flush", delta, reviewId, e);
+                continue;
+            }
+            flushedReviews++;
+        }
+
+        if (flushedReviews > 0) {
+            log.debug("Flushed pending helpful votes for {} reviews", flushedReviews);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
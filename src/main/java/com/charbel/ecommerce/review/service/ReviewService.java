@@ -1,11 +1,8 @@
 package com.charbel.ecommerce.review.service;
 
 import java.io.IOException;
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -30,17 +27,21 @@ import com.charbel.ecommerce.exception.UnauthorizedReviewAccessException;
 import com.charbel.ecommerce.orders.repository.OrderRepository;
 import com.charbel.ecommerce.product.entity.Product;
 import com.charbel.ecommerce.product.repository.ProductRepository;
+import com.charbel.ecommerce.product.service.CatalogCache;
+import com.charbel.ecommerce.product.service.ProductFacetIndex;
 import com.charbel.ecommerce.review.dto.CreateReviewRequest;
 import com.charbel.ecommerce.review.dto.PaginatedReviewsResponse;
 import com.charbel.ecommerce.review.dto.ReviewResponse;
 import com.charbel.ecommerce.review.dto.ReviewSummaryResponse;
 import com.charbel.ecommerce.review.dto.UpdateReviewRequest;
+import com.charbel.ecommerce.review.entity.ProductRatingStats;
 import com.charbel.ecommerce.review.entity.Review;
-import com.charbel.ecommerce.review.entity.ReviewHelpfulVote;
 import com.charbel.ecommerce.review.entity.ReviewImage;
+import com.charbel.ecommerce.review.repository.ProductRatingStatsRepository;
 import com.charbel.ecommerce.review.repository.ReviewHelpfulVoteRepository;
 import com.charbel.ecommerce.review.repository.ReviewImageRepository;
 import com.charbel.ecommerce.review.repository.ReviewRepository;
+import com.charbel.ecommerce.review.service.ReviewSummaryCache.Summary;
 import com.charbel.ecommerce.user.entity.User;
 import com.charbel.ecommerce.user.repository.UserRepository;
 
@@ -56,8 +57,13 @@ public class ReviewService {
     private final ReviewRepository reviewRepository;
     private final ReviewImageRepository reviewImageRepository;
     private final ReviewHelpfulVoteRepository reviewHelpfulVoteRepository;
+    private final ProductRatingStatsRepository productRatingStatsRepository;
+    private final ReviewSummaryCache reviewSummaryCache;
+    private final ReviewHelpfulCounter reviewHelpfulCounter;
     private final ProductRepository productRepository;
     private final UserRepository userRepository;
+    private final ProductFacetIndex productFacetIndex;
+    private final CatalogCache catalogCache;
     private final OrderRepository orderRepository;
     private final CdnService cdnService;
 
@@ -78,6 +84,7 @@ public class ReviewService {
         }
 
         boolean hasVerifiedPurchase = orderRepository.existsByUserIdAndProductId(userId, productId);
+        productRatingStatsRepository.createIfAbsent(productId);
 
         Review review = Review.builder()
                 .product(product)
@@ -98,7 +105,7 @@ public class ReviewService {
         }
 
         // Update product's average rating and review count
-        updateProductRatingStats(productId);
+        updateProductRatingStats(productId, 0, request.getRating());
 
         // Fetch the review with images loaded
         Review reviewWithImages = reviewRepository.findByIdAndNotDeleted(savedReview.getId())
@@ -120,6 +127,8 @@ public class ReviewService {
             throw new UnauthorizedReviewAccessException("You can only update your own reviews");
         }
 
+        productRatingStatsRepository.createIfAbsent(review.getProductId());
+        int previousRating = review.getRating();
         review.setRating(request.getRating());
         review.setTitle(request.getTitle());
         review.setComment(request.getComment());
@@ -128,7 +137,7 @@ public class ReviewService {
         log.info("Review updated successfully: {}", reviewId);
 
         // Update product's average rating and review count
-        updateProductRatingStats(review.getProductId());
+        updateProductRatingStats(review.getProductId(), previousRating, request.getRating());
 
         return ReviewResponse.fromEntity(savedReview);
     }
@@ -145,6 +154,7 @@ public class ReviewService {
         }
 
         UUID productId = review.getProductId();
+        productRatingStatsRepository.createIfAbsent(productId);
 
         // Soft delete review images
         reviewImageRepository.deleteByReviewId(reviewId);
@@ -160,7 +170,7 @@ public class ReviewService {
         log.info("Review soft deleted successfully: {}", reviewId);
 
         // Update product's average rating and review count
-        updateProductRatingStats(productId);
+        updateProductRatingStats(productId, review.getRating(), 0);
     }
 
     @Transactional(readOnly = true)
@@ -214,19 +224,14 @@ public class ReviewService {
         }
 
         List<ReviewResponse> reviews;
-        if (currentUserId != null) {
+        if (currentUserId != null && reviewPage.hasContent()) {
             // Get all review IDs to check vote status
             List<UUID> reviewIds = reviewPage.getContent().stream()
                     .map(Review::getId)
                     .collect(Collectors.toList());
 
-            // Check which reviews the current user has voted for
-            Set<UUID> votedReviewIds = new HashSet<>();
-            for (UUID reviewId : reviewIds) {
-                if (reviewHelpfulVoteRepository.existsByReviewIdAndUserId(reviewId, currentUserId)) {
-                    votedReviewIds.add(reviewId);
-                }
-            }
+            // Check which reviews the current user has voted for, in one query whatever the page size
+            Set<UUID> votedReviewIds = reviewHelpfulVoteRepository.findVotedReviewIds(currentUserId, reviewIds);
 
             reviews = reviewPage.getContent().stream()
                     .map(review -> ReviewResponse.fromEntity(review, votedReviewIds.contains(review.getId())))
@@ -254,27 +259,19 @@ public class ReviewService {
     public ReviewSummaryResponse getReviewSummary(UUID productId) {
         log.debug("Getting review summary for product: {}", productId);
 
-        Long totalReviews = reviewRepository.countByProductId(productId);
-        BigDecimal averageRating = reviewRepository.findAverageRatingByProductId(productId);
+        // A product without a histogram yet is counted with one GROUP BY until its next review write
+        Summary summary = reviewSummaryCache.get(productId, () -> Summary.of(productRatingStatsRepository
+                .findCurrent(productId)
+                .orElseGet(() -> ProductRatingStats.fromDistribution(productId,
+                        reviewRepository.findRatingDistributionByProductId(productId)))));
 
-        if (averageRating != null) {
-            averageRating = averageRating.setScale(1, RoundingMode.HALF_UP);
-        }
-
-        List<Object[]> distribution = reviewRepository.findRatingDistributionByProductId(productId);
+        int[] histogram = summary.histogram();
         Map<Integer, Long> ratingDistribution = new HashMap<>();
-
         for (int i = 1; i <= 5; i++) {
-            ratingDistribution.put(i, 0L);
+            ratingDistribution.put(i, (long) histogram[i - 1]);
         }
 
-        for (Object[] row : distribution) {
-            Integer rating = (Integer) row[0];
-            Long count = (Long) row[1];
-            ratingDistribution.put(rating, count);
-        }
-
-        return ReviewSummaryResponse.create(totalReviews, averageRating, ratingDistribution);
+        return ReviewSummaryResponse.create(summary.reviewCount(), summary.averageRating(), ratingDistribution);
     }
 
     @Transactional(readOnly = true)
@@ -305,7 +302,7 @@ public class ReviewService {
         Review review = reviewRepository.findByIdAndNotDeleted(reviewId)
                 .orElseThrow(() -> new ReviewNotFoundException("Review not found with ID: " + reviewId));
 
-        User user = userRepository.findByIdAndNotDeleted(userId)
+        userRepository.findByIdAndNotDeleted(userId)
                 .orElseThrow(() -> new EntityNotFoundException("User not found with ID: " + userId));
 
         // Check if user is trying to mark their own review as helpful
@@ -313,48 +310,42 @@ public class ReviewService {
             throw new SelfHelpfulVoteException("You cannot mark your own review as helpful");
         }
 
-        // Check if user has already voted for this review
-        if (reviewHelpfulVoteRepository.existsByReviewIdAndUserId(reviewId, userId)) {
+        // Record the vote; the unique (review, user) index turns a repeat vote into a no-op
+        if (reviewHelpfulVoteRepository.insertIfAbsent(reviewId, userId) == 0) {
             throw new DuplicateHelpfulVoteException("You have already marked this review as helpful");
         }
 
-        // Create the helpful vote record
-        ReviewHelpfulVote helpfulVote = ReviewHelpfulVote.builder()
-                .review(review)
-                .reviewId(reviewId)
-                .user(user)
-                .userId(userId)
-                .build();
-
-        reviewHelpfulVoteRepository.save(helpfulVote);
+        // Counted in memory and flushed as one increment per review; the review entity is left
+        // untouched so saving it can never write back a stale count
+        reviewHelpfulCounter.incrementAfterCommit(reviewId);
 
-        // Increment the helpful count
-        review.setHelpfulCount(review.getHelpfulCount() + 1);
-        Review savedReview = reviewRepository.save(review);
+        // User just voted, so wasHelpfulToCurrentUser = true
+        ReviewResponse response = ReviewResponse.fromEntity(review, true);
+        response.setHelpfulCount(review.getHelpfulCount() + reviewHelpfulCounter.pendingDelta(reviewId) + 1);
 
-        log.info("Review helpful count updated to: {}", savedReview.getHelpfulCount());
-        return ReviewResponse.fromEntity(savedReview, true); // User just voted, so wasHelpfulToCurrentUser = true
+        log.info("Review helpful count updated to: {}", response.getHelpfulCount());
+        return response;
     }
 
-    @Transactional
-    private void updateProductRatingStats(UUID productId) {
-        log.debug("Updating rating stats for product: {}", productId);
+    // Moves one review between the product's star counts (0 for none) and copies the totals onto the
+    // product and the summary cache, without reading its reviews. The histogram must exist: see createIfAbsent.
+    private void updateProductRatingStats(UUID productId, int removedRating, int addedRating) {
+        if (removedRating == addedRating) {
+            return;
+        }
+        log.debug("Updating rating stats for product: {}, rating {} -> {}", productId, removedRating, addedRating);
 
         Product product = productRepository.findByIdAndNotDeleted(productId)
                 .orElseThrow(() -> new EntityNotFoundException("Product not found with ID: " + productId));
 
-        Long reviewCount = reviewRepository.countByProductId(productId);
-        BigDecimal averageRating = reviewRepository.findAverageRatingByProductId(productId);
-
-        if (averageRating != null) {
-            averageRating = averageRating.setScale(1, RoundingMode.HALF_UP);
-        }
-
-        product.setReviewCount(reviewCount);
-        product.setAverageRating(averageRating);
+        productRatingStatsRepository.moveRating(productId, removedRating, addedRating);
+        productRatingStatsRepository.copyToProduct(productId);
+        productRatingStatsRepository.findCurrent(productId)
+                .ifPresent(stats -> reviewSummaryCache.putAfterCommit(productId, Summary.of(stats)));
 
-        productRepository.save(product);
-        log.debug("Updated product {} rating stats: count={}, average={}", productId, reviewCount, averageRating);
+        // Ratings are shown on listings and drive the REVIEWS sort
+        productFacetIndex.refreshCategoryAfterCommit(product.getCategoryId());
+        catalogCache.invalidateProductAfterCommit(productId, product.getCategoryId(), product.getBrandId());
     }
 
     private void uploadAndSaveReviewImages(Review review, MultipartFile[] images) {
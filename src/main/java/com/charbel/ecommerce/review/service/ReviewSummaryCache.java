@@ -0,0 +1,169 @@
+package com.charbel.ecommerce.review.service;
+
+import com.charbel.ecommerce.review.entity.ProductRatingStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of each product's rating histogram, behind the review
+ * summary shown on product pages.
+ *
+ * Summaries are loaded on first read, replaced by review writes once their
+ * transaction commits, and evicted least-recently-used past
+ * {@code reviews.summary-cache.max-entries} or once older than
+ * {@code reviews.summary-cache.ttl}, which bounds how long writes made by other
+ * instances go unseen. Every summary carries the revision of the histogram it
+ * was read from, and a cached summary is only ever replaced by a newer one, so a
+ * read that raced a write cannot put back the counts from before it.
+ *
+ * Publishes {@code review.summary.cache.requests} (tagged {@code result=hit|miss}),
+ * {@code review.summary.cache.evictions} (tagged {@code cause=size|expired}) and
+ * {@code review.summary.cache.size}.
+ */
+@Service
+public class ReviewSummaryCache {
+
+    private final long ttlMillis;
+    private final int maxEntries;
+
+    // Access-ordered, so the eldest entry is the least recently used; guarded by this
+    private final LinkedHashMap<UUID, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter expiredEvictions;
+
+    public ReviewSummaryCache(MeterRegistry meterRegistry,
+            @Value("${reviews.summary-cache.ttl:300000}") long ttlMillis,
+            @Value("${reviews.summary-cache.max-entries:10000}") int maxEntries) {
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+
+        this.hits = requests("hit", meterRegistry);
+        this.misses = requests("miss", meterRegistry);
+        this.sizeEvictions = evictions("size", meterRegistry);
+        this.expiredEvictions = evictions("expired", meterRegistry);
+        Gauge.builder("review.summary.cache.size", this, ReviewSummaryCache::size)
+                .description("Review summaries currently cached").register(meterRegistry);
+    }
+
+    /** Returns the cached summary of the product, loading and caching it on a miss. */
+    public Summary get(UUID productId, Supplier<Summary> loader) {
+        synchronized (this) {
+            Entry cached = entries.get(productId);
+            if (cached != null && !cached.isExpired(System.currentTimeMillis())) {
+                hits.increment();
+                return cached.summary;
+            }
+        }
+
+        misses.increment();
+        return put(productId, loader.get());
+    }
+
+    /** Caches the summary a review write leaves behind, once its transaction commits. */
+    public void putAfterCommit(UUID productId, Summary summary) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(productId, summary);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(productId, summary);
+            }
+        });
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    // Keeps whichever of the cached and given summaries is newer, and returns it
+    private synchronized Summary put(UUID productId, Summary summary) {
+        long now = System.currentTimeMillis();
+        Entry cached = entries.get(productId);
+        if (cached != null && cached.isExpired(now)) {
+            expiredEvictions.increment();
+        } else if (cached != null && cached.summary.revision() >= summary.revision()) {
+            return cached.summary;
+        }
+
+        entries.put(productId, new Entry(summary, now + ttlMillis));
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            sizeEvictions.increment();
+        }
+        return summary;
+    }
+
+    private static Counter requests(String result, MeterRegistry meterRegistry) {
+        return Counter.builder("review.summary.cache.requests").tag("result", result)
+                .description("Review summary cache lookups").register(meterRegistry);
+    }
+
+    private static Counter evictions(String cause, MeterRegistry meterRegistry) {
+        return Counter.builder("review.summary.cache.evictions").tag("cause", cause)
+                .description("Review summary cache entries removed").register(meterRegistry);
+    }
+
+    /**
+     * A product's review count at each star rating, one star first, as of
+     * {@code revision} of its histogram. Callers must not modify the array.
+     */
+    public record Summary(long revision, int[] histogram) {
+
+        public static Summary of(ProductRatingStats stats) {
+            long[] counts = stats.histogram();
+            int[] histogram = new int[counts.length];
+            for (int i = 0; i < counts.length; i++) {
+                histogram[i] = Math.toIntExact(counts[i]);
+            }
+            return new Summary(stats.getRevision(), histogram);
+        }
+
+        public long reviewCount() {
+            long reviewCount = 0;
+            for (int count : histogram) {
+                reviewCount += count;
+            }
+            return reviewCount;
+        }
+
+        /** The average rating rounded to one decimal, or null without reviews. */
+        public BigDecimal averageRating() {
+            long reviewCount = reviewCount();
+            if (reviewCount == 0) {
+                return null;
+            }
+            long ratingSum = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                ratingSum += (long) (i + 1) * histogram[i];
+            }
+            return BigDecimal.valueOf(ratingSum).divide(BigDecimal.valueOf(reviewCount), 1, RoundingMode.HALF_UP);
+        }
+    }
+
+    private record Entry(Summary summary, long expiresAt) {
+
+        private boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
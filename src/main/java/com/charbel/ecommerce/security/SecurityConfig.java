@@ -42,6 +42,8 @@ public class SecurityConfig {
 						.requestMatchers("/auth/register", "/auth/login").permitAll()
 						.requestMatchers("/v3/api-docs/**", "/swagger-ui/**", "/swagger-ui.html").permitAll()
 						.requestMatchers("/actuator/health", "/actuator/info").permitAll()
+						// Other actuator endpoints (metrics) are for operators only
+						.requestMatchers("/actuator/**").hasRole("ADMIN")
 						// Admin endpoints (require ADMIN role) - be more explicit
 						.requestMatchers("/api/admin/**").hasRole("ADMIN")
 						// All other endpoints require authentication (any authenticated user)
@@ -0,0 +1,11 @@
+-- Journal of committed stock movements not yet applied to product_variants.stock
+-- Positive quantities are units taken by orders, negative quantities are restocks
+
+CREATE TABLE IF NOT EXISTS inventory_reservations (
+    id UUID PRIMARY KEY,
+    variant_id UUID NOT NULL,
+    quantity INTEGER NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT now()
+);
+
+CREATE INDEX IF NOT EXISTS idx_inventory_reservations_variant ON inventory_reservations (variant_id);
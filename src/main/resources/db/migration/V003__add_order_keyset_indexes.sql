@@ -0,0 +1,5 @@
+-- Support keyset pagination of order listings on (created_at, id), newest first
+
+CREATE INDEX IF NOT EXISTS idx_orders_created_at_id ON orders (created_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_orders_user_created_at_id ON orders (user_id, created_at DESC, id DESC);
@@ -0,0 +1,9 @@
+-- Index the normalized color and size of variants, so category filters can use an
+-- index instead of extracting both from every variant's attributes. The
+-- expressions must match ProductVariant.normalizedColor and normalizedSize exactly.
+
+CREATE INDEX IF NOT EXISTS idx_product_variants_color ON product_variants (UPPER(attributes ->> 'color'), product_id);
+
+CREATE INDEX IF NOT EXISTS idx_product_variants_size ON product_variants (UPPER(attributes ->> 'size'), product_id);
+
+CREATE INDEX IF NOT EXISTS idx_product_variants_product ON product_variants (product_id);
@@ -0,0 +1,11 @@
+-- Support keyset pagination of the product listing in each ProductSortType order,
+-- ids breaking ties. The rating expression must match ProductRepository.findProductIdsByReviewsAfter.
+
+CREATE INDEX IF NOT EXISTS idx_products_price_asc_id ON products (base_price ASC, id) WHERE is_deleted = false;
+
+CREATE INDEX IF NOT EXISTS idx_products_price_desc_id ON products (base_price DESC, id) WHERE is_deleted = false;
+
+CREATE INDEX IF NOT EXISTS idx_products_rating_id ON products (COALESCE(average_rating, 10) DESC, review_count DESC, id)
+	WHERE is_deleted = false;
+
+CREATE INDEX IF NOT EXISTS idx_products_created_at_id ON products (created_at DESC, id) WHERE is_deleted = false;
@@ -0,0 +1,20 @@
+-- Per-product review counts by star rating, so review writes update a product's
+-- rating with a delta instead of aggregating its reviews. Backfilled from the
+-- live reviews; products without a row are counted on their next review write.
+
+CREATE TABLE IF NOT EXISTS product_rating_stats (
+    product_id UUID PRIMARY KEY,
+    one_star BIGINT NOT NULL DEFAULT 0,
+    two_star BIGINT NOT NULL DEFAULT 0,
+    three_star BIGINT NOT NULL DEFAULT 0,
+    four_star BIGINT NOT NULL DEFAULT 0,
+    five_star BIGINT NOT NULL DEFAULT 0
+);
+
+INSERT INTO product_rating_stats (product_id, one_star, two_star, three_star, four_star, five_star)
+SELECT product_id, COUNT(*) FILTER (WHERE rating = 1), COUNT(*) FILTER (WHERE rating = 2),
+    COUNT(*) FILTER (WHERE rating = 3), COUNT(*) FILTER (WHERE rating = 4), COUNT(*) FILTER (WHERE rating = 5)
+FROM reviews
+WHERE is_deleted = false
+GROUP BY product_id
+ON CONFLICT (product_id) DO NOTHING;
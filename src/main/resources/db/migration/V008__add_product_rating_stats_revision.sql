@@ -0,0 +1,4 @@
+-- Revision of each rating histogram, bumped by every rating change, so the
+-- review summary cache never replaces a newer snapshot with an older one
+
+ALTER TABLE product_rating_stats ADD COLUMN IF NOT EXISTS revision BIGINT NOT NULL DEFAULT 0;
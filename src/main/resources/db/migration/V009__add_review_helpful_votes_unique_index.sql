@@ -0,0 +1,11 @@
+-- One helpful vote per user and review, enforced by the database so duplicate
+-- votes are rejected by INSERT ... ON CONFLICT instead of a pre-check query
+
+-- The old pre-check could race, so drop duplicates first and keep each user's earliest vote
+DELETE FROM review_helpful_votes later
+USING review_helpful_votes earlier
+WHERE later.review_id = earlier.review_id
+  AND later.user_id = earlier.user_id
+  AND (later.created_at, later.id) > (earlier.created_at, earlier.id);
+
+CREATE UNIQUE INDEX IF NOT EXISTS idx_review_helpful_votes_unique ON review_helpful_votes (review_id, user_id);
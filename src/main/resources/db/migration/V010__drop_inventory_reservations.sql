@@ -0,0 +1,10 @@
+-- Reservations now decrement product_variants.stock directly, so the write-behind
+-- journal is no longer written. Apply whatever it still holds, then drop it.
+-- Run once no instance of the previous version is left writing to the journal.
+
+WITH applied AS (DELETE FROM inventory_reservations RETURNING variant_id, quantity)
+UPDATE product_variants pv SET stock = pv.stock - a.quantity, updated_at = now()
+FROM (SELECT variant_id, SUM(quantity) AS quantity FROM applied GROUP BY variant_id) a
+WHERE pv.id = a.variant_id;
+
+DROP TABLE IF EXISTS inventory_reservations;
@@ -0,0 +1,8 @@
+-- Leases on order number node ids, so every running instance encodes its order
+-- numbers with a node id no other live instance holds
+
+CREATE TABLE IF NOT EXISTS order_number_node_leases (
+    node_id INTEGER PRIMARY KEY,
+    holder VARCHAR(255) NOT NULL,
+    expires_at TIMESTAMP NOT NULL
+);
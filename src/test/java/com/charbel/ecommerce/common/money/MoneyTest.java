@@ -0,0 +1,123 @@
+package com.charbel.ecommerce.common.money;
+
+import com.charbel.ecommerce.event.entity.Discount;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Checks the minor-unit arithmetic against the BigDecimal formulas it replaced,
+ * over a large seeded sample of random carts and discounts.
+ */
+class MoneyTest {
+
+    private static final int SAMPLES = 200_000;
+
+    private final Random random = new Random(20250115L);
+
+    @Test
+    void percentage_ShouldMatchBigDecimalHalfUp() {
+        for (int i = 0; i < SAMPLES; i++) {
+            BigDecimal amount = randomAmount(10_000_000);
+            BigDecimal percent = BigDecimal.valueOf(random.nextInt(10_001), 2);
+
+            BigDecimal expected = amount.multiply(percent).divide(new BigDecimal("100"), 2, RoundingMode.HALF_UP);
+            BigDecimal actual = Money.of(amount).percentage(Money.toMinorUnits(percent)).toBigDecimal();
+
+            assertThat(actual).as("%s%% of %s", percent, amount).isEqualByComparingTo(expected);
+        }
+    }
+
+    @Test
+    void dividedBy_ShouldMatchBigDecimalHalfUp() {
+        for (int i = 0; i < SAMPLES; i++) {
+            BigDecimal amount = randomAmount(10_000_000);
+            int quantity = 1 + random.nextInt(50);
+
+            BigDecimal expected = amount.divide(BigDecimal.valueOf(quantity), 2, RoundingMode.HALF_UP);
+            BigDecimal actual = Money.of(amount).dividedBy(quantity).toBigDecimal();
+
+            assertThat(actual).as("%s / %d", amount, quantity).isEqualByComparingTo(expected);
+        }
+    }
+
+    @Test
+    void dividedBy_ShouldRoundNegativeTiesAwayFromZero() {
+        assertThat(Money.ofMinor(-5).dividedBy(2)).isEqualTo(Money.ofMinor(-3));
+        assertThat(Money.ofMinor(5).dividedBy(2)).isEqualTo(Money.ofMinor(3));
+        assertThat(Money.ofMinor(-4).dividedBy(3)).isEqualTo(Money.ofMinor(-1));
+    }
+
+    @Test
+    void discountedLine_ShouldMatchPreviousBigDecimalPricing() {
+        for (int i = 0; i < SAMPLES; i++) {
+            Discount discount = randomDiscount();
+            BigDecimal unitPrice = randomAmount(100_000);
+            int quantity = 1 + random.nextInt(20);
+
+            BigDecimal itemTotal = unitPrice.multiply(BigDecimal.valueOf(quantity));
+            BigDecimal expectedDiscount = legacyDiscountAmount(discount, itemTotal);
+            BigDecimal expectedUnitPrice = itemTotal.subtract(expectedDiscount)
+                    .divide(BigDecimal.valueOf(quantity), 2, RoundingMode.HALF_UP);
+
+            Money total = Money.of(unitPrice).times(quantity);
+            Money actualDiscount = discount.calculateDiscountAmount(total);
+            Money actualUnitPrice = total.minus(actualDiscount).dividedBy(quantity);
+
+            assertThat(actualDiscount.toBigDecimal()).as("%s on %s", discount, itemTotal)
+                    .isEqualByComparingTo(expectedDiscount);
+            assertThat(actualUnitPrice.toBigDecimal()).isEqualByComparingTo(expectedUnitPrice);
+            assertThat(discount.calculateDiscountAmount(itemTotal)).isEqualByComparingTo(expectedDiscount);
+        }
+    }
+
+    @Test
+    void of_WithSubCentAmount_ShouldThrow() {
+        assertThatThrownBy(() -> Money.of(new BigDecimal("1.005"))).isInstanceOf(ArithmeticException.class);
+        assertThat(Money.of(new BigDecimal("1.50"))).isEqualTo(Money.ofMinor(150));
+        assertThat(Money.of(new BigDecimal("7"))).isEqualTo(Money.ofMinor(700));
+    }
+
+    @Test
+    void times_OnOverflow_ShouldThrow() {
+        assertThatThrownBy(() -> Money.ofMinor(Long.MAX_VALUE / 2).times(3)).isInstanceOf(ArithmeticException.class);
+    }
+
+    private Discount randomDiscount() {
+        boolean percentage = random.nextBoolean();
+        return Discount.builder()
+                .type(percentage ? Discount.DiscountType.PERCENTAGE : Discount.DiscountType.FIXED_AMOUNT)
+                .value(percentage ? BigDecimal.valueOf(random.nextInt(10_001), 2) : randomAmount(50_000))
+                .minPurchaseAmount(random.nextInt(3) == 0 ? randomAmount(500_000) : null)
+                .maxDiscountAmount(percentage && random.nextBoolean() ? randomAmount(100_000) : null)
+                .build();
+    }
+
+    private BigDecimal randomAmount(int maxMinorUnits) {
+        return BigDecimal.valueOf(random.nextInt(maxMinorUnits + 1), 2);
+    }
+
+    // The BigDecimal implementation Discount used before the minor-unit fast path
+    private static BigDecimal legacyDiscountAmount(Discount discount, BigDecimal totalAmount) {
+        if (discount.getMinPurchaseAmount() != null && totalAmount.compareTo(discount.getMinPurchaseAmount()) < 0) {
+            return BigDecimal.ZERO;
+        }
+
+        BigDecimal discountAmount;
+        if (discount.getType() == Discount.DiscountType.PERCENTAGE) {
+            discountAmount = totalAmount.multiply(discount.getValue()).divide(new BigDecimal("100"), 2, RoundingMode.HALF_UP);
+            if (discount.getMaxDiscountAmount() != null && discountAmount.compareTo(discount.getMaxDiscountAmount()) > 0) {
+                discountAmount = discount.getMaxDiscountAmount();
+            }
+        } else {
+            discountAmount = discount.getValue();
+        }
+
+        return discountAmount.min(totalAmount);
+    }
+}
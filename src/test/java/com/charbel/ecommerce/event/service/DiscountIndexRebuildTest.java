@@ -0,0 +1,118 @@
+package com.charbel.ecommerce.event.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.charbel.ecommerce.brand.entity.Brand;
+import com.charbel.ecommerce.brand.repository.BrandRepository;
+import com.charbel.ecommerce.category.entity.Category;
+import com.charbel.ecommerce.category.repository.CategoryRepository;
+import com.charbel.ecommerce.common.enums.GenderType;
+import com.charbel.ecommerce.event.entity.Discount;
+import com.charbel.ecommerce.event.entity.Event;
+import com.charbel.ecommerce.event.repository.DiscountRepository;
+import com.charbel.ecommerce.event.repository.EventRepository;
+import com.charbel.ecommerce.product.entity.Product;
+import com.charbel.ecommerce.product.repository.ProductRepository;
+
+@DataJpaTest
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Import(DiscountIndex.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("DiscountIndex rebuild Tests")
+class DiscountIndexRebuildTest {
+
+	@Container
+	static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15").withDatabaseName("testdb")
+			.withUsername("test").withPassword("test");
+
+	@DynamicPropertySource
+	static void configureProperties(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", postgres::getJdbcUrl);
+		registry.add("spring.datasource.username", postgres::getUsername);
+		registry.add("spring.datasource.password", postgres::getPassword);
+	}
+
+	@Autowired
+	private DiscountIndex discountIndex;
+
+	@Autowired
+	private EventRepository eventRepository;
+
+	@Autowired
+	private DiscountRepository discountRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private BrandRepository brandRepository;
+
+	@Autowired
+	private CategoryRepository categoryRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private Product product;
+	private Event event;
+
+	@BeforeEach
+	void setUp() {
+		discountRepository.deleteAll();
+		eventRepository.deleteAll();
+		productRepository.deleteAll();
+		brandRepository.deleteAll();
+		categoryRepository.deleteAll();
+
+		Brand brand = brandRepository.save(Brand.builder().name("Test Brand").slug("test-brand").build());
+		Category category = categoryRepository.save(Category.builder().name("Shirts").slug("shirts").build());
+		product = productRepository.save(Product.builder().name("Sale Shirt").basePrice(new BigDecimal("19.99"))
+				.brandId(brand.getId()).categoryId(category.getId()).gender(GenderType.UNISEX).build());
+		event = eventRepository.save(Event.builder().name("Summer Sale").imageUrl("https://cdn.example.com/sale.png")
+				.startDate(LocalDateTime.now().minusDays(1)).endDate(LocalDateTime.now().plusDays(1))
+				.status(Event.EventStatus.ACTIVE).products(Set.of(product)).build());
+		discountRepository.save(Discount.builder().eventId(event.getId()).type(Discount.DiscountType.PERCENTAGE)
+				.value(new BigDecimal("20.00")).build());
+		discountIndex.rebuild();
+	}
+
+	@Test
+	@DisplayName("Should drop discounts bulk soft-deleted in the committed transaction")
+	void shouldDropBulkSoftDeletedDiscountsAfterCommit() {
+		assertThat(discountIndex.findActiveDiscount(product.getId())).isPresent();
+
+		// Mirrors EventService.updateEvent with an empty discount list: the discounts are
+		// managed in this persistence context when the bulk JPQL update soft-deletes them
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			assertThat(eventRepository.findByIdWithDiscounts(event.getId()).orElseThrow().getDiscounts()).hasSize(1);
+			discountRepository.deleteByEventId(event.getId());
+			discountIndex.rebuildAfterCommit();
+		});
+
+		assertThat(discountIndex.findActiveDiscount(product.getId())).isEmpty();
+	}
+}
@@ -0,0 +1,136 @@
+package com.charbel.ecommerce.event.service;
+
+import com.charbel.ecommerce.event.entity.Discount;
+import com.charbel.ecommerce.event.entity.Event;
+import com.charbel.ecommerce.event.repository.EventRepository;
+import com.charbel.ecommerce.product.entity.Product;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DiscountIndexTest {
+
+    @Mock
+    private EventRepository eventRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private DiscountIndex discountIndex;
+
+    private final Product discounted = Product.builder().id(UUID.randomUUID()).name("Discounted").build();
+    private final Product upcoming = Product.builder().id(UUID.randomUUID()).name("Upcoming").build();
+    private final Product plain = Product.builder().id(UUID.randomUUID()).name("Plain").build();
+
+    @Test
+    void findDiscounts_ShouldOnlyReturnDiscountsOfRunningEvents() {
+        Event running = event("Running", LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1),
+                discounted, percentage("10.00"));
+        Event notStarted = event("Later", LocalDateTime.now().plusDays(2), LocalDateTime.now().plusDays(3),
+                upcoming, percentage("50.00"));
+        when(eventRepository.findCurrentAndUpcomingEventsWithDiscountsAndProducts(any()))
+                .thenReturn(List.of(running, notStarted));
+
+        Map<UUID, Discount> discounts = discountIndex
+                .findDiscounts(List.of(discounted.getId(), upcoming.getId(), plain.getId()));
+
+        assertThat(discounts).containsOnlyKeys(discounted.getId());
+        assertThat(discounts.get(discounted.getId()).getValue()).isEqualByComparingTo("10.00");
+        assertThat(discountIndex.findActiveDiscount(discounted.getId()))
+                .hasValueSatisfying(active -> assertThat(active.eventName()).isEqualTo("Running"));
+    }
+
+    @Test
+    void findDiscounts_ShouldServeRepeatedLookupsFromOneSnapshot() {
+        when(eventRepository.findCurrentAndUpcomingEventsWithDiscountsAndProducts(any()))
+                .thenReturn(List.of(event("Running", LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1),
+                        discounted, percentage("10.00"))));
+
+        for (int i = 0; i < 100; i++) {
+            discountIndex.findDiscounts(List.of(discounted.getId()));
+        }
+
+        verify(eventRepository, times(1)).findCurrentAndUpcomingEventsWithDiscountsAndProducts(any());
+    }
+
+    @Test
+    void rebuild_ShouldSkipSoftDeletedDiscounts() {
+        Discount deleted = percentage("30.00");
+        deleted.softDelete();
+        when(eventRepository.findCurrentAndUpcomingEventsWithDiscountsAndProducts(any()))
+                .thenReturn(List.of(event("Running", LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1),
+                        discounted, deleted)));
+
+        discountIndex.rebuild();
+
+        assertThat(discountIndex.findActiveDiscount(discounted.getId())).isEmpty();
+    }
+
+    @Test
+    void rebuildAfterCommit_OutsideTransaction_ShouldRebuildImmediately() {
+        when(eventRepository.findCurrentAndUpcomingEventsWithDiscountsAndProducts(any())).thenReturn(List.of());
+        discountIndex.rebuild();
+
+        when(eventRepository.findCurrentAndUpcomingEventsWithDiscountsAndProducts(any()))
+                .thenReturn(List.of(event("Running", LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1),
+                        discounted, percentage("15.00"))));
+        discountIndex.rebuildAfterCommit();
+
+        assertThat(discountIndex.findDiscounts(List.of(discounted.getId()))).containsKey(discounted.getId());
+    }
+
+    @Test
+    void rebuildAfterCommit_InTransaction_ShouldRebuildInFreshReadOnlyTransaction() {
+        when(eventRepository.findCurrentAndUpcomingEventsWithDiscountsAndProducts(any())).thenReturn(List.of());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            discountIndex.rebuildAfterCommit();
+            verifyNoInteractions(eventRepository);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        InOrder inOrder = inOrder(transactionManager, eventRepository);
+        inOrder.verify(transactionManager).getTransaction(definition.capture());
+        inOrder.verify(eventRepository).findCurrentAndUpcomingEventsWithDiscountsAndProducts(any());
+        inOrder.verify(transactionManager).commit(any());
+        assertThat(definition.getValue().getPropagationBehavior())
+                .isEqualTo(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        assertThat(definition.getValue().isReadOnly()).isTrue();
+    }
+
+    private Event event(String name, LocalDateTime start, LocalDateTime end, Product product, Discount discount) {
+        return Event.builder().id(UUID.randomUUID()).name(name).startDate(start).endDate(end)
+                .status(Event.EventStatus.ACTIVE).discounts(List.of(discount)).products(Set.of(product)).build();
+    }
+
+    private Discount percentage(String value) {
+        return Discount.builder().id(UUID.randomUUID()).type(Discount.DiscountType.PERCENTAGE)
+                .value(new BigDecimal(value)).build();
+    }
+}
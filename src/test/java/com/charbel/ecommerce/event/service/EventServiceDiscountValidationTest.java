@@ -6,6 +6,7 @@ import com.charbel.ecommerce.event.repository.DiscountRepository;
 import com.charbel.ecommerce.event.repository.EventRepository;
 import com.charbel.ecommerce.cdn.service.CdnService;
 import com.charbel.ecommerce.product.repository.ProductRepository;
+import com.charbel.ecommerce.product.service.CatalogCache;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -37,6 +38,12 @@ class EventServiceDiscountValidationTest {
     @Mock
     private CdnService cdnService;
 
+    @Mock
+    private DiscountIndex discountIndex;
+
+    @Mock
+    private CatalogCache catalogCache;
+
     @Mock
     private MultipartFile imageFile;
 
@@ -0,0 +1,76 @@
+package com.charbel.ecommerce.orders.pipeline;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PipelineStageTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<String> threads = new CopyOnWriteArrayList<>();
+
+    private PipelineStage<Integer> stage;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (stage != null) {
+            stage.shutdown(1_000);
+        }
+    }
+
+    @Test
+    void submit_WhenQueueIsFull_ShouldRunOnCallingThread() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        stage = new PipelineStage<>("test", 1, 1, item -> {
+            threads.add(Thread.currentThread().getName());
+            if (item == 1) {
+                started.countDown();
+                await(release);
+            }
+        }, meterRegistry);
+
+        stage.submit(1);
+        assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+        stage.submit(2);
+        assertThat(stage.getQueueDepth()).isEqualTo(1);
+        assertThat(meterRegistry.get("orders.pipeline.queue.depth").tag("stage", "test").gauge().value()).isEqualTo(1.0);
+
+        stage.submit(3);
+
+        assertThat(threads).contains(Thread.currentThread().getName());
+    }
+
+    @Test
+    void submit_ShouldRecordLatencyAndFailuresPerStage() {
+        stage = new PipelineStage<>("test", 1, 10, item -> {
+            if (item < 0) {
+                throw new IllegalStateException("boom");
+            }
+        }, meterRegistry);
+
+        stage.submit(1);
+        stage.submit(-1);
+        stage.shutdown(1_000);
+
+        assertThat(meterRegistry.get("orders.pipeline.stage.latency").tag("stage", "test").timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("orders.pipeline.stage.wait").tag("stage", "test").timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("orders.pipeline.stage.failures").tag("stage", "test").counter().count()).isEqualTo(1.0);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.charbel.ecommerce.orders.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+@DataJpaTest
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("OrderNumberNodeLeaseRepository Tests")
+class OrderNumberNodeLeaseRepositoryTest {
+
+	private static final int INSTANCES = 20;
+	private static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 15, 10, 0);
+
+	@Container
+	static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15").withDatabaseName("testdb")
+			.withUsername("test").withPassword("test");
+
+	@DynamicPropertySource
+	static void configureProperties(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", postgres::getJdbcUrl);
+		registry.add("spring.datasource.username", postgres::getUsername);
+		registry.add("spring.datasource.password", postgres::getPassword);
+	}
+
+	@Autowired
+	private OrderNumberNodeLeaseRepository leaseRepository;
+
+	@BeforeEach
+	void setUp() {
+		leaseRepository.deleteAll();
+	}
+
+	@Test
+	@DisplayName("Should give a node id to exactly one of many instances starting together")
+	void shouldLetOneInstanceClaimANodeId() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(INSTANCES);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Integer>> futures = new ArrayList<>();
+		for (int i = 0; i < INSTANCES; i++) {
+			String holder = "instance-" + i;
+			futures.add(executor.submit(() -> {
+				start.await();
+				return leaseRepository.tryClaim(0, holder, NOW, NOW.plusMinutes(10));
+			}));
+		}
+
+		start.countDown();
+		int claims = 0;
+		for (Future<Integer> future : futures) {
+			claims += future.get(30, TimeUnit.SECONDS);
+		}
+		executor.shutdown();
+
+		assertThat(claims).isEqualTo(1);
+		assertThat(leaseRepository.findLiveNodeIds(NOW)).containsExactly(0);
+	}
+
+	@Test
+	@DisplayName("Should hand over a node id only once its lease has expired")
+	void shouldTakeOverExpiredLeaseOnly() {
+		assertThat(leaseRepository.tryClaim(3, "old", NOW, NOW.plusMinutes(10))).isEqualTo(1);
+
+		assertThat(leaseRepository.tryClaim(3, "new", NOW.plusMinutes(5), NOW.plusMinutes(15))).isZero();
+		assertThat(leaseRepository.tryClaim(3, "new", NOW.plusMinutes(11), NOW.plusMinutes(21))).isEqualTo(1);
+
+		// The previous holder learns on renewal that it no longer owns the node id
+		assertThat(leaseRepository.renew(3, "old", NOW.plusMinutes(21))).isZero();
+		assertThat(leaseRepository.renew(3, "new", NOW.plusMinutes(22))).isEqualTo(1);
+		assertThat(leaseRepository.findLiveNodeIds(NOW.plusMinutes(21))).containsExactly(3);
+	}
+}
@@ -0,0 +1,211 @@
+package com.charbel.ecommerce.orders.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.charbel.ecommerce.address.entity.Address;
+import com.charbel.ecommerce.address.repository.AddressRepository;
+import com.charbel.ecommerce.brand.entity.Brand;
+import com.charbel.ecommerce.brand.repository.BrandRepository;
+import com.charbel.ecommerce.category.entity.Category;
+import com.charbel.ecommerce.category.repository.CategoryRepository;
+import com.charbel.ecommerce.common.enums.GenderType;
+import com.charbel.ecommerce.orders.service.OrderExportService;
+import com.charbel.ecommerce.product.entity.Product;
+import com.charbel.ecommerce.product.entity.ProductVariant;
+import com.charbel.ecommerce.product.repository.ProductRepository;
+import com.charbel.ecommerce.product.repository.ProductVariantRepository;
+import com.charbel.ecommerce.user.entity.User;
+import com.charbel.ecommerce.user.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Exports a seeded order history through the streaming cursor. The million-order
+ * export only runs with the benchmark profile; to check that heap stays flat, run
+ * it with a small heap, e.g.
+ * {@code mvn test -Pbenchmark -Dtest=OrderRepositoryExportTest -DargLine=-Xmx64m}.
+ */
+@DataJpaTest
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("OrderRepository streaming export Tests")
+class OrderRepositoryExportTest {
+
+	private static final int SEEDED_ORDERS = 1_000_000;
+
+	@Container
+	static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15").withDatabaseName("testdb")
+			.withUsername("test").withPassword("test");
+
+	@DynamicPropertySource
+	static void configureProperties(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", postgres::getJdbcUrl);
+		registry.add("spring.datasource.username", postgres::getUsername);
+		registry.add("spring.datasource.password", postgres::getPassword);
+		registry.add("spring.jpa.show-sql", () -> "false");
+	}
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private AddressRepository addressRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private ProductVariantRepository productVariantRepository;
+
+	@Autowired
+	private BrandRepository brandRepository;
+
+	@Autowired
+	private CategoryRepository categoryRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private OrderExportService orderExportService;
+	private UUID userId;
+	private UUID addressId;
+	private UUID variantId;
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate.update("DELETE FROM order_items");
+		jdbcTemplate.update("DELETE FROM orders");
+		addressRepository.deleteAll();
+		userRepository.deleteAll();
+		productVariantRepository.deleteAll();
+		productRepository.deleteAll();
+		brandRepository.deleteAll();
+		categoryRepository.deleteAll();
+
+		User user = userRepository.save(User.builder().email("finance@example.com").passwordHash("hash")
+				.firstName("Fin").lastName("Ance").build());
+		userId = user.getId();
+		addressId = addressRepository.save(Address.builder().user(user).street("1 Main St").city("Beirut")
+				.state("Beirut").zipCode("1100").country("Lebanon").build()).getId();
+
+		Brand brand = brandRepository.save(Brand.builder().name("Test Brand").slug("test-brand").build());
+		Category category = categoryRepository.save(Category.builder().name("Shirts").slug("shirts").build());
+		Product product = productRepository.save(Product.builder().name("Shirt, \"classic\"")
+				.basePrice(new BigDecimal("20.00")).brandId(brand.getId()).categoryId(category.getId())
+				.gender(GenderType.UNISEX).build());
+		variantId = productVariantRepository.save(ProductVariant.builder().product(product).sku("EXPORT-SKU")
+				.attributes(Map.of("color", "Red", "size", "M")).price(new BigDecimal("20.00")).stock(10).build())
+				.getId();
+
+		orderExportService = new OrderExportService(orderRepository, new ObjectMapper());
+	}
+
+	@Test
+	@DisplayName("Should write one escaped CSV line per order item")
+	void shouldExportCsvLines() {
+		seedOrders(2);
+		StringWriter writer = new StringWriter();
+
+		long lines = new TransactionTemplate(transactionManager)
+				.execute(status -> export(() -> orderExportService.exportCsv(writer)));
+
+		String[] output = writer.toString().split("\n");
+		assertThat(lines).isEqualTo(2);
+		assertThat(output).hasSize(3);
+		assertThat(output[0]).startsWith("order_number,order_id,created_at");
+		assertThat(output[1]).startsWith("ORD00000000000000002,").contains("EXPORT-SKU,\"Shirt, \"\"classic\"\"\",1,20.00");
+	}
+
+	@Test
+	@Tag("benchmark")
+	@DisplayName("Should stream a million orders as NDJSON without collecting them")
+	void shouldStreamMillionOrdersAsNdjson() {
+		seedOrders(SEEDED_ORDERS);
+		LineCountingWriter writer = new LineCountingWriter();
+
+		long orders = new TransactionTemplate(transactionManager)
+				.execute(status -> export(() -> orderExportService.exportNdjson(writer)));
+
+		assertThat(orders).isEqualTo(SEEDED_ORDERS);
+		assertThat(writer.lines).isEqualTo(SEEDED_ORDERS);
+	}
+
+	private void seedOrders(int count) {
+		jdbcTemplate.update("INSERT INTO orders (id, order_number, user_id, address_id, total_amount, original_amount, "
+				+ "discount_amount, delivery_fee, status, created_at, updated_at, is_deleted) "
+				+ "SELECT gen_random_uuid(), 'ORD' || lpad(g::text, 17, '0'), ?, ?, 25.00, 20.00, 0, 5.00, 'COMPLETED', "
+				+ "now() - g * interval '1 second', now(), false FROM generate_series(1, ?) g", userId, addressId, count);
+		jdbcTemplate.update("INSERT INTO order_items (id, order_id, variant_id, quantity, unit_price, created_at, "
+				+ "updated_at, is_deleted) SELECT gen_random_uuid(), o.id, ?, 1, 20.00, now(), now(), false FROM orders o",
+				variantId);
+	}
+
+	private long export(IoCall call) {
+		try {
+			return call.run();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	@FunctionalInterface
+	private interface IoCall {
+		long run() throws IOException;
+	}
+
+	/** Discards output and only counts lines, so the test itself holds no export data. */
+	private static final class LineCountingWriter extends Writer {
+
+		private long lines;
+
+		@Override
+		public void write(char[] buffer, int offset, int length) {
+			for (int i = offset; i < offset + length; i++) {
+				if (buffer[i] == '\n') {
+					lines++;
+				}
+			}
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void close() {
+		}
+	}
+}
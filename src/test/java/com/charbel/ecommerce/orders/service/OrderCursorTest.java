@@ -0,0 +1,39 @@
+package com.charbel.ecommerce.orders.service;
+
+import com.charbel.ecommerce.orders.entity.Order;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderCursorTest {
+
+    @Test
+    void encode_ShouldRoundTripCreatedAtAndId() {
+        Order order = Order.builder().id(UUID.randomUUID()).build();
+        order.setCreatedAt(LocalDateTime.of(2025, 1, 15, 10, 30, 45, 123456000));
+
+        OrderCursor decoded = OrderCursor.decode(OrderCursor.of(order).encode());
+
+        assertThat(decoded.createdAt()).isEqualTo(order.getCreatedAt());
+        assertThat(decoded.id()).isEqualTo(order.getId());
+    }
+
+    @Test
+    void encode_ShouldBeUrlSafe() {
+        String token = new OrderCursor(LocalDateTime.now(), UUID.randomUUID()).encode();
+
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void decode_WithMalformedToken_ShouldThrowIllegalArgumentException() {
+        assertThatThrownBy(() -> OrderCursor.decode("not a cursor!"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> OrderCursor.decode("bm8tc2VwYXJhdG9y"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
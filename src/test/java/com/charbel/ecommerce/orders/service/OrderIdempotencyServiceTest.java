@@ -0,0 +1,141 @@
+package com.charbel.ecommerce.orders.service;
+
+import com.charbel.ecommerce.orders.entity.OrderIdempotencyKey;
+import com.charbel.ecommerce.orders.repository.OrderIdempotencyKeyRepository;
+import com.charbel.ecommerce.orders.service.OrderIdempotencyService.Claim;
+import com.charbel.ecommerce.orders.service.OrderIdempotencyService.ClaimType;
+import com.charbel.ecommerce.orders.service.OrderIdempotencyService.StoredResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderIdempotencyServiceTest {
+
+    private static final String KEY = "customer@example.com:retry-1";
+    private static final StoredResponse CREATED = new StoredResponse(201, "application/json", "{\"orderNumber\":\"ORD1\"}");
+
+    @Mock
+    private OrderIdempotencyKeyRepository orderIdempotencyKeyRepository;
+
+    @InjectMocks
+    private OrderIdempotencyService orderIdempotencyService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(orderIdempotencyService, "ttlMillis", 86_400_000L);
+        ReflectionTestUtils.setField(orderIdempotencyService, "cacheTtlMillis", 600_000L);
+        ReflectionTestUtils.setField(orderIdempotencyService, "cacheSize", 100);
+        ReflectionTestUtils.setField(orderIdempotencyService, "waitTimeoutMillis", 5_000L);
+        ReflectionTestUtils.setField(orderIdempotencyService, "staleAfterMillis", 120_000L);
+    }
+
+    @Test
+    void claim_ConcurrentDuplicate_ShouldWaitForFirstResponse() throws Exception {
+        when(orderIdempotencyKeyRepository.tryClaim(eq(KEY), eq("hash"), any(), any(), any())).thenReturn(1);
+
+        Claim first = orderIdempotencyService.claim(KEY, "hash");
+        Claim duplicate = orderIdempotencyService.claim(KEY, "hash");
+
+        assertThat(first.type()).isEqualTo(ClaimType.ACQUIRED);
+        assertThat(duplicate.type()).isEqualTo(ClaimType.DUPLICATE);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Optional<StoredResponse>> waiting = executor.submit(() -> orderIdempotencyService.await(duplicate.response()));
+            orderIdempotencyService.complete(KEY, CREATED);
+
+            assertThat(waiting.get()).contains(CREATED);
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(orderIdempotencyKeyRepository).complete(eq(KEY), eq(201), eq("application/json"), eq(CREATED.body()), any());
+        verify(orderIdempotencyKeyRepository, times(1)).tryClaim(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void claim_AfterCompletion_ShouldReplayFromMemory() {
+        when(orderIdempotencyKeyRepository.tryClaim(eq(KEY), eq("hash"), any(), any(), any())).thenReturn(1);
+        orderIdempotencyService.claim(KEY, "hash");
+        orderIdempotencyService.complete(KEY, CREATED);
+
+        Claim retry = orderIdempotencyService.claim(KEY, "hash");
+
+        assertThat(retry.type()).isEqualTo(ClaimType.DUPLICATE);
+        assertThat(orderIdempotencyService.await(retry.response())).contains(CREATED);
+        verify(orderIdempotencyKeyRepository, never()).findById(any());
+    }
+
+    @Test
+    void claim_WithDifferentBody_ShouldReportMismatch() {
+        when(orderIdempotencyKeyRepository.tryClaim(eq(KEY), eq("hash"), any(), any(), any())).thenReturn(1);
+        orderIdempotencyService.claim(KEY, "hash");
+
+        assertThat(orderIdempotencyService.claim(KEY, "other-hash").type()).isEqualTo(ClaimType.MISMATCH);
+    }
+
+    @Test
+    void claim_CompletedBeforeRestart_ShouldReplayStoredResponse() {
+        when(orderIdempotencyKeyRepository.tryClaim(eq(KEY), eq("hash"), any(), any(), any())).thenReturn(0);
+        when(orderIdempotencyKeyRepository.findById(KEY)).thenReturn(Optional.of(OrderIdempotencyKey.builder()
+                .key(KEY).requestHash("hash").status(OrderIdempotencyKey.Status.COMPLETED)
+                .responseStatus(201).responseContentType("application/json").responseBody(CREATED.body()).build()));
+
+        Claim claim = orderIdempotencyService.claim(KEY, "hash");
+
+        assertThat(claim.type()).isEqualTo(ClaimType.DUPLICATE);
+        assertThat(orderIdempotencyService.await(claim.response())).contains(CREATED);
+    }
+
+    @Test
+    void claim_InProgressOnAnotherInstance_ShouldReportInProgress() {
+        when(orderIdempotencyKeyRepository.tryClaim(eq(KEY), eq("hash"), any(), any(), any())).thenReturn(0);
+        when(orderIdempotencyKeyRepository.findById(KEY)).thenReturn(Optional.of(OrderIdempotencyKey.builder()
+                .key(KEY).requestHash("hash").status(OrderIdempotencyKey.Status.IN_PROGRESS).build()));
+
+        assertThat(orderIdempotencyService.claim(KEY, "hash").type()).isEqualTo(ClaimType.IN_PROGRESS);
+    }
+
+    @Test
+    void complete_WithFailedResponse_ShouldReleaseKeyForRetry() {
+        when(orderIdempotencyKeyRepository.tryClaim(eq(KEY), eq("hash"), any(), any(), any())).thenReturn(1);
+        orderIdempotencyService.claim(KEY, "hash");
+        CompletableFuture<StoredResponse> waiting = orderIdempotencyService.claim(KEY, "hash").response();
+
+        StoredResponse outOfStock = new StoredResponse(400, "application/json", "{\"message\":\"Insufficient stock\"}");
+        orderIdempotencyService.complete(KEY, outOfStock);
+
+        assertThat(waiting).isCompletedWithValue(outOfStock);
+        assertThat(orderIdempotencyService.claim(KEY, "hash").type()).isEqualTo(ClaimType.ACQUIRED);
+        verify(orderIdempotencyKeyRepository).release(KEY);
+        verify(orderIdempotencyKeyRepository, never()).complete(anyString(), anyInt(), any(), any(), any());
+    }
+
+    @Test
+    void release_ShouldUnblockWaitersWithoutResponse() {
+        when(orderIdempotencyKeyRepository.tryClaim(eq(KEY), eq("hash"), any(), any(), any())).thenReturn(1);
+        orderIdempotencyService.claim(KEY, "hash");
+        CompletableFuture<StoredResponse> waiting = orderIdempotencyService.claim(KEY, "hash").response();
+
+        orderIdempotencyService.release(KEY);
+
+        assertThat(orderIdempotencyService.await(waiting)).isEmpty();
+    }
+}
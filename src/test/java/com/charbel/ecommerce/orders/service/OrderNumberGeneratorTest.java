@@ -0,0 +1,181 @@
+package com.charbel.ecommerce.orders.service;
+
+import com.charbel.ecommerce.orders.repository.OrderNumberNodeLeaseRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class OrderNumberGeneratorTest {
+
+    private static final Clock FIXED_CLOCK = Clock.fixed(Instant.parse("2025-01-15T10:15:30Z"), ZoneOffset.UTC);
+
+    @Test
+    void next_ShouldKeepPrefixDateAndColumnLength() {
+        OrderNumberGenerator generator = new OrderNumberGenerator(7, FIXED_CLOCK);
+
+        String orderNumber = generator.next();
+
+        assertThat(orderNumber).startsWith("ORD20250115").hasSize(20).matches("ORD\\d{8}[0-9A-Z]{9}");
+    }
+
+    @Test
+    void next_WithFrozenClock_ShouldStayUniquePastPerSecondCounter() {
+        OrderNumberGenerator generator = new OrderNumberGenerator(1, FIXED_CLOCK);
+        Set<String> seen = new HashSet<>();
+
+        // More than one second's worth of counter values forces borrowing the next second
+        for (int i = 0; i < 600_000; i++) {
+            assertThat(seen.add(generator.next())).isTrue();
+        }
+    }
+
+    @Test
+    void next_FromDifferentNodes_ShouldNeverCollide() {
+        OrderNumberGenerator first = new OrderNumberGenerator(1, FIXED_CLOCK);
+        OrderNumberGenerator second = new OrderNumberGenerator(2, FIXED_CLOCK);
+        Set<String> seen = new HashSet<>();
+
+        for (int i = 0; i < 100_000; i++) {
+            assertThat(seen.add(first.next())).isTrue();
+            assertThat(seen.add(second.next())).isTrue();
+        }
+    }
+
+    @Test
+    void next_FromManyThreads_ShouldBeUnique() throws Exception {
+        OrderNumberGenerator generator = new OrderNumberGenerator(3, Clock.systemUTC());
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 25_000; i++) {
+                    seen.add(generator.next());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertThat(seen).hasSize(200_000);
+    }
+
+    @Test
+    void constructor_WithOutOfRangeNodeId_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> new OrderNumberGenerator(1024, FIXED_CLOCK));
+    }
+
+    @Test
+    void constructor_WithoutConfiguredNodeId_ShouldLeaseFirstFreeNodeId() {
+        OrderNumberNodeLeaseRepository leaseRepository = mock(OrderNumberNodeLeaseRepository.class);
+        when(leaseRepository.findLiveNodeIds(any())).thenReturn(List.of(0, 1));
+        // Node 2 looked free but another instance claimed it first
+        when(leaseRepository.tryClaim(eq(2), anyString(), any(), any())).thenReturn(0);
+        when(leaseRepository.tryClaim(eq(3), anyString(), any(), any())).thenReturn(1);
+
+        OrderNumberGenerator generator = new OrderNumberGenerator(-1, leaseRepository, Duration.ofMinutes(10),
+                FIXED_CLOCK);
+
+        assertThat(generator.nodeId()).isEqualTo(3);
+        verify(leaseRepository, never()).tryClaim(eq(0), anyString(), any(), any());
+        verify(leaseRepository, never()).tryClaim(eq(1), anyString(), any(), any());
+    }
+
+    @Test
+    void renewLease_WhenLeaseWasTakenOver_ShouldClaimAnotherNodeId() {
+        OrderNumberNodeLeaseRepository leaseRepository = mock(OrderNumberNodeLeaseRepository.class);
+        when(leaseRepository.findLiveNodeIds(any())).thenReturn(List.of()).thenReturn(List.of(0));
+        when(leaseRepository.tryClaim(anyInt(), anyString(), any(), any())).thenReturn(1);
+        when(leaseRepository.renew(eq(0), anyString(), any())).thenReturn(0);
+        OrderNumberGenerator generator = new OrderNumberGenerator(-1, leaseRepository, Duration.ofMinutes(10),
+                FIXED_CLOCK);
+
+        generator.renewLease();
+
+        assertThat(generator.nodeId()).isEqualTo(1);
+    }
+
+    @Test
+    void next_WhenLeaseIsPastHalfItsTtl_ShouldRenewBeforeIssuing() {
+        OrderNumberNodeLeaseRepository leaseRepository = mock(OrderNumberNodeLeaseRepository.class);
+        when(leaseRepository.findLiveNodeIds(any())).thenReturn(List.of());
+        when(leaseRepository.tryClaim(anyInt(), anyString(), any(), any())).thenReturn(1);
+        when(leaseRepository.renew(eq(0), anyString(), any())).thenReturn(1);
+        MutableClock clock = new MutableClock(FIXED_CLOCK.instant());
+        OrderNumberGenerator generator = new OrderNumberGenerator(-1, leaseRepository, Duration.ofMinutes(10), clock);
+
+        generator.next();
+        verify(leaseRepository, never()).renew(anyInt(), anyString(), any());
+
+        clock.advance(Duration.ofMinutes(5));
+        generator.next();
+
+        verify(leaseRepository).renew(eq(0), anyString(), eq(LocalDateTime.of(2025, 1, 15, 10, 30, 30)));
+    }
+
+    @Test
+    void constructor_WithConfiguredNodeId_ShouldNotLease() {
+        OrderNumberNodeLeaseRepository leaseRepository = mock(OrderNumberNodeLeaseRepository.class);
+
+        OrderNumberGenerator generator = new OrderNumberGenerator(5, leaseRepository, Duration.ofMinutes(10),
+                FIXED_CLOCK);
+        generator.next();
+        generator.renewLease();
+        generator.releaseLease();
+
+        assertThat(generator.nodeId()).isEqualTo(5);
+        verifyNoInteractions(leaseRepository);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
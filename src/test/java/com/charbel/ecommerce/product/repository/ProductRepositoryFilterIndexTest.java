@@ -0,0 +1,224 @@
+package com.charbel.ecommerce.product.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.charbel.ecommerce.brand.entity.Brand;
+import com.charbel.ecommerce.brand.repository.BrandRepository;
+import com.charbel.ecommerce.category.entity.Category;
+import com.charbel.ecommerce.category.repository.CategoryRepository;
+import com.charbel.ecommerce.common.enums.GenderType;
+import com.charbel.ecommerce.product.entity.Product;
+import com.charbel.ecommerce.product.entity.ProductVariant;
+
+/**
+ * Checks the id-first listing queries: color and size filters against the normalized
+ * variant attributes, offset and keyset paging in listing order, and that on a seeded
+ * catalog of a million variants the filters are answered from the indexes of
+ * {@code V005__add_variant_attribute_indexes.sql}. The million-variant check is a
+ * benchmark, run it with {@code mvn test -Pbenchmark -Dtest=ProductRepositoryFilterIndexTest}.
+ */
+@DataJpaTest
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("ProductRepository listing query Tests")
+class ProductRepositoryFilterIndexTest {
+
+	private static final int SEEDED_PRODUCTS = 50_000;
+	private static final int VARIANTS_PER_PRODUCT = 20;
+
+	// The subquery Hibernate renders for the color and size filters of findFilteredProductIdsByCategoryId
+	private static final String FILTER_QUERY = "SELECT p.id FROM products p WHERE p.category_id = ? AND EXISTS ("
+			+ "SELECT 1 FROM product_variants pv WHERE pv.product_id = p.id "
+			+ "AND UPPER(pv.attributes ->> 'color') IN ('COLOR-7') AND UPPER(pv.attributes ->> 'size') IN ('SIZE-3'))";
+
+	@Container
+	static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15").withDatabaseName("testdb")
+			.withUsername("test").withPassword("test");
+
+	@DynamicPropertySource
+	static void configureProperties(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", postgres::getJdbcUrl);
+		registry.add("spring.datasource.username", postgres::getUsername);
+		registry.add("spring.datasource.password", postgres::getPassword);
+		registry.add("spring.jpa.show-sql", () -> "false");
+	}
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private ProductVariantRepository productVariantRepository;
+
+	@Autowired
+	private BrandRepository brandRepository;
+
+	@Autowired
+	private CategoryRepository categoryRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private DataSource dataSource;
+
+	private UUID brandId;
+	private UUID categoryId;
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate.update("DROP INDEX IF EXISTS idx_product_variants_color");
+		jdbcTemplate.update("DROP INDEX IF EXISTS idx_product_variants_size");
+		jdbcTemplate.update("DROP INDEX IF EXISTS idx_product_variants_product");
+		productVariantRepository.deleteAll();
+		productRepository.deleteAll();
+		brandRepository.deleteAll();
+		categoryRepository.deleteAll();
+
+		brandId = brandRepository.save(Brand.builder().name("Test Brand").slug("test-brand").build()).getId();
+		categoryId = categoryRepository.save(Category.builder().name("Shirts").slug("shirts").build()).getId();
+	}
+
+	@Test
+	@DisplayName("Should match color and size case-insensitively on the same variant")
+	void shouldMatchColorAndSizeOnSameVariant() {
+		Product mixed = saveProduct("Mixed Shirt");
+		saveVariant(mixed, "MIXED-RED-M", "Red", "M");
+		saveVariant(mixed, "MIXED-BLUE-L", "Blue", "L");
+		Product redLarge = saveProduct("Red Large Shirt");
+		saveVariant(redLarge, "RED-L", "red", "l");
+
+		Page<UUID> page = productRepository.findFilteredProductIdsByCategoryId(categoryId, null, null,
+				List.of("RED"), List.of("L"), null, PageRequest.of(0, 20));
+
+		assertThat(page.getContent()).containsExactly(redLarge.getId());
+	}
+
+	@Test
+	@DisplayName("Should page product ids in listing order with a separate count")
+	void shouldPageProductIdsInListingOrder() {
+		List<UUID> byPrice = new ArrayList<>();
+		for (int i = 5; i >= 1; i--) {
+			Product product = productRepository.save(Product.builder().name("Shirt " + i)
+					.basePrice(new BigDecimal(i * 10)).brandId(brandId).categoryId(categoryId)
+					.gender(GenderType.UNISEX).build());
+			saveVariant(product, "SHIRT-" + i + "-A", "Red", "M");
+			saveVariant(product, "SHIRT-" + i + "-B", "Blue", "L");
+			byPrice.add(0, product.getId());
+		}
+
+		Page<UUID> page = productRepository.findFilteredProductIdsByCategoryIdWithSort(categoryId, null, null, null,
+				null, null, "PRICE_LOW_TO_HIGH", PageRequest.of(1, 2));
+
+		assertThat(page.getContent()).containsExactlyElementsOf(byPrice.subList(2, 4));
+		assertThat(page.getTotalElements()).isEqualTo(5);
+		assertThat(productRepository.findAllWithDetailsByIdIn(page.getContent()))
+				.allSatisfy(product -> assertThat(product.getVariants()).hasSize(2));
+	}
+
+	@Test
+	@DisplayName("Should walk keyset pages in the order of the sorted listing")
+	void shouldWalkKeysetPagesInListingOrder() {
+		for (int i = 0; i < 12; i++) {
+			// Repeated prices and ratings, and some unrated products, exercise the id tie-break
+			productRepository.save(Product.builder().name("Shirt " + i).basePrice(new BigDecimal(10 + i % 3))
+					.averageRating(i % 4 == 0 ? null : new BigDecimal("4.5")).reviewCount((long) (i % 2))
+					.brandId(brandId).categoryId(categoryId).gender(GenderType.UNISEX).build());
+		}
+		List<UUID> listing = productRepository.findProductIdsByCategoryIdWithSort(categoryId, "REVIEWS",
+				PageRequest.of(0, 100)).getContent();
+
+		List<UUID> walked = new ArrayList<>();
+		BigDecimal rating = BigDecimal.valueOf(11);
+		long reviewCount = Long.MAX_VALUE;
+		UUID id = new UUID(0, 0);
+		List<UUID> page;
+		do {
+			page = productRepository.findProductIdsByReviewsAfter(rating, reviewCount, id, PageRequest.of(0, 5));
+			walked.addAll(page);
+			if (!page.isEmpty()) {
+				Product last = productRepository.findById(page.get(page.size() - 1)).orElseThrow();
+				rating = last.getAverageRating() != null ? last.getAverageRating() : BigDecimal.TEN;
+				reviewCount = last.getReviewCount();
+				id = last.getId();
+			}
+		} while (page.size() == 5);
+
+		assertThat(walked).hasSize(12).containsExactlyElementsOf(listing);
+	}
+
+	@Test
+	@Tag("benchmark")
+	@DisplayName("Should filter a million variants through the attribute indexes")
+	void shouldUseAttributeIndexesOnMillionVariants() {
+		seedCatalog();
+		assertThat(explain(FILTER_QUERY)).contains("Seq Scan on product_variants");
+
+		new ResourceDatabasePopulator(new ClassPathResource("db/migration/V005__add_variant_attribute_indexes.sql"))
+				.execute(dataSource);
+		jdbcTemplate.execute("ANALYZE product_variants");
+
+		String plan = explain(FILTER_QUERY);
+		assertThat(plan).contains("idx_product_variants_").doesNotContain("Seq Scan on product_variants");
+		assertThat(jdbcTemplate.queryForList(FILTER_QUERY, UUID.class, categoryId)).isNotEmpty();
+	}
+
+	private void seedCatalog() {
+		jdbcTemplate.update("INSERT INTO products (id, name, base_price, brand_id, category_id, gender, status, "
+				+ "review_count, created_at, updated_at, is_deleted) "
+				+ "SELECT gen_random_uuid(), 'Product ' || g, 20.00, ?, ?, 'UNISEX', 'ACTIVE', 0, now(), now(), false "
+				+ "FROM generate_series(1, ?) g", brandId, categoryId, SEEDED_PRODUCTS);
+		jdbcTemplate.update("INSERT INTO product_variants (id, product_id, sku, attributes, price, stock, created_at, "
+				+ "updated_at, is_deleted) "
+				+ "SELECT gen_random_uuid(), p.id, p.id || '-' || v, "
+				+ "jsonb_build_object('color', 'color-' || (random() * 40)::int, 'size', 'size-' || (random() * 8)::int), "
+				+ "20.00, 10, now(), now(), false "
+				+ "FROM products p CROSS JOIN generate_series(1, ?) v", VARIANTS_PER_PRODUCT);
+		jdbcTemplate.execute("ANALYZE products");
+		jdbcTemplate.execute("ANALYZE product_variants");
+	}
+
+	private String explain(String query) {
+		return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + query, String.class, categoryId));
+	}
+
+	private Product saveProduct(String name) {
+		return productRepository.save(Product.builder().name(name).basePrice(new BigDecimal("19.99")).brandId(brandId)
+				.categoryId(categoryId).gender(GenderType.UNISEX).build());
+	}
+
+	private void saveVariant(Product product, String sku, String color, String size) {
+		productVariantRepository.save(ProductVariant.builder().product(product).sku(sku)
+				.attributes(Map.of("color", color, "size", size)).price(new BigDecimal("19.99")).stock(5).build());
+	}
+}
@@ -0,0 +1,145 @@
+package com.charbel.ecommerce.product.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.charbel.ecommerce.brand.entity.Brand;
+import com.charbel.ecommerce.brand.repository.BrandRepository;
+import com.charbel.ecommerce.category.entity.Category;
+import com.charbel.ecommerce.category.repository.CategoryRepository;
+import com.charbel.ecommerce.common.enums.GenderType;
+import com.charbel.ecommerce.product.entity.Product;
+import com.charbel.ecommerce.product.entity.ProductVariant;
+
+@DataJpaTest
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("ProductVariantRepository stock reservation Tests")
+class ProductVariantRepositoryConcurrencyTest {
+
+	private static final int INITIAL_STOCK = 50;
+	private static final int BUYERS = 200;
+
+	@Container
+	static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15").withDatabaseName("testdb")
+			.withUsername("test").withPassword("test");
+
+	@DynamicPropertySource
+	static void configureProperties(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", postgres::getJdbcUrl);
+		registry.add("spring.datasource.username", postgres::getUsername);
+		registry.add("spring.datasource.password", postgres::getPassword);
+	}
+
+	@Autowired
+	private ProductVariantRepository productVariantRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private BrandRepository brandRepository;
+
+	@Autowired
+	private CategoryRepository categoryRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private UUID hotVariantId;
+	private UUID coldVariantId;
+
+	@BeforeEach
+	void setUp() {
+		productVariantRepository.deleteAll();
+		productRepository.deleteAll();
+		brandRepository.deleteAll();
+		categoryRepository.deleteAll();
+
+		Brand brand = brandRepository.save(Brand.builder().name("Test Brand").slug("test-brand").build());
+		Category category = categoryRepository.save(Category.builder().name("Shirts").slug("shirts").build());
+
+		Product product = productRepository.save(Product.builder().name("Flash Sale Shirt")
+				.basePrice(new BigDecimal("19.99")).brandId(brand.getId()).categoryId(category.getId())
+				.gender(GenderType.UNISEX).build());
+
+		hotVariantId = productVariantRepository.save(ProductVariant.builder().product(product).sku("HOT-SKU")
+				.attributes(Map.of("color", "Red", "size", "M")).price(new BigDecimal("19.99")).stock(INITIAL_STOCK)
+				.build()).getId();
+		coldVariantId = productVariantRepository.save(ProductVariant.builder().product(product).sku("COLD-SKU")
+				.attributes(Map.of("color", "Blue", "size", "M")).price(new BigDecimal("19.99")).stock(1).build())
+				.getId();
+	}
+
+	@Test
+	@DisplayName("Should never oversell a hot SKU under concurrent reservations")
+	void shouldNotOversellUnderConcurrentReservations() throws Exception {
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+		ExecutorService executor = Executors.newFixedThreadPool(32);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Boolean>> results = new ArrayList<>();
+
+		for (int i = 0; i < BUYERS; i++) {
+			results.add(executor.submit(() -> {
+				start.await();
+				return transactionTemplate.execute(status -> productVariantRepository
+						.decrementStockIfAvailable(Map.of(hotVariantId, 1)).get(hotVariantId));
+			}));
+		}
+
+		start.countDown();
+		int successes = 0;
+		for (Future<Boolean> result : results) {
+			if (Boolean.TRUE.equals(result.get(30, TimeUnit.SECONDS))) {
+				successes++;
+			}
+		}
+		executor.shutdown();
+
+		assertThat(successes).isEqualTo(INITIAL_STOCK);
+		assertThat(productVariantRepository.findById(hotVariantId).orElseThrow().getStock()).isZero();
+	}
+
+	@Test
+	@DisplayName("Should report per-variant failure when one line item lacks stock")
+	void shouldReportPerVariantResult() {
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+		Map<UUID, Boolean> result = transactionTemplate.execute(
+				status -> productVariantRepository.decrementStockIfAvailable(Map.of(hotVariantId, 5, coldVariantId, 2)));
+
+		assertThat(result).containsEntry(hotVariantId, true).containsEntry(coldVariantId, false);
+		assertThat(productVariantRepository.findById(hotVariantId).orElseThrow().getStock())
+				.isEqualTo(INITIAL_STOCK - 5);
+		assertThat(productVariantRepository.findById(coldVariantId).orElseThrow().getStock()).isEqualTo(1);
+	}
+}
@@ -0,0 +1,188 @@
+package com.charbel.ecommerce.product.service;
+
+import com.charbel.ecommerce.common.enums.ProductSortType;
+import com.charbel.ecommerce.event.entity.Discount;
+import com.charbel.ecommerce.event.service.DiscountIndex;
+import com.charbel.ecommerce.event.service.DiscountIndex.ActiveDiscount;
+import com.charbel.ecommerce.product.dto.DiscountInfo;
+import com.charbel.ecommerce.product.dto.ProductFilterRequest;
+import com.charbel.ecommerce.product.dto.ProductResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogCacheTest {
+
+    private static final UUID CATEGORY_ID = UUID.randomUUID();
+    private static final UUID BRAND_ID = UUID.randomUUID();
+
+    @Mock
+    private DiscountIndex discountIndex;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CatalogCache catalogCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        catalogCache = new CatalogCache(discountIndex, meterRegistry, 60_000L, 3);
+        lenient().when(discountIndex.findActiveDiscount(any())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void get_EquivalentFilters_ShouldShareEntry() {
+        CountingLoader loader = new CountingLoader(page(product(BRAND_ID)));
+
+        catalogCache.get(categoryKey(List.of("red", "Blue"), "49.90"), loader);
+        Page<ProductResponse> second = catalogCache.get(categoryKey(List.of("BLUE", "RED"), "49.9"), loader);
+
+        assertThat(loader.calls.get()).isEqualTo(1);
+        assertThat(second).isSameAs(loader.page);
+        assertThat(requests("hit")).isEqualTo(1.0);
+        assertThat(requests("miss")).isEqualTo(1.0);
+    }
+
+    @Test
+    void invalidateProduct_ShouldDropItsCategoryAndPagesShowingIt() {
+        ProductResponse product = product(BRAND_ID);
+        UUID otherCategoryId = UUID.randomUUID();
+        CatalogCache.Key category = categoryKey(null, null);
+        CatalogCache.Key brand = CatalogCache.Key.brand("acme", PageRequest.of(0, 20));
+        CatalogCache.Key otherCategory = CatalogCache.Key.category(otherCategoryId, ProductSortType.DEFAULT, null,
+                PageRequest.of(0, 20));
+        catalogCache.get(category, () -> page(product(BRAND_ID)));
+        catalogCache.get(brand, () -> page(product));
+        catalogCache.get(otherCategory, () -> page(product(UUID.randomUUID())));
+
+        catalogCache.invalidateProductAfterCommit(product.getId(), CATEGORY_ID, BRAND_ID);
+
+        assertThat(catalogCache.size()).isEqualTo(1);
+        CountingLoader loader = new CountingLoader(page());
+        catalogCache.get(otherCategory, loader);
+        assertThat(loader.calls.get()).isZero();
+        assertThat(evictions("invalidated")).isEqualTo(2.0);
+    }
+
+    @Test
+    void invalidateProduct_ShouldDropEmptyBrandListings() {
+        catalogCache.get(CatalogCache.Key.brand("new-brand", PageRequest.of(0, 20)), this::page);
+
+        catalogCache.invalidateProductAfterCommit(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+
+        assertThat(catalogCache.size()).isZero();
+    }
+
+    @Test
+    void invalidateBrand_ShouldDropListingsFilteredBySlug() {
+        ProductFilterRequest byBrand = ProductFilterRequest.builder().brandSlugs(List.of("acme")).build();
+        catalogCache.get(CatalogCache.Key.category(CATEGORY_ID, null, byBrand, PageRequest.of(0, 20)), this::page);
+        catalogCache.get(CatalogCache.Key.brand("other", PageRequest.of(0, 20)), () -> page(product(UUID.randomUUID())));
+
+        catalogCache.invalidateBrandAfterCommit(BRAND_ID, List.of("acme"));
+
+        assertThat(catalogCache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void get_WhenDiscountStarted_ShouldReload() {
+        ProductResponse product = product(BRAND_ID);
+        catalogCache.get(categoryKey(null, null), () -> page(product));
+
+        Discount discount = Discount.builder().id(UUID.randomUUID()).build();
+        when(discountIndex.findActiveDiscount(product.getId())).thenReturn(Optional.of(new ActiveDiscount(
+                UUID.randomUUID(), "Sale", LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1), discount)));
+        ProductResponse discounted = ProductResponse.builder().id(product.getId()).brandId(BRAND_ID)
+                .discount(DiscountInfo.builder().discountId(discount.getId()).build()).build();
+        CountingLoader loader = new CountingLoader(page(discounted));
+
+        catalogCache.get(categoryKey(null, null), loader);
+        Page<ProductResponse> cached = catalogCache.get(categoryKey(null, null), loader);
+
+        assertThat(loader.calls.get()).isEqualTo(1);
+        assertThat(cached.getContent()).containsExactly(discounted);
+    }
+
+    @Test
+    void get_BeyondMaxEntries_ShouldEvictLeastRecentlyUsed() {
+        CatalogCache.Key first = CatalogCache.Key.brand("a", PageRequest.of(0, 20));
+        catalogCache.get(first, this::page);
+        catalogCache.get(CatalogCache.Key.brand("b", PageRequest.of(0, 20)), this::page);
+        catalogCache.get(CatalogCache.Key.brand("c", PageRequest.of(0, 20)), this::page);
+        catalogCache.get(first, this::page);
+
+        catalogCache.get(CatalogCache.Key.brand("d", PageRequest.of(0, 20)), this::page);
+
+        CountingLoader loader = new CountingLoader(page());
+        catalogCache.get(first, loader);
+        assertThat(loader.calls.get()).isZero();
+        assertThat(evictions("size")).isEqualTo(1.0);
+    }
+
+    @Test
+    void get_WhenInvalidatedWhileLoading_ShouldNotCacheResult() {
+        ProductResponse product = product(BRAND_ID);
+        catalogCache.get(categoryKey(null, null), () -> {
+            catalogCache.invalidateProductAfterCommit(product.getId(), CATEGORY_ID, BRAND_ID);
+            return page(product);
+        });
+
+        assertThat(catalogCache.size()).isZero();
+    }
+
+    private CatalogCache.Key categoryKey(List<String> colors, String minPrice) {
+        ProductFilterRequest filter = ProductFilterRequest.builder().colors(colors)
+                .minPrice(minPrice != null ? new BigDecimal(minPrice) : null).build();
+        return CatalogCache.Key.category(CATEGORY_ID, ProductSortType.DEFAULT, filter, PageRequest.of(0, 20));
+    }
+
+    private Page<ProductResponse> page(ProductResponse... products) {
+        return new PageImpl<>(List.of(products), PageRequest.of(0, 20), products.length);
+    }
+
+    private static ProductResponse product(UUID brandId) {
+        return ProductResponse.builder().id(UUID.randomUUID()).brandId(brandId).build();
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("catalog.cache.requests").tag("result", result).counter().count();
+    }
+
+    private double evictions(String cause) {
+        return meterRegistry.get("catalog.cache.evictions").tag("cause", cause).counter().count();
+    }
+
+    private static final class CountingLoader implements Supplier<Page<ProductResponse>> {
+
+        private final Page<ProductResponse> page;
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private CountingLoader(Page<ProductResponse> page) {
+            this.page = page;
+        }
+
+        @Override
+        public Page<ProductResponse> get() {
+            calls.incrementAndGet();
+            return page;
+        }
+    }
+}
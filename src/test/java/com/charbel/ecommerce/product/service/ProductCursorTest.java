@@ -0,0 +1,73 @@
+package com.charbel.ecommerce.product.service;
+
+import com.charbel.ecommerce.common.enums.ProductSortType;
+import com.charbel.ecommerce.product.entity.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductCursorTest {
+
+    @Test
+    void encode_ShouldRoundTripSortKeysAndId() {
+        Product product = Product.builder().id(UUID.randomUUID()).basePrice(new BigDecimal("49.90"))
+                .averageRating(new BigDecimal("4.5")).reviewCount(12L).build();
+        product.setCreatedAt(LocalDateTime.of(2025, 1, 15, 10, 30, 45, 123456000));
+
+        ProductCursor cursor = ProductCursor.of(ProductSortType.REVIEWS, product);
+        ProductCursor decoded = ProductCursor.decode(cursor.encode(), ProductSortType.REVIEWS);
+
+        assertThat(decoded).isEqualTo(cursor);
+        assertThat(decoded.basePrice()).isEqualTo(product.getBasePrice());
+        assertThat(decoded.rating()).isEqualTo(product.getAverageRating());
+        assertThat(decoded.reviewCount()).isEqualTo(12L);
+        assertThat(decoded.createdAt()).isEqualTo(product.getCreatedAt());
+        assertThat(decoded.id()).isEqualTo(product.getId());
+    }
+
+    @Test
+    void encode_ShouldBeUrlSafe() {
+        String token = ProductCursor.start(ProductSortType.NEWEST).encode();
+
+        assertThat(token).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    void compareTo_ShouldPutUnratedProductsFirstAndBreakTiesById() {
+        UUID lowId = new UUID(0, 1);
+        UUID highId = new UUID(-1, 0);
+        ProductCursor unrated = cursor(ProductSortType.REVIEWS, null, 0L, highId);
+        ProductCursor rated = cursor(ProductSortType.REVIEWS, new BigDecimal("4.0"), 3L, lowId);
+        ProductCursor ratedTie = cursor(ProductSortType.REVIEWS, new BigDecimal("4.0"), 3L, highId);
+
+        assertThat(ProductCursor.start(ProductSortType.REVIEWS)).isLessThan(unrated);
+        assertThat(unrated).isLessThan(rated);
+        // Ids compare unsigned, as in Postgres
+        assertThat(rated).isLessThan(ratedTie);
+    }
+
+    @Test
+    void decode_WithOtherSortType_ShouldThrowIllegalArgumentException() {
+        String token = ProductCursor.start(ProductSortType.PRICE_LOW_TO_HIGH).encode();
+
+        assertThatThrownBy(() -> ProductCursor.decode(token, ProductSortType.PRICE_HIGH_TO_LOW))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void decode_WithMalformedToken_ShouldThrowIllegalArgumentException() {
+        assertThatThrownBy(() -> ProductCursor.decode("not a cursor!", ProductSortType.DEFAULT))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> ProductCursor.decode("bm8tc2VwYXJhdG9y", ProductSortType.DEFAULT))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static ProductCursor cursor(ProductSortType sortType, BigDecimal rating, long reviewCount, UUID id) {
+        return new ProductCursor(sortType, BigDecimal.TEN, rating, reviewCount, LocalDateTime.now(), id);
+    }
+}
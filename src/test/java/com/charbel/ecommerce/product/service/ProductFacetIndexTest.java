@@ -0,0 +1,295 @@
+package com.charbel.ecommerce.product.service;
+
+import com.charbel.ecommerce.common.enums.ProductSortType;
+import com.charbel.ecommerce.product.repository.ProductRepository;
+import com.charbel.ecommerce.product.service.ProductFacetIndex.FacetCounts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductFacetIndexTest {
+
+    private static final UUID CATEGORY_ID = UUID.randomUUID();
+    private static final String[] BRANDS = {"acme", "globex", "initech", "umbrella"};
+    private static final String[] COLORS = {"RED", "BLUE", "GREEN", "BLACK", "WHITE"};
+    private static final String[] SIZES = {"XS", "S", "M", "L", "XL"};
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @InjectMocks
+    private ProductFacetIndex productFacetIndex;
+
+    private final Random random = new Random(42);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(productFacetIndex, "cachedCounts", 500);
+        ReflectionTestUtils.setField(productFacetIndex, "maxCategories", 1000);
+        ReflectionTestUtils.setField(productFacetIndex, "idleTimeoutMillis", 3_600_000L);
+    }
+
+    @Test
+    void findProductIds_ShouldMatchFilteredScan() {
+        List<Object[]> rows = randomRows(300);
+        when(productRepository.findFacetRowsByCategoryId(CATEGORY_ID)).thenReturn(rows);
+
+        for (int i = 0; i < 200; i++) {
+            ListingFilters filters = randomFilters();
+            ProductSortType sortType = ProductSortType.values()[random.nextInt(ProductSortType.values().length)];
+            List<UUID> expected = scan(rows, filters, sortType);
+            PageRequest pageable = PageRequest.of(random.nextInt(3), 1 + random.nextInt(40));
+
+            Page<UUID> page = productFacetIndex.findProductIds(CATEGORY_ID, sortType, filters, pageable);
+
+            assertThat(page.getTotalElements()).as("total for %s", filters).isEqualTo(expected.size());
+            assertThat(page.getContent()).as("page for %s sorted %s", filters, sortType)
+                    .isEqualTo(expected.stream().skip(pageable.getOffset()).limit(pageable.getPageSize())
+                            .collect(Collectors.toList()));
+        }
+        verify(productRepository, times(1)).findFacetRowsByCategoryId(CATEGORY_ID);
+    }
+
+    @Test
+    void findProductIdsAfter_ShouldWalkFilteredScanPageByPage() {
+        List<Object[]> rows = randomRows(300);
+        when(productRepository.findFacetRowsByCategoryId(CATEGORY_ID)).thenReturn(rows);
+        Map<UUID, Object[]> rowsById = rows.stream()
+                .collect(Collectors.toMap(row -> (UUID) row[0], row -> row, (first, second) -> first));
+
+        for (int i = 0; i < 50; i++) {
+            ListingFilters filters = randomFilters();
+            ProductSortType sortType = ProductSortType.values()[random.nextInt(ProductSortType.values().length)];
+            int size = 1 + random.nextInt(40);
+
+            List<UUID> walked = new ArrayList<>();
+            ProductCursor cursor = ProductCursor.start(sortType);
+            List<UUID> page;
+            do {
+                page = productFacetIndex.findProductIdsAfter(CATEGORY_ID, filters, cursor, size);
+                walked.addAll(page);
+                if (!page.isEmpty()) {
+                    Object[] last = rowsById.get(page.get(page.size() - 1));
+                    cursor = new ProductCursor(sortType, (BigDecimal) last[2], (BigDecimal) last[3], (Long) last[4],
+                            (LocalDateTime) last[5], (UUID) last[0]);
+                }
+            } while (page.size() == size);
+
+            assertThat(walked).as("walk of %s sorted %s", filters, sortType).isEqualTo(scan(rows, filters, sortType));
+        }
+    }
+
+    @Test
+    void countFacets_ShouldCountEachValueUnderTheOtherFilters() {
+        List<Object[]> rows = randomRows(300);
+        when(productRepository.findFacetRowsByCategoryId(CATEGORY_ID)).thenReturn(rows);
+
+        for (int i = 0; i < 100; i++) {
+            ListingFilters filters = randomFilters();
+
+            FacetCounts counts = productFacetIndex.countFacets(CATEGORY_ID, filters);
+
+            assertThat(counts.total()).isEqualTo(scan(rows, filters, ProductSortType.DEFAULT).size());
+            for (String color : COLORS) {
+                ListingFilters selected = new ListingFilters(filters.minPrice(), filters.maxPrice(), List.of(color),
+                        filters.sizes(), filters.brandSlugs());
+                assertThat(counts.colors().getOrDefault(color, 0L)).as("color %s under %s", color, filters)
+                        .isEqualTo(scan(rows, selected, ProductSortType.DEFAULT).size());
+            }
+            for (String size : SIZES) {
+                ListingFilters selected = new ListingFilters(filters.minPrice(), filters.maxPrice(), filters.colors(),
+                        List.of(size), filters.brandSlugs());
+                assertThat(counts.sizes().getOrDefault(size, 0L)).as("size %s under %s", size, filters)
+                        .isEqualTo(scan(rows, selected, ProductSortType.DEFAULT).size());
+            }
+            for (String brand : BRANDS) {
+                ListingFilters selected = new ListingFilters(filters.minPrice(), filters.maxPrice(), filters.colors(),
+                        filters.sizes(), List.of(brand));
+                assertThat(counts.brands().getOrDefault(brand, 0L)).as("brand %s under %s", brand, filters)
+                        .isEqualTo(scan(rows, selected, ProductSortType.DEFAULT).size());
+            }
+        }
+    }
+
+    @Test
+    void countFacets_ShouldCacheBySignatureUntilReload() {
+        when(productRepository.findFacetRowsByCategoryId(CATEGORY_ID)).thenReturn(randomRows(50));
+        ListingFilters filters = new ListingFilters(null, null, List.of("BLUE", "RED"), null, null);
+
+        FacetCounts first = productFacetIndex.countFacets(CATEGORY_ID, filters);
+        FacetCounts second = productFacetIndex.countFacets(CATEGORY_ID,
+                new ListingFilters(null, null, List.of("BLUE", "RED"), null, null));
+        productFacetIndex.refreshCategoryAfterCommit(CATEGORY_ID);
+        FacetCounts reloaded = productFacetIndex.countFacets(CATEGORY_ID, filters);
+
+        assertThat(second).isSameAs(first);
+        assertThat(reloaded).isNotSameAs(first).isEqualTo(first);
+    }
+
+    @Test
+    void refreshCategoryAfterCommit_ShouldReloadCategory() {
+        List<Object[]> rows = randomRows(50);
+        List<Object[]> refreshed = new ArrayList<>(rows.subList(0, 20));
+        when(productRepository.findFacetRowsByCategoryId(CATEGORY_ID)).thenReturn(rows, refreshed);
+        productFacetIndex.findProductIds(CATEGORY_ID, ProductSortType.DEFAULT, null, PageRequest.of(0, 100));
+
+        productFacetIndex.refreshCategoryAfterCommit(CATEGORY_ID);
+
+        assertThat(productFacetIndex.findProductIds(CATEGORY_ID, ProductSortType.DEFAULT, null, PageRequest.of(0, 100))
+                .getContent()).isEqualTo(scan(refreshed, null, ProductSortType.DEFAULT));
+    }
+
+    @Test
+    void findProductIds_UnknownCategory_ShouldNotBeKeptOrRefreshed() {
+        UUID unknownCategoryId = UUID.randomUUID();
+        when(productRepository.findFacetRowsByCategoryId(unknownCategoryId)).thenReturn(List.of());
+
+        for (int i = 0; i < 2; i++) {
+            assertThat(productFacetIndex.findProductIds(unknownCategoryId, ProductSortType.DEFAULT, null,
+                    PageRequest.of(0, 20)).getTotalElements()).isZero();
+        }
+        productFacetIndex.refreshLoadedCategories();
+
+        verify(productRepository, times(2)).findFacetRowsByCategoryId(unknownCategoryId);
+    }
+
+    @Test
+    void refreshLoadedCategories_ShouldDropIdleCategoriesInsteadOfReloading() throws InterruptedException {
+        when(productRepository.findFacetRowsByCategoryId(CATEGORY_ID)).thenReturn(randomRows(20));
+        ReflectionTestUtils.setField(productFacetIndex, "idleTimeoutMillis", 0L);
+        productFacetIndex.findProductIds(CATEGORY_ID, ProductSortType.DEFAULT, null, PageRequest.of(0, 20));
+        Thread.sleep(5);
+
+        productFacetIndex.refreshLoadedCategories();
+        productFacetIndex.refreshLoadedCategories();
+        verify(productRepository, times(1)).findFacetRowsByCategoryId(CATEGORY_ID);
+
+        // Listing it again loads it again
+        productFacetIndex.findProductIds(CATEGORY_ID, ProductSortType.DEFAULT, null, PageRequest.of(0, 20));
+        verify(productRepository, times(2)).findFacetRowsByCategoryId(CATEGORY_ID);
+    }
+
+    @Test
+    void findProductIds_PastMaxCategories_ShouldDropLeastRecentlyListedCategory() throws InterruptedException {
+        UUID secondCategoryId = UUID.randomUUID();
+        UUID thirdCategoryId = UUID.randomUUID();
+        when(productRepository.findFacetRowsByCategoryId(any())).thenReturn(randomRows(20));
+        ReflectionTestUtils.setField(productFacetIndex, "maxCategories", 2);
+
+        for (UUID categoryId : List.of(CATEGORY_ID, secondCategoryId, CATEGORY_ID, thirdCategoryId)) {
+            productFacetIndex.findProductIds(categoryId, ProductSortType.DEFAULT, null, PageRequest.of(0, 20));
+            Thread.sleep(2);
+        }
+        productFacetIndex.findProductIds(CATEGORY_ID, ProductSortType.DEFAULT, null, PageRequest.of(0, 20));
+        productFacetIndex.findProductIds(secondCategoryId, ProductSortType.DEFAULT, null, PageRequest.of(0, 20));
+
+        verify(productRepository, times(1)).findFacetRowsByCategoryId(CATEGORY_ID);
+        verify(productRepository, times(2)).findFacetRowsByCategoryId(secondCategoryId);
+    }
+
+    // The listing query, row by row
+    private static List<UUID> scan(List<Object[]> rows, ListingFilters filters, ProductSortType sortType) {
+        Map<UUID, Object[]> matching = new TreeMap<>(ProductFacetIndexTest::compareUnsigned);
+        for (Object[] row : rows) {
+            if (matches(row, filters)) {
+                matching.putIfAbsent((UUID) row[0], row);
+            }
+        }
+        Comparator<Object[]> order = switch (sortType) {
+            case PRICE_HIGH_TO_LOW -> Comparator.comparing((Object[] row) -> (BigDecimal) row[2]).reversed();
+            case PRICE_LOW_TO_HIGH -> Comparator.comparing((Object[] row) -> (BigDecimal) row[2]);
+            case REVIEWS -> Comparator.comparing((Object[] row) -> (BigDecimal) row[3],
+                            Comparator.nullsFirst(Comparator.<BigDecimal>reverseOrder()))
+                    .thenComparing((Object[] row) -> (Long) row[4], Comparator.reverseOrder());
+            case NEWEST -> Comparator.comparing((Object[] row) -> (LocalDateTime) row[5]).reversed();
+            default -> (first, second) -> 0;
+        };
+        return matching.values().stream().sorted(order).map(row -> (UUID) row[0]).collect(Collectors.toList());
+    }
+
+    private static boolean matches(Object[] row, ListingFilters filters) {
+        if (filters == null) {
+            return true;
+        }
+        BigDecimal price = (BigDecimal) row[6];
+        return (filters.brandSlugs() == null || filters.brandSlugs().contains((String) row[1]))
+                && (filters.minPrice() == null || (price != null && price.compareTo(filters.minPrice()) >= 0))
+                && (filters.maxPrice() == null || (price != null && price.compareTo(filters.maxPrice()) <= 0))
+                && (filters.colors() == null || (row[7] != null && filters.colors().contains((String) row[7])))
+                && (filters.sizes() == null || (row[8] != null && filters.sizes().contains((String) row[8])));
+    }
+
+    private static int compareUnsigned(UUID first, UUID second) {
+        int result = Long.compareUnsigned(first.getMostSignificantBits(), second.getMostSignificantBits());
+        return result != 0 ? result
+                : Long.compareUnsigned(first.getLeastSignificantBits(), second.getLeastSignificantBits());
+    }
+
+    private ListingFilters randomFilters() {
+        BigDecimal minPrice = random.nextInt(3) == 0 ? price() : null;
+        BigDecimal maxPrice = random.nextInt(3) == 0 ? price() : null;
+        return new ListingFilters(minPrice, maxPrice, randomSubset(COLORS), randomSubset(SIZES),
+                random.nextInt(3) == 0 ? randomSubset(BRANDS) : null);
+    }
+
+    private List<String> randomSubset(String[] values) {
+        if (random.nextBoolean()) {
+            return null;
+        }
+        List<String> subset = new ArrayList<>();
+        for (String value : values) {
+            if (random.nextInt(3) == 0) {
+                subset.add(value);
+            }
+        }
+        return subset.isEmpty() ? null : subset;
+    }
+
+    private List<Object[]> randomRows(int productCount) {
+        List<Object[]> rows = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int p = 0; p < productCount; p++) {
+            UUID productId = UUID.randomUUID();
+            String brand = BRANDS[random.nextInt(BRANDS.length)];
+            // Few distinct values, so the id tie-break is exercised
+            BigDecimal basePrice = BigDecimal.valueOf(10 + random.nextInt(5) * 10L);
+            BigDecimal averageRating = random.nextInt(4) == 0 ? null : BigDecimal.valueOf(random.nextInt(3) + 3);
+            Long reviewCount = (long) random.nextInt(3);
+            LocalDateTime createdAt = now.minusDays(random.nextInt(10));
+            int variants = 1 + random.nextInt(4);
+            for (int v = 0; v < variants; v++) {
+                rows.add(new Object[]{productId, brand, basePrice, averageRating, reviewCount, createdAt,
+                        random.nextInt(10) == 0 ? null : price(),
+                        random.nextInt(8) == 0 ? null : COLORS[random.nextInt(COLORS.length)],
+                        random.nextInt(8) == 0 ? null : SIZES[random.nextInt(SIZES.length)]});
+            }
+        }
+        return rows;
+    }
+
+    private BigDecimal price() {
+        return BigDecimal.valueOf(500 + random.nextInt(20_000), 2);
+    }
+}
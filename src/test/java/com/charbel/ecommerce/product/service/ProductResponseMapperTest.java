@@ -0,0 +1,83 @@
+package com.charbel.ecommerce.product.service;
+
+import com.charbel.ecommerce.event.service.DiscountIndex;
+import com.charbel.ecommerce.product.dto.ProductResponse;
+import com.charbel.ecommerce.product.entity.Product;
+import com.charbel.ecommerce.product.entity.ProductImage;
+import com.charbel.ecommerce.product.entity.ProductVariant;
+import com.charbel.ecommerce.product.repository.ProductImageRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductResponseMapperTest {
+
+    @Mock
+    private ProductImageRepository productImageRepository;
+
+    @Mock
+    private DiscountIndex discountIndex;
+
+    @InjectMocks
+    private ProductResponseMapper productResponseMapper;
+
+    @Test
+    void mapAll_ShouldLoadImagesForWholePageWithTwoQueries() {
+        List<Product> products = new ArrayList<>();
+        List<ProductImage> productImages = new ArrayList<>();
+        List<ProductImage> variantImages = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Product product = Product.builder().id(UUID.randomUUID()).name("Product " + i)
+                    .basePrice(new BigDecimal("10.00")).build();
+            List<ProductVariant> variants = new ArrayList<>();
+            for (int j = 0; j < 5; j++) {
+                ProductVariant variant = ProductVariant.builder().id(UUID.randomUUID()).product(product)
+                        .sku("SKU-" + i + "-" + j).price(new BigDecimal("10.00")).stock(1).build();
+                variants.add(variant);
+                variantImages.add(image(product.getId(), variant.getId(), "variant-" + i + "-" + j + ".jpg"));
+            }
+            product.setVariants(variants);
+            products.add(product);
+            productImages.add(image(product.getId(), null, "product-" + i + ".jpg"));
+        }
+        when(productImageRepository.findByProductIdInAndVariantIdIsNull(any())).thenReturn(productImages);
+        when(productImageRepository.findByVariantIdIn(any())).thenReturn(variantImages);
+        when(discountIndex.findActiveDiscount(any())).thenReturn(Optional.empty());
+
+        List<ProductResponse> responses = productResponseMapper.mapAll(products);
+
+        assertThat(responses).hasSize(20);
+        assertThat(responses.get(7).getId()).isEqualTo(products.get(7).getId());
+        assertThat(responses.get(7).getImageUrls()).containsExactly("product-7.jpg");
+        assertThat(responses.get(7).getVariants()).hasSize(5);
+        assertThat(responses.get(7).getVariants().get(3).getImageUrls()).containsExactly("variant-7-3.jpg");
+        verify(productImageRepository, times(1)).findByProductIdInAndVariantIdIsNull(any());
+        verify(productImageRepository, times(1)).findByVariantIdIn(any());
+        verifyNoMoreInteractions(productImageRepository);
+    }
+
+    @Test
+    void mapAll_WithEmptyPage_ShouldNotQuery() {
+        assertThat(productResponseMapper.mapAll(List.<Product>of())).isEmpty();
+
+        verifyNoInteractions(productImageRepository);
+    }
+
+    private ProductImage image(UUID productId, UUID variantId, String url) {
+        return ProductImage.builder().id(UUID.randomUUID()).productId(productId).variantId(variantId).imageUrl(url)
+                .build();
+    }
+}
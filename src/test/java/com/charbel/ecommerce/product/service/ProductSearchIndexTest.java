@@ -0,0 +1,249 @@
+package com.charbel.ecommerce.product.service;
+
+import com.charbel.ecommerce.product.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSearchIndexTest {
+
+    private static final String[] WORDS = {"cotton", "coat", "collar", "linen", "shirt", "shorts", "denim",
+            "jacket", "jeans", "wool", "sweater", "summer", "winter", "slim", "loose", "navy", "black"};
+    private static final String[] BRANDS = {"Acme", "Globex", "Initech"};
+    private static final String[] CATEGORIES = {"Shirts", "Jackets", "Trousers"};
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @InjectMocks
+    private ProductSearchIndex productSearchIndex;
+
+    private final Random random = new Random(42);
+    // Words are drawn uniformly from WORDS, or by Zipf's law once a generated vocabulary is set
+    private String[] vocabulary = WORDS;
+    private double[] cumulativeWeights;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(productSearchIndex, "maxDelta", 5000);
+    }
+
+    @Test
+    void search_ShouldRankNameMatchesAboveDescriptionMatches() {
+        Object[] inDescription = row("Plain Tee", "A shirt in soft linen", "Acme", "Tops", null);
+        Object[] inName = row("Linen Shirt", "Lightweight and breathable", "Acme", "Tops", null);
+        Object[] unrelated = row("Wool Coat", "Warm and heavy", "Acme", "Coats", null);
+        when(productRepository.findSearchDocuments()).thenReturn(List.of(inDescription, inName, unrelated));
+        productSearchIndex.rebuild();
+
+        Page<UUID> page = productSearchIndex.search("linen shirt", PageRequest.of(0, 10));
+
+        assertThat(page.getContent()).containsExactly((UUID) inName[0], (UUID) inDescription[0]);
+        assertThat(page.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    void search_ShouldMatchPrefixesAcrossFieldsIgnoringCaseAndAccents() {
+        Object[] product = row("Cr\u00e8me Blazer", "Tailored fit", "Maison \u00c9toile", "Jackets",
+                Map.of("material", "wool", "colors", List.of("Ivory", "Navy")));
+        when(productRepository.findSearchDocuments()).thenReturn(List.<Object[]>of(product));
+        productSearchIndex.rebuild();
+
+        UUID productId = (UUID) product[0];
+        assertThat(productSearchIndex.search("CREME", PageRequest.of(0, 10)).getContent()).containsExactly(productId);
+        assertThat(productSearchIndex.search("etoile blaz", PageRequest.of(0, 10)).getContent())
+                .containsExactly(productId);
+        assertThat(productSearchIndex.search("navy wool jack", PageRequest.of(0, 10)).getContent())
+                .containsExactly(productId);
+        assertThat(productSearchIndex.search("navy linen", PageRequest.of(0, 10)).getContent()).isEmpty();
+        // Single letters only match exactly
+        assertThat(productSearchIndex.search("c", PageRequest.of(0, 10)).getContent()).isEmpty();
+        assertThat(productSearchIndex.search("  ", PageRequest.of(0, 10)).getContent()).isEmpty();
+    }
+
+    @Test
+    void search_ShouldMatchEveryTermLikeAFullScanAndPageByRank() {
+        List<Object[]> rows = randomRows(500);
+        when(productRepository.findSearchDocuments()).thenReturn(rows);
+        productSearchIndex.rebuild();
+
+        for (int i = 0; i < 100; i++) {
+            String query = randomQuery();
+            Set<UUID> expected = scan(rows, query);
+
+            Page<UUID> all = productSearchIndex.search(query, PageRequest.of(0, 1000));
+            Page<UUID> second = productSearchIndex.search(query, PageRequest.of(1, 7));
+
+            assertThat(new HashSet<>(all.getContent())).as("matches for '%s'", query).isEqualTo(expected);
+            assertThat(all.getTotalElements()).isEqualTo(expected.size());
+            assertThat(second.getContent()).as("second page for '%s'", query)
+                    .isEqualTo(all.getContent().subList(Math.min(7, expected.size()), Math.min(14, expected.size())));
+        }
+    }
+
+    @Test
+    void search_PrefixOfHundredsOfTerms_ShouldMatchEveryProductCarryingOne() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            // 200 distinct terms sharing the prefix "co": coaa, coab, ... cohr
+            String term = "co" + (char) ('a' + i / 26) + (char) ('a' + i % 26);
+            rows.add(row(term + " Shirt", null, "Acme", i % 2 == 0 ? "Shirts" : "Jackets", null));
+        }
+        when(productRepository.findSearchDocuments()).thenReturn(rows);
+        productSearchIndex.rebuild();
+
+        assertThat(productSearchIndex.search("co", PageRequest.of(0, 20)).getTotalElements()).isEqualTo(200);
+        for (String query : List.of("co", "shirt co", "jackets co", "coh")) {
+            Page<UUID> all = productSearchIndex.search(query, PageRequest.of(0, 1000));
+            assertThat(new HashSet<>(all.getContent())).as("matches for '%s'", query).isEqualTo(scan(rows, query));
+            assertThat(all.getTotalElements()).isEqualTo(scan(rows, query).size());
+        }
+    }
+
+    @Test
+    void applyPendingRefreshes_ShouldReindexChangedAndDropRemovedProducts() {
+        Object[] renamed = row("Denim Jacket", null, "Acme", "Jackets", null);
+        Object[] removed = row("Denim Jeans", null, "Acme", "Trousers", null);
+        Object[] untouched = row("Denim Shirt", null, "Acme", "Shirts", null);
+        when(productRepository.findSearchDocuments()).thenReturn(List.of(renamed, removed, untouched));
+        productSearchIndex.rebuild();
+
+        Object[] renamedNow = row("Suede Jacket", null, "Acme", "Jackets", null);
+        renamedNow[0] = renamed[0];
+        Object[] created = row("Denim Shorts", null, "Acme", "Trousers", null);
+        when(productRepository.findSearchDocumentsByIdIn(any())).thenReturn(List.of(renamedNow, created));
+        productSearchIndex.refreshAfterCommit((UUID) renamed[0]);
+        productSearchIndex.refreshAfterCommit((UUID) removed[0]);
+        productSearchIndex.refreshAfterCommit((UUID) created[0]);
+        productSearchIndex.applyPendingRefreshes();
+
+        assertThat(productSearchIndex.search("denim", PageRequest.of(0, 10)).getContent())
+                .containsExactlyInAnyOrder((UUID) untouched[0], (UUID) created[0]);
+        assertThat(productSearchIndex.search("suede", PageRequest.of(0, 10)).getContent())
+                .containsExactly((UUID) renamed[0]);
+        verify(productRepository, times(1)).findSearchDocuments();
+    }
+
+    // Measures wall-clock latency, so it only runs with -Pbenchmark
+    @Test
+    @Tag("benchmark")
+    void search_On200kProducts_ShouldAnswerWithinTenMillisecondsAtP99() {
+        useZipfVocabulary(20_000);
+        List<Object[]> rows = randomRows(200_000);
+        when(productRepository.findSearchDocuments()).thenReturn(rows);
+        productSearchIndex.rebuild();
+        List<String> queries = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            queries.add(randomQuery());
+        }
+        // Warm up like a benchmark harness would, so the measured round runs compiled code
+        for (int round = 0; round < 5; round++) {
+            for (String query : queries) {
+                productSearchIndex.search(query, PageRequest.of(0, 20));
+            }
+        }
+
+        long[] nanos = new long[queries.size()];
+        for (int i = 0; i < queries.size(); i++) {
+            long startedAt = System.nanoTime();
+            productSearchIndex.search(queries.get(i), PageRequest.of(0, 20));
+            nanos[i] = System.nanoTime() - startedAt;
+        }
+        Arrays.sort(nanos);
+
+        assertThat(nanos[nanos.length * 99 / 100] / 1_000_000.0).as("p99 in ms").isLessThan(10.0);
+    }
+
+    // Every query term equals or prefixes a term of the product; single letters only match exactly
+    private static Set<UUID> scan(List<Object[]> rows, String query) {
+        List<String> terms = ProductSearchIndex.tokenize(query);
+        Set<UUID> matches = new HashSet<>();
+        for (Object[] row : rows) {
+            List<String> tokens = ProductSearchIndex.tokenize(row[1] + " " + row[2] + " " + row[3] + " " + row[4]);
+            boolean all = terms.stream().allMatch(term -> tokens.stream()
+                    .anyMatch(token -> token.equals(term) || (term.length() >= 2 && token.startsWith(term))));
+            if (all) {
+                matches.add((UUID) row[0]);
+            }
+        }
+        return matches;
+    }
+
+    private String randomQuery() {
+        int terms = 1 + random.nextInt(3);
+        List<String> words = new ArrayList<>();
+        for (int t = 0; t < terms; t++) {
+            String word = word();
+            words.add(random.nextInt(3) == 0 ? word.substring(0, 2 + random.nextInt(word.length() - 1)) : word);
+        }
+        return String.join(" ", words);
+    }
+
+    private List<Object[]> randomRows(int productCount) {
+        List<Object[]> rows = new ArrayList<>(productCount);
+        for (int p = 0; p < productCount; p++) {
+            rows.add(row(words(2 + random.nextInt(2)), words(6 + random.nextInt(10)),
+                    BRANDS[random.nextInt(BRANDS.length)], CATEGORIES[random.nextInt(CATEGORIES.length)], null));
+        }
+        return rows;
+    }
+
+    private String words(int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            text.append(word()).append(i % 5 == 4 ? ". " : " ");
+        }
+        return text.toString();
+    }
+
+    private String word() {
+        if (cumulativeWeights == null) {
+            return vocabulary[random.nextInt(vocabulary.length)];
+        }
+        double target = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+        int index = Arrays.binarySearch(cumulativeWeights, target);
+        return vocabulary[index >= 0 ? index : -index - 1];
+    }
+
+    // Like a real catalog, a few words are everywhere and most are rare
+    private void useZipfVocabulary(int size) {
+        vocabulary = new String[size];
+        cumulativeWeights = new double[size];
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            StringBuilder word = new StringBuilder();
+            for (int length = 3 + random.nextInt(7); length > 0; length--) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            vocabulary[i] = word.toString();
+            total += 1.0 / (i + 1);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    private static Object[] row(String name, String description, String brand, String category,
+            Map<String, Object> metadata) {
+        return new Object[]{UUID.randomUUID(), name, description, brand, category, metadata};
+    }
+}
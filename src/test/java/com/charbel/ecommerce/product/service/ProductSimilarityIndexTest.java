@@ -0,0 +1,181 @@
+package com.charbel.ecommerce.product.service;
+
+import com.charbel.ecommerce.common.enums.GenderType;
+import com.charbel.ecommerce.product.repository.ProductRepository;
+import com.charbel.ecommerce.product.service.ProductSimilarityIndex.Neighbor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSimilarityIndexTest {
+
+    private static final int NEIGHBORS = 10;
+    private static final String[] MATERIALS = {"cotton", "wool", "denim", "leather", "linen"};
+    private static final String[] SEASONS = {"SPRING", "SUMMER", "FALL", "WINTER", "ALL_SEASON"};
+    private static final String[] OCCASIONS = {"CASUAL", "SPORT", "FORMAL", "BUSINESS", "PARTY"};
+    private static final String[] FITS = {"slim", "regular", "loose"};
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @InjectMocks
+    private ProductSimilarityIndex productSimilarityIndex;
+
+    private final Random random = new Random(42);
+    private final List<UUID> categoryIds = new ArrayList<>();
+    private final Map<UUID, UUID> parentIds = new HashMap<>();
+    private final List<UUID> brandIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(productSimilarityIndex, "neighborCount", NEIGHBORS);
+        ReflectionTestUtils.setField(productSimilarityIndex, "parallelism", 2);
+
+        List<UUID> roots = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        categoryIds.addAll(roots);
+        for (int i = 0; i < 12; i++) {
+            UUID categoryId = UUID.randomUUID();
+            categoryIds.add(categoryId);
+            parentIds.put(categoryId, roots.get(i % roots.size()));
+        }
+        for (int i = 0; i < 8; i++) {
+            brandIds.add(UUID.randomUUID());
+        }
+    }
+
+    @Test
+    void findSimilar_AfterRebuild_ShouldMatchFullScan() {
+        Map<UUID, Object[]> catalog = randomCatalog(400);
+        when(productRepository.findSimilarityProfiles()).thenReturn(new ArrayList<>(catalog.values()));
+
+        productSimilarityIndex.rebuild();
+
+        assertMatchesFullScan(catalog, NEIGHBORS);
+    }
+
+    @Test
+    void findSimilar_AfterIncrementalRefresh_ShouldMatchFullScan() {
+        Map<UUID, Object[]> catalog = randomCatalog(400);
+        when(productRepository.findSimilarityProfiles()).thenReturn(new ArrayList<>(catalog.values()));
+        productSimilarityIndex.rebuild();
+
+        List<UUID> ids = new ArrayList<>(catalog.keySet());
+        List<Object[]> refreshedRows = new ArrayList<>();
+        for (UUID changedId : ids.subList(0, 15)) {
+            Object[] row = randomRow(changedId);
+            catalog.put(changedId, row);
+            refreshedRows.add(row);
+            productSimilarityIndex.refreshAfterCommit(changedId);
+        }
+        for (UUID deactivatedId : ids.subList(15, 25)) {
+            catalog.remove(deactivatedId);
+            productSimilarityIndex.refreshAfterCommit(deactivatedId);
+        }
+        for (int i = 0; i < 10; i++) {
+            Object[] row = randomRow(UUID.randomUUID());
+            catalog.put((UUID) row[0], row);
+            refreshedRows.add(row);
+            productSimilarityIndex.refreshAfterCommit((UUID) row[0]);
+        }
+        when(productRepository.findSimilarityProfilesByIdIn(any())).thenReturn(refreshedRows);
+
+        productSimilarityIndex.applyPendingRefreshes();
+
+        assertMatchesFullScan(catalog, NEIGHBORS);
+    }
+
+    @Test
+    void findSimilar_BeyondStoredNeighbors_ShouldScanProfiles() {
+        Map<UUID, Object[]> catalog = randomCatalog(300);
+        when(productRepository.findSimilarityProfiles()).thenReturn(new ArrayList<>(catalog.values()));
+        productSimilarityIndex.rebuild();
+
+        assertMatchesFullScan(catalog, NEIGHBORS * 5);
+    }
+
+    @Test
+    void findSimilar_ForProductNotYetIndexed_ShouldScoreAgainstCatalog() {
+        Map<UUID, Object[]> catalog = randomCatalog(200);
+        when(productRepository.findSimilarityProfiles()).thenReturn(new ArrayList<>(catalog.values()));
+        productSimilarityIndex.rebuild();
+
+        SimilarityProfile newcomer = profile(randomRow(UUID.randomUUID()));
+
+        assertThat(productSimilarityIndex.findSimilar(newcomer, NEIGHBORS))
+                .isEqualTo(fullScan(newcomer, catalog, NEIGHBORS));
+    }
+
+    @Test
+    void findSimilar_BeforeFirstRebuild_ShouldReturnEmpty() {
+        assertThat(productSimilarityIndex.findSimilar(profile(randomRow(UUID.randomUUID())), NEIGHBORS)).isEmpty();
+        verifyNoInteractions(productRepository);
+    }
+
+    private void assertMatchesFullScan(Map<UUID, Object[]> catalog, int limit) {
+        for (Object[] row : catalog.values()) {
+            SimilarityProfile target = profile(row);
+            assertThat(productSimilarityIndex.findSimilar(target, limit))
+                    .as("neighbors of %s", target.productId())
+                    .isEqualTo(fullScan(target, catalog, limit));
+        }
+    }
+
+    private static List<Neighbor> fullScan(SimilarityProfile target, Map<UUID, Object[]> catalog, int limit) {
+        ProductSimilarityScorer scorer = new ProductSimilarityScorer();
+        int[] targetFeatures = scorer.encode(target);
+        return catalog.values().stream()
+                .map(ProductSimilarityIndexTest::profile)
+                .filter(candidate -> !candidate.productId().equals(target.productId()))
+                .map(candidate -> new Neighbor(candidate.productId(),
+                        ProductSimilarityScorer.score(targetFeatures, scorer.encode(candidate))))
+                .filter(neighbor -> neighbor.score() > 0.0)
+                .sorted(Comparator.comparingDouble(Neighbor::score).reversed().thenComparing(Neighbor::productId))
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    private Map<UUID, Object[]> randomCatalog(int size) {
+        Map<UUID, Object[]> catalog = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            UUID productId = UUID.randomUUID();
+            catalog.put(productId, randomRow(productId));
+        }
+        return catalog;
+    }
+
+    private Object[] randomRow(UUID productId) {
+        UUID categoryId = categoryIds.get(random.nextInt(categoryIds.size()));
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("material", MATERIALS[random.nextInt(MATERIALS.length)]);
+        metadata.put("season", SEASONS[random.nextInt(SEASONS.length)]);
+        metadata.put("occasion", OCCASIONS[random.nextInt(OCCASIONS.length)]);
+        if (random.nextBoolean()) {
+            metadata.put("fit", FITS[random.nextInt(FITS.length)]);
+        }
+        return new Object[]{productId, GenderType.values()[random.nextInt(GenderType.values().length)], categoryId,
+                parentIds.get(categoryId), brandIds.get(random.nextInt(brandIds.size())), metadata};
+    }
+
+    private static SimilarityProfile profile(Object[] row) {
+        return SimilarityProfile.fromRow(row);
+    }
+}
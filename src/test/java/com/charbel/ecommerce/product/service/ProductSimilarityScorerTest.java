@@ -0,0 +1,188 @@
+package com.charbel.ecommerce.product.service;
+
+import com.charbel.ecommerce.common.enums.GenderType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductSimilarityScorerTest {
+
+    // Mixed case and values without an affinity rule, to cover the case-insensitive and fallback paths
+    private static final String[] MATERIALS = {"cotton", "COTTON", "Wool", "denim", null};
+    private static final String[] SEASONS = {"SPRING", "summer", "Fall", "WINTER", "ALL_SEASON", "all_season", "MONSOON", null};
+    private static final String[] OCCASIONS = {"CASUAL", "sport", "FORMAL", "Business", "PARTY", "WEDDING", "BEACH", null};
+    private static final String[] FITS = {"slim", "Slim", "regular", null};
+
+    private final Random random = new Random(7);
+
+    @Test
+    void score_ShouldMatchStringBasedScoringForEveryPair() {
+        List<UUID> roots = List.of(UUID.randomUUID(), UUID.randomUUID());
+        List<UUID> children = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+        List<UUID> brands = List.of(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+
+        List<SimilarityProfile> profiles = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            boolean leaf = random.nextInt(4) > 0;
+            UUID categoryId = leaf ? pick(children) : pick(roots);
+            UUID parentId = leaf ? roots.get(children.indexOf(categoryId) % roots.size()) : null;
+            profiles.add(new SimilarityProfile(UUID.randomUUID(),
+                    random.nextInt(6) == 0 ? null : GenderType.values()[random.nextInt(GenderType.values().length)],
+                    random.nextInt(10) == 0 ? null : categoryId, parentId,
+                    random.nextInt(5) == 0 ? null : pick(brands), pick(MATERIALS), pick(SEASONS), pick(OCCASIONS),
+                    pick(FITS)));
+        }
+
+        ProductSimilarityScorer scorer = new ProductSimilarityScorer();
+        List<int[]> features = profiles.stream().map(scorer::encode).toList();
+
+        for (int i = 0; i < profiles.size(); i++) {
+            for (int j = 0; j < profiles.size(); j++) {
+                assertThat(ProductSimilarityScorer.score(features.get(i), features.get(j)))
+                        .as("%s vs %s", profiles.get(i), profiles.get(j))
+                        .isEqualTo(referenceScore(profiles.get(i), profiles.get(j)));
+            }
+        }
+    }
+
+    @Test
+    void encode_ShouldIgnoreCase() {
+        ProductSimilarityScorer scorer = new ProductSimilarityScorer();
+        UUID categoryId = UUID.randomUUID();
+
+        int[] upper = scorer.encode(new SimilarityProfile(UUID.randomUUID(), GenderType.MEN, categoryId, null, null,
+                "COTTON", "SUMMER", "CASUAL", "SLIM"));
+        int[] lower = scorer.encode(new SimilarityProfile(UUID.randomUUID(), GenderType.MEN, categoryId, null, null,
+                "cotton", "summer", "casual", "slim"));
+
+        assertThat(lower).isEqualTo(upper);
+    }
+
+    private <T> T pick(T[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private <T> T pick(List<T> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    // The original string-based scoring, kept as the reference the encoded scorer must agree with
+    private static double referenceScore(SimilarityProfile target, SimilarityProfile candidate) {
+        double totalScore = 0.0;
+
+        totalScore += genderSimilarity(target, candidate) * 0.25;
+        totalScore += categorySimilarity(target, candidate) * 0.20;
+        totalScore += brandSimilarity(target, candidate) * 0.15;
+
+        totalScore += attributeSimilarity(target.material(), candidate.material()) * 0.15;
+        totalScore += seasonSimilarity(target.season(), candidate.season()) * 0.10;
+        totalScore += occasionSimilarity(target.occasion(), candidate.occasion()) * 0.10;
+        totalScore += attributeSimilarity(target.fit(), candidate.fit()) * 0.05;
+
+        totalScore = Math.min(1.0, Math.max(0.0, totalScore));
+
+        return Math.round(totalScore * 100.0) / 100.0;
+    }
+
+    private static double genderSimilarity(SimilarityProfile target, SimilarityProfile candidate) {
+        if (target.gender() == candidate.gender()) {
+            return 1.0;
+        }
+
+        // UNISEX products are somewhat similar to any gender
+        if (target.gender() == GenderType.UNISEX || candidate.gender() == GenderType.UNISEX) {
+            return 0.5;
+        }
+
+        return 0.0;
+    }
+
+    private static double categorySimilarity(SimilarityProfile target, SimilarityProfile candidate) {
+        if (target.categoryId() != null && target.categoryId().equals(candidate.categoryId())) {
+            return 1.0;
+        }
+
+        // Same parent category
+        if (target.parentCategoryId() != null && target.parentCategoryId().equals(candidate.parentCategoryId())) {
+            return 0.6;
+        }
+
+        // One is the parent of the other
+        if ((target.parentCategoryId() != null && target.parentCategoryId().equals(candidate.categoryId()))
+                || (candidate.parentCategoryId() != null && candidate.parentCategoryId().equals(target.categoryId()))) {
+            return 0.4;
+        }
+
+        return 0.0;
+    }
+
+    private static double brandSimilarity(SimilarityProfile target, SimilarityProfile candidate) {
+        return target.brandId() != null && target.brandId().equals(candidate.brandId()) ? 1.0 : 0.0;
+    }
+
+    private static double attributeSimilarity(String target, String candidate) {
+        return target != null && candidate != null && target.equalsIgnoreCase(candidate) ? 1.0 : 0.0;
+    }
+
+    private static double seasonSimilarity(String season1, String season2) {
+        if (season1 == null || season2 == null) {
+            return 0.0;
+        }
+        if (season1.equalsIgnoreCase(season2)) {
+            return 1.0;
+        }
+
+        // ALL_SEASON is somewhat compatible with everything
+        if ("ALL_SEASON".equalsIgnoreCase(season1) || "ALL_SEASON".equalsIgnoreCase(season2)) {
+            return 0.3;
+        }
+
+        // Spring and Summer are somewhat similar (warmer weather)
+        if (("SPRING".equalsIgnoreCase(season1) && "SUMMER".equalsIgnoreCase(season2))
+                || ("SUMMER".equalsIgnoreCase(season1) && "SPRING".equalsIgnoreCase(season2))) {
+            return 0.4;
+        }
+
+        // Fall and Winter are somewhat similar (cooler weather)
+        if (("FALL".equalsIgnoreCase(season1) && "WINTER".equalsIgnoreCase(season2))
+                || ("WINTER".equalsIgnoreCase(season1) && "FALL".equalsIgnoreCase(season2))) {
+            return 0.4;
+        }
+
+        return 0.0;
+    }
+
+    private static double occasionSimilarity(String occasion1, String occasion2) {
+        if (occasion1 == null || occasion2 == null) {
+            return 0.0;
+        }
+        if (occasion1.equalsIgnoreCase(occasion2)) {
+            return 1.0;
+        }
+
+        // CASUAL is somewhat compatible with SPORT
+        if (("CASUAL".equalsIgnoreCase(occasion1) && "SPORT".equalsIgnoreCase(occasion2))
+                || ("SPORT".equalsIgnoreCase(occasion1) && "CASUAL".equalsIgnoreCase(occasion2))) {
+            return 0.3;
+        }
+
+        // FORMAL and BUSINESS are somewhat similar
+        if (("FORMAL".equalsIgnoreCase(occasion1) && "BUSINESS".equalsIgnoreCase(occasion2))
+                || ("BUSINESS".equalsIgnoreCase(occasion1) && "FORMAL".equalsIgnoreCase(occasion2))) {
+            return 0.5;
+        }
+
+        // PARTY and FORMAL have some overlap
+        if (("PARTY".equalsIgnoreCase(occasion1) && "FORMAL".equalsIgnoreCase(occasion2))
+                || ("FORMAL".equalsIgnoreCase(occasion1) && "PARTY".equalsIgnoreCase(occasion2))) {
+            return 0.3;
+        }
+
+        return 0.0;
+    }
+}
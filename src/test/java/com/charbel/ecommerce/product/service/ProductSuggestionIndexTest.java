@@ -0,0 +1,177 @@
+package com.charbel.ecommerce.product.service;
+
+import com.charbel.ecommerce.common.enums.SuggestionType;
+import com.charbel.ecommerce.product.repository.ProductRepository;
+import com.charbel.ecommerce.product.service.ProductSuggestionIndex.Suggestion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProductSuggestionIndexTest {
+
+    private static final String[] WORDS = {"linen", "shirt", "shorts", "silk", "slim", "sweater", "wool", "coat",
+            "cotton", "collar", "denim", "jacket"};
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @InjectMocks
+    private ProductSuggestionIndex productSuggestionIndex;
+
+    private final Random random = new Random(42);
+
+    private final UUID acmeId = UUID.randomUUID();
+    private final UUID shirtsId = UUID.randomUUID();
+
+    @Test
+    void suggest_ShouldMatchWordStartsMostPopularFirst() {
+        Object[] linenShirt = row("Linen Shirt", 5L, acmeId, "acme", "Acme", shirtsId, "shirts", "Shirts");
+        Object[] silkShirt = row("Silk Shirt", 1L, acmeId, "acme", "Acme", shirtsId, "shirts", "Shirts");
+        Object[] shorts = row("Cargo Shorts", 2L, acmeId, "acme", "Acme", null, null, null);
+        when(productRepository.findSuggestionRows()).thenReturn(List.of(linenShirt, silkShirt, shorts));
+        // Ordered units count towards popularity, so the silk shirt overtakes the linen one
+        when(productRepository.findOrderedQuantities())
+                .thenReturn(List.<Object[]>of(new Object[]{silkShirt[0], 10L}));
+        productSuggestionIndex.rebuild();
+
+        assertThat(texts(productSuggestionIndex.suggest("sh", 10)))
+                .containsExactly("Shirts", "Silk Shirt", "Linen Shirt", "Cargo Shorts");
+        assertThat(texts(productSuggestionIndex.suggest("LINEN sh", 10))).containsExactly("Linen Shirt");
+        assertThat(texts(productSuggestionIndex.suggest("sh", 2))).containsExactly("Shirts", "Silk Shirt");
+        assertThat(productSuggestionIndex.suggest("shirtz", 10)).isEmpty();
+        assertThat(productSuggestionIndex.suggest(" ", 10)).isEmpty();
+    }
+
+    @Test
+    void suggest_ShouldSumBrandAndCategoryPopularityAndSuggestSameNamesOnce() {
+        UUID globexId = UUID.randomUUID();
+        UUID coatsId = UUID.randomUUID();
+        Object[] popular = row("Wool Coat", 7L, acmeId, "acme", "Acme", coatsId, "coats", "Coats");
+        Object[] sameName = row("wool coat", 3L, globexId, "globex", "Coatwear", coatsId, "coats", "Coats");
+        when(productRepository.findSuggestionRows()).thenReturn(List.of(popular, sameName));
+        when(productRepository.findOrderedQuantities()).thenReturn(List.of());
+        productSuggestionIndex.rebuild();
+
+        List<Suggestion> suggestions = productSuggestionIndex.suggest("coat", 10);
+
+        assertThat(suggestions).extracting(Suggestion::type)
+                .containsExactly(SuggestionType.CATEGORY, SuggestionType.PRODUCT, SuggestionType.BRAND);
+        assertThat(suggestions.get(0).popularity()).isEqualTo(10L);
+        assertThat(suggestions.get(0).slug()).isEqualTo("coats");
+        assertThat(suggestions.get(1).id()).isEqualTo(popular[0]);
+        assertThat(suggestions.get(2).slug()).isEqualTo("globex");
+    }
+
+    @Test
+    void suggest_ShouldMatchRankedScanOfEveryWordStart() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int p = 0; p < 400; p++) {
+            UUID brandId = UUID.randomUUID();
+            rows.add(row(words(1 + random.nextInt(4)), (long) random.nextInt(50), brandId, "brand-" + p,
+                    words(1), null, null, null));
+        }
+        when(productRepository.findSuggestionRows()).thenReturn(rows);
+        when(productRepository.findOrderedQuantities()).thenReturn(List.of());
+        productSuggestionIndex.rebuild();
+        List<Suggestion> expected = suggestions(rows);
+
+        for (int i = 0; i < 200; i++) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            String prefix = random.nextBoolean() ? word.substring(0, 1 + random.nextInt(word.length()))
+                    : WORDS[random.nextInt(WORDS.length)] + " " + word.substring(0, 1 + random.nextInt(word.length()));
+            int limit = 1 + random.nextInt(15);
+
+            List<Suggestion> suggestions = productSuggestionIndex.suggest(prefix, limit);
+
+            assertThat(suggestions).as("suggestions for '%s'", prefix).isEqualTo(scan(expected, prefix, limit));
+        }
+    }
+
+    @Test
+    void rebuild_ShouldSwapInNewCatalogAndKeepServingTheOldOneOnFailure() {
+        when(productRepository.findOrderedQuantities()).thenReturn(List.of());
+        when(productRepository.findSuggestionRows())
+                .thenReturn(List.<Object[]>of(row("Denim Jacket", 1L, acmeId, "acme", "Acme", null, null, null)))
+                .thenReturn(List.<Object[]>of(row("Denim Jeans", 1L, acmeId, "acme", "Acme", null, null, null)))
+                .thenThrow(new IllegalStateException("database unavailable"));
+
+        productSuggestionIndex.rebuild();
+        assertThat(texts(productSuggestionIndex.suggest("den", 10))).containsExactly("Denim Jacket");
+        productSuggestionIndex.rebuild();
+        assertThat(texts(productSuggestionIndex.suggest("den", 10))).containsExactly("Denim Jeans");
+
+        assertThatThrownBy(() -> productSuggestionIndex.rebuild()).isInstanceOf(IllegalStateException.class);
+        assertThat(texts(productSuggestionIndex.suggest("den", 10))).containsExactly("Denim Jeans");
+    }
+
+    // What the index should hold for rows without ordered units: products by name, brands summed
+    private static List<Suggestion> suggestions(List<Object[]> rows) {
+        List<Suggestion> suggestions = new ArrayList<>();
+        for (Object[] row : rows) {
+            Suggestion product = new Suggestion(SuggestionType.PRODUCT, (UUID) row[0], null, (String) row[1],
+                    (Long) row[2]);
+            String key = String.join(" ", ProductSearchIndex.tokenize(product.text()));
+            Suggestion sameName = suggestions.stream().filter(s -> s.type() == SuggestionType.PRODUCT
+                    && String.join(" ", ProductSearchIndex.tokenize(s.text())).equals(key)).findFirst().orElse(null);
+            if (sameName == null) {
+                suggestions.add(product);
+            } else if (rank().compare(product, sameName) < 0) {
+                suggestions.set(suggestions.indexOf(sameName), product);
+            }
+            suggestions.add(new Suggestion(SuggestionType.BRAND, (UUID) row[3], (String) row[4], (String) row[5],
+                    (Long) row[2]));
+        }
+        return suggestions;
+    }
+
+    // Every suggestion with a run of words starting with the prefix, best first
+    private static List<Suggestion> scan(List<Suggestion> suggestions, String prefix, int limit) {
+        String key = String.join(" ", ProductSearchIndex.tokenize(prefix));
+        return suggestions.stream().filter(suggestion -> {
+            List<String> words = ProductSearchIndex.tokenize(suggestion.text());
+            for (int w = 0; w < words.size(); w++) {
+                if (String.join(" ", words.subList(w, words.size())).startsWith(key)) {
+                    return true;
+                }
+            }
+            return false;
+        }).sorted(rank()).limit(limit).collect(Collectors.toList());
+    }
+
+    private static Comparator<Suggestion> rank() {
+        return Comparator.comparingLong(Suggestion::popularity).reversed().thenComparing(Suggestion::text)
+                .thenComparing(Suggestion::type).thenComparing(Suggestion::id);
+    }
+
+    private static List<String> texts(List<Suggestion> suggestions) {
+        return suggestions.stream().map(Suggestion::text).collect(Collectors.toList());
+    }
+
+    private String words(int count) {
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            words.add(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return String.join(" ", words);
+    }
+
+    private static Object[] row(String name, Long reviewCount, UUID brandId, String brandSlug, String brandName,
+            UUID categoryId, String categorySlug, String categoryName) {
+        return new Object[]{UUID.randomUUID(), name, reviewCount, brandId, brandSlug, brandName, categoryId,
+                categorySlug, categoryName};
+    }
+}
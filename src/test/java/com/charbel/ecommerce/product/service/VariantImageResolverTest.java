@@ -0,0 +1,77 @@
+package com.charbel.ecommerce.product.service;
+
+import com.charbel.ecommerce.product.dto.ProductImageResponse;
+import com.charbel.ecommerce.product.entity.Product;
+import com.charbel.ecommerce.product.entity.ProductImage;
+import com.charbel.ecommerce.product.entity.ProductVariant;
+import com.charbel.ecommerce.product.repository.ProductImageRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class VariantImageResolverTest {
+
+    @Mock
+    private ProductImageRepository productImageRepository;
+
+    @InjectMocks
+    private VariantImageResolver variantImageResolver;
+
+    private final Product product = Product.builder().id(UUID.randomUUID()).name("Shirt").build();
+    private final ProductVariant withImages = ProductVariant.builder().id(UUID.randomUUID()).product(product).build();
+    private final ProductVariant withoutImages = ProductVariant.builder().id(UUID.randomUUID()).product(product).build();
+
+    @Test
+    void resolve_ShouldPreferVariantImagesAndFallBackToProductImages() {
+        ProductImage secondary = image(withImages.getId(), "variant-b.jpg", false, 0);
+        ProductImage primary = image(withImages.getId(), "variant-a.jpg", true, 5);
+        ProductImage shared = image(null, "product.jpg", true, 0);
+        when(productImageRepository.findByVariantIdIn(any())).thenReturn(List.of(secondary, primary));
+        when(productImageRepository.findByProductIdInAndVariantIdIsNull(Set.of(product.getId())))
+                .thenReturn(List.of(shared));
+
+        Map<UUID, List<ProductImageResponse>> images = variantImageResolver
+                .resolve(List.of(withImages, withoutImages, withImages));
+
+        assertThat(images.get(withImages.getId())).extracting(ProductImageResponse::getImageUrl)
+                .containsExactly("variant-a.jpg", "variant-b.jpg");
+        assertThat(images.get(withoutImages.getId())).extracting(ProductImageResponse::getImageUrl)
+                .containsExactly("product.jpg");
+        verify(productImageRepository, times(1)).findByVariantIdIn(any());
+        verify(productImageRepository, times(1)).findByProductIdInAndVariantIdIsNull(any());
+    }
+
+    @Test
+    void resolve_WhenEveryVariantHasImages_ShouldSkipProductLookup() {
+        when(productImageRepository.findByVariantIdIn(any()))
+                .thenReturn(List.of(image(withImages.getId(), "variant.jpg", true, 0)));
+
+        Map<UUID, List<ProductImageResponse>> images = variantImageResolver.resolve(List.of(withImages));
+
+        assertThat(images.get(withImages.getId())).hasSize(1);
+        verify(productImageRepository, never()).findByProductIdInAndVariantIdIsNull(any());
+    }
+
+    @Test
+    void resolve_WithNoVariants_ShouldNotQuery() {
+        assertThat(variantImageResolver.resolve(List.of())).isEmpty();
+        verifyNoInteractions(productImageRepository);
+    }
+
+    private ProductImage image(UUID variantId, String url, boolean primary, int sortOrder) {
+        return ProductImage.builder().id(UUID.randomUUID()).productId(product.getId()).variantId(variantId)
+                .imageUrl(url).isPrimary(primary).sortOrder(sortOrder).build();
+    }
+}
@@ -0,0 +1,222 @@
+package com.charbel.ecommerce.review.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.charbel.ecommerce.brand.entity.Brand;
+import com.charbel.ecommerce.brand.repository.BrandRepository;
+import com.charbel.ecommerce.category.entity.Category;
+import com.charbel.ecommerce.category.repository.CategoryRepository;
+import com.charbel.ecommerce.common.enums.GenderType;
+import com.charbel.ecommerce.product.entity.Product;
+import com.charbel.ecommerce.product.repository.ProductRepository;
+import com.charbel.ecommerce.review.entity.ProductRatingStats;
+import com.charbel.ecommerce.review.entity.Review;
+import com.charbel.ecommerce.user.entity.User;
+import com.charbel.ecommerce.user.repository.UserRepository;
+
+@DataJpaTest
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("ProductRatingStatsRepository Tests")
+class ProductRatingStatsRepositoryTest {
+
+	private static final int WRITERS = 200;
+	private static final int FEW_REVIEWS = 20;
+	private static final int MANY_REVIEWS = 20_000;
+	private static final int READS = 500;
+
+	@Container
+	static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15").withDatabaseName("testdb")
+			.withUsername("test").withPassword("test");
+
+	@DynamicPropertySource
+	static void configureProperties(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", postgres::getJdbcUrl);
+		registry.add("spring.datasource.username", postgres::getUsername);
+		registry.add("spring.datasource.password", postgres::getPassword);
+	}
+
+	@Autowired
+	private ProductRatingStatsRepository productRatingStatsRepository;
+
+	@Autowired
+	private ReviewRepository reviewRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private BrandRepository brandRepository;
+
+	@Autowired
+	private CategoryRepository categoryRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private Product product;
+
+	@BeforeEach
+	void setUp() {
+		productRatingStatsRepository.deleteAll();
+		reviewRepository.deleteAll();
+		productRepository.deleteAll();
+		userRepository.deleteAll();
+		brandRepository.deleteAll();
+		categoryRepository.deleteAll();
+
+		Brand brand = brandRepository.save(Brand.builder().name("Test Brand").slug("test-brand").build());
+		Category category = categoryRepository.save(Category.builder().name("Shirts").slug("shirts").build());
+		product = productRepository.save(Product.builder().name("Popular Shirt").basePrice(new BigDecimal("19.99"))
+				.brandId(brand.getId()).categoryId(category.getId()).gender(GenderType.UNISEX).build());
+	}
+
+	@Test
+	@DisplayName("Should count existing reviews only when the product has no histogram yet")
+	void shouldCreateHistogramFromReviewsOnce() {
+		review("first@example.com", 5);
+		review("second@example.com", 4);
+		Review deleted = review("third@example.com", 1);
+		deleted.softDelete();
+		reviewRepository.save(deleted);
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+		transactionTemplate.execute(status -> productRatingStatsRepository.createIfAbsent(product.getId()));
+		review("fourth@example.com", 2);
+		transactionTemplate.execute(status -> productRatingStatsRepository.createIfAbsent(product.getId()));
+
+		ProductRatingStats stats = productRatingStatsRepository.findById(product.getId()).orElseThrow();
+		assertThat(stats.histogram()).containsExactly(0, 0, 0, 1, 1);
+		assertThat(stats.reviewCount()).isEqualTo(2);
+		assertThat(stats.averageRating()).isEqualByComparingTo("4.5");
+	}
+
+	@Test
+	@DisplayName("Should not lose rating changes under concurrent review writes")
+	void shouldApplyConcurrentRatingChanges() throws Exception {
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+		transactionTemplate.execute(status -> productRatingStatsRepository.createIfAbsent(product.getId()));
+		ExecutorService executor = Executors.newFixedThreadPool(32);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> results = new ArrayList<>();
+
+		// Every writer adds a five-star review, and every other one then changes it to three stars
+		for (int i = 0; i < WRITERS; i++) {
+			boolean downgrade = i % 2 == 0;
+			results.add(executor.submit(() -> {
+				start.await();
+				return transactionTemplate.execute(status -> {
+					productRatingStatsRepository.moveRating(product.getId(), 0, 5);
+					if (downgrade) {
+						productRatingStatsRepository.moveRating(product.getId(), 5, 3);
+					}
+					return productRatingStatsRepository.copyToProduct(product.getId());
+				});
+			}));
+		}
+
+		start.countDown();
+		for (Future<?> result : results) {
+			result.get(30, TimeUnit.SECONDS);
+		}
+		executor.shutdown();
+
+		ProductRatingStats stats = productRatingStatsRepository.findById(product.getId()).orElseThrow();
+		assertThat(stats.histogram()).containsExactly(0, 0, WRITERS / 2, 0, WRITERS / 2);
+		Product updated = productRepository.findById(product.getId()).orElseThrow();
+		assertThat(updated.getReviewCount()).isEqualTo(WRITERS);
+		assertThat(updated.getAverageRating()).isEqualByComparingTo("4.0");
+	}
+
+	@Test
+	@DisplayName("Should read a product's histogram as fast with 20,000 reviews as with 20")
+	void shouldReadHistogramInTimeIndependentOfReviewCount() {
+		Product niche = productRepository.save(Product.builder().name("Niche Shirt").basePrice(new BigDecimal("19.99"))
+				.brandId(product.getBrandId()).categoryId(product.getCategoryId()).gender(GenderType.UNISEX).build());
+		seedReviews(niche.getId(), FEW_REVIEWS);
+		seedReviews(product.getId(), MANY_REVIEWS);
+		TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+		transactionTemplate.execute(status -> productRatingStatsRepository.createIfAbsent(niche.getId()));
+		transactionTemplate.execute(status -> productRatingStatsRepository.createIfAbsent(product.getId()));
+
+		ProductRatingStats stats = productRatingStatsRepository.findCurrent(product.getId()).orElseThrow();
+		assertThat(stats.histogram()).containsExactly(ProductRatingStats
+				.fromDistribution(product.getId(), reviewRepository.findRatingDistributionByProductId(product.getId()))
+				.histogram());
+		assertThat(stats.reviewCount()).isEqualTo(MANY_REVIEWS);
+
+		// Warm up both, so the measured rounds compare the queries rather than connection and JIT warmup
+		medianReadNanos(niche.getId());
+		medianReadNanos(product.getId());
+		long few = medianReadNanos(niche.getId());
+		long many = medianReadNanos(product.getId());
+
+		assertThat(many).as("median read with %d reviews vs %d ns with %d", MANY_REVIEWS, few, FEW_REVIEWS)
+				.isLessThan(2 * few + 500_000);
+	}
+
+	private long medianReadNanos(UUID productId) {
+		long[] nanos = new long[READS];
+		for (int i = 0; i < READS; i++) {
+			long startedAt = System.nanoTime();
+			productRatingStatsRepository.findCurrent(productId).orElseThrow();
+			nanos[i] = System.nanoTime() - startedAt;
+		}
+		Arrays.sort(nanos);
+		return nanos[READS / 2];
+	}
+
+	// One review each from as many new customers, with ratings cycling through one to five stars
+	private void seedReviews(UUID productId, int count) {
+		jdbcTemplate.update("INSERT INTO users (id, email, password_hash, first_name, last_name, role, created_at, "
+				+ "updated_at, is_deleted) SELECT gen_random_uuid(), ? || g || '@example.com', 'hash', 'Jane', 'Doe', "
+				+ "'CUSTOMER', now(), now(), false FROM generate_series(1, ?) g", productId.toString(), count);
+		jdbcTemplate.update("INSERT INTO reviews (id, product_id, user_id, rating, is_verified_purchase, helpful_count, "
+				+ "created_at, updated_at, is_deleted) SELECT gen_random_uuid(), ?, u.id, 1 + (row_number() OVER () % 5), "
+				+ "false, 0, now(), now(), false FROM users u WHERE u.email LIKE ? || '%'", productId,
+				productId.toString());
+	}
+
+	private Review review(String email, int rating) {
+		User user = userRepository.save(User.builder().email(email).passwordHash("hashedPassword").firstName("Jane")
+				.lastName("Doe").role(User.UserRole.CUSTOMER).build());
+		return reviewRepository.save(Review.builder().product(product).user(user).rating(rating).build());
+	}
+}
@@ -0,0 +1,179 @@
+package com.charbel.ecommerce.review.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.charbel.ecommerce.brand.entity.Brand;
+import com.charbel.ecommerce.brand.repository.BrandRepository;
+import com.charbel.ecommerce.category.entity.Category;
+import com.charbel.ecommerce.category.repository.CategoryRepository;
+import com.charbel.ecommerce.common.enums.GenderType;
+import com.charbel.ecommerce.product.entity.Product;
+import com.charbel.ecommerce.product.repository.ProductRepository;
+import com.charbel.ecommerce.review.entity.Review;
+import com.charbel.ecommerce.review.entity.ReviewHelpfulVote;
+import com.charbel.ecommerce.user.entity.User;
+import com.charbel.ecommerce.user.repository.UserRepository;
+
+@DataJpaTest
+@Testcontainers
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("ReviewHelpfulVoteRepository Tests")
+class ReviewHelpfulVoteRepositoryTest {
+
+	private static final int THREADS = 50;
+
+	@Container
+	static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15").withDatabaseName("testdb")
+			.withUsername("test").withPassword("test");
+
+	@DynamicPropertySource
+	static void configureProperties(DynamicPropertyRegistry registry) {
+		registry.add("spring.datasource.url", postgres::getJdbcUrl);
+		registry.add("spring.datasource.username", postgres::getUsername);
+		registry.add("spring.datasource.password", postgres::getPassword);
+	}
+
+	@Autowired
+	private ReviewHelpfulVoteRepository reviewHelpfulVoteRepository;
+
+	@Autowired
+	private ReviewRepository reviewRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private BrandRepository brandRepository;
+
+	@Autowired
+	private CategoryRepository categoryRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private Product product;
+	private User voter;
+
+	@BeforeEach
+	void setUp() {
+		reviewHelpfulVoteRepository.deleteAll();
+		reviewRepository.deleteAll();
+		productRepository.deleteAll();
+		userRepository.deleteAll();
+		brandRepository.deleteAll();
+		categoryRepository.deleteAll();
+
+		Brand brand = brandRepository.save(Brand.builder().name("Test Brand").slug("test-brand").build());
+		Category category = categoryRepository.save(Category.builder().name("Shirts").slug("shirts").build());
+		product = productRepository.save(Product.builder().name("Popular Shirt").basePrice(new BigDecimal("19.99"))
+				.brandId(brand.getId()).categoryId(category.getId()).gender(GenderType.UNISEX).build());
+		voter = user("voter@example.com");
+	}
+
+	@Test
+	@DisplayName("Should find the user's live votes among the given reviews in one query")
+	void shouldFindVotedReviewIds() {
+		Review voted = review("first@example.com");
+		Review notVoted = review("second@example.com");
+		Review votedOffPage = review("third@example.com");
+		Review votedThenDeleted = review("fourth@example.com");
+		Review votedByOther = review("fifth@example.com");
+		vote(voted, voter);
+		vote(votedOffPage, voter);
+		vote(votedThenDeleted, voter);
+		new TransactionTemplate(transactionManager).executeWithoutResult(
+				status -> reviewHelpfulVoteRepository.deleteByReviewId(votedThenDeleted.getId()));
+		vote(votedByOther, user("other@example.com"));
+
+		assertThat(reviewHelpfulVoteRepository.findVotedReviewIds(voter.getId(),
+				List.of(voted.getId(), notVoted.getId(), votedThenDeleted.getId(), votedByOther.getId())))
+				.containsExactly(voted.getId());
+	}
+
+	@Test
+	@DisplayName("Should record exactly one of many concurrent votes by the same user")
+	void shouldRecordConcurrentDuplicateVotesOnce() throws Exception {
+		Review review = review("author@example.com");
+
+		List<Integer> inserted = concurrently(() -> reviewHelpfulVoteRepository.insertIfAbsent(review.getId(),
+				voter.getId()));
+
+		assertThat(inserted.stream().mapToInt(Integer::intValue).sum()).isEqualTo(1);
+		assertThat(reviewHelpfulVoteRepository.count()).isEqualTo(1);
+	}
+
+	@Test
+	@DisplayName("Should not lose helpful count increments under concurrent writers")
+	void shouldAddConcurrentHelpfulCountIncrements() throws Exception {
+		Review review = review("author@example.com");
+
+		concurrently(() -> reviewRepository.addHelpfulCount(review.getId(), 2));
+
+		assertThat(reviewRepository.findById(review.getId()).orElseThrow().getHelpfulCount()).isEqualTo(2 * THREADS);
+	}
+
+	private List<Integer> concurrently(Callable<Integer> task) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Integer>> futures = new ArrayList<>();
+		for (int i = 0; i < THREADS; i++) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				return task.call();
+			}));
+		}
+
+		start.countDown();
+		List<Integer> results = new ArrayList<>();
+		for (Future<Integer> future : futures) {
+			results.add(future.get(30, TimeUnit.SECONDS));
+		}
+		executor.shutdown();
+		return results;
+	}
+
+	private User user(String email) {
+		return userRepository.save(User.builder().email(email).passwordHash("hashedPassword").firstName("Jane")
+				.lastName("Doe").role(User.UserRole.CUSTOMER).build());
+	}
+
+	private Review review(String email) {
+		return reviewRepository.save(Review.builder().product(product).user(user(email)).rating(5).build());
+	}
+
+	private void vote(Review review, User user) {
+		reviewHelpfulVoteRepository.save(ReviewHelpfulVote.builder().review(review).user(user).build());
+	}
+}
@@ -0,0 +1,62 @@
+package com.charbel.ecommerce.review.service;
+
+import com.charbel.ecommerce.review.repository.ReviewRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReviewHelpfulCounterTest {
+
+    @Mock
+    private ReviewRepository reviewRepository;
+
+    @InjectMocks
+    private ReviewHelpfulCounter reviewHelpfulCounter;
+
+    @Test
+    void flush_ShouldWriteEachReviewsBurstOfVotesAsOneIncrement() {
+        UUID viral = UUID.randomUUID();
+        UUID quiet = UUID.randomUUID();
+        for (int i = 0; i < 500; i++) {
+            reviewHelpfulCounter.incrementAfterCommit(viral);
+        }
+        reviewHelpfulCounter.incrementAfterCommit(quiet);
+
+        reviewHelpfulCounter.flush();
+        reviewHelpfulCounter.flush();
+
+        verify(reviewRepository).addHelpfulCount(viral, 500);
+        verify(reviewRepository).addHelpfulCount(quiet, 1);
+        verifyNoMoreInteractions(reviewRepository);
+        assertThat(reviewHelpfulCounter.pendingDelta(viral)).isZero();
+    }
+
+    @Test
+    void flush_FailedWrite_ShouldKeepDeltaForNextFlushAndFlushTheRest() {
+        UUID reviewId = UUID.randomUUID();
+        UUID otherReviewId = UUID.randomUUID();
+        reviewHelpfulCounter.incrementAfterCommit(reviewId);
+        reviewHelpfulCounter.incrementAfterCommit(reviewId);
+        reviewHelpfulCounter.incrementAfterCommit(otherReviewId);
+        lenient().when(reviewRepository.addHelpfulCount(reviewId, 2)).thenThrow(new QueryTimeoutException("timed out"));
+
+        reviewHelpfulCounter.flush();
+        verify(reviewRepository).addHelpfulCount(otherReviewId, 1);
+        assertThat(reviewHelpfulCounter.pendingDelta(otherReviewId)).isZero();
+        reviewHelpfulCounter.incrementAfterCommit(reviewId);
+
+        assertThat(reviewHelpfulCounter.pendingDelta(reviewId)).isEqualTo(3);
+        reset(reviewRepository);
+        reviewHelpfulCounter.flush();
+        verify(reviewRepository).addHelpfulCount(reviewId, 3);
+    }
+}
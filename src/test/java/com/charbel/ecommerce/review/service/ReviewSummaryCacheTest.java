@@ -0,0 +1,130 @@
+package com.charbel.ecommerce.review.service;
+
+import com.charbel.ecommerce.review.entity.ProductRatingStats;
+import com.charbel.ecommerce.review.service.ReviewSummaryCache.Summary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReviewSummaryCacheTest {
+
+    private static final UUID PRODUCT_ID = UUID.randomUUID();
+
+    private SimpleMeterRegistry meterRegistry;
+    private ReviewSummaryCache reviewSummaryCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        reviewSummaryCache = new ReviewSummaryCache(meterRegistry, 60_000L, 2);
+    }
+
+    @Test
+    void get_ShouldLoadOnceAndServeHitsFromCache() {
+        AtomicInteger loads = new AtomicInteger();
+        Summary loaded = summary(3, 0, 0, 1, 2, 1);
+
+        reviewSummaryCache.get(PRODUCT_ID, () -> {
+            loads.incrementAndGet();
+            return loaded;
+        });
+        Summary second = reviewSummaryCache.get(PRODUCT_ID, () -> {
+            loads.incrementAndGet();
+            return loaded;
+        });
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(second).isSameAs(loaded);
+        assertThat(requests("hit")).isEqualTo(1.0);
+        assertThat(requests("miss")).isEqualTo(1.0);
+    }
+
+    @Test
+    void putAfterCommit_ShouldReplaceOlderSummaryButNotNewerOne() {
+        reviewSummaryCache.get(PRODUCT_ID, () -> summary(3, 0, 0, 0, 0, 1));
+
+        reviewSummaryCache.putAfterCommit(PRODUCT_ID, summary(4, 0, 0, 0, 1, 1));
+        // A load that read the histogram before the write committed must not win
+        reviewSummaryCache.putAfterCommit(PRODUCT_ID, summary(3, 0, 0, 0, 0, 1));
+
+        Summary cached = reviewSummaryCache.get(PRODUCT_ID, () -> summary(0, 0, 0, 0, 0, 0));
+        assertThat(cached.revision()).isEqualTo(4);
+        assertThat(cached.histogram()).containsExactly(0, 0, 0, 1, 1);
+    }
+
+    @Test
+    void get_LoadRacingAWrite_ShouldReturnTheWrittenSummary() {
+        Summary written = summary(7, 1, 0, 0, 0, 0);
+
+        Summary returned = reviewSummaryCache.get(PRODUCT_ID, () -> {
+            reviewSummaryCache.putAfterCommit(PRODUCT_ID, written);
+            return summary(6, 0, 0, 0, 0, 0);
+        });
+
+        assertThat(returned).isSameAs(written);
+    }
+
+    @Test
+    void get_OverMaxEntries_ShouldEvictLeastRecentlyUsed() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        reviewSummaryCache.get(first, () -> summary(1, 1, 0, 0, 0, 0));
+        reviewSummaryCache.get(second, () -> summary(1, 0, 1, 0, 0, 0));
+        reviewSummaryCache.get(first, () -> summary(1, 1, 0, 0, 0, 0));
+
+        reviewSummaryCache.get(third, () -> summary(1, 0, 0, 1, 0, 0));
+
+        assertThat(reviewSummaryCache.size()).isEqualTo(2);
+        assertThat(evictions("size")).isEqualTo(1.0);
+        AtomicInteger loads = new AtomicInteger();
+        reviewSummaryCache.get(second, () -> {
+            loads.incrementAndGet();
+            return summary(1, 0, 1, 0, 0, 0);
+        });
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void get_ExpiredEntry_ShouldReloadEvenAtAnOlderRevision() {
+        reviewSummaryCache = new ReviewSummaryCache(meterRegistry, 0L, 2);
+        reviewSummaryCache.get(PRODUCT_ID, () -> summary(5, 0, 0, 0, 0, 5));
+
+        Summary reloaded = reviewSummaryCache.get(PRODUCT_ID, () -> summary(-1, 0, 0, 0, 0, 4));
+
+        assertThat(reloaded.histogram()).containsExactly(0, 0, 0, 0, 4);
+        assertThat(evictions("expired")).isEqualTo(1.0);
+    }
+
+    @Test
+    void summary_ShouldDeriveCountAndRoundedAverageFromHistogram() {
+        ProductRatingStats stats = ProductRatingStats.fromDistribution(PRODUCT_ID,
+                List.of(new Object[]{1, 1L}, new Object[]{4, 2L}, new Object[]{5, 3L}));
+
+        Summary summary = Summary.of(stats);
+
+        assertThat(summary.revision()).isEqualTo(-1);
+        assertThat(summary.histogram()).containsExactly(1, 0, 0, 2, 3);
+        assertThat(summary.reviewCount()).isEqualTo(6);
+        assertThat(summary.averageRating()).isEqualByComparingTo("4.0");
+        assertThat(summary(0, 0, 0, 0, 0, 0).averageRating()).isNull();
+    }
+
+    private static Summary summary(long revision, int... histogram) {
+        return new Summary(revision, histogram);
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("review.summary.cache.requests").tag("result", result).counter().count();
+    }
+
+    private double evictions(String cause) {
+        return meterRegistry.get("review.summary.cache.evictions").tag("cause", cause).counter().count();
+    }
+}